@@ -0,0 +1,33 @@
+#!/bin/bash
+
+# =========================================================
+# Get the benchmark properties file
+BENCHMARK_PROPS=${1:-cfg/sim/benchmark/benchmark.properties}
+
+# =========================================================
+# Get the host
+if [ -z $HOST ]; then
+  HOST=$HOSTNAME
+fi
+
+# Default values
+LOG_CONFIG=log-config/log4j-oscer-config.xml
+MEMORYSIZE=4096M
+
+# =========================================================
+# Put all the jar files in the lib dir in the classpath
+CLASSPATH=leader.jar:./:lib/:data/:cfg/
+for jarFile in lib/*.jar; do
+	CLASSPATH=${jarFile}:$CLASSPATH
+done
+
+
+# =========================================================
+# Run every benchmark in a single JVM
+java -cp $CLASSPATH \
+        -Xmx$MEMORYSIZE \
+        -server \
+        -Dhostname=$HOST \
+        -Dlog4j.configuration=$LOG_CONFIG \
+        -Dbenchmark-properties=$BENCHMARK_PROPS \
+        edu.snu.leader.benchmark.BenchmarkRunner > benchmark.out
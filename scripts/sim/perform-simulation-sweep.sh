@@ -0,0 +1,33 @@
+#!/bin/bash
+
+# =========================================================
+# Get the sweep properties file
+SWEEP_PROPS=$1
+
+# =========================================================
+# Get the host
+if [ -z $HOST ]; then
+  HOST=$HOSTNAME
+fi
+
+# Default values
+LOG_CONFIG=log-config/log4j-oscer-config.xml
+MEMORYSIZE=4096M
+
+# =========================================================
+# Put all the jar files in the lib dir in the classpath
+CLASSPATH=leader.jar:./:lib/:data/:cfg/
+for jarFile in lib/*.jar; do
+	CLASSPATH=${jarFile}:$CLASSPATH
+done
+
+
+# =========================================================
+# Run every simulation in the sweep in a single JVM
+java -cp $CLASSPATH \
+        -Xmx$MEMORYSIZE \
+        -server \
+        -Dhostname=$HOST \
+        -Dlog4j.configuration=$LOG_CONFIG \
+        -Dsweep-properties=$SWEEP_PROPS \
+        edu.snu.leader.hidden.SimulationSweep > tmp.out
@@ -0,0 +1,219 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.util.LocationBuilder;
+import edu.snu.leader.util.MiscUtils;
+import org.apache.log4j.Logger;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * AbstractBenchmark
+ *
+ * A benchmark of a single operation of one of the simulators.  The runner
+ * sets up the benchmark for a group size and communication type, then
+ * repeatedly prepares and executes the operation, timing only the
+ * execution.  The value returned by each execution is consumed by the
+ * runner so the JIT can't discard the work.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public abstract class AbstractBenchmark
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            AbstractBenchmark.class.getName() );
+
+    /** Key for the random seed used by the simulators */
+    private static final String _RANDOM_SEED_KEY = "random-seed";
+
+    /** Key for the largest group size benchmarked with global communication */
+    private static final String _MAX_GLOBAL_GROUP_SIZE_KEY =
+            "max-global-group-size";
+
+    /** The minimum separation of the generated locations */
+    private static final float _MIN_NEIGHBOR_SEPARATION = 1.0f;
+
+    /** The maximum separation of the generated locations */
+    private static final float _MAX_NEIGHBOR_SEPARATION = 4.0f;
+
+
+    /** The benchmark properties */
+    protected Properties _benchmarkProps = null;
+
+    /** The directory holding files generated for the benchmarks */
+    protected File _workDir = null;
+
+    /** The random seed used by the simulators */
+    protected long _randomSeed = 42;
+
+    /** The largest group size benchmarked with global communication */
+    protected int _maxGlobalGroupSize = 1000;
+
+
+    /**
+     * Initializes this benchmark
+     *
+     * @param benchmarkProps The benchmark properties
+     * @param workDir The directory holding files generated for the benchmarks
+     */
+    public void initialize( Properties benchmarkProps, File workDir )
+    {
+        _benchmarkProps = benchmarkProps;
+        _workDir = workDir;
+
+        String randomSeedStr = benchmarkProps.getProperty( _RANDOM_SEED_KEY );
+        if( null != randomSeedStr )
+        {
+            _randomSeed = Long.parseLong( randomSeedStr.trim() );
+        }
+
+        String maxGlobalGroupSizeStr = benchmarkProps.getProperty(
+                _MAX_GLOBAL_GROUP_SIZE_KEY );
+        if( null != maxGlobalGroupSizeStr )
+        {
+            _maxGlobalGroupSize = Integer.parseInt(
+                    maxGlobalGroupSizeStr.trim() );
+        }
+    }
+
+    /**
+     * Returns the name of this benchmark used in the results
+     *
+     * @return The name
+     */
+    public String getName()
+    {
+        return getClass().getName();
+    }
+
+    /**
+     * Returns the names of the variants of this benchmark, each of which is
+     * run for every group size and communication type.  By default, there
+     * is a single unnamed variant.
+     *
+     * @return The variant names
+     */
+    public List<String> getVariants()
+    {
+        return Collections.singletonList( null );
+    }
+
+    /**
+     * Returns a flag denoting whether or not this benchmark is run for the
+     * specified parameters.  By default, global communication is limited to
+     * small groups since every individual is every other's neighbor.
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @return <code>true</code> if the benchmark is run
+     */
+    public boolean isSupported( int groupSize, String communicationType )
+    {
+        return !"global".equals( communicationType )
+                || (groupSize <= _maxGlobalGroupSize);
+    }
+
+    /**
+     * Sets up the benchmark for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @param variant The variant
+     */
+    public abstract void setUp( int groupSize,
+            String communicationType,
+            String variant );
+
+    /**
+     * Prepares the next execution of the operation.  This isn't timed.
+     */
+    public void prepare()
+    {
+        // Nothing to do by default
+    }
+
+    /**
+     * Executes the operation once
+     *
+     * @return A value depending on the work done
+     */
+    public abstract long execute();
+
+    /**
+     * Releases anything built by the last set up
+     */
+    public void tearDown()
+    {
+        // Nothing to do by default
+    }
+
+    /**
+     * Loads the simulation properties file with the specified key in the
+     * benchmark properties.  Each set up gets its own copy.
+     *
+     * @param key The key of the properties file
+     * @param defaultFile The file used if the key isn't specified
+     * @return The simulation properties
+     */
+    protected Properties loadSimProperties( String key, String defaultFile )
+    {
+        String filename = _benchmarkProps.getProperty( key, defaultFile ).trim();
+        Properties simProps = MiscUtils.loadPropertiesFile( filename );
+        simProps.setProperty( _RANDOM_SEED_KEY, String.valueOf( _randomSeed ) );
+        return simProps;
+    }
+
+    /**
+     * Returns the name of a file holding valid locations for the specified
+     * number of individuals, building it if necessary
+     *
+     * @param groupSize The number of individuals
+     * @return The name of the locations file
+     */
+    protected synchronized String getLocationsFile( int groupSize )
+    {
+        File locationsFile = new File( _workDir, "valid-metric-loc-"
+                + String.format( "%05d", groupSize )
+                + "-seed-"
+                + String.format( "%05d", _randomSeed )
+                + ".dat" );
+        if( !locationsFile.exists() )
+        {
+            _LOG.info( "Building locations file ["
+                    + locationsFile.getPath()
+                    + "]" );
+            LocationBuilder builder = new LocationBuilder( groupSize,
+                    _MIN_NEIGHBOR_SEPARATION,
+                    _MAX_NEIGHBOR_SEPARATION,
+                    _randomSeed );
+            Point2D[] locations = builder.buildLocations();
+            builder.sendToSimpleFile( locationsFile.getPath(), locations );
+        }
+
+        return locationsFile.getPath();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.hidden.SimulationState;
+import org.apache.commons.lang.Validate;
+import java.util.Properties;
+
+
+/**
+ * AbstractHiddenBenchmark
+ *
+ * A benchmark of the hidden variables simulations.  The simulation
+ * properties are loaded from the file named by the hidden-sim-properties
+ * benchmark property and changed to use the group size, generated
+ * locations and communication type being benchmarked.  Global communication
+ * makes every other individual a nearest neighbor.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public abstract class AbstractHiddenBenchmark extends AbstractBenchmark
+{
+    /** Key for the hidden variables simulation properties file */
+    private static final String _SIM_PROPS_FILE_KEY = "hidden-sim-properties";
+
+
+    /**
+     * Builds the simulation properties for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @return The simulation properties
+     */
+    protected Properties buildSimProperties( int groupSize,
+            String communicationType )
+    {
+        Properties simProps = loadSimProperties( _SIM_PROPS_FILE_KEY,
+                "cfg/sim/benchmark/hidden-benchmark.parameters" );
+        simProps.setProperty( "individual-count", String.valueOf( groupSize ) );
+        simProps.setProperty( "locations-file", getLocationsFile( groupSize ) );
+
+        if( "global".equals( communicationType ) )
+        {
+            simProps.setProperty( "local-communication-type", "topological" );
+            simProps.setProperty( "nearest-neighbor-count",
+                    String.valueOf( groupSize - 1 ) );
+        }
+        else
+        {
+            Validate.isTrue( "topological".equals( communicationType )
+                    || "metric".equals( communicationType ),
+                    "Unknown communication type ["
+                    + communicationType
+                    + "]" );
+            simProps.setProperty( "local-communication-type",
+                    communicationType );
+        }
+
+        return simProps;
+    }
+
+    /**
+     * Builds a simulation state for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @return The simulation state
+     */
+    protected SimulationState buildSimState( int groupSize,
+            String communicationType )
+    {
+        SimulationState simState = new SimulationState();
+        simState.initialize( buildSimProperties( groupSize,
+                communicationType ) );
+        return simState;
+    }
+}
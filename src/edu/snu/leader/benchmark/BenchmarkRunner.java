@@ -0,0 +1,610 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.util.MiscUtils;
+import org.apache.commons.lang.Validate;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * BenchmarkRunner
+ *
+ * Runs benchmarks of the simulators' hot paths for every combination of
+ * group size and communication type listed in a benchmark properties file.
+ * Each benchmark is warmed up and then measured for a number of fixed-time
+ * iterations, and the average time per operation of each is written to a
+ * JSON results file.  The results file uses the same layout as JMH's JSON
+ * output so the same tools can be used to track regressions.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class BenchmarkRunner
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            BenchmarkRunner.class.getName() );
+
+    /** Key for benchmark properties file */
+    private static final String _PROPS_FILE_KEY = "benchmark-properties";
+
+    /** Key for the benchmark classes */
+    private static final String _BENCHMARK_CLASSES_KEY = "benchmark-classes";
+
+    /** Key for the group sizes */
+    private static final String _GROUP_SIZES_KEY = "group-sizes";
+
+    /** Key for the communication types */
+    private static final String _COMMUNICATION_TYPES_KEY = "communication-types";
+
+    /** Key for the number of warmup iterations */
+    private static final String _WARMUP_ITERATIONS_KEY = "warmup-iterations";
+
+    /** Key for the number of measurement iterations */
+    private static final String _MEASUREMENT_ITERATIONS_KEY =
+            "measurement-iterations";
+
+    /** Key for the duration of each iteration in milliseconds */
+    private static final String _ITERATION_TIME_KEY = "iteration-time-ms";
+
+    /** Key for the JSON results file */
+    private static final String _RESULTS_FILE_KEY = "results-file";
+
+    /** Key for the directory holding files generated for the benchmarks */
+    private static final String _WORK_DIR_KEY = "work-dir";
+
+    /** The benchmarks run by default */
+    private static final String _DEFAULT_BENCHMARK_CLASSES =
+            HiddenNearestNeighborsBenchmark.class.getName()
+            + ","
+            + HiddenCancelInitiationBenchmark.class.getName()
+            + ","
+            + EventTimeCalculatorBenchmark.class.getName()
+            + ","
+            + SpatialHiddenVariablesReplicateBenchmark.class.getName()
+            + ","
+            + SpatialMakeDecisionBenchmark.class.getName()
+            + ","
+            + DiscreteNearestNeighborsBenchmark.class.getName();
+
+    /** The confidence level of the score error */
+    private static final double _CONFIDENCE_LEVEL = 0.999;
+
+    /** Nanoseconds in a millisecond */
+    private static final double _NANOS_PER_MILLI = 1000000.0;
+
+
+    /**
+     * The measurements of a benchmark for a single set of parameters
+     */
+    private static class BenchmarkResult
+    {
+        /** The benchmark name */
+        public String name = null;
+
+        /** The group size */
+        public int groupSize = 0;
+
+        /** The communication type */
+        public String communicationType = null;
+
+        /** The variant */
+        public String variant = null;
+
+        /** The average time per operation of each measurement iteration */
+        public List<Double> scores = new ArrayList<Double>();
+    }
+
+    /** The benchmark properties */
+    private Properties _props = null;
+
+    /** The benchmarks */
+    private List<AbstractBenchmark> _benchmarks =
+            new ArrayList<AbstractBenchmark>();
+
+    /** The group sizes */
+    private List<Integer> _groupSizes = new ArrayList<Integer>();
+
+    /** The communication types */
+    private List<String> _communicationTypes = new ArrayList<String>();
+
+    /** The number of warmup iterations */
+    private int _warmupIterations = 3;
+
+    /** The number of measurement iterations */
+    private int _measurementIterations = 5;
+
+    /** The duration of each iteration in milliseconds */
+    private long _iterationTime = 1000;
+
+    /** The JSON results file */
+    private File _resultsFile = null;
+
+    /** The results of all the benchmarks */
+    private List<BenchmarkResult> _results = new ArrayList<BenchmarkResult>();
+
+    /** Consumes the values returned by the benchmarks */
+    private long _sink = 0;
+
+
+    /**
+     * Main entry into the benchmarks
+     *
+     * @param args
+     */
+    public static void main( String[] args )
+    {
+        try
+        {
+            BenchmarkRunner runner = new BenchmarkRunner();
+            runner.initialize( MiscUtils.loadProperties( _PROPS_FILE_KEY ) );
+            runner.run();
+        }
+        catch( Exception e )
+        {
+            _LOG.error( "Benchmarks failed", e );
+            System.exit( 1 );
+        }
+    }
+
+    /**
+     * Initializes the benchmarks using the specified properties
+     *
+     * @param props The benchmark properties
+     */
+    public void initialize( Properties props )
+    {
+        _LOG.trace( "Entering initialize( props )" );
+
+        _props = props;
+
+        // Get the directory for generated files
+        File workDir = new File( _props.getProperty( _WORK_DIR_KEY,
+                "tmp/benchmark" ).trim() );
+        if( !workDir.isDirectory() && !workDir.mkdirs() )
+        {
+            throw new RuntimeException( "Unable to create work directory ["
+                    + workDir.getAbsolutePath()
+                    + "]" );
+        }
+
+        // Load the benchmarks
+        Iterator<String> classIter = parseList( _props.getProperty(
+                _BENCHMARK_CLASSES_KEY,
+                _DEFAULT_BENCHMARK_CLASSES ) ).iterator();
+        while( classIter.hasNext() )
+        {
+            AbstractBenchmark benchmark = (AbstractBenchmark)
+                    MiscUtils.loadAndInstantiate( classIter.next(),
+                            "Benchmark class" );
+            benchmark.initialize( _props, workDir );
+            _benchmarks.add( benchmark );
+        }
+        Validate.notEmpty( _benchmarks, "Benchmark classes (key="
+                + _BENCHMARK_CLASSES_KEY
+                + ") may not be empty" );
+
+        // Get the parameters
+        Iterator<String> groupSizeIter = parseList( _props.getProperty(
+                _GROUP_SIZES_KEY,
+                "10, 100, 1000, 10000" ) ).iterator();
+        while( groupSizeIter.hasNext() )
+        {
+            int groupSize = Integer.parseInt( groupSizeIter.next() );
+            Validate.isTrue( 1 < groupSize, "Group sizes (key="
+                    + _GROUP_SIZES_KEY
+                    + ") must be more than 1" );
+            _groupSizes.add( groupSize );
+        }
+        _communicationTypes.addAll( parseList( _props.getProperty(
+                _COMMUNICATION_TYPES_KEY,
+                "global, topological, metric" ) ) );
+        Validate.notEmpty( _communicationTypes, "Communication types (key="
+                + _COMMUNICATION_TYPES_KEY
+                + ") may not be empty" );
+
+        // Get the iteration settings
+        String warmupIterationsStr = _props.getProperty( _WARMUP_ITERATIONS_KEY );
+        if( null != warmupIterationsStr )
+        {
+            _warmupIterations = Integer.parseInt( warmupIterationsStr.trim() );
+            Validate.isTrue( 0 <= _warmupIterations, "Warmup iterations (key="
+                    + _WARMUP_ITERATIONS_KEY
+                    + ") may not be negative" );
+        }
+        String measurementIterationsStr = _props.getProperty(
+                _MEASUREMENT_ITERATIONS_KEY );
+        if( null != measurementIterationsStr )
+        {
+            _measurementIterations = Integer.parseInt(
+                    measurementIterationsStr.trim() );
+            Validate.isTrue( 0 < _measurementIterations,
+                    "Measurement iterations (key="
+                    + _MEASUREMENT_ITERATIONS_KEY
+                    + ") must be positive" );
+        }
+        String iterationTimeStr = _props.getProperty( _ITERATION_TIME_KEY );
+        if( null != iterationTimeStr )
+        {
+            _iterationTime = Long.parseLong( iterationTimeStr.trim() );
+            Validate.isTrue( 0 < _iterationTime, "Iteration time (key="
+                    + _ITERATION_TIME_KEY
+                    + ") must be positive" );
+        }
+
+        // Get the results file
+        String resultsFileStr = _props.getProperty( _RESULTS_FILE_KEY );
+        Validate.notEmpty( resultsFileStr, "Results file (key="
+                + _RESULTS_FILE_KEY
+                + ") may not be empty" );
+        _resultsFile = new File( resultsFileStr.trim() );
+
+        _LOG.info( "Using _groupSizes="
+                + _groupSizes
+                + " _communicationTypes="
+                + _communicationTypes
+                + " _warmupIterations=["
+                + _warmupIterations
+                + "] _measurementIterations=["
+                + _measurementIterations
+                + "] _iterationTime=["
+                + _iterationTime
+                + "]" );
+
+        _LOG.trace( "Leaving initialize( props )" );
+    }
+
+    /**
+     * Runs all the benchmarks and writes the results
+     */
+    public void run()
+    {
+        _LOG.trace( "Entering run()" );
+
+        Iterator<AbstractBenchmark> benchmarkIter = _benchmarks.iterator();
+        while( benchmarkIter.hasNext() )
+        {
+            AbstractBenchmark benchmark = benchmarkIter.next();
+            Iterator<String> variantIter = benchmark.getVariants().iterator();
+            while( variantIter.hasNext() )
+            {
+                String variant = variantIter.next();
+                for( int i = 0; i < _groupSizes.size(); i++ )
+                {
+                    for( int j = 0; j < _communicationTypes.size(); j++ )
+                    {
+                        runBenchmark( benchmark,
+                                _groupSizes.get( i ),
+                                _communicationTypes.get( j ),
+                                variant );
+                    }
+                }
+            }
+        }
+
+        writeResults();
+
+        _LOG.debug( "Sink [" + _sink + "]" );
+
+        _LOG.trace( "Leaving run()" );
+    }
+
+    /**
+     * Runs a benchmark for the specified parameters
+     *
+     * @param benchmark The benchmark
+     * @param groupSize The group size
+     * @param communicationType The communication type
+     * @param variant The variant
+     */
+    private void runBenchmark( AbstractBenchmark benchmark,
+            int groupSize,
+            String communicationType,
+            String variant )
+    {
+        String description = benchmark.getName()
+                + " groupSize=["
+                + groupSize
+                + "] communicationType=["
+                + communicationType
+                + "]"
+                + ((null == variant) ? "" : " variant=[" + variant + "]");
+        if( !benchmark.isSupported( groupSize, communicationType ) )
+        {
+            _LOG.info( "Skipping " + description );
+            return;
+        }
+        _LOG.info( "Running " + description );
+
+        BenchmarkResult result = new BenchmarkResult();
+        result.name = benchmark.getName();
+        result.groupSize = groupSize;
+        result.communicationType = communicationType;
+        result.variant = variant;
+        try
+        {
+            benchmark.setUp( groupSize, communicationType, variant );
+
+            for( int i = 0; i < _warmupIterations; i++ )
+            {
+                double score = runIteration( benchmark );
+                _LOG.info( "Warmup iteration ["
+                        + (i + 1)
+                        + "]: "
+                        + String.format( "%.6f", score )
+                        + " ms/op" );
+            }
+            for( int i = 0; i < _measurementIterations; i++ )
+            {
+                double score = runIteration( benchmark );
+                _LOG.info( "Iteration ["
+                        + (i + 1)
+                        + "]: "
+                        + String.format( "%.6f", score )
+                        + " ms/op" );
+                result.scores.add( score );
+            }
+        }
+        catch( Exception e )
+        {
+            _LOG.error( "Benchmark failed: " + description, e );
+            return;
+        }
+        finally
+        {
+            benchmark.tearDown();
+        }
+
+        _results.add( result );
+    }
+
+    /**
+     * Executes the benchmark's operation repeatedly for an iteration
+     *
+     * @param benchmark The benchmark
+     * @return The average time per operation in milliseconds
+     */
+    private double runIteration( AbstractBenchmark benchmark )
+    {
+        long iterationNanos = _iterationTime * 1000000L;
+        long operations = 0;
+        long executionNanos = 0;
+        long start = System.nanoTime();
+        while( (0 == operations)
+                || (System.nanoTime() - start < iterationNanos) )
+        {
+            benchmark.prepare();
+            long executionStart = System.nanoTime();
+            _sink += benchmark.execute();
+            executionNanos += System.nanoTime() - executionStart;
+            operations++;
+        }
+
+        return executionNanos / _NANOS_PER_MILLI / operations;
+    }
+
+    /**
+     * Writes the results of all the benchmarks to the results file
+     */
+    private void writeResults()
+    {
+        File parent = _resultsFile.getAbsoluteFile().getParentFile();
+        if( !parent.isDirectory() && !parent.mkdirs() )
+        {
+            throw new RuntimeException( "Unable to create results directory ["
+                    + parent.getAbsolutePath()
+                    + "]" );
+        }
+
+        PrintWriter writer = null;
+        try
+        {
+            writer = new PrintWriter( new BufferedWriter(
+                    new FileWriter( _resultsFile ) ) );
+            writer.println( "[" );
+            for( int i = 0; i < _results.size(); i++ )
+            {
+                writeResult( writer, _results.get( i ) );
+                writer.println( (i < _results.size() - 1) ? "    }," : "    }" );
+            }
+            writer.println( "]" );
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to write results file ["
+                    + _resultsFile.getAbsolutePath()
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to write results file ["
+                    + _resultsFile.getAbsolutePath()
+                    + "]", ioe );
+        }
+        finally
+        {
+            if( null != writer )
+            {
+                writer.close();
+            }
+        }
+
+        _LOG.info( "Wrote ["
+                + _results.size()
+                + "] results to ["
+                + _resultsFile.getAbsolutePath()
+                + "]" );
+    }
+
+    /**
+     * Writes a single result as a JSON object without the closing brace
+     *
+     * @param writer The writer
+     * @param result The result
+     */
+    private void writeResult( PrintWriter writer, BenchmarkResult result )
+    {
+        // Compute the mean and the error of the scores
+        DescriptiveStatistics stats = new DescriptiveStatistics();
+        Iterator<Double> scoreIter = result.scores.iterator();
+        while( scoreIter.hasNext() )
+        {
+            stats.addValue( scoreIter.next() );
+        }
+        double score = stats.getMean();
+        double scoreError = Double.NaN;
+        if( 1 < stats.getN() )
+        {
+            TDistribution tDist = new TDistribution( stats.getN() - 1 );
+            scoreError = tDist.inverseCumulativeProbability(
+                    1.0 - (1.0 - _CONFIDENCE_LEVEL) / 2.0 )
+                    * stats.getStandardDeviation()
+                    / Math.sqrt( stats.getN() );
+        }
+
+        writer.println( "    {" );
+        writer.println( "        \"benchmark\" : "
+                + quote( result.name )
+                + "," );
+        writer.println( "        \"mode\" : \"avgt\"," );
+        writer.println( "        \"threads\" : 1," );
+        writer.println( "        \"forks\" : 0," );
+        writer.println( "        \"warmupIterations\" : "
+                + _warmupIterations
+                + "," );
+        writer.println( "        \"warmupTime\" : \""
+                + _iterationTime
+                + " ms\"," );
+        writer.println( "        \"measurementIterations\" : "
+                + _measurementIterations
+                + "," );
+        writer.println( "        \"measurementTime\" : \""
+                + _iterationTime
+                + " ms\"," );
+        writer.println( "        \"params\" : {" );
+        writer.println( "            \"groupSize\" : \""
+                + result.groupSize
+                + "\"," );
+        writer.print( "            \"communicationType\" : "
+                + quote( result.communicationType ) );
+        if( null != result.variant )
+        {
+            writer.println( "," );
+            writer.print( "            \"variant\" : "
+                    + quote( result.variant ) );
+        }
+        writer.println();
+        writer.println( "        }," );
+        writer.println( "        \"primaryMetric\" : {" );
+        writer.println( "            \"score\" : "
+                + toJSON( score )
+                + "," );
+        writer.println( "            \"scoreError\" : "
+                + toJSON( scoreError )
+                + "," );
+        writer.println( "            \"scoreConfidence\" : [ "
+                + toJSON( score - scoreError )
+                + ", "
+                + toJSON( score + scoreError )
+                + " ]," );
+        writer.println( "            \"scoreUnit\" : \"ms/op\"," );
+        writer.print( "            \"rawData\" : [ [ " );
+        for( int i = 0; i < result.scores.size(); i++ )
+        {
+            writer.print( ((0 < i) ? ", " : "")
+                    + toJSON( result.scores.get( i ) ) );
+        }
+        writer.println( " ] ]" );
+        writer.println( "        }" );
+    }
+
+    /**
+     * Converts a number to JSON, writing values JSON can't represent as
+     * strings the way JMH does
+     *
+     * @param value The value
+     * @return The JSON value
+     */
+    private String toJSON( double value )
+    {
+        if( Double.isNaN( value ) || Double.isInfinite( value ) )
+        {
+            return "\"" + value + "\"";
+        }
+        return String.valueOf( value );
+    }
+
+    /**
+     * Quotes a string for JSON
+     *
+     * @param value The string
+     * @return The quoted string
+     */
+    private String quote( String value )
+    {
+        StringBuilder builder = new StringBuilder( "\"" );
+        for( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if( ('"' == c) || ('\\' == c) )
+            {
+                builder.append( '\\' ).append( c );
+            }
+            else if( c < ' ' )
+            {
+                builder.append( String.format( "\\u%04x", (int) c ) );
+            }
+            else
+            {
+                builder.append( c );
+            }
+        }
+        return builder.append( '"' ).toString();
+    }
+
+    /**
+     * Splits a comma-separated list of values
+     *
+     * @param values The values
+     * @return The trimmed, non-empty values
+     */
+    private List<String> parseList( String values )
+    {
+        List<String> list = new ArrayList<String>();
+        String[] split = values.split( "," );
+        for( int i = 0; i < split.length; i++ )
+        {
+            if( 0 < split[i].trim().length() )
+            {
+                list.add( split[i].trim() );
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.discrete.simulator.Agent;
+import edu.snu.leader.discrete.simulator.AgentBuilder;
+import edu.snu.leader.discrete.simulator.SimulationState;
+import edu.snu.leader.util.MiscUtils;
+import org.apache.commons.lang.Validate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * DiscreteNearestNeighborsBenchmark
+ *
+ * Benchmarks discrete.simulator.Agent.getNearestNeighbors.  The agents are
+ * built the same way the discrete simulator builds them, using the
+ * simulation properties loaded from the file named by the
+ * discrete-sim-properties benchmark property.  Before each operation, the
+ * neighbor grid is marked as stale, as it is when agents move.  The
+ * operation has every agent find its nearest neighbors, which includes
+ * rebuilding the grid.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class DiscreteNearestNeighborsBenchmark extends AbstractBenchmark
+{
+    /** Key for the discrete simulation properties file */
+    private static final String _SIM_PROPS_FILE_KEY = "discrete-sim-properties";
+
+    /** Key for the agent builder class name */
+    private static final String _AGENT_BUILDER_CLASS = "agent-builder";
+
+
+    /** The simulation state */
+    private SimulationState _simState = null;
+
+    /** All the agents */
+    private List<Agent> _agents = null;
+
+
+    /**
+     * Sets up the benchmark for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @param variant The variant
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#setUp(int, java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setUp( int groupSize, String communicationType, String variant )
+    {
+        Properties simProps = loadSimProperties( _SIM_PROPS_FILE_KEY,
+                "cfg/sim/discrete/sim-properties.parameters" );
+        simProps.setProperty( "random-seed-override", "-1" );
+        simProps.setProperty( "use-random-random-seed", "false" );
+        simProps.setProperty( "run-graphical", "false" );
+        simProps.setProperty( "current-run", "1" );
+        simProps.setProperty( "individual-count", String.valueOf( groupSize ) );
+        simProps.setProperty( "locations-file", getLocationsFile( groupSize ) );
+        simProps.setProperty( "communication-type", communicationType );
+
+        // Initialize the simulation state
+        _simState = new SimulationState();
+        _simState.initialize( simProps );
+
+        // Build the agents
+        String agentBuilderClassName = simProps.getProperty(
+                _AGENT_BUILDER_CLASS );
+        Validate.notEmpty( agentBuilderClassName,
+                "Agent builder class name (key="
+                + _AGENT_BUILDER_CLASS
+                + ") may not be empty" );
+        AgentBuilder agentBuilder = (AgentBuilder) MiscUtils.loadAndInstantiate(
+                agentBuilderClassName,
+                "Agent builder class name" );
+        agentBuilder.initialize( _simState );
+        _agents = agentBuilder.build();
+        Iterator<Agent> agentIter = _agents.iterator();
+        while( agentIter.hasNext() )
+        {
+            _simState.addAgent( agentIter.next() );
+        }
+    }
+
+    /**
+     * Marks the neighbor grid as stale
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#prepare()
+     */
+    @Override
+    public void prepare()
+    {
+        _simState.invalidateNeighborGrid();
+    }
+
+    /**
+     * Has every agent find its nearest neighbors
+     *
+     * @return The total number of nearest neighbors
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#execute()
+     */
+    @Override
+    public long execute()
+    {
+        long neighborCount = 0;
+        Iterator<Agent> agentIter = _agents.iterator();
+        while( agentIter.hasNext() )
+        {
+            neighborCount += agentIter.next().getNearestNeighbors().size();
+        }
+
+        return neighborCount;
+    }
+
+    /**
+     * Releases the simulation state
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#tearDown()
+     */
+    @Override
+    public void tearDown()
+    {
+        _simState = null;
+        _agents = null;
+    }
+}
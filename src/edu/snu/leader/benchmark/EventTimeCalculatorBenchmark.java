@@ -0,0 +1,156 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.hidden.SimulationState;
+import edu.snu.leader.hidden.SpatialIndividual;
+import edu.snu.leader.hidden.event.EventTimeCalculator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * EventTimeCalculatorBenchmark
+ *
+ * Benchmarks the EventTimeCalculator implementations listed in the
+ * event-time-calculator-classes benchmark property, each of which is a
+ * variant.  An operation calculates the initiation, follow and cancel times
+ * of every individual, using the first individual as the initiator.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class EventTimeCalculatorBenchmark extends AbstractHiddenBenchmark
+{
+    /** Key for the event time calculator classes */
+    private static final String _CALCULATOR_CLASSES_KEY =
+            "event-time-calculator-classes";
+
+    /** The event time calculators benchmarked by default */
+    private static final String _DEFAULT_CALCULATOR_CLASSES =
+            "edu.snu.leader.hidden.event.DefaultEventTimeCalculator,"
+            + "edu.snu.leader.hidden.event.LinearPersonalityEventTimeCalculator,"
+            + "edu.snu.leader.hidden.event.SigmoidPersonalityEventTimeCalculator,"
+            + "edu.snu.leader.hidden.event.SueurEventTimeCalculator,"
+            + "edu.snu.leader.hidden.event.ConflictEventTimeCalculator";
+
+
+    /** The event time calculator */
+    private EventTimeCalculator _calculator = null;
+
+    /** All the individuals */
+    private List<SpatialIndividual> _individuals = null;
+
+    /** The initiator used for follow times */
+    private SpatialIndividual _initiator = null;
+
+
+    /**
+     * Returns the event time calculator classes
+     *
+     * @return The class names
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#getVariants()
+     */
+    @Override
+    public List<String> getVariants()
+    {
+        List<String> variants = new ArrayList<String>();
+        String[] classNames = _benchmarkProps.getProperty(
+                _CALCULATOR_CLASSES_KEY,
+                _DEFAULT_CALCULATOR_CLASSES ).split( "," );
+        for( int i = 0; i < classNames.length; i++ )
+        {
+            if( 0 < classNames[i].trim().length() )
+            {
+                variants.add( classNames[i].trim() );
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Sets up the benchmark for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @param variant The event time calculator class
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#setUp(int, java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setUp( int groupSize, String communicationType, String variant )
+    {
+        Properties simProps = buildSimProperties( groupSize, communicationType );
+        simProps.setProperty( "event-time-calculator-class", variant );
+
+        SimulationState simState = new SimulationState();
+        simState.initialize( simProps );
+        _calculator = simState.getEventTimeCalculator();
+        _individuals = simState.getAllIndividuals();
+        _initiator = _individuals.get( 0 );
+    }
+
+    /**
+     * Calculates the event times of every individual
+     *
+     * @return A value depending on all the times
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#execute()
+     */
+    @Override
+    public long execute()
+    {
+        long hash = 0;
+        int groupSize = 1;
+        Iterator<SpatialIndividual> indIter = _individuals.iterator();
+        while( indIter.hasNext() )
+        {
+            // Each individual sees a larger group than the last
+            SpatialIndividual ind = indIter.next();
+            int departed = Math.min( groupSize,
+                    Math.max( ind.getNearestNeighborCount(), 1 ) );
+            hash += Float.floatToRawIntBits(
+                    _calculator.calculateInitiationTime( ind ) );
+            hash += Float.floatToRawIntBits(
+                    _calculator.calculateFollowTime( ind,
+                            _initiator,
+                            departed,
+                            groupSize ) );
+            hash += Float.floatToRawIntBits(
+                    _calculator.calculateCancelTime( ind, departed ) );
+            groupSize++;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Releases the event time calculator
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#tearDown()
+     */
+    @Override
+    public void tearDown()
+    {
+        _calculator = null;
+        _individuals = null;
+        _initiator = null;
+    }
+}
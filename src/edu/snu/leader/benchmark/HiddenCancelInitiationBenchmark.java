@@ -0,0 +1,150 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.hidden.Neighbor;
+import edu.snu.leader.hidden.SimulationState;
+import edu.snu.leader.hidden.SpatialIndividual;
+import org.apache.commons.lang.Validate;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * HiddenCancelInitiationBenchmark
+ *
+ * Benchmarks SimulationState.cancelInitiation.  Before each operation, the
+ * simulation state is reset, the next individual initiates and a number of
+ * its potential followers follow their first movers.  The operation cancels
+ * the initiation.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class HiddenCancelInitiationBenchmark extends AbstractHiddenBenchmark
+{
+    /** Key for the number of followers recruited before canceling */
+    private static final String _FOLLOWER_COUNT_KEY = "cancel-follower-count";
+
+
+    /** The number of followers recruited before canceling */
+    private int _followerCount = 10;
+
+    /** The simulation state */
+    private SimulationState _simState = null;
+
+    /** All the individuals */
+    private List<SpatialIndividual> _individuals = null;
+
+    /** The index of the next initiator */
+    private int _nextInitiatorIdx = 0;
+
+    /** The current initiator */
+    private SpatialIndividual _initiator = null;
+
+
+    /**
+     * Sets up the benchmark for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @param variant The variant
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#setUp(int, java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setUp( int groupSize, String communicationType, String variant )
+    {
+        String followerCountStr = _benchmarkProps.getProperty(
+                _FOLLOWER_COUNT_KEY );
+        if( null != followerCountStr )
+        {
+            _followerCount = Integer.parseInt( followerCountStr.trim() );
+            Validate.isTrue( 0 <= _followerCount,
+                    "Cancel follower count (key="
+                    + _FOLLOWER_COUNT_KEY
+                    + ") may not be negative" );
+        }
+
+        _simState = buildSimState( groupSize, communicationType );
+        _individuals = _simState.getAllIndividuals();
+        _nextInitiatorIdx = 0;
+    }
+
+    /**
+     * Builds a group to cancel
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#prepare()
+     */
+    @Override
+    public void prepare()
+    {
+        _simState.reset();
+
+        // The next individual initiates
+        _initiator = _individuals.get( _nextInitiatorIdx );
+        _nextInitiatorIdx = (_nextInitiatorIdx + 1) % _individuals.size();
+        _simState.initiate( _initiator );
+
+        // Recruit its followers
+        for( int i = 0; i < _followerCount; i++ )
+        {
+            Iterator<SpatialIndividual> followerIter =
+                    _simState.getPotentialFollowersIterator( _initiator );
+            if( !followerIter.hasNext() )
+            {
+                break;
+            }
+            SpatialIndividual follower = followerIter.next();
+            Neighbor firstMover = follower.getFirstMover();
+            SpatialIndividual leader = _initiator;
+            if( null != firstMover )
+            {
+                leader = firstMover.getIndividual();
+            }
+            _simState.follow( leader, follower );
+        }
+    }
+
+    /**
+     * Cancels the initiation
+     *
+     * @return The number of remaining individuals
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#execute()
+     */
+    @Override
+    public long execute()
+    {
+        _simState.cancelInitiation( _initiator );
+        return _simState.getRemainingCount();
+    }
+
+    /**
+     * Releases the simulation state
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#tearDown()
+     */
+    @Override
+    public void tearDown()
+    {
+        _simState = null;
+        _individuals = null;
+        _initiator = null;
+    }
+}
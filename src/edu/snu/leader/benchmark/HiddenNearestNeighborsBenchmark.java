@@ -0,0 +1,111 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.hidden.SimulationState;
+import edu.snu.leader.hidden.SpatialIndividual;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * HiddenNearestNeighborsBenchmark
+ *
+ * Benchmarks SpatialIndividual.findNearestNeighbors.  An operation rebuilds
+ * the neighbor finder and has every individual find its nearest neighbors,
+ * as the simulation state does when it updates all the nearest neighbors.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class HiddenNearestNeighborsBenchmark extends AbstractHiddenBenchmark
+{
+    /** The simulation state */
+    private SimulationState _simState = null;
+
+    /** All the individuals */
+    private List<SpatialIndividual> _individuals = null;
+
+
+    /**
+     * Sets up the benchmark for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @param variant The variant
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#setUp(int, java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setUp( int groupSize, String communicationType, String variant )
+    {
+        _simState = buildSimState( groupSize, communicationType );
+        _individuals = _simState.getAllIndividuals();
+    }
+
+    /**
+     * Clears the nearest neighbors found by the last execution
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#prepare()
+     */
+    @Override
+    public void prepare()
+    {
+        Iterator<SpatialIndividual> indIter = _individuals.iterator();
+        while( indIter.hasNext() )
+        {
+            indIter.next().resetNearestNeighbors();
+        }
+    }
+
+    /**
+     * Has every individual find its nearest neighbors
+     *
+     * @return The total number of nearest neighbors
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#execute()
+     */
+    @Override
+    public long execute()
+    {
+        _simState.getNeighborFinder().rebuild( _individuals );
+
+        long neighborCount = 0;
+        Iterator<SpatialIndividual> indIter = _individuals.iterator();
+        while( indIter.hasNext() )
+        {
+            SpatialIndividual ind = indIter.next();
+            ind.findNearestNeighbors( _simState );
+            neighborCount += ind.getNearestNeighborCount();
+        }
+
+        return neighborCount;
+    }
+
+    /**
+     * Releases the simulation state
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#tearDown()
+     */
+    @Override
+    public void tearDown()
+    {
+        _simState = null;
+        _individuals = null;
+    }
+}
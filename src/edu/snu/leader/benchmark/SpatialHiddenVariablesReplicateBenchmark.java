@@ -0,0 +1,107 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.hidden.SpatialHiddenVariablesSimulation;
+import org.apache.commons.lang.Validate;
+import java.io.File;
+import java.util.Properties;
+
+
+/**
+ * SpatialHiddenVariablesReplicateBenchmark
+ *
+ * Benchmarks a full replicate of a SpatialHiddenVariablesSimulation.  An
+ * operation initializes a new simulation, including building its
+ * individuals, and executes the number of simulation runs given by the
+ * replicate-simulation-count benchmark property.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class SpatialHiddenVariablesReplicateBenchmark
+        extends AbstractHiddenBenchmark
+{
+    /** Key for the number of simulation runs in a replicate */
+    private static final String _SIMULATION_COUNT_KEY =
+            "replicate-simulation-count";
+
+
+    /** The simulation properties */
+    private Properties _simProps = null;
+
+
+    /**
+     * Sets up the benchmark for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @param variant The variant
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#setUp(int, java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setUp( int groupSize, String communicationType, String variant )
+    {
+        String simulationCountStr = _benchmarkProps.getProperty(
+                _SIMULATION_COUNT_KEY,
+                "1" ).trim();
+        Validate.isTrue( 0 < Integer.parseInt( simulationCountStr ),
+                "Replicate simulation count (key="
+                + _SIMULATION_COUNT_KEY
+                + ") must be positive" );
+
+        _simProps = buildSimProperties( groupSize, communicationType );
+        _simProps.setProperty( "simulation-count", simulationCountStr );
+        _simProps.setProperty( "results-file",
+                new File( _workDir, "replicate-results.dat" ).getPath() );
+    }
+
+    /**
+     * Initializes and runs a simulation
+     *
+     * @return The length of the results file
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#execute()
+     */
+    @Override
+    public long execute()
+    {
+        // Each replicate gets its own copy of the properties
+        Properties simProps = new Properties();
+        simProps.putAll( _simProps );
+
+        SpatialHiddenVariablesSimulation simulation =
+                new SpatialHiddenVariablesSimulation();
+        simulation.initialize( simProps );
+        simulation.run();
+
+        return new File( _simProps.getProperty( "results-file" ) ).length();
+    }
+
+    /**
+     * Releases the simulation properties
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#tearDown()
+     */
+    @Override
+    public void tearDown()
+    {
+        _simProps = null;
+    }
+}
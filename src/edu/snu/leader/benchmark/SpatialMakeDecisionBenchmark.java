@@ -0,0 +1,144 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.benchmark;
+
+// Imports
+import edu.snu.leader.spatial.Agent;
+import edu.snu.leader.spatial.AgentBuilder;
+import edu.snu.leader.spatial.SimulationState;
+import edu.snu.leader.util.MiscUtils;
+import org.apache.commons.lang.Validate;
+import java.util.Iterator;
+import java.util.Properties;
+
+
+/**
+ * SpatialMakeDecisionBenchmark
+ *
+ * Benchmarks spatial.Agent.makeDecision.  The agents are built the same way
+ * the spatial simulator builds them, using the simulation properties loaded
+ * from the file named by the spatial-sim-properties benchmark property.
+ * Before each operation, the next simulation step is set up.  The operation
+ * has every agent make a decision.  The decisions aren't executed, so every
+ * operation starts from the same state.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class SpatialMakeDecisionBenchmark extends AbstractBenchmark
+{
+    /** Key for the spatial simulation properties file */
+    private static final String _SIM_PROPS_FILE_KEY = "spatial-sim-properties";
+
+    /** Key for the agent builder class name */
+    private static final String _AGENT_BUILDER_CLASS = "agent-builder";
+
+
+    /** The simulation state */
+    private SimulationState _simState = null;
+
+
+    /**
+     * Sets up the benchmark for the specified parameters
+     *
+     * @param groupSize The number of individuals
+     * @param communicationType The communication type
+     * @param variant The variant
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#setUp(int, java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setUp( int groupSize, String communicationType, String variant )
+    {
+        Properties simProps = loadSimProperties( _SIM_PROPS_FILE_KEY,
+                "cfg/sim/benchmark/spatial-benchmark.parameters" );
+        simProps.setProperty( "agent-count", String.valueOf( groupSize ) );
+        simProps.setProperty( "locations-file", getLocationsFile( groupSize ) );
+        simProps.setProperty( "communication-type", communicationType );
+
+        // Initialize the simulation state
+        _simState = new SimulationState();
+        _simState.initialize( simProps );
+
+        // Build and initialize the agents
+        String agentBuilderClassName = simProps.getProperty(
+                _AGENT_BUILDER_CLASS );
+        Validate.notEmpty( agentBuilderClassName,
+                "Agent builder class name (key="
+                + _AGENT_BUILDER_CLASS
+                + ") may not be empty" );
+        AgentBuilder agentBuilder = (AgentBuilder) MiscUtils.loadAndInstantiate(
+                agentBuilderClassName,
+                "Agent builder class name" );
+        agentBuilder.initialize( _simState );
+        for( int i = 0; i < _simState.getAgentCount(); i++ )
+        {
+            _simState.addAgent( agentBuilder.build( i ) );
+        }
+        Iterator<Agent> agentIter = _simState.getAgentIterator();
+        while( agentIter.hasNext() )
+        {
+            agentIter.next().initialize( _simState );
+        }
+
+        _simState.setupNextSimulationRun();
+    }
+
+    /**
+     * Sets up the next simulation step
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#prepare()
+     */
+    @Override
+    public void prepare()
+    {
+        _simState.setupNextSimulationRunStep();
+    }
+
+    /**
+     * Has every agent make a decision
+     *
+     * @return The total number of nearest neighbors
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#execute()
+     */
+    @Override
+    public long execute()
+    {
+        long neighborCount = 0;
+        Iterator<Agent> agentIter = _simState.getAgentIterator();
+        while( agentIter.hasNext() )
+        {
+            Agent agent = agentIter.next();
+            agent.makeDecision();
+            neighborCount += agent.getCurrentNearestNeighborCount();
+        }
+
+        return neighborCount;
+    }
+
+    /**
+     * Releases the simulation state
+     *
+     * @see edu.snu.leader.benchmark.AbstractBenchmark#tearDown()
+     */
+    @Override
+    public void tearDown()
+    {
+        _simState = null;
+    }
+}
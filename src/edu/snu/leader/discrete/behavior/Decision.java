@@ -59,6 +59,20 @@ public abstract class Decision
      */
     public abstract void choose();
 
+    /**
+     * Prepares this decision to be considered again with the specified
+     * leader, so an agent can reuse its decisions instead of building new ones
+     * every time step
+     * 
+     * @param leader The leader this agent is looking at (can be itself)
+     */
+    public void reuse( Agent leader )
+    {
+        _leader = leader;
+        _probability = 0.0;
+        _conflict = 0.0;
+    }
+
     /**
      * Returns the probability of this decision being made
      * 
@@ -41,6 +41,18 @@ public class DecisionEvent
         _time = time;
     }
 
+    /**
+     * Replaces the Decision of this event so the event can be reused
+     * 
+     * @param decision The Decision of this event
+     * @param time The time this Decision was made
+     */
+    public void update( Decision decision, int time )
+    {
+        _decision = decision;
+        _time = time;
+    }
+
     public Decision getDecision()
     {
         return _decision;
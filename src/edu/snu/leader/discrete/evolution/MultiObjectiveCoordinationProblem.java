@@ -35,6 +35,9 @@ import edu.snu.leader.util.MiscUtils;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
 
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
 
 /**
  * MultiObjectiveCoordinationProblem
@@ -91,6 +94,9 @@ public class MultiObjectiveCoordinationProblem extends Problem implements
     /** Parameter key for flag to force re-evaluation of individuals */
     private static final String _P_FORCE_REEVALUATION = "force-reevaluation";
 
+    /** Parameter key for the number of threads running simulator replicates */
+    private static final String _P_REPLICATE_THREAD_COUNT = "replicate-thread-count";
+
 
     /** The alpha scaling factor */
     private float _alphaScalingFactor = 0.0f;
@@ -131,6 +137,10 @@ public class MultiObjectiveCoordinationProblem extends Problem implements
     /** The simulator properties file */
     private String _simulatorPropertiesFile = null;
 
+    /** The simulator properties (only read once they are loaded, so they are
+     *  shared by all the evaluation threads) */
+    private Properties _simulatorProperties = new Properties();
+
     /** The array of destination files */
     private String[] _destinationFiles = new String[0];
 
@@ -140,6 +150,13 @@ public class MultiObjectiveCoordinationProblem extends Problem implements
     /** Flag indicating that individuals should be re-evaluated every generation */
     private boolean _forceReevaluation = false;
 
+    /** The number of threads running simulator replicates */
+    private int _replicateThreadCount = 1;
+
+    /** The pool running the simulator replicates (shared by all the
+     *  evaluation threads) */
+    private transient ForkJoinPool _replicatePool = null;
+
 
     /**
      * Sets up the object by reading it from the parameters stored in
@@ -275,9 +292,13 @@ public class MultiObjectiveCoordinationProblem extends Problem implements
                 null );
         _LOG.info( "Using _simulatorPropertiesFile=[" + _simulatorPropertiesFile + "]" );
 
-        // Save it for later
+        // Save it for the statistics
         System.setProperty( _P_SIM_PROPERTIES_FILE, _simulatorPropertiesFile );
 
+        // Load the simulator properties once for all the evaluations
+        _simulatorProperties = MiscUtils.loadPropertiesFile(
+                _simulatorPropertiesFile );
+
         // Get the number of destination files
         String destCountKey = _P_SIM_DESTINATIONS_PREFIX + "-count";
         Validate.isTrue( state.parameters.exists(
@@ -331,6 +352,23 @@ public class MultiObjectiveCoordinationProblem extends Problem implements
                  false );
         _LOG.info( "Using _forceReevaluation=[" + _forceReevaluation + "]" );
 
+        // Get the number of threads running simulator replicates
+        if( state.parameters.exists( base.push( _P_REPLICATE_THREAD_COUNT ),
+                null ) )
+        {
+            _replicateThreadCount = state.parameters.getInt(
+                    base.push( _P_REPLICATE_THREAD_COUNT ),
+                    null );
+            Validate.isTrue( 0 < _replicateThreadCount,
+                    "Replicate thread count must be positive" );
+        }
+        _LOG.info( "Using _replicateThreadCount=["
+                + _replicateThreadCount
+                + "]" );
+        if( 1 < _replicateThreadCount )
+        {
+            _replicatePool = new ForkJoinPool( _replicateThreadCount );
+        }
 
         _LOG.trace( "Leaving setup( state, base )" );
     }
@@ -380,7 +418,8 @@ public class MultiObjectiveCoordinationProblem extends Problem implements
         // Run the simulation
         EvolutionOutputFitness outputFitness = SimulatorEvolution.runEvolutionFromInputParameters(
                 inputParameters,
-                _simulatorPropertiesFile );
+                _simulatorProperties,
+                _replicatePool );
 //        _LOG.warn( outputFitness );
 
         // Store the fitness (or objective) values
@@ -20,8 +20,13 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import com.cedarsoftware.util.io.JsonReader;
 import com.cedarsoftware.util.io.JsonWriter;
@@ -43,6 +48,36 @@ public class SimulatorEvolution
     /** The number of simulations for each run of the simulator */
     public final static int SIMULATION_COUNT = 1;
 
+    /**
+     * A single run of the simulator on one environment
+     */
+    private static class SimulatorReplicate implements
+            Callable<EvolutionOutputFitness>
+    {
+        /** The simulator's own properties */
+        private final Properties _properties;
+
+        /** The random seed */
+        private final long _seed;
+
+        public SimulatorReplicate( Properties properties, long seed )
+        {
+            _properties = properties;
+            _seed = seed;
+        }
+
+        @Override
+        public EvolutionOutputFitness call()
+        {
+            // create simulator and execute it
+            Simulator simulator = new Simulator( _seed );
+            simulator.initialize( _properties );
+            simulator.execute();
+
+            return simulator.getSimulationOutputFitness();
+        }
+    }
+
     // Test of the methods provided here
     public static void main( String[] args )
     {
@@ -90,22 +125,86 @@ public class SimulatorEvolution
             propertiesFilename = "cfg/sim/discrete/sim-properties.parameters";
         }
         // setup Properties object
-        System.setProperty( "sim-properties", propertiesFilename );
-        Properties _simulationProperties = MiscUtils.loadProperties( "sim-properties" );
+        Properties simulationProperties = MiscUtils.loadPropertiesFile( propertiesFilename );
+
+        return runEvolutionFromInputParameters( param, simulationProperties,
+                null );
+    }
 
-        // set Properties with InputParameters' values
-        _simulationProperties.setProperty( "simulation-count",
+    /**
+     * Used for running evolutionary computation on the Sueur model simulator
+     * given an EvolutionInputParameters object and the already loaded
+     * simulator properties. The properties are copied and never modified and
+     * no global state is used, so this may be called from multiple threads at
+     * once (e.g., by ECJ's evaluation threads).
+     * 
+     * @param param The input parameters for this evolution
+     * @param baseProperties The simulator properties
+     * @param pool The pool used to run the simulator replicates in parallel.
+     *            If null, they are run sequentially in the calling thread.
+     * @return The mean fitness of all the replicates
+     */
+    public static EvolutionOutputFitness runEvolutionFromInputParameters( EvolutionInputParameters param,
+            Properties baseProperties,
+            ForkJoinPool pool )
+    {
+        // copy the Properties and set them with InputParameters' values
+        Properties evaluationProperties = new Properties();
+        evaluationProperties.putAll( baseProperties );
+        evaluationProperties.setProperty( "simulation-count",
                 String.valueOf( SIMULATION_COUNT ) );
-        _simulationProperties.setProperty( "alpha",
+        evaluationProperties.setProperty( "alpha",
                 String.valueOf( param.getAlpha() ) );
-        _simulationProperties.setProperty( "alpha-c",
+        evaluationProperties.setProperty( "alpha-c",
                 String.valueOf( param.getAlphaC() ) );
-        _simulationProperties.setProperty( "beta",
+        evaluationProperties.setProperty( "beta",
                 String.valueOf( param.getBeta() ) );
-        _simulationProperties.setProperty( "beta-c",
+        evaluationProperties.setProperty( "beta-c",
                 String.valueOf( param.getBetaC() ) );
-        _simulationProperties.setProperty( "S", String.valueOf( param.getS() ) );
-        _simulationProperties.setProperty( "q", String.valueOf( param.getQ() ) );
+        evaluationProperties.setProperty( "S", String.valueOf( param.getS() ) );
+        evaluationProperties.setProperty( "q", String.valueOf( param.getQ() ) );
+
+        // build a replicate for each run of each environment to test
+        List<SimulatorReplicate> replicates = new ArrayList<SimulatorReplicate>();
+        for( int i = 0; i < param._destinationRunCounts.length; i++ )
+        {
+            for( int j = 0; j < param._destinationRunCounts[i].runCount; j++ )
+            {
+                // each simulator gets its own copy since it modifies them
+                Properties simulationProperties = new Properties();
+                simulationProperties.putAll( evaluationProperties );
+                // set environment property
+                simulationProperties.setProperty( "destinations-file",
+                        param._destinationRunCounts[i].destinationFilename );
+                // this value should be set to 1
+                simulationProperties.setProperty( "current-run",
+                        String.valueOf( 1 ) );
+                replicates.add( new SimulatorReplicate( simulationProperties,
+                        param._destinationRunCounts[i].seed + j ) );
+            }
+        }
+
+        // run the replicates
+        List<EvolutionOutputFitness> fitnesses = new ArrayList<EvolutionOutputFitness>();
+        if( (null == pool) || (2 > replicates.size()) )
+        {
+            for( SimulatorReplicate replicate : replicates )
+            {
+                fitnesses.add( replicate.call() );
+            }
+        }
+        else
+        {
+            List<ForkJoinTask<EvolutionOutputFitness>> tasks = new ArrayList<ForkJoinTask<EvolutionOutputFitness>>();
+            for( SimulatorReplicate replicate : replicates )
+            {
+                tasks.add( pool.submit( replicate ) );
+            }
+            for( ForkJoinTask<EvolutionOutputFitness> task : tasks )
+            {
+                fitnesses.add( task.join() );
+            }
+        }
 
         int totalRuns = 0;// Total simulation runs
         float totalTime = 0f;// Total percents of the time fitness
@@ -123,37 +222,19 @@ public class SimulatorEvolution
         float totalToPreferredDestination = 0f;// Total percent that made it to
                                                // preferred destination
 
-        // loop through each environment to test
-        for( int i = 0; i < param._destinationRunCounts.length; i++ )
+        // add each simulator's fitness to the total fitness counts in order
+        for( EvolutionOutputFitness temp : fitnesses )
         {
-            // set environment property
-            _simulationProperties.setProperty( "destinations-file",
-                    param._destinationRunCounts[i].destinationFilename );
-            // this value should be set to 1
-            _simulationProperties.setProperty( "current-run",
-                    String.valueOf( 1 ) );
-            // run simulations for an environment as many times as specified
-            for( int j = 0; j < param._destinationRunCounts[i].runCount; j++ )
-            {
-                // create simulator and execute it
-                Simulator simulator = new Simulator(
-                        param._destinationRunCounts[i].seed + j );
-                simulator.initialize( _simulationProperties );
-                simulator.execute();
-
-                // add this simulator's fitness to the total fitness counts
-                EvolutionOutputFitness temp = simulator.getSimulationOutputFitness();
-                totalTime += temp.getPercentTime();
-                totalSurvive += temp.getPercentSurvive();
-                totalSuccess += temp.getPercentSuccess();
-                totalTimeAway += temp.getPercentTimeAway();
-                totalTimeToDestination += temp.getPercentTimeToDestination();
-                totalDistanceToDestination += temp.getPercentDistanceToDestination();
-                totalTimeAlive += temp.getPercentTimeAlive();
-                totalToGoodDestination += temp.getPercentGoodDestination();
-                totalToPreferredDestination += temp.getPercentToPreferredDestination();
-                totalRuns++;// increment run count
-            }
+            totalTime += temp.getPercentTime();
+            totalSurvive += temp.getPercentSurvive();
+            totalSuccess += temp.getPercentSuccess();
+            totalTimeAway += temp.getPercentTimeAway();
+            totalTimeToDestination += temp.getPercentTimeToDestination();
+            totalDistanceToDestination += temp.getPercentDistanceToDestination();
+            totalTimeAlive += temp.getPercentTimeAlive();
+            totalToGoodDestination += temp.getPercentGoodDestination();
+            totalToPreferredDestination += temp.getPercentToPreferredDestination();
+            totalRuns++;// increment run count
         }
 
         // return the mean percentages of all the runs as the final
@@ -17,12 +17,13 @@ package edu.snu.leader.discrete.simulator;
 import java.awt.Color;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import org.apache.commons.lang.Validate;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
@@ -45,9 +46,6 @@ public class Agent
 
     private String _positionHistoryHeader = null;
 
-    /** Used to make the unique id for every agent */
-    private static int _uniqueIdCount = 0;
-
     private int _numberTimesInitiated = 0;
 
     private int _numberTimesSuccessful = 0;
@@ -58,14 +56,6 @@ public class Agent
 
     private Reporter _positionHistory = null;
 
-    /**
-     * This is used across agents to make sure only one initiates
-     */
-    private static boolean _canInitiate = true;
-
-    /** Boolean variable for whether or not multiple initiators are allowed */
-    private static boolean _canMultipleInitiate = true;
-
     // ////////General Agent information\\\\\\\\\\
     /** The ID for this Agent */
     private Object _id = null;
@@ -89,7 +79,42 @@ public class Agent
     /** The current decision event of this Agent */
     private DecisionEvent _currentDecision = null;
 
-    private List<DecisionEvent> _decisionHistory = null;
+    /** The decisions this Agent can make, reused every time step */
+    private List<Decision> _possibleDecisions = new ArrayList<Decision>();
+
+    /**
+     * Reused do nothing decisions, two so the current decision is never
+     * changed by reusing it
+     */
+    private DoNothing[] _doNothingDecisions = null;
+
+    /** Reused initiate decisions */
+    private Initiate[] _initiateDecisions = null;
+
+    /** Reused cancel decisions */
+    private Cancel[] _cancelDecisions = null;
+
+    /** Reused follow decisions, one for each group that can be followed */
+    private List<Follow> _followDecisions = new ArrayList<Follow>();
+
+    /** The follow decision swapped out of the reused ones while current */
+    private Follow _spareFollowDecision = null;
+
+    /**
+     * The oldest observed member of each nearby group, reused every time
+     * step. The groups are kept in the order their first neighbor was seen,
+     * which is the order of the follow decisions.
+     */
+    private Map<Object, Agent> _oldestObservedMembersOfGroups = new LinkedHashMap<Object, Agent>();
+
+    /** The nearest neighbors, reused until an agent moves */
+    private List<Agent> _nearestNeighbors = new ArrayList<Agent>();
+
+    /** Read-only view of the nearest neighbors returned to callers */
+    private List<Agent> _nearestNeighborsView = Collections.unmodifiableList( _nearestNeighbors );
+
+    /** The neighbor grid rebuild count when the nearest neighbors were found */
+    private int _nearestNeighborsRebuildCount = -1;
 
     private DecisionProbabilityCalculator _decisionCalc = null;
 
@@ -192,12 +217,15 @@ public class Agent
             ConflictTrait ct,
             DecisionProbabilityCalculator dpc )
     {
-        _id = "Agent" + _uniqueIdCount++;
         _personalityTrait = pt;
         _conflictTrait = ct;
         _decisionCalc = dpc;
         _observedGroupHistory = new HashMap<Object, ObservedGroupTime>();
-        _decisionHistory = new LinkedList<DecisionEvent>();
+        _doNothingDecisions = new DoNothing[] { new DoNothing( this, this ),
+                new DoNothing( this, this ) };
+        _initiateDecisions = new Initiate[] { new Initiate( this ),
+                new Initiate( this ) };
+        _cancelDecisions = new Cancel[] { new Cancel( this ), new Cancel( this ) };
         _initiationHistory = new LinkedList<InitiationHistoryEvent>();
     }
 
@@ -210,6 +238,9 @@ public class Agent
     {
         _simState = simState;
 
+        // The ID is unique within the simulation
+        _id = "Agent" + _simState.uniqueAgentIdCount++;
+
         _initialLocation = new Vector2D( initialLocation.getX(),
                 initialLocation.getY() );
 
@@ -229,7 +260,7 @@ public class Agent
                 "can-multiple-initiate" );
         Validate.notEmpty( canMultipleInitiate,
                 "Can multiple initiate may not be empty" );
-        _canMultipleInitiate = Boolean.parseBoolean( canMultipleInitiate );
+        _simState.canMultipleInitiate = Boolean.parseBoolean( canMultipleInitiate );
 
         String cancellationThreshold = _simState.getProperties().getProperty(
                 "cancellation-threshold" );
@@ -249,7 +280,8 @@ public class Agent
 
         _communicationType = _simState.getCommunicationType();
 
-        _positionHistory = new Reporter( _id.toString() + ".dat", "", false );
+        _positionHistory = new Reporter( _id.toString() + ".dat", "", false,
+                _simState.getResultsWriter() );
 
         reset();
 
@@ -263,6 +295,7 @@ public class Agent
 
         // reset location stuff
         _currentLocation = _initialLocation;
+        _simState.invalidateNeighborGrid();
         _currentVelocity = Vector2D.ZERO;
 
         // readd to group NONE
@@ -271,7 +304,6 @@ public class Agent
 
         // clear histories and reporters
         _observedGroupHistory.clear();
-        _decisionHistory.clear();
         _positionHistory.clear();
         _positionHistory.append( _positionHistoryHeader );
         _positionHistory._simulationRun++;
@@ -280,11 +312,9 @@ public class Agent
 
         // reset leader and ability to initiate
         _leader = this;
-        _canInitiate = true;
+        _simState.canInitiate = true;
         _hasReachedDestination = false;
 
-        // reset unique id count
-        _uniqueIdCount = 0;
         // reset alive
         _isAlive = true;
         // reset some results information
@@ -317,11 +347,14 @@ public class Agent
 
             // calculate probabilities and report them
             double sum = 0.0;
-            List<Decision> possibleDecisions = generatePossibleDecisions();
+            List<Decision> possibleDecisions = generatePossibleDecisions( neighbors );
 
+            // the number of decisions still possible
+            int possibleCount = 0;
             for( int i = 0; i < possibleDecisions.size(); i++ )
             {
                 Decision decision = possibleDecisions.get( i );
+                boolean isPossible = true;
                 if( _preCalcProbs )
                 {
                     double[] followProbs = getDecisionCalculator().getPreCalculatedFollowProbabilities();
@@ -332,9 +365,9 @@ public class Agent
                         getDecisionCalculator().calcInitiateProb( decision );
                         // if only one can initiate remove this decision as a
                         // possibility
-                        if( !_canInitiate )
+                        if( !_simState.canInitiate )
                         {
-                            possibleDecisions.remove( decision );
+                            isPossible = false;
                         }
                     }
                     // calculate follow decision and report probability
@@ -379,9 +412,9 @@ public class Agent
                         getDecisionCalculator().calcInitiateProb( decision );
                         // if only one can initiate remove this decision as a
                         // possibility
-                        if( !_canInitiate )
+                        if( !_simState.canInitiate )
                         {
-                            possibleDecisions.remove( decision );
+                            isPossible = false;
                         }
                     }
                     // calculate follow decision and report probability
@@ -400,8 +433,17 @@ public class Agent
                         isAbleToDoNothing = true;
                     }
                 }
-                // add probabilities to the sum
-                sum += decision.getProbability();
+                // add probabilities to the sum and keep the possible decisions
+                if( isPossible )
+                {
+                    sum += decision.getProbability();
+                    possibleDecisions.set( possibleCount++, decision );
+                }
+            }
+            // drop the decisions that are no longer possible
+            while( possibleDecisions.size() > possibleCount )
+            {
+                possibleDecisions.remove( possibleDecisions.size() - 1 );
             }
 
             // do the math!
@@ -429,7 +471,7 @@ public class Agent
                         wasInitiating = true;
                     }
                     // get new decision
-                    _currentDecision = new DecisionEvent( Utils.getDecision(
+                    _currentDecision.update( Utils.getDecision(
                             possibleDecisions, rand ),
                             _simState.getSimulationTime() );
                     // if it was initiating and is not reduce numInitiating
@@ -443,6 +485,13 @@ public class Agent
                     _hasNewDecision = true;
                 }
             }
+            // if nothing is possible (e.g., initiating was the only option
+            // but another agent already initiated) the decision does not
+            // change
+            else if( possibleDecisions.isEmpty() )
+            {
+                _hasNewDecision = false;
+            }
             // if we cannot do nothing
             else
             {
@@ -455,7 +504,7 @@ public class Agent
                 {
                     wasInitiating = true;
                 }
-                _currentDecision = new DecisionEvent( Utils.getDecision(
+                _currentDecision.update( Utils.getDecision(
                         possibleDecisions, rand ),
                         _simState.getSimulationTime() );
                 if( wasInitiating
@@ -469,26 +518,32 @@ public class Agent
 
             if( _hasNewDecision )
             {
-                // add the new decision to the history
-                _decisionHistory.add( _currentDecision );
-
                 // once an agent decides to initiate restrict the possibility of
                 // others to initiate
                 if( _currentDecision.getDecision().getDecisionType() == DecisionType.INITIATION
                         && _communicationType.equals( "global" )
-                        && !_canMultipleInitiate )
+                        && !_simState.canMultipleInitiate )
                 {
-                    _canInitiate = false;
+                    _simState.canInitiate = false;
                 }
             }
 
-            // if it was a new decision add it to the conflict history list
-            if( _hasNewDecision )
+            // if it was a new decision add it to the conflict history list,
+            // saving the values of the decisions since they will be reused
+            if( _hasNewDecision && _simState.shouldReportConflict() )
             {
+                List<DecisionSnapshot> decisionSnapshots = new ArrayList<DecisionSnapshot>(
+                        possibleDecisions.size() );
+                for( int i = 0; i < possibleDecisions.size(); i++ )
+                {
+                    decisionSnapshots.add( new DecisionSnapshot(
+                            possibleDecisions.get( i ) ) );
+                }
                 _simState.conflictEvents.add( new ConflictHistoryEvent(
                         _simState.getCurrentSimulationRun(), getTime(),
                         getId().toString(), getPreferredDestinationId(),
-                        getCurrentDecision().getDecision(), possibleDecisions ) );
+                        new DecisionSnapshot( getCurrentDecision().getDecision() ),
+                        decisionSnapshots ) );
             }
         }
     }
@@ -671,88 +726,36 @@ public class Agent
     }
 
     /**
-     * Returns a list of the nearest neighbors. Can be used topologically or
-     * metrically. If radius is set to 0 then its topological. If quantity is
-     * set to 0 then its metric.
+     * Returns this Agent's nearest neighbors. The neighbors are only found
+     * again once an agent has moved, so the returned list is read-only and
+     * only valid until then.
      * 
-     * @param radius This value is used for metric
-     * @param quantity This value is used for topological
-     * @return List of nearest neighbors
+     * @return The nearest neighbors
      */
     public List<Agent> getNearestNeighbors()
     {
-        List<Agent> nearest = new ArrayList<Agent>();
-        Iterator<Agent> iter = _simState.getAgentIterator();
-        if( _communicationType.equals( "topological" ) )
+        NeighborGrid grid = _simState.getNeighborGrid();
+        if( _nearestNeighborsRebuildCount == grid.getRebuildCount() )
         {
-            while( iter.hasNext() )
-            {
-                Agent temp = iter.next();
-                // we don't want this agent to show up as his own neighbor
-                if( temp == this )
-                {
-                    // do nothing here
-                }
-                // if we do not have any just add the agent in there
-                else if( nearest.size() == 0 )
-                {
-                    nearest.add( temp );
-                }
-                else
-                {
-                    // this boolean will let us know if it the current agent
-                    // distance is the biggest out of the ones we have seen
-                    boolean biggest = true;
-                    // the new distance we are testing
-                    double newDistance = _currentLocation.distanceSq( temp.getCurrentLocation() );
-                    for( int i = 0; i < nearest.size(); i++ )
-                    {
-                        // old distance we have already seen
-                        double oldDistance = _currentLocation.distanceSq( nearest.get(
-                                i ).getCurrentLocation() );
-
-                        // if this agents distance is closer than put it before
-                        // the last one in the list
-                        if( newDistance < oldDistance )
-                        {
-                            biggest = false;
-                            nearest.add( i, temp );
-                            // break out because I am lazy
-                            break;
-                        }
-                    }
-                    // if it is the biggest add it last
-                    if( biggest )
-                    {
-                        nearest.add( temp );
-                    }
-                }
-                // if we have too many
-                if( nearest.size() > _nearestNeighborCount )
-                {
-                    // remove the last one off
-                    nearest.remove( nearest.size() - 1 );
-                }
-            }
+            return _nearestNeighborsView;
+        }
+        _nearestNeighborsRebuildCount = grid.getRebuildCount();
 
+        if( _communicationType.equals( "topological" ) )
+        {
+            grid.findNearest( this, _nearestNeighborCount, _nearestNeighbors );
+            return _nearestNeighborsView;
         }
         else if( _communicationType.equals( "metric" ) )
         {
-            while( iter.hasNext() )
-            {
-                Agent temp = iter.next();
-                // we don't want this agent to show up as his own neighbor
-                if( temp == this )
-                {
-                    // nothing to do here
-                }
-                else if( _currentLocation.distance( temp._currentLocation ) < _maxLocationRadius )
-                {
-                    nearest.add( temp );
-                }
-            }
+            grid.findWithinRadius( this, _maxLocationRadius, _nearestNeighbors );
+            return _nearestNeighborsView;
         }
-        else if( _communicationType.equals( "global" ) )
+
+        List<Agent> nearest = _nearestNeighbors;
+        nearest.clear();
+        Iterator<Agent> iter = _simState.getAgentIterator();
+        if( _communicationType.equals( "global" ) )
         {
             // add all of the agents
             while( iter.hasNext() )
@@ -763,7 +766,7 @@ public class Agent
             nearest.remove( this );
 
         }
-        return nearest;
+        return _nearestNeighborsView;
     }
 
     public Map<Object, ObservedGroupTime> getObservedGroupHistory()
@@ -829,6 +832,10 @@ public class Agent
     public void setCurrentLocation( Vector2D currentLocation )
     {
         _currentLocation = currentLocation;
+        if( null != _simState )
+        {
+            _simState.invalidateNeighborGrid();
+        }
     }
 
     public Vector2D getCurrentLocation()
@@ -960,10 +967,13 @@ public class Agent
             _simState.numReachedDestination++;
             _currentVelocity = Vector2D.ZERO;
             // add new conflict event
-            _simState.conflictEvents.add( new ConflictHistoryEvent(
-                    _simState.getCurrentSimulationRun(), getTime(),
-                    getId().toString(), getPreferredDestinationId(),
-                    new Reached( this ), null ) );
+            if( _simState.shouldReportConflict() )
+            {
+                _simState.conflictEvents.add( new ConflictHistoryEvent(
+                        _simState.getCurrentSimulationRun(), getTime(),
+                        getId().toString(), getPreferredDestinationId(),
+                        new DecisionSnapshot( new Reached( this ) ), null ) );
+            }
         }
         _hasReachedDestination = true;
         // no longer makes decisions
@@ -991,14 +1001,16 @@ public class Agent
     }
 
     /**
-     * Generates a list of possible decisions
+     * Generates a list of possible decisions. The list and its decisions are
+     * reused the next time decisions are generated.
      * 
+     * @param neighbors The nearest neighbors of this Agent
      * @return The list of possible decisions
      */
-    private List<Decision> generatePossibleDecisions()
+    private List<Decision> generatePossibleDecisions( List<Agent> neighbors )
     {
-        List<Decision> possibleDecisions = new ArrayList<Decision>();
-        List<Agent> neighbors = getNearestNeighbors();
+        List<Decision> possibleDecisions = _possibleDecisions;
+        possibleDecisions.clear();
 
         // if our current leader is no longer initiating then look for oldest
         // group member near us, also make sure we are not off on our own
@@ -1007,7 +1019,7 @@ public class Agent
                 || ( _group.getId().equals(
                         _observedGroupHistory.get( _leader.getId() ).groupId ) && _leader.isAlive() ) )
         {
-            possibleDecisions.add( new DoNothing( this, _leader ) );
+            possibleDecisions.add( reuseDecision( _doNothingDecisions, _leader ) );
         }
 
         // if we are initiating we can cancel, if we are not we can initiate
@@ -1015,56 +1027,53 @@ public class Agent
         {
             if( _currentDecision.getDecision().getDecisionType() == DecisionType.INITIATION )
             {
-                possibleDecisions.add( new Cancel( this ) );
+                possibleDecisions.add( reuseDecision( _cancelDecisions, this ) );
             }
             else
             {
                 // only add initiate decision if it is possible
                 if( isInitiationPossible() )
                 {
-                    possibleDecisions.add( new Initiate( this ) );
+                    possibleDecisions.add( reuseDecision( _initiateDecisions,
+                            this ) );
                 }
             }
         }
 
         // requires that observedGroupHistory is a Map<groupId,
         // ObservedGroupTime>
-        Map<Object, Integer> groupJoinTime = new HashMap<Object, Integer>();
-        Map<Object, Agent> oldestObservedMembersOfGroups = new HashMap<Object, Agent>();
+        Map<Object, Agent> oldestObservedMembersOfGroups = _oldestObservedMembersOfGroups;
+        oldestObservedMembersOfGroups.clear();
         for( int i = 0; i < neighbors.size(); i++ )
         {
             Agent temp = neighbors.get( i );
-            Object groupId = _observedGroupHistory.get( temp.getId() ).groupId;
+            ObservedGroupTime observed = _observedGroupHistory.get( temp.getId() );
             if( temp.isAlive() )
             {
-                if( !groupJoinTime.containsKey( groupId ) )
+                Agent oldest = oldestObservedMembersOfGroups.get( observed.groupId );
+                if( null == oldest
+                        || observed.time < _observedGroupHistory.get( oldest.getId() ).time )
                 {
-                    groupJoinTime.put( groupId,
-                            _observedGroupHistory.get( temp.getId() ).time );
-                    oldestObservedMembersOfGroups.put( groupId, temp );
-                }
-                else if( _observedGroupHistory.get( temp.getId() ).time < groupJoinTime.get( groupId ) )
-                {
-                    groupJoinTime.put( groupId,
-                            _observedGroupHistory.get( temp.getId() ).time );
-                    oldestObservedMembersOfGroups.put( groupId, temp );
+                    oldestObservedMembersOfGroups.put( observed.groupId, temp );
                 }
             }
         }
 
         // iterate through the list and create a follow decision for each oldest
         // group member
-        Iterator<Entry<Object, Agent>> iter = oldestObservedMembersOfGroups.entrySet().iterator();
+        int followCount = 0;
+        Iterator<Agent> iter = oldestObservedMembersOfGroups.values().iterator();
         while( iter.hasNext() )
         {
-            Agent temp = iter.next().getValue();
+            Agent temp = iter.next();
             if( temp.getGroup().getId() != _simState.noneGroup.getId()
                     && temp.getGroup().getId() != _group.getId()
                     && temp.isAlive() )
             {
                 if( !temp.getPreferredDestination().getID().equals( "D-N" ) )
                 {
-                    possibleDecisions.add( new Follow( this, temp ) );
+                    possibleDecisions.add( reuseFollowDecision( followCount++,
+                            temp ) );
                 }
             }
         }
@@ -1073,14 +1082,64 @@ public class Agent
         {
             System.out.println( "No decisions able to be made" );// TODO observe
                                                                  // this more
-            possibleDecisions.add( new DoNothing( this, _leader ) );
+            possibleDecisions.add( reuseDecision( _doNothingDecisions, _leader ) );
         }
 
         return possibleDecisions;
     }
 
+    /**
+     * Returns one of the specified reused decisions that isn't the current
+     * decision, ready to be considered with the specified leader
+     * 
+     * @param decisions The two reused decisions of a type
+     * @param leader The leader of the decision
+     * @return The decision
+     */
+    private <T extends Decision> T reuseDecision( T[] decisions, Agent leader )
+    {
+        T decision = decisions[0];
+        if( decision == _currentDecision.getDecision() )
+        {
+            decision = decisions[1];
+        }
+        decision.reuse( leader );
+        return decision;
+    }
+
+    /**
+     * Returns the reused follow decision at the specified index, ready to be
+     * considered with the specified leader. The current decision is swapped
+     * out for the spare follow decision so it is never changed.
+     * 
+     * @param index The index of the follow decision
+     * @param leader The leader to follow
+     * @return The decision
+     */
+    private Follow reuseFollowDecision( int index, Agent leader )
+    {
+        if( index == _followDecisions.size() )
+        {
+            _followDecisions.add( new Follow( this, leader ) );
+        }
+        Follow decision = _followDecisions.get( index );
+        if( decision == _currentDecision.getDecision() )
+        {
+            if( null == _spareFollowDecision )
+            {
+                _spareFollowDecision = new Follow( this, leader );
+            }
+            _followDecisions.set( index, _spareFollowDecision );
+            _spareFollowDecision = decision;
+            decision = _followDecisions.get( index );
+        }
+        decision.reuse( leader );
+        return decision;
+    }
+
     public void reportPositions( boolean shouldReport )
     {
+        _positionHistory.setRootDirectory( _simState.getRootDirectory() );
         _positionHistory.report( shouldReport );
     }
 
@@ -1091,11 +1150,6 @@ public class Agent
         _positionHistory.append( header );
     }
 
-    public static boolean canMultipleInitiate()
-    {
-        return _canMultipleInitiate;
-    }
-
     /**
      * Returns true if this individual can initiate
      * 
@@ -1103,7 +1157,7 @@ public class Agent
      */
     private boolean isInitiationPossible()
     {
-        return _canMultipleInitiate || _canInitiate;
+        return _simState.canMultipleInitiate || _simState.canInitiate;
     }
 
     public class ObservedGroupTime
@@ -1142,16 +1196,16 @@ public class Agent
 
         public String destinationId = null;
 
-        public Decision decisionMade = null;
+        public DecisionSnapshot decisionMade = null;
 
-        public List<Decision> possibleDecisions = null;
+        public List<DecisionSnapshot> possibleDecisions = null;
 
         public ConflictHistoryEvent( int currentRun,
                 int timeStep,
                 String agentId,
                 String destinationId,
-                Decision decisionMade,
-                List<Decision> possibleDecisions )
+                DecisionSnapshot decisionMade,
+                List<DecisionSnapshot> possibleDecisions )
         {
             this.currentRun = currentRun;
             this.timeStep = timeStep;
@@ -1161,4 +1215,27 @@ public class Agent
             this.possibleDecisions = possibleDecisions;
         }
     }
+
+    /**
+     * The values of a decision when it was considered. Decisions are reused,
+     * so conflict history events keep these instead of the decisions.
+     */
+    public static class DecisionSnapshot
+    {
+        public final DecisionType decisionType;
+
+        public final Agent leader;
+
+        public final double probability;
+
+        public final double conflict;
+
+        public DecisionSnapshot( Decision decision )
+        {
+            this.decisionType = decision.getDecisionType();
+            this.leader = decision.getLeader();
+            this.probability = decision.getProbability();
+            this.conflict = decision.getConflict();
+        }
+    }
 }
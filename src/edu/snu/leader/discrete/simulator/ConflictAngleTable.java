@@ -0,0 +1,80 @@
+/*
+ * The Bio-inspired Leadership Toolkit is a set of tools used to simulate the
+ * emergence of leaders in multi-agent systems. Copyright (C) 2014 Southern
+ * Nazarene University This program is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or at your option) any later version. This program is distributed in the hope
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package edu.snu.leader.discrete.simulator;
+
+import org.apache.commons.lang.Validate;
+
+
+/**
+ * ConflictAngleTable Turns the cosine of the direction difference used by the
+ * conflict calculators into an angle. By default the angle is calculated
+ * exactly. If the conflict-angle-bins property is set, the cosine is instead
+ * quantized into that many bins whose angles are calculated once, trading
+ * precision in the conflict value for speed.
+ *
+ * @author Tim Solum
+ * @version $Revision$ ($Author$)
+ */
+public class ConflictAngleTable
+{
+    /** Key for the number of direction difference bins */
+    private static final String _CONFLICT_ANGLE_BINS_KEY = "conflict-angle-bins";
+
+    /** The angle of each bin, or null if angles are calculated exactly */
+    private double[] _angles = null;
+
+    /**
+     * Builds this ConflictAngleTable object using the number of bins in the
+     * simulation properties
+     *
+     * @param simState The simulation state
+     */
+    public ConflictAngleTable( SimulationState simState )
+    {
+        String stringBins = simState.getProperties().getProperty(
+                _CONFLICT_ANGLE_BINS_KEY );
+        if( null != stringBins )
+        {
+            int bins = Integer.parseInt( stringBins.trim() );
+            Validate.isTrue( 0 == bins || 1 < bins,
+                    "conflict-angle-bins must be 0 or more than 1" );
+            if( 0 < bins )
+            {
+                _angles = new double[bins];
+                for( int i = 0; i < bins; i++ )
+                {
+                    _angles[i] = Math.acos( ( ( 2.0 * i ) / ( bins - 1 ) ) - 1 );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the angle, in radians, with the specified cosine
+     *
+     * @param cosine The cosine, between -1 and 1
+     * @return The angle
+     */
+    public double acos( double cosine )
+    {
+        if( null == _angles )
+        {
+            return Math.acos( cosine );
+        }
+        int bin = (int) Math.round( ( ( cosine + 1 ) / 2 )
+                * ( _angles.length - 1 ) );
+        return _angles[bin];
+    }
+}
@@ -20,7 +20,6 @@ import org.apache.commons.lang.Validate;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 
 import edu.snu.leader.discrete.behavior.Decision;
-import edu.snu.leader.discrete.utils.Reporter;
 
 
 /**
@@ -57,6 +56,12 @@ public class GautraisConflictDecisionCalculator implements
 
     private double[] _cancelProbabilities = null;
 
+    /** Cancel probability for each follower count */
+    private NeighborCountTable _cancelTable = null;
+
+    /** Turns direction differences into angles */
+    private ConflictAngleTable _angleTable = null;
+
     @Override
     public void initialize( SimulationState simState )
     {
@@ -96,7 +101,12 @@ public class GautraisConflictDecisionCalculator implements
         _destinationSizeRadius = _simState.getDestinationRadius();
 
         // add gautrais info to root directory path
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "GautraisValues" );
+        _simState.setRootDirectory( _simState.getRootDirectory() + "GautraisValues" );
+        // build the lookup table for the cancel probability
+        _cancelTable = NeighborCountTable.buildGautraisCancelTable( _alphaC,
+                _gammaC, _epsilonC, _simState );
+        _angleTable = new ConflictAngleTable( _simState );
+
     }
 
     /**
@@ -187,7 +197,7 @@ public class GautraisConflictDecisionCalculator implements
         }
 
         // calculate Cr
-        Cr = _alphaC / ( 1 + ( Math.pow( r / _gammaC, _epsilonC ) ) );
+        Cr = _cancelTable.get( r );
 
         decision.setProbability( Cr );
 
@@ -262,8 +272,8 @@ public class GautraisConflictDecisionCalculator implements
             {
                 // calculate angle between leader's current position and agent's
                 // preferred destination by law of cosines
-                double lawOfCosines = ( Math.pow( A, 2 ) - Math.pow( B, 2 ) - Math.pow(
-                        C, 2 ) ) / ( -2 * B * C );
+                double lawOfCosines = ( ( A * A ) - ( B * B ) - ( C * C ) )
+                        / ( -2 * B * C );
                 // because of rounding error there can be lawOfCosines values
                 // that are oh so slightly larger or smaller than 1 or -1
                 // this augments them to their correct values
@@ -275,7 +285,7 @@ public class GautraisConflictDecisionCalculator implements
                 {
                     lawOfCosines = 1;
                 }
-                angle = Math.acos( lawOfCosines );
+                angle = _angleTable.acos( lawOfCosines );
             }
 
             // if angle is greater than 180 than it becomes 360 - angle
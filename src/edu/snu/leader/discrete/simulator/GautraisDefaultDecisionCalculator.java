@@ -19,7 +19,6 @@ import java.util.List;
 import org.apache.commons.lang.Validate;
 
 import edu.snu.leader.discrete.behavior.Decision;
-import edu.snu.leader.discrete.utils.Reporter;
 
 
 /**
@@ -54,6 +53,9 @@ public class GautraisDefaultDecisionCalculator implements
 
     private double[] _cancelProbabilities = null;
 
+    /** Cancel probability for each follower count */
+    private NeighborCountTable _cancelTable = null;
+
     @Override
     public void initialize( SimulationState simState )
     {
@@ -96,19 +98,22 @@ public class GautraisDefaultDecisionCalculator implements
         int agentCount = Integer.parseInt( stringAgentCount );
 
         // add gautrais info to root directory path
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "GautraisValues" );
+        _simState.setRootDirectory( _simState.getRootDirectory() + "GautraisValues" );
+
+        // build the lookup table for the cancel probability
+        _cancelTable = NeighborCountTable.buildGautraisCancelTable( _alphaC,
+                _gammaC, _epsilonC, _simState );
 
         if( _preCalcProbs )
         {
             _followProbabilities = new double[agentCount];
-            _cancelProbabilities = new double[agentCount];
-
             for( int r = 1; r < agentCount; r++ )
             {
                 _followProbabilities[r] = 1 / ( _alphaF + ( ( _betaF * ( agentCount - r ) ) / r ) );
-                _cancelProbabilities[r] = _alphaC
-                        / ( 1 + ( Math.pow( r / _gammaC, _epsilonC ) ) );
             }
+
+            // the pre-calculated cancel probabilities come from the table
+            _cancelProbabilities = _cancelTable.getValues( agentCount );
         }
 
     }
@@ -192,7 +197,7 @@ public class GautraisDefaultDecisionCalculator implements
         }
 
         // calculate Cr
-        Cr = _alphaC / ( 1 + ( Math.pow( r / _gammaC, _epsilonC ) ) );
+        Cr = _cancelTable.get( r );
         decision.setProbability( Cr );
 
     }
@@ -0,0 +1,173 @@
+/*
+ * The Bio-inspired Leadership Toolkit is a set of tools used to simulate the
+ * emergence of leaders in multi-agent systems. Copyright (C) 2014 Southern
+ * Nazarene University This program is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or at your option) any later version. This program is distributed in the hope
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package edu.snu.leader.discrete.simulator;
+
+import java.util.Arrays;
+
+
+/**
+ * NeighborCountTable A lookup table of a term of a decision probability that
+ * only depends on a count of neighbors. The values are calculated once for
+ * every count up to the number of agents, so calculators don't have to call
+ * Math.pow for every decision. Values are calculated with exactly the same
+ * expression the calculators used, so probabilities are unchanged.
+ *
+ * @author Tim Solum
+ * @version $Revision$ ($Author$)
+ */
+public abstract class NeighborCountTable
+{
+    /** Key for the number of agents used to size the tables */
+    private static final String _AGENT_COUNT_KEY = "individual-count";
+
+    /** The value for each count */
+    private double[] _values = new double[0];
+
+    /**
+     * Builds a table of the mimetic term of the Sueur model,
+     * (coefficient * X^q) / (S^q + X^q)
+     *
+     * @param coefficient The mimetic coefficient (beta or beta-c)
+     * @param q The agents' sensitivity to the system
+     * @param S The threshold
+     * @param simState The simulation state
+     * @return The table
+     */
+    public static NeighborCountTable buildSueurTable( final double coefficient,
+            final double q,
+            final double S,
+            SimulationState simState )
+    {
+        NeighborCountTable table = new NeighborCountTable() {
+            @Override
+            protected double calculate( int X )
+            {
+                return ( coefficient * Math.pow( X, q ) )
+                        / ( Math.pow( S, q ) + Math.pow( X, q ) );
+            }
+        };
+        table.fill( getAgentCount( simState ) );
+        return table;
+    }
+
+    /**
+     * Builds a table of the cancellation probability of the Gautrais model,
+     * alphaC / (1 + (r / gammaC)^epsilonC)
+     *
+     * @param alphaC The intrinsic cancellation rate
+     * @param gammaC The gamma-c parameter
+     * @param epsilonC The epsilon-c parameter
+     * @param simState The simulation state
+     * @return The table
+     */
+    public static NeighborCountTable buildGautraisCancelTable(
+            final double alphaC,
+            final double gammaC,
+            final double epsilonC,
+            SimulationState simState )
+    {
+        NeighborCountTable table = new NeighborCountTable() {
+            @Override
+            protected double calculate( int r )
+            {
+                return alphaC / ( 1 + ( Math.pow( r / gammaC, epsilonC ) ) );
+            }
+        };
+        table.fill( getAgentCount( simState ) );
+        return table;
+    }
+
+    /**
+     * Returns the value for the specified count, calculating it if the count
+     * is outside the table
+     *
+     * @param count The count
+     * @return The value
+     */
+    public double get( int count )
+    {
+        double[] values = _values;
+        if( 0 <= count && count < values.length )
+        {
+            return values[count];
+        }
+        else if( 0 <= count )
+        {
+            fill( count );
+            return _values[count];
+        }
+        return calculate( count );
+    }
+
+    /**
+     * Returns the values for every count up to the specified count, indexed
+     * by count. The array is the table's own, so it must not be changed.
+     *
+     * @param maxCount The largest count
+     * @return The values
+     */
+    public double[] getValues( int maxCount )
+    {
+        fill( maxCount );
+        return _values;
+    }
+
+    /**
+     * Calculates the value for the specified count
+     *
+     * @param count The count
+     * @return The value
+     */
+    protected abstract double calculate( int count );
+
+    /**
+     * Extends the table to hold every count up to the specified count
+     *
+     * @param maxCount The largest count
+     */
+    private void fill( int maxCount )
+    {
+        if( maxCount < _values.length )
+        {
+            return;
+        }
+        double[] values = Arrays.copyOf( _values, maxCount + 1 );
+        for( int i = _values.length; i <= maxCount; i++ )
+        {
+            values[i] = calculate( i );
+        }
+        _values = values;
+    }
+
+    /**
+     * Returns the number of agents in the simulation, or 0 if it isn't known
+     * yet
+     *
+     * @param simState The simulation state
+     * @return The number of agents
+     */
+    private static int getAgentCount( SimulationState simState )
+    {
+        int agentCount = simState.getAgentCount();
+        String stringAgentCount = simState.getProperties().getProperty(
+                _AGENT_COUNT_KEY );
+        if( null != stringAgentCount )
+        {
+            agentCount = Math.max( agentCount,
+                    Integer.parseInt( stringAgentCount.trim() ) );
+        }
+        return agentCount;
+    }
+}
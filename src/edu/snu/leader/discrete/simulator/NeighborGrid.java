@@ -0,0 +1,202 @@
+/*
+ * The Bio-inspired Leadership Toolkit is a set of tools used to simulate the
+ * emergence of leaders in multi-agent systems. Copyright (C) 2014 Southern
+ * Nazarene University This program is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or at your option) any later version. This program is distributed in the hope
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package edu.snu.leader.discrete.simulator;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+
+import edu.snu.leader.util.UniformGrid;
+
+
+/**
+ * NeighborGrid A uniform grid over the locations of all the agents used to
+ * find an agent's neighbors without comparing it against every other agent.
+ * The grid is a snapshot of the locations when it was rebuilt. Neighbors are
+ * returned in the same order as a search over all agents in simulation order
+ * would return them: nearest first, with ties going to the earlier agent, for
+ * topological searches, and in simulation order for metric searches.
+ *
+ * @author Tim Solum
+ * @version $Revision$ ($Author$)
+ */
+public class NeighborGrid
+{
+    /** Average number of agents per cell */
+    private static final double _AGENTS_PER_CELL = 2.0;
+
+    /** The agents in simulation order */
+    private Agent[] _agents = new Agent[0];
+
+    /** The index of each agent in simulation order */
+    private Map<Agent, Integer> _agentIndices = new IdentityHashMap<Agent, Integer>();
+
+    /** The x coordinate of each agent */
+    private double[] _x = new double[0];
+
+    /** The y coordinate of each agent */
+    private double[] _y = new double[0];
+
+    /** The grid over the agents' locations */
+    private UniformGrid _grid = new UniformGrid();
+
+    /** The number of times the grid has been rebuilt */
+    private int _rebuildCount = 0;
+
+    /** The neighbors found by the last search */
+    private UniformGrid.Neighbors _found = new UniformGrid.Neighbors();
+
+    /**
+     * Rebuilds the grid using the current locations of the specified agents
+     *
+     * @param agents The agents in simulation order
+     */
+    public void rebuild( List<Agent> agents )
+    {
+        int agentCount = agents.size();
+        if( _agents.length != agentCount )
+        {
+            _agents = new Agent[agentCount];
+            _x = new double[agentCount];
+            _y = new double[agentCount];
+        }
+        _agentIndices.clear();
+        _rebuildCount++;
+
+        // grab the locations
+        Iterator<Agent> iter = agents.iterator();
+        for( int i = 0; iter.hasNext(); i++ )
+        {
+            _agents[i] = iter.next();
+            _agentIndices.put( _agents[i], i );
+            Vector2D location = _agents[i].getCurrentLocation();
+            _x[i] = location.getX();
+            _y[i] = location.getY();
+        }
+
+        _grid.rebuild( _x, _y, agentCount, _AGENTS_PER_CELL );
+    }
+
+    /**
+     * Returns the agents nearest to the specified agent, nearest first
+     *
+     * @param agent The agent whose neighbors are found
+     * @param count The number of neighbors to find
+     * @return The nearest neighbors
+     */
+    public List<Agent> findNearest( Agent agent, int count )
+    {
+        List<Agent> nearest = new ArrayList<Agent>( Math.max( Math.min( count,
+                _agents.length - 1 ), 0 ) );
+        findNearest( agent, count, nearest );
+        return nearest;
+    }
+
+    /**
+     * Replaces the contents of the specified list with the agents nearest to
+     * the specified agent, nearest first
+     *
+     * @param agent The agent whose neighbors are found
+     * @param count The number of neighbors to find
+     * @param nearest The list to fill with the nearest neighbors
+     */
+    public void findNearest( Agent agent, int count, List<Agent> nearest )
+    {
+        _grid.findNearest( getIndex( agent ), count, Double.POSITIVE_INFINITY,
+                UniformGrid.Measure.DISTANCE_SQUARED, _found );
+        copyFound( nearest );
+    }
+
+    /**
+     * Returns the agents closer to the specified agent than the specified
+     * radius in simulation order
+     *
+     * @param agent The agent whose neighbors are found
+     * @param radius The radius
+     * @return The neighbors
+     */
+    public List<Agent> findWithinRadius( Agent agent, double radius )
+    {
+        List<Agent> nearest = new ArrayList<Agent>();
+        findWithinRadius( agent, radius, nearest );
+        return nearest;
+    }
+
+    /**
+     * Replaces the contents of the specified list with the agents closer to
+     * the specified agent than the specified radius in simulation order
+     *
+     * @param agent The agent whose neighbors are found
+     * @param radius The radius
+     * @param nearest The list to fill with the neighbors
+     */
+    public void findWithinRadius( Agent agent,
+            double radius,
+            List<Agent> nearest )
+    {
+        if( !( radius > 0 ) )
+        {
+            nearest.clear();
+            return;
+        }
+
+        // the grid keeps distances no greater than the largest key, so use
+        // the largest distance strictly less than the radius
+        _grid.findWithinDistance( getIndex( agent ), radius,
+                Math.nextAfter( radius, Double.NEGATIVE_INFINITY ),
+                UniformGrid.Measure.DISTANCE, false, _found );
+        copyFound( nearest );
+    }
+
+    /**
+     * Returns the number of times the grid has been rebuilt, so neighbors
+     * found since the last rebuild can be reused
+     *
+     * @return The number of rebuilds
+     */
+    public int getRebuildCount()
+    {
+        return _rebuildCount;
+    }
+
+    /**
+     * Returns the index of the specified agent in simulation order
+     */
+    private int getIndex( Agent agent )
+    {
+        Integer index = _agentIndices.get( agent );
+        Validate.notNull( index, "Agent [" + agent.getId()
+                + "] is not in the neighbor grid" );
+        return index.intValue();
+    }
+
+    /**
+     * Replaces the contents of the specified list with the agents found by
+     * the last search, in the order they were found
+     */
+    private void copyFound( List<Agent> nearest )
+    {
+        nearest.clear();
+        for( int i = 0; i < _found.size(); i++ )
+        {
+            nearest.add( _agents[_found.getIndex( i )] );
+        }
+    }
+}
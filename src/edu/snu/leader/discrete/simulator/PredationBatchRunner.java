@@ -0,0 +1,522 @@
+/*
+ * The Bio-inspired Leadership Toolkit is a set of tools used to simulate the
+ * emergence of leaders in multi-agent systems. Copyright (C) 2014 Southern
+ * Nazarene University This program is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or at your option) any later version. This program is distributed in the hope
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package edu.snu.leader.discrete.simulator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.Validate;
+import org.apache.log4j.Logger;
+
+import edu.snu.leader.discrete.evolution.EvolutionOutputFitness;
+import edu.snu.leader.util.MiscUtils;
+
+
+/**
+ * PredationBatchRunner Runs the discrete simulator headless for every
+ * combination of predation multiplier, destinations file and random seed
+ * listed in a batch properties file. The simulators run in parallel, each
+ * with its own copy of the properties and its results in its own directory
+ * (e.g. pred-0.001/dest-destinations-split-10/seed-1/), so the predation
+ * results can still be fed to PredationResultsAnalyzer. The fitness and group
+ * size counts of every combination are aggregated across the seeds and
+ * written to a summary file.
+ *
+ * @author Tim Solum
+ * @version $Revision$ ($Author$)
+ */
+public class PredationBatchRunner
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger( PredationBatchRunner.class.getName() );
+
+    /** Key for the batch properties file */
+    private static final String _PROPS_FILE_KEY = "batch-properties";
+
+    /** Key for the base simulation properties file */
+    private static final String _BASE_PROPS_FILE_KEY = "base-sim-properties";
+
+    /** Key for the directory in which the results are written */
+    private static final String _RESULTS_DIR_KEY = "results-dir";
+
+    /** Key for the number of threads running the simulators */
+    private static final String _THREAD_COUNT_KEY = "thread-count";
+
+    /** Key for the predation multipliers */
+    private static final String _PREDATION_MULTIPLIERS_KEY = "predation-multipliers";
+
+    /** Key for the destinations files */
+    private static final String _DESTINATIONS_FILES_KEY = "destinations-files";
+
+    /** Key for the random seeds */
+    private static final String _RANDOM_SEEDS_KEY = "random-seeds";
+
+    /** Key prefix for properties overridden in every simulator */
+    private static final String _OVERRIDE_PREFIX = "override.";
+
+    /** The name of the summary file */
+    private static final String _SUMMARY_FILENAME = "batch-summary.dat";
+
+    /**
+     * A single simulator run in the batch
+     */
+    private class BatchJob
+    {
+        /** The predation multiplier */
+        private String _predationMultiplier = null;
+
+        /** The destinations file */
+        private String _destinationsFile = null;
+
+        /** The random seed */
+        private long _seed = 0;
+
+        /** The directory for the results */
+        private File _dir = null;
+
+        /** The fitness, or null if the simulator failed */
+        private EvolutionOutputFitness _fitness = null;
+
+        /** The group size counts, or null if the simulator failed */
+        private int[] _groupSizeCounts = null;
+
+        /**
+         * Builds this BatchJob object
+         *
+         * @param predationMultiplier The predation multiplier
+         * @param destinationsFile The destinations file
+         * @param seed The random seed
+         * @param dir The directory for the results
+         */
+        public BatchJob( String predationMultiplier,
+                String destinationsFile,
+                long seed,
+                File dir )
+        {
+            _predationMultiplier = predationMultiplier;
+            _destinationsFile = destinationsFile;
+            _seed = seed;
+            _dir = dir;
+        }
+
+        /**
+         * Runs the simulator
+         */
+        public void run()
+        {
+            _LOG.info( "Starting simulator [" + _dir + "]" );
+
+            // each simulator gets its own copy since it modifies them
+            Properties simulationProperties = new Properties();
+            simulationProperties.putAll( _baseProperties );
+            simulationProperties.setProperty( "predation-multiplier",
+                    _predationMultiplier );
+            simulationProperties.setProperty( "destinations-file",
+                    _destinationsFile );
+            simulationProperties.setProperty( "run-graphical", "false" );
+            simulationProperties.setProperty( "current-run", "1" );
+            simulationProperties.setProperty( "results-root-dir",
+                    _dir.getPath() );
+
+            if( !_dir.isDirectory() && !_dir.mkdirs() )
+            {
+                throw new RuntimeException( "Unable to create results directory ["
+                        + _dir.getAbsolutePath() + "]" );
+            }
+
+            // create simulator and execute it
+            Simulator simulator = new Simulator( _seed );
+            simulator.initialize( simulationProperties );
+            simulator.execute();
+
+            _fitness = simulator.getSimulationOutputFitness();
+            _groupSizeCounts = simulator.getGroupSizeCounts();
+
+            _LOG.info( "Finished simulator [" + _dir + "]" );
+        }
+    }
+
+    /** The base simulation properties */
+    private Properties _baseProperties = null;
+
+    /** The directory in which the results are written */
+    private File _resultsDir = null;
+
+    /** The number of threads running the simulators */
+    private int _threadCount = Runtime.getRuntime().availableProcessors();
+
+    /** The predation multipliers */
+    private List<String> _predationMultipliers = null;
+
+    /** The destinations files */
+    private List<String> _destinationsFiles = null;
+
+    /** The random seeds */
+    private List<Long> _seeds = new ArrayList<Long>();
+
+    public static void main( String[] args )
+    {
+        try
+        {
+            PredationBatchRunner runner = new PredationBatchRunner();
+            runner.initialize( MiscUtils.loadProperties( _PROPS_FILE_KEY ) );
+            runner.run();
+        }
+        catch( Exception e )
+        {
+            _LOG.error( "Batch failed", e );
+            System.exit( 1 );
+        }
+    }
+
+    /**
+     * Initializes the batch using the specified properties
+     *
+     * @param props The batch properties
+     */
+    public void initialize( Properties props )
+    {
+        _LOG.trace( "Entering initialize( props )" );
+
+        // load the base simulation properties
+        String baseProperties = props.getProperty( _BASE_PROPS_FILE_KEY,
+                "cfg/sim/discrete/sim-properties.parameters" );
+        _baseProperties = MiscUtils.loadPropertiesFile( baseProperties );
+
+        // apply the overrides used by every simulator
+        Iterator<String> keyIter = props.stringPropertyNames().iterator();
+        while( keyIter.hasNext() )
+        {
+            String key = keyIter.next();
+            if( key.startsWith( _OVERRIDE_PREFIX ) )
+            {
+                _baseProperties.setProperty(
+                        key.substring( _OVERRIDE_PREFIX.length() ),
+                        props.getProperty( key ).trim() );
+            }
+        }
+
+        String resultsDir = props.getProperty( _RESULTS_DIR_KEY );
+        Validate.notEmpty( resultsDir, "Results directory (key="
+                + _RESULTS_DIR_KEY + ") may not be empty" );
+        _resultsDir = new File( resultsDir.trim() );
+
+        String threadCount = props.getProperty( _THREAD_COUNT_KEY );
+        if( null != threadCount )
+        {
+            _threadCount = Integer.parseInt( threadCount.trim() );
+            Validate.isTrue( 0 < _threadCount, "Thread count (key="
+                    + _THREAD_COUNT_KEY + ") must be positive" );
+        }
+
+        // default to the values in the base properties
+        _predationMultipliers = parseList( props.getProperty(
+                _PREDATION_MULTIPLIERS_KEY,
+                _baseProperties.getProperty( "predation-multiplier" ) ) );
+        Validate.notEmpty( _predationMultipliers,
+                "Predation multipliers may not be empty" );
+        validateDirValues( _predationMultipliers, "Predation multipliers" );
+
+        _destinationsFiles = parseList( props.getProperty(
+                _DESTINATIONS_FILES_KEY,
+                _baseProperties.getProperty( "destinations-file" ) ) );
+        Validate.notEmpty( _destinationsFiles,
+                "Destinations files may not be empty" );
+        validateDirValues( _destinationsFiles, "Destinations files" );
+
+        List<String> seeds = parseList( props.getProperty( _RANDOM_SEEDS_KEY ) );
+        Validate.notEmpty( seeds, "Random seeds (key=" + _RANDOM_SEEDS_KEY
+                + ") may not be empty" );
+        for( int i = 0; i < seeds.size(); i++ )
+        {
+            Long seed = Long.valueOf( seeds.get( i ) );
+            Validate.isTrue( !_seeds.contains( seed ), "Random seeds (key="
+                    + _RANDOM_SEEDS_KEY + ") may not repeat [" + seed + "]" );
+            _seeds.add( seed );
+        }
+
+        _LOG.info( "Using _predationMultipliers=" + _predationMultipliers
+                + " _destinationsFiles=" + _destinationsFiles + " _seeds="
+                + _seeds + " _threadCount=[" + _threadCount + "]" );
+
+        _LOG.trace( "Leaving initialize( props )" );
+    }
+
+    /**
+     * Runs every simulator in the batch and writes the summary.  The batch
+     * fails after writing the summary if any of the simulators failed.
+     */
+    public void run()
+    {
+        _LOG.trace( "Entering run()" );
+
+        // build a job for every combination, the seed changing the fastest
+        List<BatchJob> jobs = new ArrayList<BatchJob>();
+        for( int i = 0; i < _predationMultipliers.size(); i++ )
+        {
+            File predationDir = new File( _resultsDir, "pred-"
+                    + buildDirValue( _predationMultipliers.get( i ) ) );
+            for( int j = 0; j < _destinationsFiles.size(); j++ )
+            {
+                File destinationDir = new File( predationDir, "dest-"
+                        + buildDirValue( _destinationsFiles.get( j ) ) );
+                for( int k = 0; k < _seeds.size(); k++ )
+                {
+                    jobs.add( new BatchJob( _predationMultipliers.get( i ),
+                            _destinationsFiles.get( j ), _seeds.get( k ),
+                            new File( destinationDir, "seed-" + _seeds.get( k ) ) ) );
+                }
+            }
+        }
+
+        // run them
+        final AtomicInteger failures = new AtomicInteger( 0 );
+        ForkJoinPool pool = new ForkJoinPool( _threadCount );
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for( int i = 0; i < jobs.size(); i++ )
+        {
+            final BatchJob job = jobs.get( i );
+            tasks.add( pool.submit( new Runnable() {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        job.run();
+                    }
+                    catch( Exception e )
+                    {
+                        _LOG.error( "Simulator [" + job._dir + "] failed", e );
+                        failures.incrementAndGet();
+                    }
+                }
+            } ) );
+        }
+        try
+        {
+            for( int i = 0; i < tasks.size(); i++ )
+            {
+                tasks.get( i ).join();
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        writeSummary( jobs );
+
+        // the summary covers the simulators that finished, but the batch
+        // did not
+        if( 0 < failures.get() )
+        {
+            String msg = "[" + failures.get() + "] of [" + jobs.size()
+                    + "] simulators failed";
+            _LOG.error( msg );
+            throw new RuntimeException( msg );
+        }
+
+        _LOG.trace( "Leaving run()" );
+    }
+
+    /**
+     * Writes the fitness and group size counts of every combination of
+     * predation multiplier and destinations file, aggregated across the
+     * seeds, to the summary file
+     *
+     * @param jobs The jobs in the order they were built
+     */
+    private void writeSummary( List<BatchJob> jobs )
+    {
+        if( !_resultsDir.isDirectory() && !_resultsDir.mkdirs() )
+        {
+            throw new RuntimeException( "Unable to create results directory ["
+                    + _resultsDir.getAbsolutePath() + "]" );
+        }
+
+        File summaryFile = new File( _resultsDir, _SUMMARY_FILENAME );
+        PrintWriter writer = null;
+        try
+        {
+            writer = new PrintWriter( new BufferedWriter( new FileWriter(
+                    summaryFile ) ) );
+            writer.println( "# Fitness values are means across the seeds and "
+                    + "group size counts are totals" );
+            writer.println( "random-seeds = " + _seeds );
+            writer.println();
+
+            int combination = 0;
+            for( int start = 0; start < jobs.size(); start += _seeds.size() )
+            {
+                BatchJob first = jobs.get( start );
+
+                // add each simulator's fitness to the totals in seed order
+                int totalRuns = 0;
+                float[] totals = new float[9];
+                int[] groupSizeCounts = new int[0];
+                for( int i = start; i < start + _seeds.size(); i++ )
+                {
+                    BatchJob job = jobs.get( i );
+                    if( null == job._fitness )
+                    {
+                        continue;
+                    }
+                    EvolutionOutputFitness temp = job._fitness;
+                    totals[0] += temp.getPercentTime();
+                    totals[1] += temp.getPercentSurvive();
+                    totals[2] += temp.getPercentSuccess();
+                    totals[3] += temp.getPercentTimeAway();
+                    totals[4] += temp.getPercentTimeToDestination();
+                    totals[5] += temp.getPercentDistanceToDestination();
+                    totals[6] += temp.getPercentTimeAlive();
+                    totals[7] += temp.getPercentGoodDestination();
+                    totals[8] += temp.getPercentToPreferredDestination();
+                    if( groupSizeCounts.length < job._groupSizeCounts.length )
+                    {
+                        int[] larger = new int[job._groupSizeCounts.length];
+                        System.arraycopy( groupSizeCounts, 0, larger, 0,
+                                groupSizeCounts.length );
+                        groupSizeCounts = larger;
+                    }
+                    for( int j = 0; j < job._groupSizeCounts.length; j++ )
+                    {
+                        groupSizeCounts[j] += job._groupSizeCounts[j];
+                    }
+                    totalRuns++;
+                }
+
+                String prefix = "combination." + String.format( "%03d", combination )
+                        + ".";
+                writer.println( prefix + "predation-multiplier = "
+                        + first._predationMultiplier );
+                writer.println( prefix + "destinations-file = "
+                        + first._destinationsFile );
+                writer.println( prefix + "results-dir = "
+                        + first._dir.getParent() );
+                writer.println( prefix + "completed-seeds = " + totalRuns );
+                if( 0 < totalRuns )
+                {
+                    String[] names = { "percent-time", "percent-survive",
+                            "percent-success", "percent-time-away",
+                            "percent-time-to-destination",
+                            "percent-distance-to-destination",
+                            "percent-time-alive", "percent-good-destination",
+                            "percent-to-preferred-destination" };
+                    for( int i = 0; i < names.length; i++ )
+                    {
+                        writer.println( prefix + "mean." + names[i] + " = "
+                                + ( totals[i] / totalRuns ) );
+                    }
+                    for( int i = 0; i < groupSizeCounts.length; i++ )
+                    {
+                        writer.println( prefix + "group-size-count."
+                                + String.format( "%02d", i ) + " = "
+                                + groupSizeCounts[i] );
+                    }
+                }
+                writer.println();
+                combination++;
+            }
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to write summary file ["
+                    + summaryFile.getAbsolutePath() + "]", ioe );
+            throw new RuntimeException( "Unable to write summary file ["
+                    + summaryFile.getAbsolutePath() + "]", ioe );
+        }
+        finally
+        {
+            if( null != writer )
+            {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Splits a comma-separated list of values
+     *
+     * @param values The values
+     * @return The trimmed, non-empty values
+     */
+    private List<String> parseList( String values )
+    {
+        List<String> list = new ArrayList<String>();
+        if( null != values )
+        {
+            String[] split = values.split( "," );
+            for( int i = 0; i < split.length; i++ )
+            {
+                if( 0 < split[i].trim().length() )
+                {
+                    list.add( split[i].trim() );
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Validates that the values map to different directory names, so the
+     * simulators don't write their results over each other
+     *
+     * @param values The values
+     * @param description The description of the values used in errors
+     */
+    private void validateDirValues( List<String> values, String description )
+    {
+        Map<String, String> dirValues = new HashMap<String, String>();
+        for( int i = 0; i < values.size(); i++ )
+        {
+            String dirValue = buildDirValue( values.get( i ) );
+            String other = dirValues.put( dirValue, values.get( i ) );
+            Validate.isTrue( null == other, description + " [" + other
+                    + "] and [" + values.get( i )
+                    + "] would share the results directory name [" + dirValue
+                    + "]" );
+        }
+    }
+
+    /**
+     * Builds the part of a directory name representing a value. Files are
+     * represented by their names without any extension.
+     *
+     * @param value The value
+     * @return The directory name
+     */
+    private String buildDirValue( String value )
+    {
+        String dirValue = new File( value ).getName();
+        int extensionIdx = dirValue.lastIndexOf( '.' );
+        if( ( 0 <= value.indexOf( '/' ) ) && ( 0 < extensionIdx ) )
+        {
+            dirValue = dirValue.substring( 0, extensionIdx );
+        }
+        return dirValue.replaceAll( "[^A-Za-z0-9._-]", "_" );
+    }
+}
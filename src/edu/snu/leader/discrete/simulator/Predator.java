@@ -21,6 +21,7 @@ import java.util.List;
 import org.apache.commons.lang.Validate;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 
+import edu.snu.leader.discrete.utils.IndexShuffler;
 import edu.snu.leader.discrete.utils.Utils;
 
 
@@ -48,6 +49,9 @@ public class Predator
 
     private List<Agent> _agents = null;
 
+    /** Shuffles the order in which agents are hunted */
+    private IndexShuffler _shuffler = null;
+
     private List<PredationEvent> _predationEvents = null;
 
     /** Whether or not to use the predation threshold */
@@ -127,6 +131,17 @@ public class Predator
             _agents.add( iter.next() );
         }
 
+        // hunt agents in the same order as the original shuffle if asked to,
+        // for comparisons with older results
+        boolean useLegacyShuffle = false;
+        String stringUseLegacyShuffle = _simState.getProperties().getProperty(
+                "use-legacy-predation-shuffle" );
+        if( null != stringUseLegacyShuffle )
+        {
+            useLegacyShuffle = Boolean.parseBoolean( stringUseLegacyShuffle.trim() );
+        }
+        _shuffler = new IndexShuffler( _agents.size(), useLegacyShuffle );
+
         _predationEvents = new ArrayList<PredationEvent>( _agents.size() );
     }
 
@@ -146,12 +161,11 @@ public class Predator
         int agentCount = _simState.getAgentCount();
 
         // randomize the agents for predation
-        List<Agent> agents = Utils.shuffleAgents( _agents,
-                _simState.getRandomGenerator() );
+        _shuffler.shuffle( _simState.getRandomGenerator() );
 
-        for( int i = 0; i < agents.size(); i++ )
+        for( int i = 0; i < _shuffler.size(); i++ )
         {
-            Agent temp = agents.get( i );
+            Agent temp = _agents.get( _shuffler.get( i ) );
             // if its alive and hasn't reached their destination
             if( temp.isAlive() && !temp.hasReachedDestination() )
             {
@@ -250,6 +264,15 @@ public class Predator
         return _predationEvents.iterator();
     }
 
+    /**
+     * Clears the predation events, normally once they have been reported at
+     * the end of a run
+     */
+    public void clearPredationEvents()
+    {
+        _predationEvents.clear();
+    }
+
     /**
      * PredationEvent Holds information about each predation event.
      * 
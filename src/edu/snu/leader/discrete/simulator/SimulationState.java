@@ -34,12 +34,14 @@ import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import org.apache.log4j.Logger;
 
 import ec.util.MersenneTwisterFast;
-import edu.snu.leader.discrete.behavior.Decision;
 import edu.snu.leader.discrete.evolution.EvolutionOutputFitness;
 import edu.snu.leader.discrete.simulator.Agent.ConflictHistoryEvent;
+import edu.snu.leader.discrete.simulator.Agent.DecisionSnapshot;
 import edu.snu.leader.discrete.simulator.Agent.InitiationHistoryEvent;
 import edu.snu.leader.discrete.simulator.Predator.PredationEvent;
 import edu.snu.leader.discrete.utils.Reporter;
+import edu.snu.leader.util.AsyncResultsWriter;
+import edu.snu.leader.util.MetricsRegistry;
 
 
 /**
@@ -117,8 +119,33 @@ public class SimulationState
     /** Reporter for reporting the events for predation */
     private Reporter _predationEventsReporter = null;
 
+    /** The writer thread that writes this simulation's reports */
+    private AsyncResultsWriter _resultsWriter = null;
+
+    /**
+     * Conflict events of the current run, spooled to the conflict reporter
+     * at the end of each run
+     */
     public List<ConflictHistoryEvent> conflictEvents = null;
 
+    /** Grid used to find the neighbors of agents */
+    private NeighborGrid _neighborGrid = new NeighborGrid();
+
+    /** Whether or not agents have moved since the grid was rebuilt */
+    private boolean _isNeighborGridStale = true;
+
+    /** The directory in which this simulation's results are reported */
+    private String _rootDirectory = "";
+
+    /** The name of the file holding the results of the simulation */
+    private String _resultsFilename = null;
+
+    /** The metrics gathered about the simulation */
+    private MetricsRegistry _metrics = null;
+
+    /** Times the rebuilding of the neighbor grid */
+    private MetricsRegistry.Timer _neighborGridTimer = null;
+
     private EvolutionOutputFitness _simulationOutputFitness = null;
 
     private int _destinationSizeRadius = 0;
@@ -132,7 +159,7 @@ public class SimulationState
     // previously static variables are below
     public int successCount = 0;
 
-    public int[] groupSizeCounts;
+    public int[] groupSizeCounts = new int[1];
 
     public long randomSeedOverride = -1;
 
@@ -203,6 +230,15 @@ public class SimulationState
     /** Unique id count for groups */
     public int uniqueGroupIdCount = 0;
 
+    /** Unique id count for agents */
+    public int uniqueAgentIdCount = 0;
+
+    /** Used across agents to make sure only one initiates */
+    public boolean canInitiate = true;
+
+    /** Whether or not multiple initiators are allowed */
+    public boolean canMultipleInitiate = true;
+
     /**
      * Whether or not agents that never left the starting place should be
      * counted as survivors.
@@ -309,32 +345,51 @@ public class SimulationState
 
         run = Integer.parseInt( _props.getProperty( "current-run" ) );
 
-        // add communication type to root directory path
-        setRootDirectory( "results_" + _communicationType + "_" );
+        // add communication type to root directory path, which is in the
+        // results root directory if there is one
+        String resultsRootDir = _props.getProperty( "results-root-dir" );
+        if( null != resultsRootDir )
+        {
+            setRootDirectory( resultsRootDir + "/results_" + _communicationType
+                    + "_" );
+        }
+        else
+        {
+            setRootDirectory( "results_" + _communicationType + "_" );
+        }
 
         // create the non group and it it to the list of groups
         noneGroup = new Group( this );
         _groups.add( noneGroup );
 
-        // set up the group size counts
+        // set up the group size counts, which grow as agents are added
         groupSizeCounts = new int[getAgentCount() + 1];
 
         // create list of conflict events
         conflictEvents = new LinkedList<ConflictHistoryEvent>();
 
+        // create the metrics registry
+        _metrics = MetricsRegistry.build( _props );
+        _neighborGridTimer = _metrics.getTimer( "neighbor-grid-rebuild" );
+
         // create and setup reporters
-        _eskridgeResultsReporter = new Reporter( "short-spatial-hidden-var-"
+        _resultsFilename = "short-spatial-hidden-var-"
                 + String.format( "%05d", run ) + "-seed-"
-                + String.format( "%05d", seed ) + ".dat", "", false );
+                + String.format( "%05d", seed ) + ".dat";
+        _resultsWriter = new AsyncResultsWriter( "reporter-writer" );
+        _eskridgeResultsReporter = new Reporter( _resultsFilename, "", false,
+                _resultsWriter );
         _conflictResultsReporter = new Reporter( "conflict-spatial-hidden-var-"
                 + String.format( "%05d", run ) + "-seed-"
-                + String.format( "%05d", seed ) + ".dat", "", false );
+                + String.format( "%05d", seed ) + ".dat", "", false,
+                _resultsWriter );
         _predationEventsReporter = new Reporter(
                 "predation-spacial-hidden-var-" + String.format( "%05d", run )
                         + "-seed-" + String.format( "%05d", seed )
                         + "-pred_const-"
                         + String.format( "%2.5f", _predationConstant ) + ".dat",
-                "", false );
+                "", false, _resultsWriter );
+        setRootDirectory( _rootDirectory );
         addPropertiesOutputToResultsReporter( _eskridgeResultsReporter );
         addPropertiesOutputToResultsReporter( _conflictResultsReporter );
         addPropertiesOutputToResultsReporter( _predationEventsReporter );
@@ -349,6 +404,18 @@ public class SimulationState
         // report some stuff
         // System.out.println( "Cleaning up sim run " + _currentSimulationRun );
 
+        // spool this run's events so they don't accumulate across runs
+        if( _shouldReportConflict )
+        {
+            spoolConflictEvents();
+        }
+        conflictEvents.clear();
+        if( _shouldReportPredation )
+        {
+            spoolPredationEvents();
+        }
+        _predator.clearPredationEvents();
+
         if( _currentSimulationRun < _simulationRunCount )
         {
             // create the output fitness
@@ -507,6 +574,36 @@ public class SimulationState
     public void addAgent( Agent agent )
     {
         _agents.add( agent );
+        _isNeighborGridStale = true;
+
+        // there is a group size count for every possible group size
+        groupSizeCounts = Arrays.copyOf( groupSizeCounts, getAgentCount() + 1 );
+    }
+
+    /**
+     * Returns the grid used to find the neighbors of agents, rebuilding it
+     * first if any agent has moved
+     * 
+     * @return The neighbor grid
+     */
+    public NeighborGrid getNeighborGrid()
+    {
+        if( _isNeighborGridStale )
+        {
+            long start = _neighborGridTimer.start();
+            _neighborGrid.rebuild( _agents );
+            _neighborGridTimer.stop( start );
+            _isNeighborGridStale = false;
+        }
+        return _neighborGrid;
+    }
+
+    /**
+     * Marks the neighbor grid as stale, normally because an agent moved
+     */
+    public void invalidateNeighborGrid()
+    {
+        _isNeighborGridStale = true;
     }
 
     public void addGroup( Group group )
@@ -539,9 +636,77 @@ public class SimulationState
         return _communicationType;
     }
 
+    /**
+     * Returns the directory in which this simulation's results are reported
+     * 
+     * @return The root directory
+     */
+    public String getRootDirectory()
+    {
+        return _rootDirectory;
+    }
+
+    /**
+     * Returns the path of the file holding the results of the simulation
+     * 
+     * @return The results file
+     */
+    public String getResultsFile()
+    {
+        return _rootDirectory + "/" + _resultsFilename;
+    }
+
+    /**
+     * Returns the writer thread that writes this simulation's reports
+     * 
+     * @return The results writer
+     */
+    public AsyncResultsWriter getResultsWriter()
+    {
+        return _resultsWriter;
+    }
+
+    /**
+     * Waits until everything reported so far has been written to its file
+     */
+    public void waitForReports()
+    {
+        _resultsWriter.drain();
+    }
+
+    /**
+     * Waits until everything reported has been written to its file and stops
+     * the writer thread. Nothing may be reported afterwards.
+     */
+    public void closeReports()
+    {
+        _resultsWriter.close();
+    }
+
+    /**
+     * Returns the metrics gathered about the simulation
+     * 
+     * @return The metrics registry
+     */
+    public MetricsRegistry getMetrics()
+    {
+        return _metrics;
+    }
+
+    /**
+     * Sets the directory in which this simulation's results are reported
+     * 
+     * @param root The root directory
+     */
     public void setRootDirectory( String root )
     {
-        Reporter.ROOT_DIRECTORY = root;
+        _rootDirectory = root;
+        if( null != _eskridgeResultsReporter )
+        {
+            _eskridgeResultsReporter.setRootDirectory( root );
+            _conflictResultsReporter.setRootDirectory( root );
+            _predationEventsReporter.setRootDirectory( root );
+        }
     }
 
     public int getAgentCount()
@@ -564,6 +729,11 @@ public class SimulationState
         return _shouldStopAtAnyDestination;
     }
 
+    public boolean shouldReportConflict()
+    {
+        return _shouldReportConflict;
+    }
+
     public int getNumberGroups()
     {
         int temp = -1;
@@ -810,7 +980,14 @@ public class SimulationState
         _conflictResultsReporter.appendLine( "# " + SPACER );
         _conflictResultsReporter.appendLine( "# Conflict Events" );
         _conflictResultsReporter.appendLine( "# Run  Time  Agent    Dest  Dec Type     Leader    Event(Type:Leader:Prob:Conflict)" );
+        _conflictResultsReporter.appendSpool();
+        _conflictResultsReporter.appendLine( "" );
+
+        _conflictResultsReporter.appendLine( "" );
+    }
 
+    private void spoolConflictEvents()
+    {
         StringBuilder b = new StringBuilder();
 
         Iterator<ConflictHistoryEvent> iterC = conflictEvents.iterator();
@@ -829,47 +1006,46 @@ public class SimulationState
             b.append( tempC.destinationId + "  " );
 
             String leaderName = null;
-            if( tempC.decisionMade.getLeader().getId().equals( tempC.agentId ) )
+            if( tempC.decisionMade.leader.getId().equals( tempC.agentId ) )
             {
                 leaderName = "-       ";
             }
             else
             {
-                leaderName = tempC.decisionMade.getLeader().getId().toString();
+                leaderName = tempC.decisionMade.leader.getId().toString();
                 leaderName = leaderName.replaceAll( "Agent", "" );
                 leaderName = "Ind"
                         + String.format( "%05d", Integer.parseInt( leaderName ) );
             }
             b.append( String.format( "%-12s",
-                    tempC.decisionMade.getDecisionType() )
+                    tempC.decisionMade.decisionType )
                     + " " + leaderName + "  " );
             if( tempC.possibleDecisions != null )
             {
-                Iterator<Decision> iterD = tempC.possibleDecisions.iterator();
+                Iterator<DecisionSnapshot> iterD = tempC.possibleDecisions.iterator();
                 while( iterD.hasNext() )
                 {
-                    Decision tempD = iterD.next();
+                    DecisionSnapshot tempD = iterD.next();
 
-                    if( tempD.getLeader().getId().equals(
-                            tempD.getAgent().getId() ) )
+                    if( tempD.leader.getId().equals( tempC.agentId ) )
                     {
                         leaderName = "-        ";
                     }
                     else
                     {
-                        leaderName = tempD.getLeader().getId().toString();
+                        leaderName = tempD.leader.getId().toString();
                         leaderName = leaderName.replaceAll( "Agent", "" );
                         leaderName = "Ind"
                                 + String.format( "%05d",
                                         Integer.parseInt( leaderName ) );
                     }
 
-                    b.append( ( String.format( "%-12s", tempD.getDecisionType() ) + ":" ).replaceAll(
+                    b.append( ( String.format( "%-12s", tempD.decisionType ) + ":" ).replaceAll(
                             " ", "" ) );
                     b.append( ( leaderName + ":" ).replaceAll( " ", "" ) );
-                    b.append( ( String.format( "%1.7f", tempD.getProbability() ) + ":" ).replaceAll(
+                    b.append( ( String.format( "%1.7f", tempD.probability ) + ":" ).replaceAll(
                             " ", "" ) );
-                    b.append( ( String.format( "%1.5f", tempD.getConflict() ) + "," ).replaceAll(
+                    b.append( ( String.format( "%1.5f", tempD.conflict ) + "," ).replaceAll(
                             " ", "" ) );
                 }
                 // delete extra comma
@@ -882,15 +1058,11 @@ public class SimulationState
 
             b.append( "\n" );
         }
-        _conflictResultsReporter.appendLine( b.toString() );
-
-        _conflictResultsReporter.appendLine( "" );
+        _conflictResultsReporter.spool( b.toString() );
     }
 
     private void addPredationResultsToPredationReporter()
     {
-        StringBuilder b = new StringBuilder();
-
         _predationEventsReporter.appendLine( "# Predation Constant" );
         _predationEventsReporter.appendLine( "predation-constant="
                 + _predationConstant );
@@ -941,6 +1113,14 @@ public class SimulationState
         _predationEventsReporter.append( String.format( "%-11s", "Pref Dest" ) );
         _predationEventsReporter.append( String.format( "%-11s", "Lead Dest" )
                 + "\n" );
+        _predationEventsReporter.appendSpool();
+        _predationEventsReporter.appendLine( "" );
+        _predationEventsReporter.appendLine( "" );
+    }
+
+    private void spoolPredationEvents()
+    {
+        StringBuilder b = new StringBuilder();
 
         Iterator<PredationEvent> iter = _predator.predationEventIterator();
         while( iter.hasNext() )
@@ -966,8 +1146,7 @@ public class SimulationState
 
             b.append( "\n" );
         }
-        _predationEventsReporter.appendLine( b.toString() );
-        _predationEventsReporter.appendLine( "" );
+        _predationEventsReporter.spool( b.toString() );
     }
 
     public EvolutionOutputFitness getSimulationOutputFitness()
@@ -23,6 +23,7 @@ import org.apache.log4j.Logger;
 
 import edu.snu.leader.discrete.behavior.Decision.DecisionType;
 import edu.snu.leader.discrete.evolution.EvolutionOutputFitness;
+import edu.snu.leader.util.MetricsRegistry;
 import edu.snu.leader.util.MiscUtils;
 
 
@@ -53,6 +54,24 @@ public class Simulator
 
     private long _randomSeedOverride = -1;
 
+    /** Times the agents' decisions */
+    private MetricsRegistry.Timer _decisionTimer = null;
+
+    /** Times the agents' execution of their decisions */
+    private MetricsRegistry.Timer _executionTimer = null;
+
+    /** Times the update of the agents' traits */
+    private MetricsRegistry.Timer _traitUpdateTimer = null;
+
+    /** Times the predator's hunting */
+    private MetricsRegistry.Timer _predationTimer = null;
+
+    /** Times the set up of each simulation step */
+    private MetricsRegistry.Timer _stepSetupTimer = null;
+
+    /** Times the reporting of each run and the set up of the next */
+    private MetricsRegistry.Timer _reportingTimer = null;
+
     public Simulator()
     {
         _randomSeedOverride = -1;
@@ -82,6 +101,15 @@ public class Simulator
         // Initialize the simulation state
         _simState.initialize( _props );
 
+        // get the timers
+        MetricsRegistry metrics = _simState.getMetrics();
+        _decisionTimer = metrics.getTimer( "decision" );
+        _executionTimer = metrics.getTimer( "execution" );
+        _traitUpdateTimer = metrics.getTimer( "trait-update" );
+        _predationTimer = metrics.getTimer( "predation" );
+        _stepSetupTimer = metrics.getTimer( "step-setup" );
+        _reportingTimer = metrics.getTimer( "reporting" );
+
         String adhesionTimeLimit = _simState.getProperties().getProperty(
                 "adhesion-time-limit" );
         Validate.notEmpty( adhesionTimeLimit,
@@ -121,6 +149,12 @@ public class Simulator
             executeRun();
         }
 
+        // wait for the reports to be written and stop the writer thread
+        _simState.closeReports();
+
+        // dump the metrics alongside the results
+        _simState.getMetrics().writeSummary( _simState.getResultsFile() );
+
         _LOG.trace( "Leaving execute()" );
     }
 
@@ -131,6 +165,7 @@ public class Simulator
         while( isSimActive() )
         {
             // make decisions
+            long start = _decisionTimer.start();
             agentIterator = _simState.getAgentIterator();
             while( agentIterator.hasNext() )
             {
@@ -140,8 +175,10 @@ public class Simulator
                     temp.makeDecision();
                 }
             }
+            _decisionTimer.stop( start );
 
             // execute decisions
+            start = _executionTimer.start();
             agentIterator = _simState.getAgentIterator();
             while( agentIterator.hasNext() )
             {
@@ -151,8 +188,10 @@ public class Simulator
                     temp.execute();
                 }
             }
+            _executionTimer.stop( start );
 
             // update traits
+            start = _traitUpdateTimer.start();
             agentIterator = _simState.getAgentIterator();
             while( agentIterator.hasNext() )
             {
@@ -162,19 +201,26 @@ public class Simulator
                     temp.update();
                 }
             }
+            _traitUpdateTimer.stop( start );
 
             if( _simState.isPredatorEnabled() )
             {
+                start = _predationTimer.start();
                 _simState.getPredator().hunt();
+                _predationTimer.stop( start );
             }
 
             // setup next run step
+            start = _stepSetupTimer.start();
             _simState.setupNextSimulationRunStep();
+            _stepSetupTimer.stop( start );
         }
 
         _LOG.trace( "Setting up next simulation run" );
         // setup next simulation run
+        long start = _reportingTimer.start();
         _simState.setupNextSimulationRun();
+        _reportingTimer.stop( start );
         _LOG.trace( "Finished setting up next simulation run" );
 
         _simState.lastJoinedAgentTime = 0;
@@ -214,6 +260,16 @@ public class Simulator
         return _simState.getSimulationOutputFitness();
     }
 
+    /**
+     * Returns the number of simulation runs that ended with each group size
+     * 
+     * @return The group size counts indexed by group size
+     */
+    public int[] getGroupSizeCounts()
+    {
+        return _simState.groupSizeCounts.clone();
+    }
+
     private Agent initiationAgent = null;
 
     /**
@@ -227,7 +283,7 @@ public class Simulator
 
         // if global and only one can initiate then use adhesion time limit
         if( _simState.getCommunicationType().equals( "global" )
-                && !Agent.canMultipleInitiate() )
+                && !_simState.canMultipleInitiate )
         {
             isActive = true;
             int groupCount = 0;
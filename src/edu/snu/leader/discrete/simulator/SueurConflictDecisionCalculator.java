@@ -20,7 +20,6 @@ import org.apache.commons.lang.Validate;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 
 import edu.snu.leader.discrete.behavior.Decision;
-import edu.snu.leader.discrete.utils.Reporter;
 
 
 /**
@@ -59,6 +58,15 @@ public class SueurConflictDecisionCalculator implements
 
     private int _destinationSizeRadius = 0;
 
+    /** Mimetic term of the follow probability for each neighbor count */
+    private NeighborCountTable _followTable = null;
+
+    /** Mimetic term of the cancel probability for each neighbor count */
+    private NeighborCountTable _cancelTable = null;
+
+    /** Turns direction differences into angles */
+    private ConflictAngleTable _angleTable = null;
+
     @Override
     public void initialize( SimulationState simState )
     {
@@ -103,7 +111,14 @@ public class SueurConflictDecisionCalculator implements
         _destinationSizeRadius = _simState.getDestinationRadius();
 
         // add sueur info to root directory path
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "SueurValues" );
+        _simState.setRootDirectory( _simState.getRootDirectory() + "SueurValues" );
+
+        // build the lookup tables for the mimetic terms
+        _followTable = NeighborCountTable.buildSueurTable( _beta, _q, _S,
+                _simState );
+        _cancelTable = NeighborCountTable.buildSueurTable( _betaC, _q, _S,
+                _simState );
+        _angleTable = new ConflictAngleTable( _simState );
 
     }
 
@@ -143,9 +158,7 @@ public class SueurConflictDecisionCalculator implements
         }
 
         // calculate lambda
-        lambda = _alpha
-                + ( ( _beta * Math.pow( X, _q ) ) / ( Math.pow( _S, _q ) + Math.pow(
-                        X, _q ) ) );
+        lambda = _alpha + _followTable.get( X );
 
         // calculate k
         double k = 1 / kValue( 1 - conflict );
@@ -183,9 +196,7 @@ public class SueurConflictDecisionCalculator implements
         }
         else
         {
-            psiC = _alphaC
-                    + ( ( _betaC * Math.pow( X, _q ) ) / ( Math.pow( _S, _q ) + Math.pow(
-                            X, _q ) ) );
+            psiC = _alphaC + _cancelTable.get( X );
         }
 
         decision.setProbability( psiC );
@@ -259,8 +270,8 @@ public class SueurConflictDecisionCalculator implements
             {
                 // calculate angle between leader's current position and agent's
                 // preferred destination by law of cosines
-                double lawOfCosines = ( Math.pow( A, 2 ) - Math.pow( B, 2 ) - Math.pow(
-                        C, 2 ) ) / ( -2 * B * C );
+                double lawOfCosines = ( ( A * A ) - ( B * B ) - ( C * C ) )
+                        / ( -2 * B * C );
                 // because of rounding error there can be lawOfCosines values
                 // that are oh so slightly larger or smaller than 1 or -1
                 // this augments them to their correct values
@@ -272,7 +283,7 @@ public class SueurConflictDecisionCalculator implements
                 {
                     lawOfCosines = 1;
                 }
-                angle = Math.acos( lawOfCosines );
+                angle = _angleTable.acos( lawOfCosines );
             }
 
             // if angle is greater than 180 than it becomes 360 - angle
@@ -20,7 +20,6 @@ import org.apache.commons.lang.Validate;
 
 import edu.snu.leader.discrete.behavior.Decision;
 import edu.snu.leader.discrete.behavior.Decision.DecisionType;
-import edu.snu.leader.discrete.utils.Reporter;
 
 
 /**
@@ -57,6 +56,12 @@ public class SueurConflictPersonalityDecisionCalculator implements
     /** A threshold */
     private int _S = 0;
 
+    /** Mimetic term of the follow probability for each neighbor count */
+    private NeighborCountTable _followTable = null;
+
+    /** Mimetic term of the cancel probability for each neighbor count */
+    private NeighborCountTable _cancelTable = null;
+
     @Override
     public void initialize( SimulationState simState )
     {
@@ -92,9 +97,15 @@ public class SueurConflictPersonalityDecisionCalculator implements
                 "Use cancellation threshold may not be empty" );
 
         // add sueur info to root directory path
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "q=" + _q + "_"
+        _simState.setRootDirectory( _simState.getRootDirectory() + "q=" + _q + "_"
                 + "S=" + _S );
 
+        // build the lookup tables for the mimetic terms
+        _followTable = NeighborCountTable.buildSueurTable( _beta, _q, _S,
+                _simState );
+        _cancelTable = NeighborCountTable.buildSueurTable( _betaC, _q, _S,
+                _simState );
+
     }
 
     @Override
@@ -125,9 +136,7 @@ public class SueurConflictPersonalityDecisionCalculator implements
         }
 
         // calculate lambda
-        lambda = _alpha
-                + ( ( _beta * Math.pow( X, _q ) ) / ( Math.pow( _S, _q ) + Math.pow(
-                        X, _q ) ) );
+        lambda = _alpha + _followTable.get( X );
         lambda *= 1 / kValue( decision );
 
         decision.setProbability( lambda );
@@ -161,9 +170,7 @@ public class SueurConflictPersonalityDecisionCalculator implements
         }
         else
         {
-            psiC = _alphaC
-                    + ( ( _betaC * Math.pow( X, _q ) ) / ( Math.pow( _S, _q ) + Math.pow(
-                            X, _q ) ) );
+            psiC = _alphaC + _cancelTable.get( X );
             psiC *= kValue( decision );
         }
 
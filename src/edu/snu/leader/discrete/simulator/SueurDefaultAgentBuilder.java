@@ -22,7 +22,6 @@ import org.apache.commons.lang.Validate;
 
 import edu.snu.leader.discrete.behavior.MovementBehavior;
 import edu.snu.leader.discrete.behavior.NoMove;
-import edu.snu.leader.discrete.utils.Reporter;
 import edu.snu.leader.discrete.utils.Utils;
 import edu.snu.leader.util.MiscUtils;
 
@@ -65,7 +64,7 @@ public class SueurDefaultAgentBuilder implements AgentBuilder
         _locations = Utils.readPoints( _locationsFile );
 
         // add the agent count info to root directory
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "agent-count="
+        _simState.setRootDirectory( _simState.getRootDirectory() + "agent-count="
                 + _numAgents + "_" );
     }
 
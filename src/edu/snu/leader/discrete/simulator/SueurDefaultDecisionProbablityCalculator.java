@@ -19,7 +19,6 @@ import java.util.List;
 import org.apache.commons.lang.Validate;
 
 import edu.snu.leader.discrete.behavior.Decision;
-import edu.snu.leader.discrete.utils.Reporter;
 
 
 /**
@@ -55,6 +54,12 @@ public class SueurDefaultDecisionProbablityCalculator implements
     /** A threshold */
     private int _S = 0;
 
+    /** Mimetic term of the follow probability for each neighbor count */
+    private NeighborCountTable _followTable = null;
+
+    /** Mimetic term of the cancel probability for each neighbor count */
+    private NeighborCountTable _cancelTable = null;
+
     @Override
     public void initialize( SimulationState simState )
     {
@@ -91,9 +96,15 @@ public class SueurDefaultDecisionProbablityCalculator implements
                 "Use cancellation threshold may not be empty" );
 
         // add sueur info to root directory path
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "q=" + _q + "_"
+        _simState.setRootDirectory( _simState.getRootDirectory() + "q=" + _q + "_"
                 + "S=" + _S );
 
+        // build the lookup tables for the mimetic terms
+        _followTable = NeighborCountTable.buildSueurTable( _beta, _q, _S,
+                _simState );
+        _cancelTable = NeighborCountTable.buildSueurTable( _betaC, _q, _S,
+                _simState );
+
     }
 
     @Override
@@ -124,9 +135,7 @@ public class SueurDefaultDecisionProbablityCalculator implements
         }
 
         // calculate lambda
-        lambda = _alpha
-                + ( ( _beta * Math.pow( X, _q ) ) / ( Math.pow( _S, _q ) + Math.pow(
-                        X, _q ) ) );
+        lambda = _alpha + _followTable.get( X );
 
         decision.setProbability( lambda );
     }
@@ -159,9 +168,7 @@ public class SueurDefaultDecisionProbablityCalculator implements
         }
         else
         {
-            psiC = _alphaC
-                    + ( ( _betaC * Math.pow( X, _q ) ) / ( Math.pow( _S, _q ) + Math.pow(
-                            X, _q ) ) );
+            psiC = _alphaC + _cancelTable.get( X );
         }
 
         decision.setProbability( psiC );
@@ -28,7 +28,6 @@ import edu.snu.leader.discrete.behavior.AdaptivePersonalityTrait;
 import edu.snu.leader.discrete.behavior.MovementBehavior;
 import edu.snu.leader.discrete.behavior.PersonalityTrait;
 import edu.snu.leader.discrete.behavior.SimpleAngularMovement;
-import edu.snu.leader.discrete.utils.Reporter;
 import edu.snu.leader.discrete.utils.Utils;
 import edu.snu.leader.util.MiscUtils;
 
@@ -87,7 +86,7 @@ public class SueurPersonalitySimpleAngularAgentBuilder implements AgentBuilder
         _destinations = Utils.readPoints( _destinationsFile, _numAgents );
 
         // add the agent count info to root directory
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "agent-count="
+        _simState.setRootDirectory( _simState.getRootDirectory() + "agent-count="
                 + _numAgents + "_" );
     }
 
@@ -26,7 +26,6 @@ import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 
 import edu.snu.leader.discrete.behavior.MovementBehavior;
 import edu.snu.leader.discrete.behavior.SimpleAngularMovement;
-import edu.snu.leader.discrete.utils.Reporter;
 import edu.snu.leader.discrete.utils.Utils;
 import edu.snu.leader.util.MiscUtils;
 
@@ -91,7 +90,7 @@ public class SueurSimpleAngularAgentBuilder implements AgentBuilder
         _destinations = Utils.readPoints( _destinationsFile, _numAgents );
 
         // add the agent count info to root directory
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "agent-count="
+        _simState.setRootDirectory( _simState.getRootDirectory() + "agent-count="
                 + _numAgents + "_" );
     }
 
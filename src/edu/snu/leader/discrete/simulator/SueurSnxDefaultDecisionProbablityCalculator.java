@@ -19,7 +19,6 @@ import java.util.List;
 import org.apache.commons.lang.Validate;
 
 import edu.snu.leader.discrete.behavior.Decision;
-import edu.snu.leader.discrete.utils.Reporter;
 
 
 /**
@@ -88,7 +87,7 @@ public class SueurSnxDefaultDecisionProbablityCalculator implements
                 "Use cancellation threshold may not be empty" );
 
         // add sueur info to root directory path
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY + "q=" + _q + "_"
+        _simState.setRootDirectory( _simState.getRootDirectory() + "q=" + _q + "_"
                 + "S=N-x" );
     }
 
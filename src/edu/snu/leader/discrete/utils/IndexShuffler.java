@@ -0,0 +1,106 @@
+/*
+ * The Bio-inspired Leadership Toolkit is a set of tools used to simulate the
+ * emergence of leaders in multi-agent systems. Copyright (C) 2014 Southern
+ * Nazarene University This program is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License,
+ * or at your option) any later version. This program is distributed in the hope
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details. You should have received a copy of
+ * the GNU General Public License along with this program. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+package edu.snu.leader.discrete.utils;
+
+import org.apache.commons.lang.Validate;
+
+import ec.util.MersenneTwisterFast;
+
+
+/**
+ * IndexShuffler A reusable random permutation of the indices of a list. Each
+ * shuffle starts from the indices in order and shuffles them in place with a
+ * Fisher-Yates shuffle. Both shuffles draw the same random numbers as the
+ * original shuffle, which repeatedly removed a random element from the
+ * unshuffled elements, but only the legacy shuffle also places the indices in
+ * the same order as it did.
+ *
+ * @author Tim Solum
+ * @version $Revision$ ($Author$)
+ */
+public class IndexShuffler
+{
+    /** The shuffled indices */
+    private int[] _indices = null;
+
+    /** Whether or not to reproduce the order of the original shuffle */
+    private boolean _useLegacyShuffle = false;
+
+    /**
+     * Builds this IndexShuffler object
+     *
+     * @param size The number of indices
+     * @param useLegacyShuffle Whether or not to reproduce the order of the
+     *            original shuffle
+     */
+    public IndexShuffler( int size, boolean useLegacyShuffle )
+    {
+        Validate.isTrue( size >= 0, "Size may not be negative" );
+        _indices = new int[size];
+        _useLegacyShuffle = useLegacyShuffle;
+    }
+
+    /**
+     * Shuffles the indices
+     *
+     * @param random The random number generator
+     */
+    public void shuffle( MersenneTwisterFast random )
+    {
+        int size = _indices.length;
+        for( int i = 0; i < size; i++ )
+        {
+            _indices[i] = i;
+        }
+
+        // indices before i are shuffled, the rest are left to choose from
+        for( int i = 0; i < size; i++ )
+        {
+            int rand = random.nextInt( size - i );
+            int index = _indices[i + rand];
+            if( _useLegacyShuffle )
+            {
+                // keep the indices left to choose from in order
+                System.arraycopy( _indices, i, _indices, i + 1, rand );
+            }
+            else
+            {
+                _indices[i + rand] = _indices[i];
+            }
+            _indices[i] = index;
+        }
+    }
+
+    /**
+     * Returns the shuffled index at the specified position
+     *
+     * @param position The position
+     * @return The index
+     */
+    public int get( int position )
+    {
+        return _indices[position];
+    }
+
+    /**
+     * Returns the number of indices
+     *
+     * @return The number of indices
+     */
+    public int size()
+    {
+        return _indices.length;
+    }
+}
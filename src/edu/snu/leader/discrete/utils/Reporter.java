@@ -14,12 +14,12 @@
 
 package edu.snu.leader.discrete.utils;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+
+import org.apache.commons.lang.Validate;
+
+import edu.snu.leader.util.AsyncResultsWriter;
 
 
 /**
@@ -30,8 +30,11 @@ import java.io.PrintWriter;
  */
 public class Reporter
 {
-    /** Root directory of all reporters */
-    public static String ROOT_DIRECTORY = "";
+    /** The writer thread to which the reports are handed off */
+    private AsyncResultsWriter _asyncWriter = null;
+
+    /** Root directory of this reporter */
+    private String _rootDirectory = "";
 
     /** Sub directory for this reporter */
     private String _subDirectory = "";
@@ -54,16 +57,28 @@ public class Reporter
     /** Variable to toggle whether or not run directories are used */
     private boolean _useRunDirectories = true;
 
+    /** Temporary file holding the spooled text */
+    private File _spoolFile = null;
+
+    /** Position in the added text where the spooled text is reported */
+    private int _spoolPosition = -1;
+
     /**
      * Creates a reporter that will output to a given file. Defaulted to use run
      * subdirectories
      * 
      * @param filename The file to output to
+     * @param subDirectory The subdirectory
+     * @param asyncWriter The writer thread that writes the reports
      */
-    public Reporter( String filename, String subDirectory )
+    public Reporter( String filename,
+            String subDirectory,
+            AsyncResultsWriter asyncWriter )
     {
+        Validate.notNull( asyncWriter, "Results writer may not be null" );
         _subDirectory = subDirectory;
         _filename = filename;
+        _asyncWriter = asyncWriter;
         _builder = new StringBuilder();
         endl = System.getProperty( "line.separator" );
     }
@@ -74,15 +89,27 @@ public class Reporter
      * @param filename The filename
      * @param subDirectory The subdirectory
      * @param useRunDirectories Whether or not run subdirectories are used
+     * @param asyncWriter The writer thread that writes the reports
      */
     public Reporter( String filename,
             String subDirectory,
-            boolean useRunDirectories )
+            boolean useRunDirectories,
+            AsyncResultsWriter asyncWriter )
     {
-        this( filename, subDirectory );
+        this( filename, subDirectory, asyncWriter );
         _useRunDirectories = useRunDirectories;
     }
 
+    /**
+     * Sets the directory in which this reporter's subdirectory is created
+     * 
+     * @param root The root directory
+     */
+    public void setRootDirectory( String root )
+    {
+        _rootDirectory = root;
+    }
+
     /**
      * Appends text and adds a new line at the end
      * 
@@ -103,6 +130,40 @@ public class Reporter
         _builder.append( text );
     }
 
+    /**
+     * Spools text to a temporary file instead of holding it in memory. The
+     * spooled text is reported where {@link #appendSpool()} was called, or
+     * at the end if it wasn't.
+     * 
+     * @param text The text to spool
+     */
+    public void spool( String text )
+    {
+        if( null == _spoolFile )
+        {
+            try
+            {
+                _spoolFile = File.createTempFile( "reporter-", ".spool" );
+                _spoolFile.deleteOnExit();
+            }
+            catch( IOException e )
+            {
+                throw new RuntimeException( "Could not create spool file for "
+                        + _filename + " output file.", e );
+            }
+        }
+        _asyncWriter.append( _spoolFile.getPath(), text );
+    }
+
+    /**
+     * Marks the current end of the added text as the place where the spooled
+     * text is reported
+     */
+    public void appendSpool()
+    {
+        _spoolPosition = _builder.length();
+    }
+
     /**
      * Creates a new section by placing a divider that looks like
      * ===============
@@ -122,44 +183,45 @@ public class Reporter
         if( shouldReport )
         {
             // make root directory for all Reporters
-            File dir = new File( ROOT_DIRECTORY );
-            dir.mkdir();
+            File dir = new File( _rootDirectory );
+            dir.mkdirs();
             // make subdirectory for this reporter
-            dir = new File( ROOT_DIRECTORY + "/" + _subDirectory );
+            dir = new File( _rootDirectory + "/" + _subDirectory );
             dir.mkdir();
             String temp = null;
             // make directories for each different run if we want them
             if( _useRunDirectories )
             {
-                // dir = new File( ROOT_DIRECTORY + "/" + _subDirectory + "/"
+                // dir = new File( _rootDirectory + "/" + _subDirectory + "/"
                 // + "Run" + SIMULATION_RUN );
                 // dir.mkdir();
-                temp = ROOT_DIRECTORY + "/" + _subDirectory + "/" + "Run"
+                temp = _rootDirectory + "/" + _subDirectory + "/" + "Run"
                         + _simulationRun + _filename;
             }
             else
             {
-                temp = ROOT_DIRECTORY + "/" + _subDirectory + "/" + _filename;
+                temp = _rootDirectory + "/" + _subDirectory + "/" + _filename;
             }
-            // print out the stringbuilder
-            PrintWriter out = null;
-            try
+            // hand the stringbuilder's text off to the writer thread
+            if( null == _spoolFile )
             {
-                out = new PrintWriter( new BufferedWriter( new FileWriter(
-                        temp, true ) ) );
+                _asyncWriter.append( temp, _builder.toString() );
             }
-            catch( FileNotFoundException e )
-            {
-                throw new RuntimeException( "Could not open " + _filename
-                        + " output file." );
-            }
-            catch( IOException e )
+            else
             {
-                throw new RuntimeException( "Could not write to " + _filename
-                        + " output file." );
+                // insert the spooled text
+                int position = _spoolPosition;
+                if( 0 > position )
+                {
+                    position = _builder.length();
+                }
+                _asyncWriter.append( temp,
+                        _builder.substring( 0, position ) );
+                _asyncWriter.appendAndDelete( temp, _spoolFile );
+                _asyncWriter.append( temp, _builder.substring( position ) );
+                _spoolFile = null;
+                _spoolPosition = -1;
             }
-            out.print( _builder.toString() );
-            out.close();
         }
     }
 
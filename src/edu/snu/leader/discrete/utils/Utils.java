@@ -22,9 +22,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ec.util.MersenneTwisterFast;
 import edu.snu.leader.discrete.behavior.Decision;
@@ -39,7 +39,7 @@ import edu.snu.leader.discrete.simulator.Agent;
 public class Utils
 {
     /* Used for creating unique ids */
-    private static int uniqueIdCount = 0;
+    private static final AtomicInteger uniqueIdCount = new AtomicInteger();
 
     // we shouldn't have an instance of this class
     private Utils()
@@ -47,7 +47,8 @@ public class Utils
     };
 
     /**
-     * Creates a shuffled list of agents
+     * Creates a shuffled list of agents in the same order as the original
+     * shuffle. Use an IndexShuffler to shuffle agents repeatedly.
      * 
      * @param agents
      * @param random
@@ -56,20 +57,14 @@ public class Utils
     public static List<Agent> shuffleAgents( List<Agent> agents,
             MersenneTwisterFast random )
     {
-        // get an unshuffled list of agents
-        List<Agent> unshuffled = new LinkedList<Agent>();
+        Agent[] unshuffled = agents.toArray( new Agent[agents.size()] );
+        IndexShuffler shuffler = new IndexShuffler( unshuffled.length, true );
+        shuffler.shuffle( random );
         // our list that will be shuffled and returned
-        List<Agent> shuffled = new ArrayList<Agent>( agents.size() );
-        // add agents to the unshuffled list
-        unshuffled.addAll( agents );
-        // while we still have agents in the unshuffled list
-        while( !unshuffled.isEmpty() )
+        List<Agent> shuffled = new ArrayList<Agent>( unshuffled.length );
+        for( int i = 0; i < unshuffled.length; i++ )
         {
-            // get an int between 0 and the size of unshuffled list
-            int rand = random.nextInt( unshuffled.size() );
-            // remove the agent from unshuffled at index rand and add it to
-            // shuffle
-            shuffled.add( unshuffled.remove( rand ) );
+            shuffled.add( unshuffled[shuffler.get( i )] );
         }
         return shuffled;
     }
@@ -204,7 +199,7 @@ public class Utils
      */
     public static String generateUniqueId( String type )
     {
-        return type + uniqueIdCount++;
+        return type + uniqueIdCount.getAndIncrement();
     }
 
     /**
@@ -225,7 +220,9 @@ public class Utils
 
     /**
      * Returns a decision from a possibleDecisions list. Does not account for
-     * DoNothing decisions
+     * DoNothing decisions. Each decision covers the range of random numbers
+     * [sum, sum + probability), where sum is the total probability of the
+     * decisions before it, so the list is only walked once.
      * 
      * @param possibleDecisions The list of possible decisions
      * @param rand The random number
@@ -234,31 +231,23 @@ public class Utils
     public static Decision getDecision( List<Decision> possibleDecisions,
             double rand )
     {
-        // a list of probability ranges for each Decision [min, max]
-        List<ProbabilityRange> forTheMath = new ArrayList<ProbabilityRange>();
         Decision decision = null;
         double sum = 0.0;
 
-        // calculate the probability ranges for each decision
         for( int i = 0; i < possibleDecisions.size(); i++ )
         {
             Decision temp = possibleDecisions.get( i );
-            forTheMath.add( new ProbabilityRange( sum, sum
-                    + temp.getProbability() ) );
+            double probability = temp.getProbability();
             // if the random number falls within the probability range the its
             // the decision we want
-            if( forTheMath.get( i ).isThisTheOne( rand ) )
+            if( sum <= rand && rand < sum + probability )
             {
-                decision = possibleDecisions.get( i );
-                if( decision == null )
-                {
-                    System.out.println( "Something went wrong getting decision" );
-                }
+                decision = temp;
                 break;
             }
             // keep track of the sum of probabilities (shouldn't be greater than
             // 1)
-            sum += temp.getProbability();
+            sum += probability;
         }
         // Debug output if something went wrong getting decision
         if( decision == null )
@@ -274,42 +263,4 @@ public class Utils
         }
         return decision;
     }
-
-    /**
-     * Class for getDecision method. It holds ranges of probabilities for each
-     * associated with each decision and then allows for a check to see if a
-     * random number falls between the min and max range
-     * 
-     * @author Tim Solum
-     */
-    private static class ProbabilityRange
-    {
-        /** The minimum random number for selection */
-        public double min = 0.0;
-
-        /** The maximum random number for selection */
-        public double max = 0.0;
-
-        public ProbabilityRange( double min, double max )
-        {
-            this.min = min;
-            this.max = max;
-        }
-
-        /**
-         * Checks to see if a probability falls within the min and max range
-         * 
-         * @param probability Probability to see if it is contained
-         * @return True or false
-         */
-        public boolean isThisTheOne( double probability )
-        {
-            boolean isTheOne = false;
-            if( min <= probability && probability < max )
-            {
-                isTheOne = true;
-            }
-            return isTheOne;
-        }
-    }
 }
@@ -24,24 +24,38 @@ import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import org.apache.log4j.Logger;
 
 import edu.snu.leader.hidden.event.DepartureEvent;
+import edu.snu.leader.hidden.event.DepartureLogReader;
+import edu.snu.leader.hidden.event.DepartureLogWriter;
 import edu.snu.leader.hidden.event.EventTimeCalculator;
+import edu.snu.leader.util.AsyncResultsWriter;
+import edu.snu.leader.util.Checkpointable;
+import edu.snu.leader.util.SequentialStoppingRule;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 /**
@@ -52,7 +66,7 @@ import java.util.zip.GZIPOutputStream;
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class DefaultResultsReporter implements ResultsReporter
+public class DefaultResultsReporter implements ResultsReporter, Checkpointable
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
@@ -64,6 +78,13 @@ public class DefaultResultsReporter implements ResultsReporter
     /** Key for the simulation log file flag */
     private static final String _USE_SIM_LOG_FILE_FLAG_KEY = "use-sim-log-file-flag";
 
+    /** Key for the format of the simulation log file */
+    private static final String _SIM_LOG_FORMAT_KEY = "sim-log-format";
+
+    /** Key for the binary simulation log file compression flag */
+    private static final String _COMPRESS_SIM_LOG_FLAG_KEY =
+            "compress-sim-log-flag";
+
     /** Key for the location log file flag */
     private static final String _USE_LOCATION_LOG_FILE_FLAG_KEY =
             "use-location-log-file-flag";
@@ -118,6 +139,36 @@ public class DefaultResultsReporter implements ResultsReporter
     /** Flag denoting whether or not to use the location log file */
     private boolean _useLocationLogFile = false;
 
+    /** Flag denoting whether or not the simulation log is binary */
+    private boolean _useBinarySimLog = false;
+
+    /** Flag denoting whether or not to compress a binary simulation log */
+    private boolean _compressSimLog = true;
+
+    /** The writer thread to which the text logs are handed off */
+    private AsyncResultsWriter _asyncLogWriter = null;
+
+    /** The writer to which binary simulation logs are reported */
+    private DepartureLogWriter _departureLogWriter = null;
+
+    /** The name of the simulation log file */
+    private String _simLogFile = null;
+
+    /** The name of the location log file */
+    private String _locationLogFile = null;
+
+    /** The index of the shard of simulation runs whose results are gathered
+     *  by this reporter.  A negative value denotes the primary reporter. */
+    private int _shardIndex = -1;
+
+    /** Initiation attempts of individuals in merged shards */
+    private Map<Object,Integer> _mergedInitiationAttempts =
+            new HashMap<Object,Integer>();
+
+    /** Initiation successes of individuals in merged shards */
+    private Map<Object,Integer> _mergedInitiationSuccesses =
+            new HashMap<Object,Integer>();
+
     /** The simulation state */
     private SimulationState _simState = null;
 
@@ -163,6 +214,28 @@ public class DefaultResultsReporter implements ResultsReporter
 
 
 
+    /**
+     * Builds this DefaultResultsReporter object
+     */
+    public DefaultResultsReporter()
+    {
+        // Do nothing
+    }
+
+    /**
+     * Builds this DefaultResultsReporter object for a shard of the
+     * simulation runs.  A shard reporter doesn't write a results file and
+     * writes its logs to shard-specific files that are merged into the
+     * primary reporter's logs.
+     *
+     * @param shardIndex The index of the shard
+     */
+    public DefaultResultsReporter( int shardIndex )
+    {
+        Validate.isTrue( 0 <= shardIndex, "Shard index may not be negative" );
+        _shardIndex = shardIndex;
+    }
+
     /**
      * TODO Method description
      *
@@ -198,41 +271,45 @@ public class DefaultResultsReporter implements ResultsReporter
         String resultsFile = props.getProperty( _RESULTS_FILE_KEY );
         Validate.notEmpty( resultsFile, "Results file may not be empty" );
 
-        // Create the statistics writer
-        try
+        // Only the primary reporter writes the results file
+        if( !isShard() )
         {
-            _writer = new PrintWriter( new BufferedWriter(
-                    new FileWriter( resultsFile ) ) );
-        }
-        catch( IOException ioe )
-        {
-            _LOG.error( "Unable to open results file ["
-                    + resultsFile
-                    + "]", ioe );
-            throw new RuntimeException( "Unable to open results file ["
-                    + resultsFile
-                    + "]", ioe );
-        }
+            // Create the statistics writer
+            try
+            {
+                _writer = new PrintWriter( new BufferedWriter(
+                        new FileWriter( resultsFile ) ) );
+            }
+            catch( IOException ioe )
+            {
+                _LOG.error( "Unable to open results file ["
+                        + resultsFile
+                        + "]", ioe );
+                throw new RuntimeException( "Unable to open results file ["
+                        + resultsFile
+                        + "]", ioe );
+            }
 
-        // Log the system properties to the stats file for future reference
-        _writer.println( "# Started: " + (new Date()) );
-        _writer.println( _SPACER );
-        _writer.println( "# Simulation properties" );
-        _writer.println( _SPACER );
-        List<String> keyList = new ArrayList<String>(
-                props.stringPropertyNames() );
-        Collections.sort( keyList );
-        Iterator<String> iter = keyList.iterator();
-        while( iter.hasNext() )
-        {
-            String key = iter.next();
-            String value = props.getProperty( key );
+            // Log the system properties to the stats file for future reference
+            _writer.println( "# Started: " + (new Date()) );
+            _writer.println( _SPACER );
+            _writer.println( "# Simulation properties" );
+            _writer.println( _SPACER );
+            List<String> keyList = new ArrayList<String>(
+                    props.stringPropertyNames() );
+            Collections.sort( keyList );
+            Iterator<String> iter = keyList.iterator();
+            while( iter.hasNext() )
+            {
+                String key = iter.next();
+                String value = props.getProperty( key );
 
-            _writer.println( "# " + key + " = " + value );
+                _writer.println( "# " + key + " = " + value );
+            }
+            _writer.println( _SPACER );
+            _writer.println();
+            _writer.flush();
         }
-        _writer.println( _SPACER );
-        _writer.println();
-        _writer.flush();
 
         // Do we log simulations?
         String useSimLogFileStr = props.getProperty( _USE_SIM_LOG_FILE_FLAG_KEY );
@@ -244,31 +321,44 @@ public class DefaultResultsReporter implements ResultsReporter
                     + "]" );
         }
 
-        if( _useSimLogFile )
+        // What format is the simulation log?
+        String simLogFormatStr = props.getProperty( _SIM_LOG_FORMAT_KEY );
+        if( null != simLogFormatStr )
         {
-            // Build the compressed simulation log file
-            int lastDotIdx = resultsFile.lastIndexOf( '.' );
-            String simLogFile = resultsFile.substring( 0, lastDotIdx )
-                    + ".log.gz";
-            _LOG.warn( "Sending simulation log to [" + simLogFile + "]" );
+            simLogFormatStr = simLogFormatStr.trim();
+            Validate.isTrue( "text".equalsIgnoreCase( simLogFormatStr )
+                    || "binary".equalsIgnoreCase( simLogFormatStr ),
+                    "Unknown simulation log format ["
+                    + simLogFormatStr
+                    + "]" );
+            _useBinarySimLog = "binary".equalsIgnoreCase( simLogFormatStr );
+            _LOG.info( "Using _useBinarySimLog=["
+                    + _useBinarySimLog
+                    + "]" );
+        }
 
-            // Build the log writer
-            try
-            {
-                _logWriter = new PrintWriter( new BufferedWriter(
-                        new OutputStreamWriter(
-                                new GZIPOutputStream(
-                                        new FileOutputStream( simLogFile ) ) ) ) );
-            }
-            catch( IOException ioe )
-            {
-                _LOG.error( "Unable to open simulation log file ["
-                        + simLogFile
-                        + "]", ioe );
-                throw new RuntimeException( "Unable to open simulation log file ["
-                        + simLogFile
-                        + "]", ioe );
-            }
+        // Do we compress a binary simulation log?
+        String compressSimLogStr = props.getProperty( _COMPRESS_SIM_LOG_FLAG_KEY );
+        if( null != compressSimLogStr )
+        {
+            _compressSimLog = Boolean.parseBoolean( compressSimLogStr );
+            _LOG.info( "Using _compressSimLog=["
+                    + _compressSimLog
+                    + "]" );
+        }
+
+        if( _useSimLogFile && _useBinarySimLog )
+        {
+            // Build the binary simulation log file
+            _simLogFile = buildLogFilename( resultsFile,
+                    (_compressSimLog ? ".log.bin.gz" : ".log.bin" ) );
+            _LOG.warn( "Sending simulation log to [" + _simLogFile + "]" );
+        }
+        else if( _useSimLogFile )
+        {
+            // Build the compressed simulation log file
+            _simLogFile = buildLogFilename( resultsFile, ".log.gz" );
+            _LOG.warn( "Sending simulation log to [" + _simLogFile + "]" );
         }
 
         // Do we log locations?
@@ -284,29 +374,15 @@ public class DefaultResultsReporter implements ResultsReporter
         if( _useLocationLogFile )
         {
             // Build the compressed location log file
-            int lastDotIdx = resultsFile.lastIndexOf( '.' );
-            String simLocationFile = resultsFile.substring( 0, lastDotIdx )
-                    + ".locations.gz";
-            _LOG.warn( "Sending location log to [" + simLocationFile + "]" );
+            _locationLogFile = buildLogFilename( resultsFile, ".locations.gz" );
+            _LOG.warn( "Sending location log to [" + _locationLogFile + "]" );
+        }
 
-            // Build the location log writer
-            try
-            {
-                _locationWriter = new PrintWriter( new BufferedWriter(
-                        new OutputStreamWriter(
-                                new GZIPOutputStream(
-                                        new FileOutputStream( simLocationFile ) ) ) ) );
-                // );
-            }
-            catch( IOException ioe )
-            {
-                _LOG.error( "Unable to open location log file ["
-                        + simLocationFile
-                        + "]", ioe );
-                throw new RuntimeException( "Unable to open location log file ["
-                        + simLocationFile
-                        + "]", ioe );
-            }
+        /* When resuming from a checkpoint, the existing logs are reopened
+         * once they are truncated to the checkpoint */
+        if( !_simState.isResuming() )
+        {
+            openLogs( false );
         }
 
         _LOG.trace( "Leaving initialize( simState )" );
@@ -350,7 +426,16 @@ public class DefaultResultsReporter implements ResultsReporter
         }
 
 
-        if( _useSimLogFile )
+        if( _useSimLogFile && _useBinarySimLog )
+        {
+            // Write the run to the binary simulation log
+            _departureLogWriter.writeRun( task,
+                    successful,
+                    finalInitiatorCount,
+                    maxInitiatorCount,
+                    departureHistory );
+        }
+        else if( _useSimLogFile )
         {
             // Dump the simulation log
             StringBuilder builder = new StringBuilder();
@@ -452,6 +537,106 @@ public class DefaultResultsReporter implements ResultsReporter
         }
     }
 
+    /**
+     * Merges the results gathered by a shard reporter into this reporter.
+     * The shard's logs are appended to this reporter's logs, so shards
+     * should be merged in the order of their simulation runs.
+     *
+     * @param other The shard reporter
+     * @see edu.snu.leader.hidden.ResultsReporter#mergeResults(edu.snu.leader.hidden.ResultsReporter)
+     */
+    @Override
+    public void mergeResults( ResultsReporter other )
+    {
+        _LOG.trace( "Entering mergeResults( other )" );
+
+        Validate.isTrue( other instanceof DefaultResultsReporter,
+                "Unable to merge results from reporter class ["
+                + other.getClass().getName()
+                + "]" );
+        DefaultResultsReporter shard = (DefaultResultsReporter) other;
+        Validate.isTrue( shard.isShard(),
+                "Only shard reporters may be merged" );
+
+        // Add all the counts
+        for( Task task : Task.values() )
+        {
+            addCounts( _movementCounts.get( task ),
+                    shard._movementCounts.get( task ) );
+            addCounts( _finalInitiatorCounts.get( task ),
+                    shard._finalInitiatorCounts.get( task ) );
+            addCounts( _finalSuccessfulInitiatorCounts.get( task ),
+                    shard._finalSuccessfulInitiatorCounts.get( task ) );
+            addCounts( _finalFailedInitiatorCounts.get( task ),
+                    shard._finalFailedInitiatorCounts.get( task ) );
+            addCounts( _maxInitiatorCounts.get( task ),
+                    shard._maxInitiatorCounts.get( task ) );
+            addCounts( _maxSuccessfulInitiatorCounts.get( task ),
+                    shard._maxSuccessfulInitiatorCounts.get( task ) );
+            addCounts( _maxFailedInitiatorCounts.get( task ),
+                    shard._maxFailedInitiatorCounts.get( task ) );
+            _successfulSimulations.put( task, new Integer(
+                    _successfulSimulations.get( task ).intValue()
+                    + shard._successfulSimulations.get( task ).intValue() ) );
+        }
+
+        // Add the initiation stats of the shard's individuals
+        Iterator<SpatialIndividual> indIter =
+                shard._simState.getAllIndividuals().iterator();
+        while( indIter.hasNext() )
+        {
+            SpatialIndividual current = indIter.next();
+            addCount( _mergedInitiationAttempts,
+                    current.getID(),
+                    current.getInitiationAttempts() );
+            addCount( _mergedInitiationSuccesses,
+                    current.getID(),
+                    current.getInitiationSuccesses() );
+        }
+
+        // Append the shard's logs to ours
+        if( _useSimLogFile && _useBinarySimLog )
+        {
+            shard._departureLogWriter.close();
+            appendBinaryLog( shard._simLogFile );
+        }
+        else if( _useSimLogFile )
+        {
+            shard._logWriter.close();
+        }
+        if( _useLocationLogFile )
+        {
+            shard._locationWriter.close();
+        }
+        shard.closeAsyncLogWriter();
+        if( _useSimLogFile && !_useBinarySimLog )
+        {
+            appendLog( shard._simLogFile, _logWriter );
+        }
+        if( _useLocationLogFile )
+        {
+            appendLog( shard._locationLogFile, _locationWriter );
+        }
+
+        _LOG.trace( "Leaving mergeResults( other )" );
+    }
+
+    /**
+     * Determines whether or not the success and movement results gathered
+     * so far are precise enough that no more simulation runs are needed
+     *
+     * @return <code>true</code> if the simulation runs can stop
+     * @see edu.snu.leader.hidden.ResultsReporter#hasConverged()
+     */
+    @Override
+    public boolean hasConverged()
+    {
+        return _simState.getStoppingRule().hasConverged(
+                getGatheredSimulationCount(),
+                getSuccessfulSimulationCount(),
+                new ArrayList<int[]>( _movementCounts.values() ) );
+    }
+
     /**
      * TODO Method description
      *
@@ -467,28 +652,39 @@ public class DefaultResultsReporter implements ResultsReporter
         while( indIter.hasNext() )
         {
             SpatialIndividual current = indIter.next();
-            totalInitiations += current.getInitiationAttempts();
-            totalSuccesses += current.getInitiationSuccesses();
+            totalInitiations += getInitiationAttempts( current );
+            totalSuccesses += getInitiationSuccesses( current );
         }
 
-        // Calculate the total number of successful simulations
-        int successfulSimulations = 0;
-        for( Task task : Task.values() )
-        {
-            successfulSimulations += _successfulSimulations.get( task ).intValue();
-        }
+        // Calculate the total number of simulations and successful ones
+        int totalSimulations = getGatheredSimulationCount();
+        int successfulSimulations = getSuccessfulSimulationCount();
         
         _writer.println( _SPACER );
         _writer.println( "# Initiation stats" );
         _writer.println( "initiations = " + totalInitiations );
         _writer.println( "successes = " + totalSuccesses );
-        _writer.println( "total-simulations = " + _simState.getSimulationCount() );
+        _writer.println( "total-simulations = " + totalSimulations );
         _writer.println( "total-successful-simulations = " + successfulSimulations );
         _writer.println( "total-leadership-success = "
-                    + (((float) successfulSimulations) / ((float) _simState.getSimulationCount())) );
+                    + (((float) successfulSimulations) / ((float) totalSimulations)) );
         _writer.println();
         _writer.println();
 
+        // Print out the precision of the results if they could stop early
+        SequentialStoppingRule stoppingRule = _simState.getStoppingRule();
+        if( stoppingRule.isEnabled() )
+        {
+            _writer.println( _SPACER );
+            _writer.println( "# Stopping rule precision" );
+            stoppingRule.reportPrecision( _writer,
+                    totalSimulations,
+                    successfulSimulations,
+                    new ArrayList<int[]>( _movementCounts.values() ) );
+            _writer.println();
+            _writer.println();
+        }
+
         // Print out the movement counts
         _writer.println( _SPACER );
         _writer.println( "# Movement counts" );
@@ -652,20 +848,20 @@ public class DefaultResultsReporter implements ResultsReporter
             _writer.println( "initiation."
                     + current.getID()
                     + ".attempts = "
-                    + current.getInitiationAttempts() );
+                    + getInitiationAttempts( current ) );
             _writer.println( "initiation."
                     + current.getID()
                     + ".successes = "
-                    + current.getInitiationSuccesses() );
+                    + getInitiationSuccesses( current ) );
             _writer.println( "initiation."
                     + current.getID()
                     + ".attempt-percentage = "
-                    + ( ((float) current.getInitiationAttempts())
+                    + ( ((float) getInitiationAttempts( current ))
                             / totalInitiations ) );
             _writer.println( "initiation."
                     + current.getID()
                     + ".success-percentage = "
-                    + ( ((float) current.getInitiationSuccesses())
+                    + ( ((float) getInitiationSuccesses( current ))
                             / totalSuccesses ));
         }
         _writer.println();
@@ -722,7 +918,227 @@ public class DefaultResultsReporter implements ResultsReporter
         _writer.println( eventTimeCalc.describeCancellation() );
         _writer.println();
 
+        // Close the logs and wait for them to be written
+        closeLogs();
+        closeAsyncLogWriter();
+
+        // Close the results writer
+        _writer.close();
+    }
+
+    /**
+     * Writes the results gathered so far.  The logs are finished and their
+     * lengths are saved, so resuming from the checkpoint truncates them to
+     * the runs it contains.  Compressed logs then continue in a new
+     * compressed member, which decompresses as though it were never
+     * interrupted.
+     *
+     * @param out The checkpoint
+     * @throws IOException If the results can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        Validate.isTrue( !isShard(), "Shard reporters can't be checkpointed" );
+
+        // Finish the logs so their lengths are known
+        closeLogs();
+        if( null != _asyncLogWriter )
+        {
+            _asyncLogWriter.drain();
+        }
+
+        // Write all the counts
+        for( Task task : Task.values() )
+        {
+            writeCounts( out, _movementCounts.get( task ) );
+            writeCounts( out, _finalInitiatorCounts.get( task ) );
+            writeCounts( out, _finalSuccessfulInitiatorCounts.get( task ) );
+            writeCounts( out, _finalFailedInitiatorCounts.get( task ) );
+            writeCounts( out, _maxInitiatorCounts.get( task ) );
+            writeCounts( out, _maxSuccessfulInitiatorCounts.get( task ) );
+            writeCounts( out, _maxFailedInitiatorCounts.get( task ) );
+            out.writeInt( _successfulSimulations.get( task ).intValue() );
+        }
+
+        // Write the lengths of the logs
+        if( _useSimLogFile )
+        {
+            out.writeLong( (new File( _simLogFile )).length() );
+        }
+        if( _useLocationLogFile )
+        {
+            out.writeLong( (new File( _locationLogFile )).length() );
+        }
+
+        // Continue logging
+        openLogs( true );
+    }
+
+    /**
+     * Reads the results gathered before the checkpoint, truncates the logs
+     * to the runs in the checkpoint and reopens them
+     *
+     * @param in The checkpoint
+     * @throws IOException If the results can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        Validate.isTrue( !isShard(), "Shard reporters can't be checkpointed" );
+
+        // Read all the counts
+        for( Task task : Task.values() )
+        {
+            readCounts( in, _movementCounts.get( task ) );
+            readCounts( in, _finalInitiatorCounts.get( task ) );
+            readCounts( in, _finalSuccessfulInitiatorCounts.get( task ) );
+            readCounts( in, _finalFailedInitiatorCounts.get( task ) );
+            readCounts( in, _maxInitiatorCounts.get( task ) );
+            readCounts( in, _maxSuccessfulInitiatorCounts.get( task ) );
+            readCounts( in, _maxFailedInitiatorCounts.get( task ) );
+            _successfulSimulations.put( task, new Integer( in.readInt() ) );
+        }
+
+        // Drop anything logged after the checkpoint
         if( _useSimLogFile )
+        {
+            truncateLog( _simLogFile, in.readLong() );
+        }
+        if( _useLocationLogFile )
+        {
+            truncateLog( _locationLogFile, in.readLong() );
+        }
+
+        // Continue logging
+        openLogs( true );
+    }
+
+    /**
+     * Returns a flag denoting whether or not this reporter gathers the
+     * results of a shard of the simulation runs
+     *
+     * @return <code>true</code> if this is a shard reporter, otherwise,
+     * <code>false</code>
+     */
+    public boolean isShard()
+    {
+        return 0 <= _shardIndex;
+    }
+
+    /**
+     * Returns the number of simulation runs whose results have been
+     * gathered, including those of merged shards
+     *
+     * @return The number of simulation runs
+     */
+    private int getGatheredSimulationCount()
+    {
+        int simulationCount = 0;
+        for( Task task : Task.values() )
+        {
+            int[] movementCounts = _movementCounts.get( task );
+            for( int i = 0; i < movementCounts.length; i++ )
+            {
+                simulationCount += movementCounts[i];
+            }
+        }
+
+        return simulationCount;
+    }
+
+    /**
+     * Returns the number of successful simulation runs whose results have
+     * been gathered, including those of merged shards
+     *
+     * @return The number of successful simulation runs
+     */
+    private int getSuccessfulSimulationCount()
+    {
+        int successfulSimulations = 0;
+        for( Task task : Task.values() )
+        {
+            successfulSimulations += _successfulSimulations.get( task ).intValue();
+        }
+
+        return successfulSimulations;
+    }
+
+    /**
+     * Opens the simulation and location logs
+     *
+     * @param append Flag indicating that the logs should be appended to the
+     *               existing logs instead of replacing them
+     */
+    private void openLogs( boolean append )
+    {
+        if( _useSimLogFile && _useBinarySimLog )
+        {
+            // Build the departure log writer
+            _departureLogWriter = new DepartureLogWriter( _simLogFile,
+                    _compressSimLog,
+                    _simState.getAllIndividuals(),
+                    append );
+        }
+        else if( _useSimLogFile )
+        {
+            // Build the log writer
+            try
+            {
+                _logWriter = new PrintWriter( getAsyncLogWriter().wrap(
+                        new BufferedWriter( new OutputStreamWriter(
+                                new GZIPOutputStream(
+                                        new FileOutputStream( _simLogFile,
+                                                append ) ) ) ) ) );
+            }
+            catch( IOException ioe )
+            {
+                _LOG.error( "Unable to open simulation log file ["
+                        + _simLogFile
+                        + "]", ioe );
+                throw new RuntimeException( "Unable to open simulation log file ["
+                        + _simLogFile
+                        + "]", ioe );
+            }
+        }
+
+        if( _useLocationLogFile )
+        {
+            // Build the location log writer
+            try
+            {
+                _locationWriter = new PrintWriter( getAsyncLogWriter().wrap(
+                        new BufferedWriter( new OutputStreamWriter(
+                                new GZIPOutputStream(
+                                        new FileOutputStream( _locationLogFile,
+                                                append ) ) ) ) ) );
+            }
+            catch( IOException ioe )
+            {
+                _LOG.error( "Unable to open location log file ["
+                        + _locationLogFile
+                        + "]", ioe );
+                throw new RuntimeException( "Unable to open location log file ["
+                        + _locationLogFile
+                        + "]", ioe );
+            }
+        }
+    }
+
+    /**
+     * Closes the simulation and location logs.  Text logs are closed by the
+     * writer thread once everything handed off before them is written.
+     */
+    private void closeLogs()
+    {
+        if( _useSimLogFile && _useBinarySimLog )
+        {
+            // Close the departure log writer
+            _departureLogWriter.close();
+        }
+        else if( _useSimLogFile )
         {
             // Close the log writer
             _logWriter.close();
@@ -733,8 +1149,235 @@ public class DefaultResultsReporter implements ResultsReporter
             // Close the locations write
             _locationWriter.close();
         }
+    }
 
-        // Close the results writer
-        _writer.close();
+    /**
+     * Truncates the log file to the specified length
+     *
+     * @param logFile The log file
+     * @param length The length of the log at the checkpoint
+     * @throws IOException If the log can't be truncated
+     */
+    private void truncateLog( String logFile, long length ) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile( logFile, "rw" );
+        try
+        {
+            if( file.length() < length )
+            {
+                throw new IOException( "Log file ["
+                        + logFile
+                        + "] is shorter than its checkpoint length ["
+                        + length
+                        + "]" );
+            }
+            file.setLength( length );
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    /**
+     * Writes the counts to the checkpoint
+     *
+     * @param out The checkpoint
+     * @param counts The counts
+     * @throws IOException If the counts can't be written
+     */
+    private void writeCounts( DataOutputStream out, int[] counts )
+            throws IOException
+    {
+        for( int i = 0; i < counts.length; i++ )
+        {
+            out.writeInt( counts[i] );
+        }
+    }
+
+    /**
+     * Reads the counts from the checkpoint
+     *
+     * @param in The checkpoint
+     * @param counts The counts
+     * @throws IOException If the counts can't be read
+     */
+    private void readCounts( DataInputStream in, int[] counts )
+            throws IOException
+    {
+        for( int i = 0; i < counts.length; i++ )
+        {
+            counts[i] = in.readInt();
+        }
+    }
+
+    /**
+     * Returns the writer thread to which the text logs are handed off,
+     * starting it if necessary
+     *
+     * @return The writer thread
+     */
+    private AsyncResultsWriter getAsyncLogWriter()
+    {
+        if( null == _asyncLogWriter )
+        {
+            String name = "results-log-writer";
+            if( isShard() )
+            {
+                name += "-" + String.format( "%03d", _shardIndex );
+            }
+            _asyncLogWriter = new AsyncResultsWriter( name );
+        }
+
+        return _asyncLogWriter;
+    }
+
+    /**
+     * Waits for all the text logs handed off to the writer thread to be
+     * written and stops it
+     */
+    private void closeAsyncLogWriter()
+    {
+        if( null != _asyncLogWriter )
+        {
+            _asyncLogWriter.close();
+        }
+    }
+
+    /**
+     * Builds the name of a log file using the results file and the
+     * specified suffix
+     *
+     * @param resultsFile The name of the results file
+     * @param suffix The suffix of the log file
+     * @return The name of the log file
+     */
+    private String buildLogFilename( String resultsFile, String suffix )
+    {
+        int lastDotIdx = resultsFile.lastIndexOf( '.' );
+        String filename = resultsFile.substring( 0, lastDotIdx );
+        if( isShard() )
+        {
+            filename += ".shard-" + String.format( "%03d", _shardIndex );
+        }
+
+        return filename + suffix;
+    }
+
+    /**
+     * Returns the total number of initiation attempts of the individual,
+     * including those in any merged shards
+     *
+     * @param ind The individual
+     * @return The total number of initiation attempts
+     */
+    private int getInitiationAttempts( SpatialIndividual ind )
+    {
+        Integer merged = _mergedInitiationAttempts.get( ind.getID() );
+        return ind.getInitiationAttempts()
+                + ( (null != merged) ? merged.intValue() : 0 );
+    }
+
+    /**
+     * Returns the total number of initiation successes of the individual,
+     * including those in any merged shards
+     *
+     * @param ind The individual
+     * @return The total number of initiation successes
+     */
+    private int getInitiationSuccesses( SpatialIndividual ind )
+    {
+        Integer merged = _mergedInitiationSuccesses.get( ind.getID() );
+        return ind.getInitiationSuccesses()
+                + ( (null != merged) ? merged.intValue() : 0 );
+    }
+
+    /**
+     * Adds the counts in the source array to the destination array
+     *
+     * @param destination The counts to which the others are added
+     * @param source The counts to add
+     */
+    private void addCounts( int[] destination, int[] source )
+    {
+        for( int i = 0; i < destination.length; i++ )
+        {
+            destination[i] += source[i];
+        }
+    }
+
+    /**
+     * Adds the value to the count associated with the specified ID
+     *
+     * @param counts The counts
+     * @param id The ID
+     * @param value The value to add
+     */
+    private void addCount( Map<Object,Integer> counts, Object id, int value )
+    {
+        Integer current = counts.get( id );
+        if( null != current )
+        {
+            value += current.intValue();
+        }
+        counts.put( id, new Integer( value ) );
+    }
+
+    /**
+     * Appends all the lines of the compressed log file to the writer and
+     * deletes the log file
+     *
+     * @param logFile The compressed log file
+     * @param writer The writer to which the lines are appended
+     */
+    private void appendLog( String logFile, PrintWriter writer )
+    {
+        try
+        {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(
+                            new GZIPInputStream(
+                                    new FileInputStream( logFile ) ) ) );
+            String line;
+            while( null != (line = reader.readLine()) )
+            {
+                writer.println( line );
+            }
+            reader.close();
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to append log file ["
+                    + logFile
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to append log file ["
+                    + logFile
+                    + "]", ioe );
+        }
+
+        // Delete it since it is no longer needed
+        if( !(new File( logFile )).delete() )
+        {
+            _LOG.warn( "Unable to delete log file [" + logFile + "]" );
+        }
+    }
+
+    /**
+     * Appends all the runs of the binary simulation log file to this
+     * reporter's binary simulation log and deletes the log file
+     *
+     * @param logFile The binary simulation log file
+     */
+    private void appendBinaryLog( String logFile )
+    {
+        DepartureLogReader reader = new DepartureLogReader( logFile );
+        _departureLogWriter.appendLog( reader );
+        reader.close();
+
+        // Delete it since it is no longer needed
+        if( !(new File( logFile )).delete() )
+        {
+            _LOG.warn( "Unable to delete log file [" + logFile + "]" );
+        }
     }
 }
@@ -7,7 +7,6 @@ import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import org.apache.log4j.Logger;
 
 import java.util.Iterator;
-import java.util.PriorityQueue;
 
 /**
  * HybridMetricTopoSpatialIndividual
@@ -67,50 +66,17 @@ public class HybridMetricTopoSpatialIndividual extends SpatialIndividual
         // Get the metric distance to calculate the nearest neighbors
         _nearestNeighborDistance = simState.getNearestNeighborDistance();
 
-        // Build a priority queue to sort things for us
-        PriorityQueue<Neighbor> sortedNeighbors =
-                new PriorityQueue<Neighbor>();
-
-        // Iterate through all the individuals
-        Iterator<SpatialIndividual> indIter = simState.getAllIndividuals().iterator();
-        while( indIter.hasNext() )
-        {
-            // Get the individual
-            SpatialIndividual ind = indIter.next();
-
-            // If it is us, continue on
-            if( _id.equals( ind._id ) )
-            {
-                continue;
-            }
-
-            // Build a neighbor out of it and put it in the queue
-            Neighbor neighbor = new Neighbor(
-                    (float) _location.distance( ind._location ),
-                    ind );
-            sortedNeighbors.add( neighbor );
-        }
-
-        // Get the max number of nearest neighbors
-        int maxNeighborCount = Math.min( sortedNeighbors.size(),
-                simState.getNearestNeighborCount() );
-
         // Get the closest neighbors within the specified distance up to the max
-        int currentNeighborCount = 0;
-        Iterator<Neighbor> neighborIter = sortedNeighbors.iterator();
-        while( neighborIter.hasNext()
-                && (currentNeighborCount < maxNeighborCount) )
+        Iterator<Neighbor> neighborIter = simState.getNeighborFinder()
+                .findNearestNeighborsWithinDistance( this,
+                        simState.getNearestNeighborCount(),
+                        _nearestNeighborDistance )
+                .iterator();
+        while( neighborIter.hasNext() )
         {
             Neighbor neighbor = neighborIter.next();
-
-            // Is it within the distance?
-            if( neighbor.getDistance() <= _nearestNeighborDistance )
-            {
-                // Yup
-                _nearestNeighbors.add( neighbor );
-                neighbor.getIndividual().signalNearestNeighborStatus( this );
-                ++currentNeighborCount;
-            }
+            _nearestNeighbors.add( neighbor );
+            neighbor.getIndividual().signalNearestNeighborStatus( this );
         }
 
         _LOG.trace( "Leaving findNearestNeighbors( simState )" );
@@ -20,12 +20,15 @@ package edu.snu.leader.hidden;
 
 // Imports
 import edu.snu.leader.hidden.event.DepartureEvent;
+import edu.snu.leader.hidden.event.EventScheduler;
 import edu.snu.leader.hidden.event.EventTimeCalculator;
 import edu.snu.leader.hidden.observer.SimulationObserver;
+import edu.snu.leader.util.MetricsRegistry;
 import edu.snu.leader.util.MiscUtils;
 
 import org.apache.log4j.Logger;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -41,7 +44,7 @@ import java.util.Properties;
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class LocalSpatialSimulation
+public class LocalSpatialSimulation implements Simulation
 {
 
     /** Our logger */
@@ -54,6 +57,9 @@ public class LocalSpatialSimulation
     /** Key for the number of observers */
     private static final String _OBSERVER_COUNT_KEY = "observer-count";
 
+    /** Key for the results file */
+    private static final String _RESULTS_FILE_KEY = "results-file";
+
 
     private class InitiatorData {
         public SpatialIndividual initiator = null;
@@ -82,6 +88,21 @@ public class LocalSpatialSimulation
     private List<SimulationObserver> _simObservers =
             new LinkedList<SimulationObserver>();
 
+    /** Times the reset of the simulation state before each run */
+    private MetricsRegistry.Timer _resetTimer = null;
+
+    /** Times the rebuilding of the invalidated events */
+    private MetricsRegistry.Timer _eventBuildingTimer = null;
+
+    /** Times the selection of the next event */
+    private MetricsRegistry.Timer _eventSelectionTimer = null;
+
+    /** Times the processing of cancel events and their cascades */
+    private MetricsRegistry.Timer _cancelCascadeTimer = null;
+
+    /** Times the gathering of the results of each run */
+    private MetricsRegistry.Timer _reportingTimer = null;
+
 
     /**
      * Main entry into the simulation
@@ -114,8 +135,25 @@ public class LocalSpatialSimulation
     {
         _LOG.trace( "Entering initialize()" );
 
-        // Load the properties
-        _props = MiscUtils.loadProperties( _PROPS_FILE_KEY );
+        // Load the properties and initialize using them
+        initialize( MiscUtils.loadProperties( _PROPS_FILE_KEY ) );
+
+        _LOG.trace( "Leaving initialize()" );
+    }
+
+    /**
+     * Initialize the simulation using the specified properties
+     *
+     * @param props The simulation properties
+     * @see edu.snu.leader.hidden.Simulation#initialize(java.util.Properties)
+     */
+    @Override
+    public void initialize( Properties props )
+    {
+        _LOG.trace( "Entering initialize( props )" );
+
+        // Save the properties
+        _props = props;
 
         // Initialize the simulation state
         _simState.initialize( _props );
@@ -123,6 +161,14 @@ public class LocalSpatialSimulation
         // Initialize the results reporter
         _reporter.initialize( _simState );
 
+        // Get the timers
+        MetricsRegistry metrics = _simState.getMetrics();
+        _resetTimer = metrics.getTimer( "simulation-reset" );
+        _eventBuildingTimer = metrics.getTimer( "event-building" );
+        _eventSelectionTimer = metrics.getTimer( "event-selection" );
+        _cancelCascadeTimer = metrics.getTimer( "cancel-cascade" );
+        _reportingTimer = metrics.getTimer( "reporting" );
+
         // Get the simulation count
         _simulationCount = _simState.getSimulationCount();
 
@@ -154,12 +200,15 @@ public class LocalSpatialSimulation
             _simObservers.add( observer );
         }
 
-        _LOG.trace( "Leaving initialize()" );
+        _LOG.trace( "Leaving initialize( props )" );
     }
 
     /**
      * Runs the simulation
+     *
+     * @see edu.snu.leader.hidden.Simulation#run()
      */
+    @Override
     public void run()
     {
         _LOG.trace( "Entering run()" );
@@ -175,7 +224,9 @@ public class LocalSpatialSimulation
                     + "]" );
 
             // Reset the simulation state
+            long start = _resetTimer.start();
             _simState.reset();
+            _resetTimer.stop( start );
 
             // Set the simulation index
             _simState.setSimIndex( i );
@@ -188,6 +239,12 @@ public class LocalSpatialSimulation
 
             // Tear down the simulation run
             tearDownSimulationRun();
+
+            // Stop once the results are precise enough
+            if( _reporter.hasConverged() )
+            {
+                break;
+            }
         }
 
         // Tear down the simulation
@@ -196,6 +253,10 @@ public class LocalSpatialSimulation
         // Report the final results
         _reporter.reportFinalResults();
 
+        // Dump the metrics alongside the results
+        _simState.getMetrics().writeSummary(
+                _props.getProperty( _RESULTS_FILE_KEY ) );
+
         _LOG.trace( "Leaving run()" );
     }
 
@@ -261,6 +322,22 @@ public class LocalSpatialSimulation
         Map<Object, DepartureEvent> indEvents =
                 new HashMap<Object, DepartureEvent>();
 
+        // Schedule the events in the order they will occur
+        EventScheduler<DepartureEvent> scheduler =
+                new EventScheduler<DepartureEvent>();
+
+        /* Keep track of the individuals whose events need to be rebuilt using
+         * their indices in the list of all individuals.  Rebuilding them in
+         * that order keeps the order of the random draws fixed. */
+        List<SpatialIndividual> allIndividuals = _simState.getAllIndividuals();
+        Map<Object, Integer> indIndices = new HashMap<Object, Integer>();
+        for( int i = 0; i < allIndividuals.size(); i++ )
+        {
+            indIndices.put( allIndividuals.get( i ).getID(), i );
+        }
+        BitSet invalidEvents = new BitSet( allIndividuals.size() );
+        invalidEvents.set( 0, allIndividuals.size() );
+
         // Maintain the departure history
         List<DepartureEvent> departureHistory = new LinkedList<DepartureEvent>();
 
@@ -272,29 +349,20 @@ public class LocalSpatialSimulation
                 new HashMap<SpatialIndividual, InitiatorData>();
         int maxInitiatorCount = 0;
 
-        // Keep track of the previous event's time
-        float previousEventsTime = 0;
-
         // Keep track of the total simulation time
         float totalSimulationTime = 0;
 
         // Run the simulation until it isn't active
         while( isSimulationActive() || (0 == maxInitiatorCount) )
         {
-            // Create some handy variables
-            DepartureEvent earliestEvent = new DepartureEvent(
-                    null,
-                    null,
-                    null,
-                    Float.POSITIVE_INFINITY );
-
-            // Iterate through every individual
-            Iterator<SpatialIndividual> individualsIter =
-                    _simState.getAllIndividuals().iterator();
-            while( individualsIter.hasNext() )
+            // Rebuild the events for every individual that needs one
+            long start = _eventBuildingTimer.start();
+            for( int i = invalidEvents.nextSetBit( 0 );
+                    i >= 0;
+                    i = invalidEvents.nextSetBit( i + 1 ) )
             {
                 // Get the current individual
-                SpatialIndividual currentInd = individualsIter.next();
+                SpatialIndividual currentInd = allIndividuals.get( i );
                 _LOG.debug( "Processing currentInd=["
                         + currentInd.getID()
                         + "]" );
@@ -313,51 +381,38 @@ public class LocalSpatialSimulation
                     continue;
                 }
 
-                // Do they have a current event?
-                DepartureEvent currentEvent = indEvents.get( currentInd.getID() );
-                _LOG.debug( "CurrentEvent=[" + currentEvent + "]" );
-                if( null != currentEvent )
-                {
-                    // Yup, process it using the last event's time
-                    currentEvent.updateTime( currentEvent.getTime()
-                            - previousEventsTime );
-
-                    // Sanity check
-                    if( currentEvent.getTime() < 0.0f )
-                    {
-                        _LOG.error( "Current event should have happened before this: time=["
-                                + currentEvent.getTime()
-                                + "] ind=["
-                                + currentEvent.getDeparted().getID()
-                                + "]" );
-                        throw new RuntimeException( "Invalid event time" );
-                    }
-                }
-                else
-                {
-                    // Nope, build one
-                    currentEvent = buildDepartureEvent( currentInd, departureTimes );
-                    indEvents.put( currentInd.getID(), currentEvent );
-                }
+                // Build a new event
+                DepartureEvent currentEvent = buildDepartureEvent( currentInd,
+                        departureTimes );
+                indEvents.put( currentInd.getID(), currentEvent );
+                scheduler.schedule( currentEvent, currentEvent.getTime() );
 
-                _LOG.debug( "Current event: departed=["
-                        + currentEvent.getDeparted().getID()
-                        + "] leader=["
-                        + currentEvent.getLeaderID()
-                        + "] type=["
-                        + currentEvent.getType()
-                        + "] time=["
-                        + currentEvent.getTime()
-                        + "]" );
-
-
-                // Is it the new earliest event?
-                if( currentEvent.getTime() < earliestEvent.getTime() )
+                if( _LOG.isDebugEnabled() )
                 {
-                    // Yup
-                    earliestEvent = currentEvent;
+                    _LOG.debug( "Current event: departed=["
+                            + currentEvent.getDeparted().getID()
+                            + "] leader=["
+                            + currentEvent.getLeaderID()
+                            + "] type=["
+                            + currentEvent.getType()
+                            + "] time=["
+                            + currentEvent.getTime()
+                            + "]" );
                 }
             }
+            invalidEvents.clear();
+            _eventBuildingTimer.stop( start );
+
+            // Get the earliest event
+            start = _eventSelectionTimer.start();
+            DepartureEvent earliestEvent = null;
+            float earliestEventTime = scheduler.peekDelay();
+            if( !Float.isInfinite( earliestEventTime ) )
+            {
+                earliestEvent = scheduler.poll();
+                earliestEvent.updateTime( earliestEventTime );
+            }
+            _eventSelectionTimer.stop( start );
 
             if( ( null == earliestEvent ) || Float.isInfinite( earliestEvent.getTime() ) )
             {
@@ -418,6 +473,7 @@ public class LocalSpatialSimulation
             else if( DepartureEvent.Type.CANCEL.equals( earliestType ) )
             {
                 // Yup, grab all the initiator's followers and delete their time
+                start = _cancelCascadeTimer.start();
                 SpatialIndividual canceler = earliestEvent.getDeparted();
                 Iterator<Neighbor> followerIter = canceler.getAllFollowers().iterator();
                 while( followerIter.hasNext() )
@@ -425,13 +481,18 @@ public class LocalSpatialSimulation
                     Neighbor current = followerIter.next();
                     departureTimes.remove( current.getIndividual().getID() );
 
+                    // It will no longer be following, so it needs an event
+                    invalidateEvent( current.getIndividual(), indEvents,
+                            scheduler, indIndices, invalidEvents );
+
                     // Reset all the event times for the neighbor's mimics
                     Iterator<SpatialIndividual> mimickingNeighborsIter =
                             current.getIndividual().getMimickingNeighbors().iterator();
                     while( mimickingNeighborsIter.hasNext() )
                     {
                         SpatialIndividual mimickingNeighbor = mimickingNeighborsIter.next();
-                        indEvents.remove( mimickingNeighbor.getID() );
+                        invalidateEvent( mimickingNeighbor, indEvents, scheduler,
+                                indIndices, invalidEvents );
                         _LOG.debug( "Reseting event time for ind=["
                                 + mimickingNeighbor.getID()
                                 + "]" );
@@ -445,6 +506,7 @@ public class LocalSpatialSimulation
                 _LOG.debug( "Cancelling ["
                         + canceler.getID()
                         + "]" );
+                _cancelCascadeTimer.stop( start );
             }
             // I have no idea
             else
@@ -462,20 +524,21 @@ public class LocalSpatialSimulation
             while( mimickingNeighborsIter.hasNext() )
             {
                 SpatialIndividual mimickingNeighbor = mimickingNeighborsIter.next();
-                indEvents.remove( mimickingNeighbor.getID() );
+                invalidateEvent( mimickingNeighbor, indEvents, scheduler,
+                        indIndices, invalidEvents );
                 _LOG.debug( "Reseting event time for neighbor ind=["
                         + mimickingNeighbor.getID()
                         + "]" );
             }
 
             // Don't forget the individual itself
-            indEvents.remove( earliestEvent.getDeparted().getID() );
+            invalidateEvent( earliestEvent.getDeparted(), indEvents, scheduler,
+                    indIndices, invalidEvents );
             _LOG.debug( "Reseting event time for ind=["
                     + earliestEvent.getDeparted().getID()
                     + "]" );
 
             // Save the event's time
-            previousEventsTime = earliestEvent.getTime();
             totalSimulationTime += earliestEvent.getTime();
 
             _LOG.debug( "Continue? remainingCount=["
@@ -490,6 +553,7 @@ public class LocalSpatialSimulation
         }
 
         // Was the simulation successful?
+        long start = _reportingTimer.start();
         boolean successful = false;
         _LOG.debug( "remainingCount=[" + _simState.getRemainingCount() + "]" );
         if( 0 == _simState.getRemainingCount() )
@@ -514,7 +578,7 @@ public class LocalSpatialSimulation
                 initiators.keySet(),
                 maxInitiatorCount,
                 departureHistory );
-
+        _reportingTimer.stop( start );
 
         _LOG.trace( "Leaving executeSimulation()" );
     }
@@ -530,6 +594,30 @@ public class LocalSpatialSimulation
                 && (_simState.getDepartedCount() > 0);
     }
 
+    /**
+     * Invalidates the given individual's event so that it is rebuilt before
+     * the next event is chosen
+     *
+     * @param ind The individual
+     * @param indEvents The current events of all individuals
+     * @param scheduler The scheduler of the current events
+     * @param indIndices The indices of all individuals
+     * @param invalidEvents The indices of the individuals with invalid events
+     */
+    private void invalidateEvent( SpatialIndividual ind,
+            Map<Object, DepartureEvent> indEvents,
+            EventScheduler<DepartureEvent> scheduler,
+            Map<Object, Integer> indIndices,
+            BitSet invalidEvents )
+    {
+        DepartureEvent event = indEvents.remove( ind.getID() );
+        if( null != event )
+        {
+            scheduler.cancel( event );
+        }
+        invalidEvents.set( indIndices.get( ind.getID() ) );
+    }
+
     /**
      * Builds the next departure event for the given individual
      *
@@ -24,7 +24,6 @@ import org.apache.log4j.Logger;
 
 import java.util.Iterator;
 import java.util.Map;
-import java.util.PriorityQueue;
 
 /**
  * MetricSpatialIndividual
@@ -97,49 +96,15 @@ public class MetricSpatialIndividual extends SpatialIndividual
         // Get the metric distance to calculate the nearest neighbors
         _nearestNeighborDistance = simState.getNearestNeighborDistance();
 
-        // Build a priority queue to sort things for us
-        PriorityQueue<Neighbor> sortedNeighbors =
-                new PriorityQueue<Neighbor>();
-
-        // Iterate through all the individuals
-        Iterator<SpatialIndividual> indIter = simState.getAllIndividuals().iterator();
-        while( indIter.hasNext() )
-        {
-            // Get the individual
-            SpatialIndividual ind = indIter.next();
-
-            // If it is us, continue on
-            if( _id.equals( ind._id ) )
-            {
-                continue;
-            }
-
-            // Build a neighbor out of it and put it in the queue
-            Neighbor neighbor = new Neighbor(
-                    (float) _location.distance( ind._location ),
-                    ind );
-            sortedNeighbors.add( neighbor );
-        }
-
         // Get all the neighbors within the specified distance
-        Iterator<Neighbor> neighborIter = sortedNeighbors.iterator();
+        Iterator<Neighbor> neighborIter = simState.getNeighborFinder()
+                .findNeighborsWithinDistance( this, _nearestNeighborDistance )
+                .iterator();
         while( neighborIter.hasNext() )
         {
             Neighbor neighbor = neighborIter.next();
-
-            // Is it within the distance?
-            if( neighbor.getDistance() <= _nearestNeighborDistance )
-            {
-                // Yup
-                _nearestNeighbors.add( neighbor );
-                neighbor.getIndividual().signalNearestNeighborStatus( this );
-            }
-//            else
-//            {
-//                // We can bail because the neighbors are sorted by distance
-//                // from closest to farthest
-//                break;
-//            }
+            _nearestNeighbors.add( neighbor );
+            neighbor.getIndividual().signalNearestNeighborStatus( this );
         }
 
         // Compute the mean position of the nearest neighbors
@@ -0,0 +1,304 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden;
+
+// Imports
+import org.apache.commons.lang.Validate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+
+/**
+ * MimickingNetwork
+ *
+ * The network of individuals and the individuals mimicking them, stored in
+ * compressed sparse row form.  The row of each individual holds the
+ * indices of its mimicking neighbors, so following a row moves in the
+ * direction information spreads.  The network is used to compute the
+ * social network statistics of every individual at once.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class MimickingNetwork
+{
+    /** The fewest individuals for which the distances are calculated in
+     *  parallel, since smaller networks take less time than the hand off */
+    private static final int _MIN_PARALLEL_INDIVIDUAL_COUNT = 256;
+
+    /** The individuals in the network */
+    private SpatialIndividual[] _individuals = null;
+
+    /** The start of each individual's row in the mimic indices (the last
+     *  entry is the total number of edges) */
+    private int[] _rowStarts = null;
+
+    /** The indices of each individual's mimicking neighbors */
+    private int[] _mimicIndices = null;
+
+
+    /**
+     * Builds this MimickingNetwork object
+     *
+     * @param individuals The individuals in the network
+     */
+    public MimickingNetwork( List<SpatialIndividual> individuals )
+    {
+        int indCount = individuals.size();
+        _individuals = individuals.toArray( new SpatialIndividual[indCount] );
+
+        // The individuals must be indexed by their position
+        for( int i = 0; i < indCount; i++ )
+        {
+            Validate.isTrue( i == _individuals[i].getIndex(),
+                    "Individual ["
+                    + _individuals[i].getID()
+                    + "] is not indexed by its position" );
+        }
+
+        // Build the rows
+        _rowStarts = new int[indCount + 1];
+        int[] mimicIndices = new int[indCount];
+        int edgeCount = 0;
+        for( int i = 0; i < indCount; i++ )
+        {
+            _rowStarts[i] = edgeCount;
+            Iterator<SpatialIndividual> mimicIter =
+                    _individuals[i]._mimicingNeighbors.iterator();
+            while( mimicIter.hasNext() )
+            {
+                // Ignore any individuals that aren't in the network
+                SpatialIndividual mimic = mimicIter.next();
+                int mimicIndex = mimic.getIndex();
+                if( (0 > mimicIndex)
+                        || (mimicIndex >= indCount)
+                        || (mimic != _individuals[mimicIndex]) )
+                {
+                    continue;
+                }
+
+                if( edgeCount == mimicIndices.length )
+                {
+                    mimicIndices = Arrays.copyOf( mimicIndices,
+                            2 * edgeCount );
+                }
+                mimicIndices[edgeCount] = mimicIndex;
+                edgeCount++;
+            }
+        }
+        _rowStarts[indCount] = edgeCount;
+        _mimicIndices = Arrays.copyOf( mimicIndices, edgeCount );
+    }
+
+    /**
+     * Calculates the mean topological distance from each individual to all
+     * the individuals reachable through its mimicking neighbors.  A
+     * breadth-first search is performed from each individual.  For large
+     * networks, the searches are split among the workers of the specified
+     * pool.  The individual itself is counted when it can be reached
+     * through its mimics, and the total is divided by one less than the
+     * number reached.
+     *
+     * @param pool The pool of workers, or <code>null</code> to perform all
+     *             the searches in the calling thread
+     * @return The mean topological distance of each individual
+     */
+    public float[] calculateMeanTopologicalDistances( ForkJoinPool pool )
+    {
+        final int indCount = _individuals.length;
+        final float[] meanDistances = new float[indCount];
+        if( (null == pool)
+                || (1 == pool.getParallelism())
+                || (_MIN_PARALLEL_INDIVIDUAL_COUNT > indCount) )
+        {
+            calculateMeanTopologicalDistances( 0, indCount, meanDistances );
+            return meanDistances;
+        }
+
+        // Give each worker a contiguous shard of the individuals
+        int workerCount = pool.getParallelism();
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for( int i = 0; i < workerCount; i++ )
+        {
+            final int firstIndex = (int) ( ((long) indCount) * i / workerCount );
+            final int lastIndex = (int) ( ((long) indCount) * (i + 1)
+                    / workerCount );
+            tasks.add( pool.submit( new Runnable() {
+                @Override
+                public void run()
+                {
+                    calculateMeanTopologicalDistances( firstIndex,
+                            lastIndex,
+                            meanDistances );
+                }
+            } ) );
+        }
+
+        // Wait for all of them to finish
+        Iterator<ForkJoinTask<?>> taskIter = tasks.iterator();
+        while( taskIter.hasNext() )
+        {
+            taskIter.next().join();
+        }
+
+        return meanDistances;
+    }
+
+    /**
+     * Calculates the eigenvector centrality of each individual, where an
+     * individual's centrality is proportional to the sum of the centralities
+     * of its mimicking neighbors.  The values are scaled so that the largest
+     * is one.
+     *
+     * @param maxIterations The maximum number of power iterations
+     * @param tolerance The largest change in any value at which the values
+     *                  are considered converged
+     * @return The eigenvector centrality of each individual
+     */
+    public float[] calculateEigenvectorCentralities( int maxIterations,
+            double tolerance )
+    {
+        int indCount = _individuals.length;
+        double[] current = new double[indCount];
+        double[] next = new double[indCount];
+        Arrays.fill( current, 1.0 );
+
+        /* Use power iteration on the adjacency matrix plus the identity
+         * matrix, which has the same eigenvectors but can't oscillate */
+        for( int iteration = 0; iteration < maxIterations; iteration++ )
+        {
+            double max = 0.0;
+            for( int i = 0; i < indCount; i++ )
+            {
+                double sum = current[i];
+                for( int j = _rowStarts[i]; j < _rowStarts[i + 1]; j++ )
+                {
+                    sum += current[ _mimicIndices[j] ];
+                }
+                next[i] = sum;
+                max = Math.max( max, sum );
+            }
+
+            // Scale them and check for convergence
+            double maxChange = 0.0;
+            for( int i = 0; i < indCount; i++ )
+            {
+                next[i] /= max;
+                maxChange = Math.max( maxChange,
+                        Math.abs( next[i] - current[i] ) );
+            }
+
+            double[] temp = current;
+            current = next;
+            next = temp;
+            if( maxChange < tolerance )
+            {
+                break;
+            }
+        }
+
+        float[] centralities = new float[indCount];
+        for( int i = 0; i < indCount; i++ )
+        {
+            centralities[i] = (float) current[i];
+        }
+
+        return centralities;
+    }
+
+    /**
+     * Returns the individual at the specified index
+     *
+     * @param index The index
+     * @return The individual
+     */
+    public SpatialIndividual getIndividual( int index )
+    {
+        return _individuals[index];
+    }
+
+    /**
+     * Returns the number of individuals in the network
+     *
+     * @return The number of individuals
+     */
+    public int getIndividualCount()
+    {
+        return _individuals.length;
+    }
+
+    /**
+     * Calculates the mean topological distances for the specified shard of
+     * the individuals
+     *
+     * @param firstIndex The index of the first individual
+     * @param lastIndex The index after the last individual
+     * @param meanDistances The mean topological distances
+     */
+    private void calculateMeanTopologicalDistances( int firstIndex,
+            int lastIndex,
+            float[] meanDistances )
+    {
+        int indCount = _individuals.length;
+        int[] distances = new int[indCount];
+        int[] queue = new int[indCount];
+        for( int source = firstIndex; source < lastIndex; source++ )
+        {
+            Arrays.fill( distances, -1 );
+            int queueHead = 0;
+            int queueTail = 0;
+
+            // The mimicking neighbors are one step away
+            for( int j = _rowStarts[source]; j < _rowStarts[source + 1]; j++ )
+            {
+                int mimic = _mimicIndices[j];
+                if( distances[mimic] < 0 )
+                {
+                    distances[mimic] = 1;
+                    queue[queueTail++] = mimic;
+                }
+            }
+
+            // Process all the individuals
+            int distanceTotals = 0;
+            while( queueHead < queueTail )
+            {
+                int current = queue[queueHead++];
+                int currentDistance = distances[current];
+                distanceTotals += currentDistance;
+                for( int j = _rowStarts[current]; j < _rowStarts[current + 1]; j++ )
+                {
+                    int mimic = _mimicIndices[j];
+                    if( distances[mimic] < 0 )
+                    {
+                        distances[mimic] = currentDistance + 1;
+                        queue[queueTail++] = mimic;
+                    }
+                }
+            }
+
+            meanDistances[source] = distanceTotals
+                    / ((float) queueTail - 1.0f);
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import org.apache.log4j.Logger;
 import ec.util.MersenneTwisterFast;
 import edu.snu.leader.hidden.util.PositionAnalyzer;
+import edu.snu.leader.util.MetricsRegistry;
 import edu.snu.leader.util.MiscUtils;
 
 
@@ -100,6 +101,9 @@ public class PredatorExposureSimulator
     /** Default fearfulness */
     private double _defaultFearfulness = 0.1;
 
+    /** Times the exposure of all the individuals to each predator */
+    private MetricsRegistry.Timer _exposureTimer = null;
+
     
     /**
      * Main entry into the simulation
@@ -138,6 +142,9 @@ public class PredatorExposureSimulator
         // Get the simulation count
         _simulationCount = _simState.getSimulationCount();
 
+        // Get the timer
+        _exposureTimer = _simState.getMetrics().getTimer( "predator-exposure" );
+
         // Get our random number generator
         _rng = _simState.getRandom();
 
@@ -203,6 +210,7 @@ public class PredatorExposureSimulator
         for( int i = 0; i < _simulationCount; i++ )
         {
             // Generate a random location for the predator
+            long start = _exposureTimer.start();
             Vector2D predator = generatePredatorLocation();
             
             // Process each individual
@@ -282,6 +290,7 @@ public class PredatorExposureSimulator
 //                        + String.format( "%6.4f", nextFearfulness )
 //                        + "]" );
             }
+            _exposureTimer.stop( start );
         }
         
 //        int angleCount = 16;
@@ -312,6 +321,10 @@ public class PredatorExposureSimulator
         // Clean up
         _writer.flush();
         _writer.close();
+
+        // Dump the metrics alongside the results
+        _simState.getMetrics().writeSummary(
+                _props.getProperty( _RESULTS_FILE_KEY ) );
         
         _LOG.trace( "Leaving run()" );
     }
@@ -54,6 +54,22 @@ public interface ResultsReporter
             int maxInitiatorCount,
             List<DepartureEvent> departureHistory );
 
+    /**
+     * Merge the results gathered by another reporter (e.g., one used by a
+     * parallel worker) into this reporter
+     *
+     * @param other The reporter whose results are merged
+     */
+    public void mergeResults( ResultsReporter other );
+
+    /**
+     * Determines whether or not the results gathered so far are precise
+     * enough that no more simulation runs are needed
+     *
+     * @return <code>true</code> if the simulation runs can stop
+     */
+    public boolean hasConverged();
+
     /**
      * Report the final results
      */
@@ -0,0 +1,48 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden;
+
+// Imports
+import java.util.Properties;
+
+
+/**
+ * Simulation
+ *
+ * A simulation that can be initialized with its own set of properties
+ * instead of loading them from the system properties.  This allows many
+ * simulations to be executed in a single JVM.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public interface Simulation
+{
+    /**
+     * Initialize the simulation using the specified properties
+     *
+     * @param props The simulation properties
+     */
+    public void initialize( Properties props );
+
+    /**
+     * Runs the simulation
+     */
+    public void run();
+}
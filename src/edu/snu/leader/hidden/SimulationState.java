@@ -21,21 +21,37 @@ package edu.snu.leader.hidden;
 // Imports
 import edu.snu.leader.hidden.builder.IndividualBuilder;
 import edu.snu.leader.hidden.event.EventTimeCalculator;
+import edu.snu.leader.hidden.neighbor.GridNeighborFinder;
+import edu.snu.leader.hidden.neighbor.NeighborFinder;
 import edu.snu.leader.hidden.personality.ConstantPersonalityCalculator;
 import edu.snu.leader.hidden.personality.PersonalityCalculator;
+import edu.snu.leader.util.Checkpointable;
+import edu.snu.leader.util.MetricsRegistry;
 import edu.snu.leader.util.MiscUtils;
+import edu.snu.leader.util.SequentialStoppingRule;
 import ec.util.MersenneTwisterFast;
 import org.apache.commons.lang.Validate;
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import org.apache.log4j.Logger;
 import java.awt.geom.Point2D;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -46,7 +62,7 @@ import java.util.Queue;
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class SimulationState
+public class SimulationState implements Checkpointable
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
@@ -84,6 +100,9 @@ public class SimulationState
     /** Key for the personality calculator */
     private static final String _PERSONALITY_CALCULATOR_CLASS = "personality-calculator-class";
 
+    /** Key for the neighbor finder class */
+    private static final String _NEIGHBOR_FINDER_CLASS = "neighbor-finder-class";
+
     /** Key for the flag denoting whether the total number of departed
      * individuals should be used or the number of nearest neighbors
      * that have departed. */
@@ -95,7 +114,85 @@ public class SimulationState
     /** Key for the flag to randomize the tasks */
     private static final String _RANDOMIZE_TASKS_KEY = "randomize-tasks";
 
-    
+    /** Key for the flag to calculate eigenvector centralities */
+    private static final String _CALCULATE_EIGENVECTOR_CENTRALITY_KEY =
+            "calculate-eigenvector-centrality";
+
+    /** Key for the number of workers used to analyze the mimicking network */
+    private static final String _NETWORK_WORKER_COUNT_KEY =
+            "network-worker-count";
+
+    /** The maximum number of iterations used for eigenvector centralities */
+    private static final int _EIGENVECTOR_MAX_ITERATIONS = 1000;
+
+    /** The tolerance used for eigenvector centralities */
+    private static final double _EIGENVECTOR_TOLERANCE = 1.0e-9;
+
+
+    /** Neighborhood information used to incrementally track eligible
+     *  initiators and first movers */
+    private static class NeighborhoodInfo
+    {
+        /** Individuals that have this individual as a nearest neighbor */
+        public List<SpatialIndividual> mimicingNeighbors =
+                new ArrayList<SpatialIndividual>();
+
+        /** The number of this individual's nearest neighbors that have
+         *  departed */
+        public int departedNeighborCount = 0;
+
+        /** The order in which this individual departed */
+        public long departureOrder = 0;
+    }
+
+    /**
+     * Iterates through the individuals whose indices are set in a set of
+     * indices
+     */
+    private class IndexedIndividualIterator
+            implements Iterator<SpatialIndividual>
+    {
+        /** The indices of the individuals */
+        private final BitSet _indices;
+
+        /** The index of the next individual */
+        private int _nextIndex = 0;
+
+        /**
+         * Builds this IndexedIndividualIterator object
+         *
+         * @param indices The indices of the individuals
+         */
+        public IndexedIndividualIterator( BitSet indices )
+        {
+            _indices = indices;
+            _nextIndex = indices.nextSetBit( 0 );
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return (0 <= _nextIndex);
+        }
+
+        @Override
+        public SpatialIndividual next()
+        {
+            if( 0 > _nextIndex )
+            {
+                throw new NoSuchElementException();
+            }
+            SpatialIndividual ind = _indexedIndividuals[_nextIndex];
+            _nextIndex = _indices.nextSetBit( _nextIndex + 1 );
+            return ind;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
 
     /** Current simulation index */
     private long _simIndex = 0;
@@ -109,6 +206,9 @@ public class SimulationState
     /** The simulation properties */
     private Properties _props = null;
 
+    /** The seed used to initialize the random number generator */
+    private long _randomSeed = 0;
+
     /** Random number generator */
     private MersenneTwisterFast _random = null;
 
@@ -125,6 +225,9 @@ public class SimulationState
     /** The personality calculator */
     private PersonalityCalculator _personalityCalc = null;
 
+    /** The neighbor finder */
+    private NeighborFinder _neighborFinder = null;
+
     /** The total number of individuals */
     private int _individualCount = 0;
 
@@ -134,22 +237,43 @@ public class SimulationState
     /** The distance within which are neighbors */
     private float _nearestNeighborDistance = 0.0f;
 
-    /** Individuals remaining (i.e., not yet departed) */
-    private Map<Object, SpatialIndividual> _remaining =
-            new HashMap<Object, SpatialIndividual>();
+    /** All the individuals in the simulation, by index */
+    private SpatialIndividual[] _indexedIndividuals = new SpatialIndividual[0];
 
-    /** Individuals who have departed (i.e., either initiated or followed) */
-    private Map<Object, SpatialIndividual> _departed =
+    /** All the individuals in the simulation, by ID (only used by methods
+     *  that take an ID) */
+    private Map<Object, SpatialIndividual> _individualsByID =
             new HashMap<Object, SpatialIndividual>();
 
+    /** Individuals remaining (i.e., not yet departed), by index */
+    private BitSet _remaining = new BitSet();
 
-    /** Individuals that are eligible initiators */
-    private Map<Object, SpatialIndividual> _eligibleInitiators =
-            new HashMap<Object, SpatialIndividual>();
+    /** The number of individuals remaining */
+    private int _remainingCount = 0;
 
-    /** Initiators that canceled */
-    private Map<Object, SpatialIndividual> _canceledInitiators =
-            new HashMap<Object, SpatialIndividual>();
+    /** Individuals who have departed (i.e., either initiated or followed),
+     *  by index */
+    private BitSet _departed = new BitSet();
+
+    /** The number of individuals who have departed */
+    private int _departedCount = 0;
+
+    /** Individuals that are eligible initiators, by index */
+    private BitSet _eligibleInitiators = new BitSet();
+
+    /** Initiators that canceled, by index */
+    private BitSet _canceledInitiators = new BitSet();
+
+    /** The neighborhood information for each individual, by index */
+    private NeighborhoodInfo[] _neighborhoods = new NeighborhoodInfo[0];
+
+    /** The number of departures in the current simulation */
+    private long _departureCount = 0;
+
+    /** The remaining individuals with a nearest neighbor in each group,
+     *  keyed by group ID */
+    private Map<Object, Set<SpatialIndividual>> _potentialFollowers =
+            new HashMap<Object, Set<SpatialIndividual>>();
 
     /** Flag indicating that individual's should be rebuilt */
     private boolean _rebuildIndividuals = false;
@@ -188,6 +312,32 @@ public class SimulationState
 
     /** Range of mean topological distances */
     private float _meanTopologicalDistanceRange = 0.0f;
+
+    /** The network of individuals and their mimicking neighbors */
+    private MimickingNetwork _mimickingNetwork = null;
+
+    /** Flag indicating whether or not eigenvector centralities are
+     *  calculated */
+    private boolean _calculateEigenvectorCentrality = false;
+
+    /** The number of workers used to analyze the mimicking network */
+    private int _networkWorkerCount = 1;
+
+    /** The pool of workers used to analyze the mimicking network, which is
+     *  reused for every analysis */
+    private ForkJoinPool _networkPool = null;
+
+    /** The metrics registry */
+    private MetricsRegistry _metrics = null;
+
+    /** The number of individuals affected by each cancellation */
+    private MetricsRegistry.Histogram _cancelCascadeSizes = null;
+
+    /** The rule deciding when enough simulation runs have been gathered */
+    private SequentialStoppingRule _stoppingRule = null;
+
+    /** Flag denoting whether the simulation resumes from a checkpoint */
+    private boolean _resuming = false;
     
     
     /**
@@ -206,8 +356,8 @@ public class SimulationState
         // Get the random number generator seed
         String randomSeedStr = props.getProperty( _RANDOM_SEED_KEY );
         Validate.notEmpty( randomSeedStr, "Random seed is required" );
-        long seed = Long.parseLong( randomSeedStr );
-        _random = new MersenneTwisterFast( seed );
+        _randomSeed = Long.parseLong( randomSeedStr );
+        _random = new MersenneTwisterFast( _randomSeed );
 
         // Get the number of individuals to create
         String individualCountStr = _props.getProperty( _INDIVIDUAL_COUNT_KEY );
@@ -301,6 +451,23 @@ public class SimulationState
         }
         _personalityCalc.initialize( this );
 
+        // Load the neighbor finder class
+        String neighborFinderStr = props.getProperty( _NEIGHBOR_FINDER_CLASS );
+        if( null != neighborFinderStr )
+        {
+            _neighborFinder = (NeighborFinder) MiscUtils.loadAndInstantiate(
+                    neighborFinderStr,
+                    "Neighbor finder class" );
+            _LOG.info( "Using neighbor finder class ["
+                    + neighborFinderStr
+                    + "]" );
+        }
+        else
+        {
+            _neighborFinder = new GridNeighborFinder();
+        }
+        _neighborFinder.initialize( this );
+
         /*  Get the flag denoting whether the total number of departed
          * individuals should be used or the number of nearest neighbors
          * that have departed */
@@ -344,6 +511,44 @@ public class SimulationState
                     + "]" );
         }
         
+        // Are eigenvector centralities calculated?
+        String calculateEigenvectorCentralityStr = _props.getProperty(
+                _CALCULATE_EIGENVECTOR_CENTRALITY_KEY );
+        if( null != calculateEigenvectorCentralityStr )
+        {
+            _calculateEigenvectorCentrality = Boolean.parseBoolean(
+                    calculateEigenvectorCentralityStr );
+            _LOG.info( "Using _calculateEigenvectorCentrality=["
+                    + _calculateEigenvectorCentrality
+                    + "]" );
+        }
+
+        // Get the number of workers used to analyze the network
+        String networkWorkerCountStr = _props.getProperty(
+                _NETWORK_WORKER_COUNT_KEY );
+        if( null != networkWorkerCountStr )
+        {
+            _networkWorkerCount = Integer.parseInt( networkWorkerCountStr );
+            Validate.isTrue( 0 < _networkWorkerCount,
+                    "Network worker count (key=["
+                    + _NETWORK_WORKER_COUNT_KEY
+                    + "]) must be positive" );
+        }
+        _LOG.info( "Using _networkWorkerCount=["
+                + _networkWorkerCount
+                + "]" );
+        if( 1 < _networkWorkerCount )
+        {
+            _networkPool = new ForkJoinPool( _networkWorkerCount );
+        }
+
+        // Build the metrics registry
+        _metrics = MetricsRegistry.build( _props );
+        _cancelCascadeSizes = _metrics.getHistogram( "cancel-cascade-size" );
+
+        // Build the stopping rule
+        _stoppingRule = SequentialStoppingRule.build( _props );
+
         // Create the individuals
         createIndividuals();
 
@@ -356,12 +561,13 @@ public class SimulationState
      */
     public void reset()
     {
-        // Clear the maps of remaining and departed individuals
-        _remaining.clear();
-        _eligibleInitiators.clear();
+        // Clear the departed individuals
         _departed.clear();
+        _departedCount = 0;
         _maxDepartedCount = 0;
         _canceledInitiators.clear();
+        _departureCount = 0;
+        _potentialFollowers.clear();
 
         // Do we build new individuals?
         if( _rebuildIndividuals )
@@ -380,19 +586,127 @@ public class SimulationState
             }
         }
 
-        // Add all the individuals to the remaining and eligible initiators maps
-        Iterator<SpatialIndividual> indIter = _allIndividuals.iterator();
-        while( indIter.hasNext() )
+        // All the individuals are remaining and eligible initiators
+        int indCount = _indexedIndividuals.length;
+        _remaining.clear();
+        _remaining.set( 0, indCount );
+        _remainingCount = indCount;
+        _eligibleInitiators.clear();
+        _eligibleInitiators.set( 0, indCount );
+
+        // Nobody has departed
+        for( int i = 0; i < indCount; i++ )
         {
-            SpatialIndividual ind = indIter.next();
-            _remaining.put( ind.getID(), ind );
-            _eligibleInitiators.put( ind.getID(), ind );
+            _neighborhoods[i].departedNeighborCount = 0;
+            _neighborhoods[i].departureOrder = 0;
         }
         
         // Update the task
         updateTask();
     }
 
+    /**
+     * Writes the state carried over between simulation runs, i.e., the
+     * individuals, the ID counters, the current task, any checkpointable
+     * components and the random number generator
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        out.writeLong( _randomSeed );
+        out.writeLong( _indIDCounter );
+        out.writeLong( _groupIDCounter );
+        out.writeByte( _currentTask.ordinal() );
+
+        // Rebuilt individuals are replaced before the next run anyway
+        if( !_rebuildIndividuals )
+        {
+            out.writeInt( _allIndividuals.size() );
+            Iterator<SpatialIndividual> indIter = _allIndividuals.iterator();
+            while( indIter.hasNext() )
+            {
+                indIter.next().writeCheckpoint( out );
+            }
+        }
+
+        // Write the components that carry over their own state
+        writeComponentCheckpoint( out, _indBuilder );
+        writeComponentCheckpoint( out, _eventTimeCalc );
+        writeComponentCheckpoint( out, _personalityCalc );
+        writeComponentCheckpoint( out, _neighborFinder );
+
+        // The random number generator goes last
+        _random.writeState( out );
+    }
+
+    /**
+     * Reads the state carried over between simulation runs.  The simulation
+     * state must already be initialized using the same properties.
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        long randomSeed = in.readLong();
+        if( randomSeed != _randomSeed )
+        {
+            throw new IOException( "Checkpoint was written using random seed ["
+                    + randomSeed
+                    + "], not ["
+                    + _randomSeed
+                    + "]" );
+        }
+        _indIDCounter = in.readLong();
+        _groupIDCounter = in.readLong();
+        _currentTask = Task.values()[ in.readByte() ];
+
+        if( !_rebuildIndividuals )
+        {
+            int individualCount = in.readInt();
+            if( individualCount != _allIndividuals.size() )
+            {
+                throw new IOException( "Checkpoint has ["
+                        + individualCount
+                        + "] individuals, not ["
+                        + _allIndividuals.size()
+                        + "]" );
+            }
+
+            // Find out if any of the individuals moved
+            boolean moved = false;
+            Iterator<SpatialIndividual> indIter = _allIndividuals.iterator();
+            while( indIter.hasNext() )
+            {
+                SpatialIndividual current = indIter.next();
+                Vector2D location = current.getLocation();
+                current.readCheckpoint( in );
+                moved |= ( location != current.getLocation() );
+            }
+
+            // If so, their neighbors changed as well
+            if( moved )
+            {
+                _LOG.info( "Updating the nearest neighbors of the moved individuals" );
+                updateAllNearestNeighbors();
+            }
+        }
+
+        readComponentCheckpoint( in, _indBuilder );
+        readComponentCheckpoint( in, _eventTimeCalc );
+        readComponentCheckpoint( in, _personalityCalc );
+        readComponentCheckpoint( in, _neighborFinder );
+
+        // Restore the random numbers only after everything is rebuilt
+        _random.readState( in );
+    }
+
     /**
      * Updates the nearest neighbors for all the individuals
      */
@@ -406,6 +720,7 @@ public class SimulationState
         }
 
         // Have the individuals find their neighbors
+        _neighborFinder.rebuild( _allIndividuals );
         indIter = _allIndividuals.iterator();
         while( indIter.hasNext() )
         {
@@ -426,11 +741,11 @@ public class SimulationState
                     + "]" );
         }
 
-        // Have each individual compute the mean topological distance to the rest
-        for( SpatialIndividual ind : _allIndividuals )
-        {
-            ind.calculateMeanTopoDistanceToAllIndividuals( this );
-        }
+        // Rebuild the neighborhood information
+        buildNeighborhoods();
+
+        // Compute the mean topological distances of all the individuals
+        analyzeMimickingNetwork();
         
         // Determine the min and max mean topological distance
         _minMeanTopologicalDistance = Float.MAX_VALUE;
@@ -460,7 +775,7 @@ public class SimulationState
      */
     public int getRemainingCount()
     {
-        return _remaining.size();
+        return _remainingCount;
     }
 
     /**
@@ -470,7 +785,7 @@ public class SimulationState
      */
     public int getDepartedCount()
     {
-        return _departed.size();
+        return _departedCount;
     }
 
     /**
@@ -501,7 +816,7 @@ public class SimulationState
      */
     public Iterator<SpatialIndividual> getRemainingIterator()
     {
-        return _remaining.values().iterator();
+        return new IndexedIndividualIterator( _remaining );
     }
 
     /**
@@ -511,7 +826,7 @@ public class SimulationState
      */
     public Iterator<SpatialIndividual> getDepartedIterator()
     {
-        return _departed.values().iterator();
+        return new IndexedIndividualIterator( _departed );
     }
 
     /**
@@ -526,22 +841,20 @@ public class SimulationState
         if( _LOG.isDebugEnabled() )
         {
             StringBuilder builder = new StringBuilder();
-            Iterator<Object> initIter = _eligibleInitiators.keySet().iterator();
+            Iterator<SpatialIndividual> initIter =
+                    new IndexedIndividualIterator( _eligibleInitiators );
             while( initIter.hasNext() )
             {
-                builder.append( initIter.next() );
+                builder.append( initIter.next().getID() );
                 builder.append( " " );
             }
 
-            if( _LOG.isDebugEnabled() )
-            {
-                _LOG.debug( "Eligible initiators ["
-                        + _eligibleInitiators.size()
-                        + "]: "
-                        + builder.toString() );
-            }
+            _LOG.debug( "Eligible initiators ["
+                    + _eligibleInitiators.cardinality()
+                    + "]: "
+                    + builder.toString() );
         }
-        return _eligibleInitiators.values().iterator();
+        return new IndexedIndividualIterator( _eligibleInitiators );
     }
 
     /**
@@ -554,10 +867,10 @@ public class SimulationState
     public Iterator<SpatialIndividual> getPotentialFollowersIterator(
             SpatialIndividual initiator )
     {
-        List<SpatialIndividual> potentialFollowers =
+        Collection<SpatialIndividual> potentialFollowers =
                 findPotentialFollowers( initiator );
 
-        return potentialFollowers.iterator();
+        return Collections.unmodifiableCollection( potentialFollowers ).iterator();
     }
 
     /**
@@ -569,9 +882,9 @@ public class SimulationState
      */
     public boolean hasPotentialFollowers( SpatialIndividual initiator )
     {
-        List<SpatialIndividual> potentialFollowers =
+        Collection<SpatialIndividual> potentialFollowers =
                 findPotentialFollowers( initiator );
-        return (potentialFollowers.size() > 0);
+        return !potentialFollowers.isEmpty();
     }
 
     /**
@@ -585,7 +898,7 @@ public class SimulationState
         int potentialFollowerCount = 0;
         if( null != initiator )
         {
-            List<SpatialIndividual> potentialFollowers =
+            Collection<SpatialIndividual> potentialFollowers =
                     findPotentialFollowers( initiator );
 
             potentialFollowerCount = potentialFollowers.size();
@@ -603,7 +916,47 @@ public class SimulationState
      */
     public boolean hasDeparted( Object indID )
     {
-        return _departed.containsKey( indID );
+        SpatialIndividual ind = _individualsByID.get( indID );
+        return (null != ind) && hasDeparted( ind );
+    }
+
+    /**
+     * Returns a flag denoting whether or not the individual has departed
+     *
+     * @param ind The individual
+     * @return <code>true</code> if the indivdiual has departed, otherwise,
+     * <code>false</code>
+     */
+    public boolean hasDeparted( SpatialIndividual ind )
+    {
+        int index = ind.getIndex();
+        return (0 <= index) && _departed.get( index );
+    }
+
+    /**
+     * Returns a flag denoting whether or not the individual is eligible to
+     * initiate movement
+     *
+     * @param ind The individual
+     * @return <code>true</code> if the individual is eligible, otherwise,
+     * <code>false</code>
+     */
+    public boolean isEligibleInitiator( SpatialIndividual ind )
+    {
+        return _eligibleInitiators.get( ind.getIndex() );
+    }
+
+    /**
+     * Returns the individuals that have the specified individual as a
+     * nearest neighbor
+     *
+     * @param ind The individual
+     * @return The mimicking neighbors
+     */
+    public List<SpatialIndividual> getMimickingNeighbors( SpatialIndividual ind )
+    {
+        return Collections.unmodifiableList(
+                _neighborhoods[ ind.getIndex() ].mimicingNeighbors );
     }
 
     /**
@@ -660,27 +1013,34 @@ public class SimulationState
     }
 
     /**
-     * Signals that the specified individual has canceled a group movement
+     * Signals that the specified individual has canceled a group movement.
+     * Only initiators cancel, so the initiator's whole group is canceled.
      *
-     * @param individual
+     * @param individual The initiator
      */
     public void cancelInitiation( SpatialIndividual individual )
     {
+        Validate.isTrue( null == individual.getLeader(),
+                "Only initiators may cancel a group movement" );
+
         if( _LOG.isDebugEnabled() )
         {
             _LOG.debug( "Before cancel ["
                     + individual.getID()
                     + "]: eligibleInitiators=["
-                    + _eligibleInitiators.size()
+                    + _eligibleInitiators.cardinality()
                     + "] remaining=["
-                    + _remaining.size()
+                    + _remainingCount
                     + "] totalFollowers=["
                     + individual.getTotalFollowerCount()
                     + "]" );
         }
 
         // Save it
-        _canceledInitiators.put( individual.getID(), individual );
+        _canceledInitiators.set( individual.getIndex() );
+
+        // Get the group before the cancellation clears it
+        Object groupID = individual.getGroupID();
 
         // Send it a signal so it can log some information
         individual.signalInitiationFailure( this );
@@ -711,6 +1071,7 @@ public class SimulationState
                 indsToProcess.add( followerIter.next().getIndividual() );
             }
         }
+        _cancelCascadeSizes.record( affected.size() );
 
         /* Iterate through all the affected individuals to change them from
          * departed to remaining and tell them to cancel */
@@ -724,98 +1085,91 @@ public class SimulationState
 //                    + "]" );
 
             // Remove the individual from the departed group
-            _departed.remove( current.getID() );
+            _departed.clear( current.getIndex() );
+            _departedCount--;
 
             // Add it to the remaining group
-            _remaining.put( current.getID(), current );
+            _remaining.set( current.getIndex() );
+            _remainingCount++;
 
             // Tell it to cancel
             current.cancel();
 
+            // It is no longer a departed neighbor for those mimicing it
+            Iterator<SpatialIndividual> mimicIter =
+                    _neighborhoods[ current.getIndex() ].mimicingNeighbors.iterator();
+            while( mimicIter.hasNext() )
+            {
+                _neighborhoods[ mimicIter.next().getIndex() ].departedNeighborCount--;
+            }
         }
 
-        /* Iterate through the list again to see if they are eligible
-         * initiators.  We couldn't do it during the last pass through since
-         * we hadn't cleaned up all the groups yet. */
-//        affectedIter = affected.iterator();
-        affectedIter = _remaining.values().iterator();
+        // The whole group is gone, so it has no potential followers
+        _potentialFollowers.remove( groupID );
+
+        /* The affected individuals are remaining again and may be potential
+         * followers of other groups */
+        affectedIter = affected.iterator();
         while( affectedIter.hasNext() )
         {
-            SpatialIndividual current = affectedIter.next();
+            addPotentialFollower( affectedIter.next() );
+        }
 
-            // Are any of the individual's neighbors initiators or followers?
-            boolean eligible = true;
-            Iterator<Neighbor> neighborIter = current.getNearestNeighbors().iterator();
-            while( eligible && neighborIter.hasNext() )
+        /* Only the affected individuals and those mimicing them can change
+         * their eligibility or first mover.  We couldn't check them during
+         * the last pass through since we hadn't cleaned up all the groups
+         * yet. */
+        Set<SpatialIndividual> candidates =
+                new LinkedHashSet<SpatialIndividual>( affected );
+        affectedIter = affected.iterator();
+        while( affectedIter.hasNext() )
+        {
+            Iterator<SpatialIndividual> mimicIter = _neighborhoods[
+                    affectedIter.next().getIndex() ].mimicingNeighbors.iterator();
+            while( mimicIter.hasNext() )
             {
-                // Can tell by looking at the group ID
-                Neighbor neighbor = neighborIter.next();
-                if( null != neighbor.getIndividual().getGroupID() )
+                SpatialIndividual mimic = mimicIter.next();
+                if( _remaining.get( mimic.getIndex() ) )
                 {
-                    /* The neighbor belongs to a group, the individual is NOT
-                     * eligible. */
-                    eligible = false;
+                    candidates.add( mimic );
                 }
             }
+        }
+
+        Iterator<SpatialIndividual> candidateIter = candidates.iterator();
+        while( candidateIter.hasNext() )
+        {
+            SpatialIndividual current = candidateIter.next();
 
-            // Is the individual eligible?
-            if( eligible )
+            // Are any of the individual's neighbors initiators or followers?
+            if( 0 == _neighborhoods[ current.getIndex() ].departedNeighborCount )
             {
-                // Yup
-                _eligibleInitiators.put( current.getID(), current );
+                // Nope, the individual is eligible
+                _eligibleInitiators.set( current.getIndex() );
+                current.resetFirstMover();
             }
             else
             {
-                // Nope, tell them who their first mover was
-                // Iterate through the list of departed individuals and
-                // find the first nearest neighbor
-                Iterator<SpatialIndividual> departedIter = _departed.values().iterator();
-                while( departedIter.hasNext() )
+                /* Yup, if the first mover it observed is no longer departed,
+                 * it observes the neighbor that departed first */
+                Neighbor firstMover = current.getFirstMover();
+                if( (null == firstMover)
+                        || !hasDeparted( firstMover.getIndividual() ) )
                 {
-                    SpatialIndividual departedInd = departedIter.next();
-                    if( current.isNearestNeighbor( departedInd ) )
-                    {
-                        current.observeFirstMover( departedInd );
-                        break;
-                    }
-                }
-            }
-
-            /* Check all the individuals not yet departed to see if they
-             * observed this individual as a first mover.  If so, reset their
-             * first mover if no other neighbors have departed or if another
-             * has departed, set it to that neighbor */
-            Iterator<SpatialIndividual> remainingIter = _remaining.values().iterator();
-            while( remainingIter.hasNext() )
-            {
-                SpatialIndividual currentRemaining = remainingIter.next();
-                Neighbor firstMover = currentRemaining.getFirstMover();
-                if( (null != firstMover)
-                        && (firstMover.getIndividual().getID().equals( current.getID() )) )
-                {
-                    // Reset the first mover
-                    currentRemaining.resetFirstMover();
-
-                    // See if they now have another first mover
-                    Iterator<SpatialIndividual> departedIter = _departed.values().iterator();
-                    while( departedIter.hasNext() )
-                    {
-                        SpatialIndividual departedInd = departedIter.next();
-                        if( currentRemaining.isNearestNeighbor( departedInd ) )
-                        {
-                            currentRemaining.observeFirstMover( departedInd );
-                            break;
-                        }
-                    }
+                    current.resetFirstMover();
+                    current.observeFirstMover( findFirstDepartedNeighbor( current ) );
                 }
             }
         }
 
-        _LOG.debug( "After cancel: eligibleInitiators=["
-                + _eligibleInitiators.size()
-                + "] remaining=["
-                + _remaining.size()
-                + "]" );
+        if( _LOG.isDebugEnabled() )
+        {
+            _LOG.debug( "After cancel: eligibleInitiators=["
+                    + _eligibleInitiators.cardinality()
+                    + "] remaining=["
+                    + _remainingCount
+                    + "]" );
+        }
     }
 
     /**
@@ -848,6 +1202,71 @@ public class SimulationState
         return _personalityCalc;
     }
 
+    /**
+     * Returns the neighbor finder for this simulation
+     *
+     * @return The neighbor finder
+     */
+    public NeighborFinder getNeighborFinder()
+    {
+        return _neighborFinder;
+    }
+
+    /**
+     * Returns the metrics registry of the simulation
+     *
+     * @return The metrics registry
+     */
+    public MetricsRegistry getMetrics()
+    {
+        return _metrics;
+    }
+
+    /**
+     * Returns the rule deciding when enough simulation runs have been
+     * gathered
+     *
+     * @return The stopping rule
+     */
+    public SequentialStoppingRule getStoppingRule()
+    {
+        return _stoppingRule;
+    }
+
+    /**
+     * Returns a flag denoting whether or not the simulation resumes from a
+     * checkpoint.  Components that write results as the simulation runs
+     * use it to append to their existing results instead of starting over.
+     *
+     * @return <code>true</code> if the simulation resumes from a checkpoint,
+     * otherwise, <code>false</code>
+     */
+    public boolean isResuming()
+    {
+        return _resuming;
+    }
+
+    /**
+     * Sets the flag denoting whether or not the simulation resumes from a
+     * checkpoint.  It must be set before the simulation state is initialized.
+     *
+     * @param resuming The flag
+     */
+    public void setResuming( boolean resuming )
+    {
+        _resuming = resuming;
+    }
+
+    /**
+     * Returns the network of individuals and their mimicking neighbors
+     *
+     * @return The mimicking network
+     */
+    public MimickingNetwork getMimickingNetwork()
+    {
+        return _mimickingNetwork;
+    }
+
     /**
      * Returns the simIndex for this object
      *
@@ -918,7 +1337,16 @@ public class SimulationState
      */
     public List<SpatialIndividual> getCanceledInitiators()
     {
-        return new LinkedList<SpatialIndividual>( _canceledInitiators.values() );
+        List<SpatialIndividual> canceledInitiators =
+                new LinkedList<SpatialIndividual>();
+        Iterator<SpatialIndividual> canceledIter =
+                new IndexedIndividualIterator( _canceledInitiators );
+        while( canceledIter.hasNext() )
+        {
+            canceledInitiators.add( canceledIter.next() );
+        }
+
+        return canceledInitiators;
     }
 
     /**
@@ -943,6 +1371,28 @@ public class SimulationState
         return _random;
     }
 
+    /**
+     * Returns the seed used to initialize the random number generator
+     *
+     * @return The random seed
+     */
+    public long getRandomSeed()
+    {
+        return _randomSeed;
+    }
+
+    /**
+     * Reseeds the random number generator.  Since everything in the
+     * simulation shares the generator, this switches all of them to the
+     * new random number stream.
+     *
+     * @param seed The new seed
+     */
+    public void reseedRandom( long seed )
+    {
+        _random.setSeed( seed );
+    }
+
     /**
      * Returns a new unique ID
      *
@@ -1023,6 +1473,75 @@ public class SimulationState
         }
     }
     
+    /**
+     * Builds the mimicking network and uses it to compute the network
+     * statistics of all the individuals
+     */
+    private void analyzeMimickingNetwork()
+    {
+        _mimickingNetwork = new MimickingNetwork( _allIndividuals );
+
+        // Compute the mean topological distances
+        float[] meanTopologicalDistances =
+                _mimickingNetwork.calculateMeanTopologicalDistances(
+                        _networkPool );
+
+        // Compute the eigenvector centralities if requested
+        float[] eigenvectorCentralities = null;
+        if( _calculateEigenvectorCentrality )
+        {
+            eigenvectorCentralities =
+                    _mimickingNetwork.calculateEigenvectorCentralities(
+                            _EIGENVECTOR_MAX_ITERATIONS,
+                            _EIGENVECTOR_TOLERANCE );
+        }
+
+        // Store them
+        for( int i = 0; i < _mimickingNetwork.getIndividualCount(); i++ )
+        {
+            SpatialIndividual ind = _mimickingNetwork.getIndividual( i );
+            ind.setMeanTopologicalDistance( meanTopologicalDistances[i] );
+            if( null != eigenvectorCentralities )
+            {
+                ind.setEigenvectorCentrality( eigenvectorCentralities[i] );
+            }
+        }
+    }
+
+    /**
+     * Writes the state of the component to the checkpoint if it carries
+     * over any state between simulation runs
+     *
+     * @param out The checkpoint
+     * @param component The component
+     * @throws IOException If the state can't be written
+     */
+    private void writeComponentCheckpoint( DataOutputStream out,
+            Object component ) throws IOException
+    {
+        if( component instanceof Checkpointable )
+        {
+            ((Checkpointable) component).writeCheckpoint( out );
+        }
+    }
+
+    /**
+     * Reads the state of the component from the checkpoint if it carries
+     * over any state between simulation runs
+     *
+     * @param in The checkpoint
+     * @param component The component
+     * @throws IOException If the state can't be read
+     */
+    private void readComponentCheckpoint( DataInputStream in,
+            Object component ) throws IOException
+    {
+        if( component instanceof Checkpointable )
+        {
+            ((Checkpointable) component).readCheckpoint( in );
+        }
+    }
+
     /**
      * Create the individuals for the simulation
      */
@@ -1040,7 +1559,11 @@ public class SimulationState
             _allIndividuals.add( ind );
         }
 
+        // Index them
+        indexIndividuals();
+
         // Have the individuals find their neighbors
+        _neighborFinder.rebuild( _allIndividuals );
         List<SpatialIndividual> lonelyInds = new LinkedList<SpatialIndividual>();
         Iterator<SpatialIndividual> indIter = _allIndividuals.iterator();
         while( indIter.hasNext() )
@@ -1059,11 +1582,8 @@ public class SimulationState
             }
         }
         
-        // Have each individual compute the mean topological distance to the rest
-        for( SpatialIndividual ind : _allIndividuals )
-        {
-            ind.calculateMeanTopoDistanceToAllIndividuals( this );
-        }
+        // Compute the mean topological distances of all the individuals
+        analyzeMimickingNetwork();
         _minMeanTopologicalDistance = Float.MAX_VALUE;
         _maxMeanTopologicalDistance = Float.MIN_VALUE;
         for( SpatialIndividual ind : _allIndividuals )
@@ -1092,8 +1612,15 @@ public class SimulationState
                     + lonely.getID()
                     + "]" );
             _allIndividuals.remove( lonely );
+
+            // It may still be a neighbor, so make sure it isn't indexed
+            lonely.setIndex( -1 );
         }
 
+        // Index the individuals that are left and build their neighborhoods
+        indexIndividuals();
+        buildNeighborhoods();
+
         // Find out if any individuals have no mimicing neighbors
         indIter = _allIndividuals.iterator();
         while( indIter.hasNext() )
@@ -1132,142 +1659,227 @@ public class SimulationState
                     + leaderID
                     + "]" );
             _LOG.debug( "Checking ["
-                    + _eligibleInitiators.size()
+                    + _eligibleInitiators.cardinality()
                     + "] possible initiators" );
         }
 
         // Remove the individual from the remaining and eligible initiators groups
-        _remaining.remove( ind.getID() );
-        _eligibleInitiators.remove( ind.getID() );
+        int indIndex = ind.getIndex();
+        _remaining.clear( indIndex );
+        _remainingCount--;
+        _eligibleInitiators.clear( indIndex );
 
         // Add it to the departed group
-        _departed.put( ind.getID(), ind );
+        _departed.set( indIndex );
+        _departedCount++;
+
+        // It is no longer a potential follower of any group
+        removePotentialFollower( ind );
 
-        // Get all the possible initiators for whom this individual is a neighbor
-        List<SpatialIndividual> inds = new LinkedList<SpatialIndividual>();
-        Iterator<SpatialIndividual> eligibleIter = _eligibleInitiators.values().iterator();
-        while( eligibleIter.hasNext() )
+        // Get the potential followers of its group
+        Set<SpatialIndividual> groupPotentialFollowers =
+                _potentialFollowers.get( ind.getGroupID() );
+        if( null == groupPotentialFollowers )
         {
-            SpatialIndividual current = eligibleIter.next();
+            groupPotentialFollowers = new LinkedHashSet<SpatialIndividual>();
+            _potentialFollowers.put( ind.getGroupID(), groupPotentialFollowers );
+        }
 
-//            _LOG.debug( "  Checking ind=["
-//                    + current.getID()
-//                    + "]" );
+        // Note the order in which it departed
+        _neighborhoods[indIndex].departureOrder = ++_departureCount;
 
-            // Is the original individual a nearest neighbor?
-            if( ind.isMimicingNeighbor( current ) )
-            {
-//                _LOG.debug( "[" + current.getID() + "] is a mimicking neighbor" );
+        /* Iterate through all the individuals for whom this individual is a
+         * neighbor */
+        Iterator<SpatialIndividual> mimicIter =
+                _neighborhoods[indIndex].mimicingNeighbors.iterator();
+        while( mimicIter.hasNext() )
+        {
+            SpatialIndividual current = mimicIter.next();
+            int currentIndex = current.getIndex();
+
+            // One more of its neighbors has departed
+            _neighborhoods[currentIndex].departedNeighborCount++;
 
-                // Yup, add them to the list
-                inds.add( current );
+            // If it is still remaining, it can follow this individual's group
+            if( _remaining.get( currentIndex ) )
+            {
+                groupPotentialFollowers.add( current );
+            }
 
-                // Also, tell them this is their immediate leader
+            // Is it an eligible initiator?
+            if( _eligibleInitiators.get( currentIndex ) )
+            {
+                // Yup, tell them this is their immediate leader
+                _eligibleInitiators.clear( currentIndex );
                 current.observeFirstMover( ind );
+                if( _LOG.isDebugEnabled() )
+                {
+                    _LOG.debug( "Removing ["
+                            + current.getID()
+                            + "] from eligible initiators group" );
+                }
             }
         }
 
-        // Remove all of these individuals from the eligible initiators group
-        Iterator<SpatialIndividual> indIter = inds.iterator();
-        while( indIter.hasNext() )
+        // Update the max number of departed individuals (if needed)
+        if( _maxDepartedCount < _departedCount )
         {
-            Object id = indIter.next().getID();
-            _eligibleInitiators.remove( id );
-            _LOG.debug( "Removing ["
-                    + id
-                    + "] from eligible initiators group" );
+            _maxDepartedCount = _departedCount;
         }
+    }
 
-        // Update the max number of departed individuals (if needed)
-        if( _maxDepartedCount < _departed.size() )
+    /**
+     * Builds the neighborhood information for all the individuals using
+     * their mimicing neighbors
+     */
+    private void buildNeighborhoods()
+    {
+        _neighborhoods = new NeighborhoodInfo[ _indexedIndividuals.length ];
+        for( int i = 0; i < _indexedIndividuals.length; i++ )
         {
-            _maxDepartedCount = _departed.size();
+            NeighborhoodInfo info = new NeighborhoodInfo();
+            info.mimicingNeighbors.addAll(
+                    _indexedIndividuals[i].getMimickingNeighbors() );
+            _neighborhoods[i] = info;
         }
     }
 
     /**
-     * TODO Method description
+     * Assigns each individual an index using its position in the list of
+     * all the individuals
+     */
+    private void indexIndividuals()
+    {
+        int indCount = _allIndividuals.size();
+        _indexedIndividuals = _allIndividuals.toArray(
+                new SpatialIndividual[indCount] );
+        _individualsByID.clear();
+        for( int i = 0; i < indCount; i++ )
+        {
+            _indexedIndividuals[i].setIndex( i );
+            _individualsByID.put( _indexedIndividuals[i].getID(),
+                    _indexedIndividuals[i] );
+        }
+
+        // Size the sets of individuals
+        _remaining = new BitSet( indCount );
+        _remainingCount = 0;
+        _departed = new BitSet( indCount );
+        _departedCount = 0;
+        _eligibleInitiators = new BitSet( indCount );
+        _canceledInitiators = new BitSet( indCount );
+    }
+
+    /**
+     * Finds the individual's nearest neighbor that departed first
      *
-     * @param initiator
-     * @return
+     * @param ind The individual
+     * @return The first departed nearest neighbor or <code>null</code> if
+     * none have departed
      */
-    private List<SpatialIndividual> findPotentialFollowers( SpatialIndividual initiator )
+    private SpatialIndividual findFirstDepartedNeighbor( SpatialIndividual ind )
     {
-        _LOG.trace( "Entering findPotentialFollowers( initiator )" );
+        SpatialIndividual firstDeparted = null;
+        long firstDepartureOrder = Long.MAX_VALUE;
+        Iterator<Neighbor> neighborIter = ind.getNearestNeighbors().iterator();
+        while( neighborIter.hasNext() )
+        {
+            SpatialIndividual neighbor = neighborIter.next().getIndividual();
+            if( hasDeparted( neighbor ) )
+            {
+                long departureOrder =
+                        _neighborhoods[ neighbor.getIndex() ].departureOrder;
+                if( departureOrder < firstDepartureOrder )
+                {
+                    firstDepartureOrder = departureOrder;
+                    firstDeparted = neighbor;
+                }
+            }
+        }
 
-        List<SpatialIndividual> potentialFollowers =
-                new LinkedList<SpatialIndividual>();
+        return firstDeparted;
+    }
+
+    /**
+     * Adds the remaining individual as a potential follower of all the groups
+     * to which its nearest neighbors belong
+     *
+     * @param ind The individual
+     */
+    private void addPotentialFollower( SpatialIndividual ind )
+    {
+        Iterator<Neighbor> neighborIter = ind.getNearestNeighbors().iterator();
+        while( neighborIter.hasNext() )
+        {
+            Object neighborGroupID =
+                    neighborIter.next().getIndividual().getGroupID();
+            if( null != neighborGroupID )
+            {
+                _potentialFollowers.get( neighborGroupID ).add( ind );
+            }
+        }
+    }
+
+    /**
+     * Removes the individual as a potential follower of all the groups to
+     * which its nearest neighbors belong
+     *
+     * @param ind The individual
+     */
+    private void removePotentialFollower( SpatialIndividual ind )
+    {
+        Iterator<Neighbor> neighborIter = ind.getNearestNeighbors().iterator();
+        while( neighborIter.hasNext() )
+        {
+            Object neighborGroupID =
+                    neighborIter.next().getIndividual().getGroupID();
+            if( null != neighborGroupID )
+            {
+                _potentialFollowers.get( neighborGroupID ).remove( ind );
+            }
+        }
+    }
+
+    /**
+     * Returns the potential followers of the initiator.  For active
+     * initiators, these are the remaining individuals with a nearest
+     * neighbor in the initiator's group.
+     *
+     * @param initiator
+     * @return The potential followers
+     */
+    private Collection<SpatialIndividual> findPotentialFollowers(
+            SpatialIndividual initiator )
+    {
+        Collection<SpatialIndividual> potentialFollowers = null;
 
         // Get the initiator's group ID
         Object initiatorGroupID = initiator.getGroupID();
-        _LOG.debug( "Checking followers for initiator group ID ["
-                + initiatorGroupID
-                + "]" );
-
         if( null == initiatorGroupID )
         {
             // Not an active initiator.  Just use the mimicking neighbors.
-            potentialFollowers.addAll( initiator.getMimickingNeighbors() );
-            _LOG.debug( "Not an active initiator: potentialFollowers=["
-                    + potentialFollowers.size()
-                    + "]" );
+            potentialFollowers = _neighborhoods[
+                    initiator.getIndex() ].mimicingNeighbors;
         }
         else
         {
-            StringBuilder builder = new StringBuilder();
-
-            // Iterate through all the remaining individuals
-            Iterator<SpatialIndividual> remainingIter =
-                    _remaining.values().iterator();
-            while( remainingIter.hasNext() )
+            potentialFollowers = _potentialFollowers.get( initiatorGroupID );
+            if( null == potentialFollowers )
             {
-                SpatialIndividual currentRemaining = remainingIter.next();
-
-                // Does any of this individual's neighbors belong to the same group?
-                boolean foundSameGroup = false;
-                Iterator<Neighbor> neighborIter =
-                        currentRemaining.getNearestNeighbors().iterator();
-                while( !foundSameGroup && neighborIter.hasNext() )
-                {
-                    Neighbor neighbor = neighborIter.next();
-                    _LOG.debug( "neighborGroupID=["
-                            + neighbor.getIndividual().getGroupID()
-                            + "] initiatorGroupID=["
-                            + initiatorGroupID
-                            + "]  neighborID=["
-                            + neighbor.getIndividual().getID()
-                            + "]" );
-
-                    // Do the group ID's match?
-                    if( initiatorGroupID.equals( neighbor.getIndividual().getGroupID() ) )
-                    {
-                        // Yup, note it
-                        foundSameGroup = true;
-                        _LOG.debug( "MATCH!" );
-                    }
-                }
-
-                if( foundSameGroup )
-                {
-                    // The current individual is a potential follower
-                    potentialFollowers.add( currentRemaining );
-                    builder.append( currentRemaining.getID() );
-                    builder.append( " " );
-                }
-            }
-
-            if( _LOG.isDebugEnabled() )
-            {
-                _LOG.debug( "Initiator=["
-                        + initiator.getID()
-                        + "] has ["
-                        + potentialFollowers.size()
-                        + "] potential followers: "
-                        + builder.toString() );
+                potentialFollowers = Collections.emptySet();
             }
         }
 
-        _LOG.trace( "Leaving findPotentialFollowers( initiator )" );
+        if( _LOG.isDebugEnabled() )
+        {
+            _LOG.debug( "Initiator=["
+                    + initiator.getID()
+                    + "] group=["
+                    + initiatorGroupID
+                    + "] has ["
+                    + potentialFollowers.size()
+                    + "] potential followers" );
+        }
 
         return potentialFollowers;
     }
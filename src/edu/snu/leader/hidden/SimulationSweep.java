@@ -0,0 +1,605 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden;
+
+// Imports
+import edu.snu.leader.util.MiscUtils;
+import org.apache.commons.lang.Validate;
+import org.apache.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * SimulationSweep
+ *
+ * Executes a sweep of simulations in a single JVM.  The sweep is described
+ * by a properties file holding the base simulation properties file and a
+ * number of sweep parameters, each of which is a simulation property and
+ * the values it takes.  A simulation is executed for every combination of
+ * the parameter values (i.e., their Cartesian product) using its own copy
+ * of the base properties, and its results are written to its own
+ * directory.  The simulations are executed in parallel by a pool of
+ * threads.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class SimulationSweep
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            SimulationSweep.class.getName() );
+
+    /** Key for sweep properties file */
+    private static final String _PROPS_FILE_KEY = "sweep-properties";
+
+    /** Key for the simulation class */
+    private static final String _SIMULATION_CLASS_KEY = "simulation-class";
+
+    /** Key for the base simulation properties file */
+    private static final String _BASE_PROPS_FILE_KEY = "base-sim-properties";
+
+    /** Key for the directory in which the results are written */
+    private static final String _RESULTS_DIR_KEY = "results-dir";
+
+    /** Key for the name of each simulation's results file */
+    private static final String _RESULTS_FILENAME_KEY = "results-filename";
+
+    /** Key for the number of threads executing the simulations */
+    private static final String _THREAD_COUNT_KEY = "thread-count";
+
+    /** Key for the number of sweep parameters */
+    private static final String _PARAMETER_COUNT_KEY = "sweep-parameter-count";
+
+    /** Key prefix for the sweep parameters */
+    private static final String _PARAMETER_PREFIX = "sweep-parameter.";
+
+    /** Key prefix for properties overridden in every simulation */
+    private static final String _OVERRIDE_PREFIX = "override.";
+
+    /** Key for the simulation results file */
+    private static final String _SIM_RESULTS_FILE_KEY = "results-file";
+
+    /** Key for the number of workers used to analyze a simulation's
+     *  mimicking network */
+    private static final String _SIM_NETWORK_WORKER_COUNT_KEY =
+            "network-worker-count";
+
+    /** The name of the file listing all the simulations in the sweep */
+    private static final String _SWEEP_LOG_FILENAME = "sweep-runs.dat";
+
+
+    /**
+     * A property swept over a list of values
+     */
+    private static class SweepParameter
+    {
+        /** The property key */
+        public String key = null;
+
+        /** The name used in the results directories */
+        public String name = null;
+
+        /** The values of the property */
+        public List<String> values = new ArrayList<String>();
+    }
+
+    /** The name of the simulation class */
+    private String _simulationClassName =
+            SpatialHiddenVariablesSimulation.class.getName();
+
+    /** The base simulation properties */
+    private Properties _baseProps = new Properties();
+
+    /** The directory in which the results are written */
+    private File _resultsDir = null;
+
+    /** The name of each simulation's results file */
+    private String _resultsFilename = "spatial-hidden-var.dat";
+
+    /** The number of threads executing the simulations */
+    private int _threadCount = Runtime.getRuntime().availableProcessors();
+
+    /** The swept parameters */
+    private List<SweepParameter> _parameters =
+            new ArrayList<SweepParameter>();
+
+
+    /**
+     * Main entry into the sweep
+     *
+     * @param args
+     */
+    public static void main( String[] args )
+    {
+        try
+        {
+            // Build, initialize, run
+            SimulationSweep sweep = new SimulationSweep();
+            sweep.initialize();
+            sweep.run();
+        }
+        catch( Exception e )
+        {
+            _LOG.error( "Unknown error", e );
+            System.exit( 1 );
+        }
+    }
+
+    /**
+     * Initialize the sweep
+     */
+    public void initialize()
+    {
+        _LOG.trace( "Entering initialize()" );
+
+        // Load the properties and initialize using them
+        initialize( MiscUtils.loadProperties( _PROPS_FILE_KEY ) );
+
+        _LOG.trace( "Leaving initialize()" );
+    }
+
+    /**
+     * Initialize the sweep using the specified properties
+     *
+     * @param props The sweep properties
+     */
+    public void initialize( Properties props )
+    {
+        _LOG.trace( "Entering initialize( props )" );
+
+        // Get the simulation class
+        String simulationClassStr = props.getProperty( _SIMULATION_CLASS_KEY );
+        if( null != simulationClassStr )
+        {
+            _simulationClassName = simulationClassStr;
+        }
+        _LOG.info( "Using _simulationClassName=["
+                + _simulationClassName
+                + "]" );
+
+        // Load the base simulation properties
+        String basePropsFileStr = props.getProperty( _BASE_PROPS_FILE_KEY );
+        Validate.notEmpty( basePropsFileStr,
+                "Base simulation properties file (key="
+                + _BASE_PROPS_FILE_KEY
+                + ") may not be empty" );
+        _baseProps = loadProperties( new File( basePropsFileStr ) );
+        _LOG.info( "Using base simulation properties ["
+                + basePropsFileStr
+                + "]" );
+
+        // Apply the overrides used by every simulation
+        Iterator<String> keyIter = props.stringPropertyNames().iterator();
+        while( keyIter.hasNext() )
+        {
+            String key = keyIter.next();
+            if( key.startsWith( _OVERRIDE_PREFIX ) )
+            {
+                String simKey = key.substring( _OVERRIDE_PREFIX.length() );
+                _baseProps.setProperty( simKey, props.getProperty( key ) );
+                _LOG.info( "Overriding ["
+                        + simKey
+                        + "] with ["
+                        + props.getProperty( key )
+                        + "]" );
+            }
+        }
+
+        // Get the results directory
+        String resultsDirStr = props.getProperty( _RESULTS_DIR_KEY );
+        Validate.notEmpty( resultsDirStr, "Results directory (key="
+                + _RESULTS_DIR_KEY
+                + ") may not be empty" );
+        _resultsDir = new File( resultsDirStr );
+        _LOG.info( "Using _resultsDir=[" + _resultsDir + "]" );
+
+        // Get the results filename
+        String resultsFilenameStr = props.getProperty( _RESULTS_FILENAME_KEY );
+        if( null != resultsFilenameStr )
+        {
+            _resultsFilename = resultsFilenameStr;
+            _LOG.info( "Using _resultsFilename=[" + _resultsFilename + "]" );
+        }
+
+        // Get the number of threads
+        String threadCountStr = props.getProperty( _THREAD_COUNT_KEY );
+        if( null != threadCountStr )
+        {
+            _threadCount = Integer.parseInt( threadCountStr );
+            Validate.isTrue( 0 < _threadCount,
+                    "Thread count (key="
+                    + _THREAD_COUNT_KEY
+                    + ") must be positive" );
+        }
+        _LOG.info( "Using _threadCount=[" + _threadCount + "]" );
+
+        // Get the sweep parameters
+        String parameterCountStr = props.getProperty( _PARAMETER_COUNT_KEY );
+        Validate.notEmpty( parameterCountStr, "Sweep parameter count (key="
+                + _PARAMETER_COUNT_KEY
+                + ") may not be empty" );
+        int parameterCount = Integer.parseInt( parameterCountStr );
+        for( int i = 0; i < parameterCount; i++ )
+        {
+            String prefix = _PARAMETER_PREFIX
+                    + String.format( "%02d", i )
+                    + ".";
+
+            SweepParameter parameter = new SweepParameter();
+            parameter.key = props.getProperty( prefix + "key" );
+            Validate.notEmpty( parameter.key, "Sweep parameter key (key="
+                    + prefix
+                    + "key) may not be empty" );
+            parameter.name = props.getProperty( prefix + "name",
+                    parameter.key );
+
+            String valuesStr = props.getProperty( prefix + "values" );
+            Validate.notEmpty( valuesStr, "Sweep parameter values (key="
+                    + prefix
+                    + "values) may not be empty" );
+            String[] values = valuesStr.split( "," );
+            for( int j = 0; j < values.length; j++ )
+            {
+                if( 0 < values[j].trim().length() )
+                {
+                    parameter.values.add( values[j].trim() );
+                }
+            }
+            Validate.isTrue( !parameter.values.isEmpty(),
+                    "Sweep parameter ["
+                    + parameter.key
+                    + "] has no values" );
+
+            _LOG.info( "Sweeping ["
+                    + parameter.key
+                    + "] over "
+                    + parameter.values );
+            _parameters.add( parameter );
+        }
+
+        _LOG.trace( "Leaving initialize( props )" );
+    }
+
+    /**
+     * Runs the sweep.  Every simulation is executed even if some of them
+     * fail, but the sweep then fails once they are finished.
+     */
+    public void run()
+    {
+        _LOG.trace( "Entering run()" );
+
+        // Build the overrides for every combination of the parameter values
+        List<Map<String,String>> sweepOverrides =
+                new ArrayList<Map<String,String>>();
+        List<File> sweepDirs = new ArrayList<File>();
+        buildCombinations( 0,
+                new LinkedHashMap<String,String>(),
+                _resultsDir,
+                sweepOverrides,
+                sweepDirs );
+        _LOG.info( "Executing ["
+                + sweepOverrides.size()
+                + "] simulations using ["
+                + _threadCount
+                + "] threads" );
+
+        // Record the simulations in the sweep
+        logSweep( sweepOverrides, sweepDirs );
+
+        // Execute all the simulations
+        final AtomicInteger failures = new AtomicInteger( 0 );
+        ForkJoinPool pool = new ForkJoinPool( _threadCount );
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for( int i = 0; i < sweepOverrides.size(); i++ )
+        {
+            final int sweepIndex = i;
+            final Map<String,String> overrides = sweepOverrides.get( i );
+            final File dir = sweepDirs.get( i );
+            tasks.add( pool.submit( new Runnable() {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        runSimulation( sweepIndex, overrides, dir );
+                    }
+                    catch( Exception e )
+                    {
+                        _LOG.error( "Simulation ["
+                                + sweepIndex
+                                + "] failed", e );
+                        failures.incrementAndGet();
+                    }
+                }
+            } ) );
+        }
+
+        // Wait for all of them to finish
+        try
+        {
+            Iterator<ForkJoinTask<?>> taskIter = tasks.iterator();
+            while( taskIter.hasNext() )
+            {
+                taskIter.next().join();
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        // Let whoever started the sweep know that it didn't finish
+        if( 0 < failures.get() )
+        {
+            String msg = "["
+                    + failures.get()
+                    + "] of ["
+                    + sweepOverrides.size()
+                    + "] simulations failed";
+            _LOG.error( msg );
+            throw new RuntimeException( msg );
+        }
+
+        _LOG.trace( "Leaving run()" );
+    }
+
+    /**
+     * Initializes and runs a single simulation in the sweep
+     *
+     * @param sweepIndex The index of the simulation in the sweep
+     * @param overrides The swept properties of the simulation
+     * @param dir The directory for the simulation's results
+     */
+    private void runSimulation( int sweepIndex,
+            Map<String,String> overrides,
+            File dir )
+    {
+        _LOG.info( "Starting simulation ["
+                + sweepIndex
+                + "] with "
+                + overrides );
+
+        // Build the simulation's own copy of the properties
+        Properties simProps = new Properties();
+        simProps.putAll( _baseProps );
+        simProps.putAll( overrides );
+
+        // Send the results to the simulation's directory
+        if( !dir.isDirectory() && !dir.mkdirs() )
+        {
+            throw new RuntimeException( "Unable to create results directory ["
+                    + dir.getAbsolutePath()
+                    + "]" );
+        }
+        simProps.setProperty( _SIM_RESULTS_FILE_KEY,
+                new File( dir, _resultsFilename ).getPath() );
+
+        // The sweep's threads already use the processors
+        if( 1 < _threadCount )
+        {
+            String networkWorkerCountStr = simProps.getProperty(
+                    _SIM_NETWORK_WORKER_COUNT_KEY );
+            if( (null != networkWorkerCountStr)
+                    && !"1".equals( networkWorkerCountStr.trim() ) )
+            {
+                _LOG.warn( "Replacing network worker count (key="
+                        + _SIM_NETWORK_WORKER_COUNT_KEY
+                        + ") of ["
+                        + networkWorkerCountStr.trim()
+                        + "] with [1] since there are ["
+                        + _threadCount
+                        + "] sweep threads" );
+            }
+            simProps.setProperty( _SIM_NETWORK_WORKER_COUNT_KEY, "1" );
+        }
+
+        // Build, initialize, run
+        Simulation sim = (Simulation) MiscUtils.loadAndInstantiate(
+                _simulationClassName,
+                "Simulation class" );
+        sim.initialize( simProps );
+        sim.run();
+
+        _LOG.info( "Finished simulation [" + sweepIndex + "]" );
+    }
+
+    /**
+     * Recursively builds the overrides and results directories for every
+     * combination of the parameter values, starting with the specified
+     * parameter.  The last parameter changes the fastest.
+     *
+     * @param parameterIndex The index of the parameter
+     * @param current The overrides for the parameters already chosen
+     * @param currentDir The directory for the parameters already chosen
+     * @param sweepOverrides The overrides of all the combinations
+     * @param sweepDirs The directories of all the combinations
+     */
+    private void buildCombinations( int parameterIndex,
+            Map<String,String> current,
+            File currentDir,
+            List<Map<String,String>> sweepOverrides,
+            List<File> sweepDirs )
+    {
+        // Have we chosen a value for every parameter?
+        if( parameterIndex == _parameters.size() )
+        {
+            sweepOverrides.add( Collections.unmodifiableMap(
+                    new LinkedHashMap<String,String>( current ) ) );
+            sweepDirs.add( currentDir );
+            return;
+        }
+
+        SweepParameter parameter = _parameters.get( parameterIndex );
+        Iterator<String> valueIter = parameter.values.iterator();
+        while( valueIter.hasNext() )
+        {
+            String value = valueIter.next();
+            current.put( parameter.key, value );
+            buildCombinations( parameterIndex + 1,
+                    current,
+                    new File( currentDir,
+                            parameter.name + "-" + buildDirValue( value ) ),
+                    sweepOverrides,
+                    sweepDirs );
+        }
+        current.remove( parameter.key );
+    }
+
+    /**
+     * Builds the part of a directory name representing a parameter value.
+     * Values that are files are represented by their names without any
+     * extension.
+     *
+     * @param value The parameter value
+     * @return The directory name
+     */
+    private String buildDirValue( String value )
+    {
+        String dirValue = value;
+        if( (0 <= dirValue.indexOf( '/' )) || (0 <= dirValue.indexOf( '\\' )) )
+        {
+            dirValue = new File( dirValue ).getName();
+            int extensionIdx = dirValue.lastIndexOf( '.' );
+            if( 0 < extensionIdx )
+            {
+                dirValue = dirValue.substring( 0, extensionIdx );
+            }
+        }
+
+        return dirValue.replaceAll( "[^A-Za-z0-9._-]", "_" );
+    }
+
+    /**
+     * Writes the list of simulations in the sweep to the results directory
+     *
+     * @param sweepOverrides The overrides of all the simulations
+     * @param sweepDirs The directories of all the simulations
+     */
+    private void logSweep( List<Map<String,String>> sweepOverrides,
+            List<File> sweepDirs )
+    {
+        if( !_resultsDir.isDirectory() && !_resultsDir.mkdirs() )
+        {
+            throw new RuntimeException( "Unable to create results directory ["
+                    + _resultsDir.getAbsolutePath()
+                    + "]" );
+        }
+
+        File sweepLogFile = new File( _resultsDir, _SWEEP_LOG_FILENAME );
+        PrintWriter writer = null;
+        try
+        {
+            writer = new PrintWriter( new BufferedWriter(
+                    new FileWriter( sweepLogFile ) ) );
+            writer.println( "# simulation-class = " + _simulationClassName );
+            for( int i = 0; i < sweepOverrides.size(); i++ )
+            {
+                writer.print( String.format( "%05d", i ) );
+                writer.print( " " );
+                writer.print( sweepDirs.get( i ).getPath() );
+                Iterator<Map.Entry<String,String>> entryIter =
+                        sweepOverrides.get( i ).entrySet().iterator();
+                while( entryIter.hasNext() )
+                {
+                    Map.Entry<String,String> entry = entryIter.next();
+                    writer.print( " "
+                            + entry.getKey()
+                            + "="
+                            + entry.getValue() );
+                }
+                writer.println();
+            }
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to write sweep log file ["
+                    + sweepLogFile.getAbsolutePath()
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to write sweep log file ["
+                    + sweepLogFile.getAbsolutePath()
+                    + "]", ioe );
+        }
+        finally
+        {
+            if( null != writer )
+            {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Loads the properties in the specified file
+     *
+     * @param propsFile The properties file
+     * @return The properties
+     */
+    private Properties loadProperties( File propsFile )
+    {
+        Properties props = new Properties();
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( propsFile );
+            props.load( in );
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to load properties file ["
+                    + propsFile.getAbsolutePath()
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to load properties file ["
+                    + propsFile.getAbsolutePath()
+                    + "]", ioe );
+        }
+        finally
+        {
+            if( null != in )
+            {
+                try
+                {
+                    in.close();
+                }
+                catch( IOException ioe )
+                {
+                    // Ignore it
+                }
+            }
+        }
+
+        return props;
+    }
+}
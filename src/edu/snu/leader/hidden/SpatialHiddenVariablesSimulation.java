@@ -20,19 +20,40 @@ package edu.snu.leader.hidden;
 
 // Imports
 import edu.snu.leader.hidden.event.DepartureEvent;
-import edu.snu.leader.hidden.event.EventTimeCalculator;
+import edu.snu.leader.hidden.event.EventScheduler;
 import edu.snu.leader.hidden.observer.SimulationObserver;
+import edu.snu.leader.hidden.personality.ConstantPersonalityCalculator;
+import edu.snu.leader.util.Checkpointable;
+import edu.snu.leader.util.MetricsRegistry;
 import edu.snu.leader.util.MiscUtils;
 
+import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 /**
@@ -43,7 +64,7 @@ import java.util.Set;
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class SpatialHiddenVariablesSimulation
+public class SpatialHiddenVariablesSimulation implements Simulation
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
@@ -58,23 +79,53 @@ public class SpatialHiddenVariablesSimulation
     /** Key for the number of observers */
     private static final String _OBSERVER_COUNT_KEY = "observer-count";
 
+    /** Key for the number of workers executing the simulation runs */
+    private static final String _WORKER_COUNT_KEY = "worker-count";
+
+    /** Key for the number of workers used to analyze the mimicking network */
+    private static final String _NETWORK_WORKER_COUNT_KEY =
+            "network-worker-count";
+
+    /** Key for the results file */
+    private static final String _RESULTS_FILE_KEY = "results-file";
+
+    /** Key for the number of simulation runs between checkpoints */
+    private static final String _CHECKPOINT_INTERVAL_KEY = "checkpoint-interval";
+
+    /** Key for the checkpoint file */
+    private static final String _CHECKPOINT_FILE_KEY = "checkpoint-file";
+
+    /** Command-line argument to resume from the last checkpoint */
+    private static final String _RESUME_ARG = "--resume";
+
+    /** The value identifying a checkpoint ("SHVC") */
+    private static final int _CHECKPOINT_MAGIC = 0x53485643;
+
+    /** The version of the checkpoint format */
+    private static final int _CHECKPOINT_VERSION = 1;
+
     
 
-    private class IndividualEvent {
-        public final float time;
+    private class ScheduledEvent {
+        public final DepartureEvent.Type type;
         public final SpatialIndividual individual;
-        public IndividualEvent( float time, SpatialIndividual individual )
+        public final InitiatorData initiatorData;
+        public ScheduledEvent( DepartureEvent.Type type,
+                SpatialIndividual individual,
+                InitiatorData initiatorData )
         {
-            this.time = time;
+            this.type = type;
             this.individual = individual;
+            this.initiatorData = initiatorData;
         }
     }
 
     private class InitiatorData {
         public SpatialIndividual initiator = null;
         public int followCount = 0;
-        public IndividualEvent followEvent = null;;
-        public float cancelTime = 0.0f;
+        public Map<SpatialIndividual, ScheduledEvent> followEvents =
+                new HashMap<SpatialIndividual, ScheduledEvent>();
+        public ScheduledEvent cancelEvent = null;
         public InitiatorData( SpatialIndividual initiator )
         {
             this.initiator = initiator;
@@ -89,15 +140,79 @@ public class SpatialHiddenVariablesSimulation
     private Properties _props = new Properties();
 
     /** The results reporter */
-    private ResultsReporter _reporter = new DefaultResultsReporter();
+    private ResultsReporter _reporter = null;
 
     /** The number of times to run the simulator */
     private int _simulationCount = 0;
 
+    /** The number of workers executing the simulation runs in parallel */
+    private int _workerCount = 1;
+
+    /** The number of simulation runs between checkpoints (zero for none) */
+    private int _checkpointInterval = 0;
+
+    /** The checkpoint file */
+    private String _checkpointFile = null;
+
+    /** Flag denoting whether to resume from the last checkpoint */
+    private boolean _resume = false;
+
+    /** The index of the first simulation run to execute */
+    private int _firstSimIndex = 0;
+
     /** The simulation observers */
     private List<SimulationObserver> _simObservers =
             new LinkedList<SimulationObserver>();
 
+    /** The scheduled events of the current simulation run */
+    private EventScheduler<ScheduledEvent> _scheduler =
+            new EventScheduler<ScheduledEvent>();
+
+    /** The scheduled initiation events of the eligible initiators */
+    private Map<SpatialIndividual, ScheduledEvent> _initiationEvents =
+            new HashMap<SpatialIndividual, ScheduledEvent>();
+
+    /** The active initiators, keyed by their group ID */
+    private Map<Object, InitiatorData> _initiatorsByGroup =
+            new HashMap<Object, InitiatorData>();
+
+    /** Times the reset of the simulation state before each run */
+    private MetricsRegistry.Timer _resetTimer = null;
+
+    /** Times the selection of the next event */
+    private MetricsRegistry.Timer _eventSelectionTimer = null;
+
+    /** Times the processing of initiation events */
+    private MetricsRegistry.Timer _initiationTimer = null;
+
+    /** Times the processing of follow events */
+    private MetricsRegistry.Timer _followTimer = null;
+
+    /** Times the processing of cancel events and their cascades */
+    private MetricsRegistry.Timer _cancelCascadeTimer = null;
+
+    /** Times the gathering of the results of each run */
+    private MetricsRegistry.Timer _reportingTimer = null;
+
+
+    /**
+     * Builds this SpatialHiddenVariablesSimulation object
+     */
+    public SpatialHiddenVariablesSimulation()
+    {
+        _reporter = new DefaultResultsReporter();
+    }
+
+    /**
+     * Builds this SpatialHiddenVariablesSimulation object as a worker
+     * executing a shard of the simulation runs
+     *
+     * @param workerIndex The index of the worker
+     */
+    private SpatialHiddenVariablesSimulation( int workerIndex )
+    {
+        _reporter = new DefaultResultsReporter( workerIndex );
+    }
 
     /**
      * Main entry into the simulation
@@ -111,6 +226,7 @@ public class SpatialHiddenVariablesSimulation
             // Build, initialize, run
             SpatialHiddenVariablesSimulation sim =
                 new SpatialHiddenVariablesSimulation();
+            sim.setResume( Arrays.asList( args ).contains( _RESUME_ARG ) );
             sim.initialize();
             sim.run();
         }
@@ -128,8 +244,146 @@ public class SpatialHiddenVariablesSimulation
     {
         _LOG.trace( "Entering initialize()" );
 
-        // Load the properties
-        _props = MiscUtils.loadProperties( _PROPS_FILE_KEY );
+        // Load the properties and initialize using them
+        initialize( MiscUtils.loadProperties( _PROPS_FILE_KEY ) );
+
+        _LOG.trace( "Leaving initialize()" );
+    }
+
+    /**
+     * Sets the flag denoting whether or not the simulation resumes from its
+     * last checkpoint.  If there is no checkpoint, it starts from the
+     * beginning.  It must be set before the simulation is initialized.
+     *
+     * @param resume The flag
+     */
+    public void setResume( boolean resume )
+    {
+        _resume = resume;
+    }
+
+    /**
+     * Initialize the simulation using the specified properties
+     *
+     * @param props The simulation properties
+     * @see edu.snu.leader.hidden.Simulation#initialize(java.util.Properties)
+     */
+    @Override
+    public void initialize( Properties props )
+    {
+        _LOG.trace( "Entering initialize( props )" );
+
+        // Get the number of simulation runs between checkpoints
+        String checkpointIntervalStr = props.getProperty(
+                _CHECKPOINT_INTERVAL_KEY );
+        if( null != checkpointIntervalStr )
+        {
+            _checkpointInterval = Integer.parseInt( checkpointIntervalStr );
+            Validate.isTrue( 0 <= _checkpointInterval,
+                    "Checkpoint interval (key="
+                    + _CHECKPOINT_INTERVAL_KEY
+                    + ") may not be negative" );
+            _LOG.info( "Using _checkpointInterval=["
+                    + _checkpointInterval
+                    + "]" );
+        }
+
+        // Get the checkpoint file
+        _checkpointFile = props.getProperty( _CHECKPOINT_FILE_KEY );
+        if( (null == _checkpointFile)
+                && ((0 < _checkpointInterval) || _resume) )
+        {
+            _checkpointFile = buildCheckpointFilename(
+                    props.getProperty( _RESULTS_FILE_KEY ) );
+        }
+
+        // Is there a checkpoint from which to resume?
+        if( _resume )
+        {
+            if( (new File( _checkpointFile )).exists() )
+            {
+                _simState.setResuming( true );
+            }
+            else
+            {
+                _LOG.warn( "No checkpoint ["
+                        + _checkpointFile
+                        + "] was found, so all the simulation runs are executed" );
+            }
+        }
+
+        // Get the number of workers
+        String workerCountStr = props.getProperty( _WORKER_COUNT_KEY );
+        if( null != workerCountStr )
+        {
+            _workerCount = Integer.parseInt( workerCountStr );
+            Validate.isTrue( 0 < _workerCount,
+                    "Worker count (key="
+                    + _WORKER_COUNT_KEY
+                    + ") must be positive" );
+            _LOG.info( "Using _workerCount=[" + _workerCount + "]" );
+        }
+
+        /* The workers already use the processors, so each analyzes its own
+         * mimicking networks.  The caller's properties are left untouched. */
+        Properties runProps = props;
+        if( 1 < _workerCount )
+        {
+            String networkWorkerCountStr = props.getProperty(
+                    _NETWORK_WORKER_COUNT_KEY );
+            if( (null != networkWorkerCountStr)
+                    && !"1".equals( networkWorkerCountStr.trim() ) )
+            {
+                _LOG.warn( "Replacing network worker count (key="
+                        + _NETWORK_WORKER_COUNT_KEY
+                        + ") of ["
+                        + networkWorkerCountStr.trim()
+                        + "] with [1] since there are ["
+                        + _workerCount
+                        + "] workers" );
+            }
+            runProps = new Properties();
+            runProps.putAll( props );
+            runProps.setProperty( _NETWORK_WORKER_COUNT_KEY, "1" );
+        }
+
+        // Initialize everything used to execute the simulation runs
+        initializeRuns( runProps );
+
+        Validate.isTrue( (1 == _workerCount)
+                || ((0 == _checkpointInterval) && !_simState.isResuming()),
+                "Checkpoints (key="
+                + _CHECKPOINT_INTERVAL_KEY
+                + ") require a single worker" );
+        Validate.isTrue( (1 == _workerCount)
+                || !_simState.getStoppingRule().isEnabled(),
+                "Stopping once the results converge requires a single worker" );
+        Validate.isTrue( (1 == _workerCount)
+                || (_simState.getPersonalityCalc()
+                        instanceof ConstantPersonalityCalculator),
+                "Updating personalities between simulation runs requires a single worker" );
+
+        // Pick up where the checkpoint left off
+        if( _simState.isResuming() )
+        {
+            readCheckpoint();
+        }
+
+        _LOG.trace( "Leaving initialize( props )" );
+    }
+
+    /**
+     * Initialize the simulation state, results reporter and observers using
+     * the specified properties
+     *
+     * @param props The simulation properties
+     */
+    private void initializeRuns( Properties props )
+    {
+        _LOG.trace( "Entering initializeRuns( props )" );
+
+        // Save the properties
+        _props = props;
 
         // Initialize the simulation state
         _simState.initialize( _props );
@@ -137,6 +391,15 @@ public class SpatialHiddenVariablesSimulation
         // Initialize the results reporter
         _reporter.initialize( _simState );
 
+        // Get the timers
+        MetricsRegistry metrics = _simState.getMetrics();
+        _resetTimer = metrics.getTimer( "simulation-reset" );
+        _eventSelectionTimer = metrics.getTimer( "event-selection" );
+        _initiationTimer = metrics.getTimer( "initiation" );
+        _followTimer = metrics.getTimer( "follow" );
+        _cancelCascadeTimer = metrics.getTimer( "cancel-cascade" );
+        _reportingTimer = metrics.getTimer( "reporting" );
+
         // Get the simulation count
         _simulationCount = _simState.getSimulationCount();
 
@@ -168,25 +431,168 @@ public class SpatialHiddenVariablesSimulation
             _simObservers.add( observer );
         }
 
-        _LOG.trace( "Leaving initialize()" );
+        _LOG.trace( "Leaving initializeRuns( props )" );
     }
 
     /**
      * Runs the simulation
+     *
+     * @see edu.snu.leader.hidden.Simulation#run()
      */
+    @Override
     public void run()
     {
         _LOG.trace( "Entering run()" );
 
         // Run the simulation a number of times
-        for( int i = 0; i< _simulationCount; i++ )
+        if( 1 < _workerCount )
+        {
+            runInParallel();
+        }
+        else
+        {
+            runSimulations( _firstSimIndex, _simulationCount );
+        }
+
+        // Report the final results
+        _reporter.reportFinalResults();
+
+        // The checkpoint is no longer needed
+        if( (null != _checkpointFile)
+                && (new File( _checkpointFile )).exists()
+                && !(new File( _checkpointFile )).delete() )
+        {
+            _LOG.warn( "Unable to delete checkpoint file ["
+                    + _checkpointFile
+                    + "]" );
+        }
+
+        // Dump the metrics alongside the results
+        _simState.getMetrics().writeSummary(
+                _props.getProperty( _RESULTS_FILE_KEY ) );
+
+        _LOG.trace( "Leaving run()" );
+    }
+
+    /**
+     * Splits the simulation runs into contiguous shards and executes each
+     * shard in its own worker.  Every worker has its own simulation state
+     * built with the same properties, so all the workers start with the same
+     * individuals.  The first worker (this simulation) continues using the
+     * original random number stream while the others use streams seeded
+     * from the random seed and their index.  The results of each worker are
+     * merged in the order of their shards, so the results are identical for
+     * a given seed and worker count.
+     */
+    private void runInParallel()
+    {
+        _LOG.trace( "Entering runInParallel()" );
+
+        // Build the workers
+        List<SpatialHiddenVariablesSimulation> workers =
+                new ArrayList<SpatialHiddenVariablesSimulation>();
+        workers.add( this );
+        for( int i = 1; i < _workerCount; i++ )
+        {
+            // Each worker gets its own copy of the properties
+            Properties workerProps = new Properties();
+            workerProps.putAll( _props );
+
+            SpatialHiddenVariablesSimulation worker =
+                    new SpatialHiddenVariablesSimulation( i );
+            worker.initializeRuns( workerProps );
+            worker._simState.reseedRandom( buildWorkerSeed(
+                    _simState.getRandomSeed(), i ) );
+            workers.add( worker );
+        }
+
+        // Execute each worker's shard of the simulation runs
+        ForkJoinPool pool = new ForkJoinPool( _workerCount );
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for( int i = 0; i < _workerCount; i++ )
+        {
+            final SpatialHiddenVariablesSimulation worker = workers.get( i );
+            final int firstSimIndex = (int) ( ((long) _simulationCount) * i
+                    / _workerCount );
+            final int lastSimIndex = (int) ( ((long) _simulationCount) * (i + 1)
+                    / _workerCount );
+            _LOG.info( "Worker ["
+                    + i
+                    + "] executes simulations ["
+                    + firstSimIndex
+                    + "] through ["
+                    + (lastSimIndex - 1)
+                    + "]" );
+
+            tasks.add( pool.submit( new Runnable() {
+                @Override
+                public void run()
+                {
+                    worker.runSimulations( firstSimIndex, lastSimIndex );
+                }
+            } ) );
+        }
+
+        // Wait for all of them to finish
+        try
+        {
+            Iterator<ForkJoinTask<?>> taskIter = tasks.iterator();
+            while( taskIter.hasNext() )
+            {
+                taskIter.next().join();
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        // Merge the results of the other workers in order
+        for( int i = 1; i < _workerCount; i++ )
+        {
+            _reporter.mergeResults( workers.get( i )._reporter );
+            _simState.getMetrics().merge( workers.get( i )._simState.getMetrics() );
+        }
+
+        _LOG.trace( "Leaving runInParallel()" );
+    }
+
+    /**
+     * Builds the random seed of a worker by mixing the simulation's random
+     * seed with the worker's index.  The mixing is the SplitMix64 finalizer,
+     * so the seeds are unrelated to the values drawn from the first worker's
+     * random number stream.
+     *
+     * @param randomSeed The simulation's random seed
+     * @param workerIndex The worker's index
+     * @return The worker's random seed
+     */
+    private static long buildWorkerSeed( long randomSeed, int workerIndex )
+    {
+        long seed = randomSeed + (workerIndex * 0x9E3779B97F4A7C15L);
+        seed = (seed ^ (seed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        seed = (seed ^ (seed >>> 27)) * 0x94D049BB133111EBL;
+        return seed ^ (seed >>> 31);
+    }
+
+    /**
+     * Executes the specified simulation runs
+     *
+     * @param firstSimIndex The index of the first simulation run
+     * @param lastSimIndex The index after the last simulation run
+     */
+    private void runSimulations( int firstSimIndex, int lastSimIndex )
+    {
+        for( int i = firstSimIndex; i < lastSimIndex; i++ )
         {
             _LOG.debug( "Simulation ["
                     + i
                     + "]" );
 
             // Reset the simulation state
+            long start = _resetTimer.start();
             _simState.reset();
+            _resetTimer.stop( start );
 
             // Set the simulation index
             _simState.setSimIndex( i );
@@ -198,12 +604,181 @@ public class SpatialHiddenVariablesSimulation
 
             // Tear down the simulation
             tearDownSimulationRun();
+
+            // Stop once the results are precise enough
+            if( _reporter.hasConverged() )
+            {
+                break;
+            }
+
+            // Periodically save our progress
+            if( (0 < _checkpointInterval)
+                    && (0 == ((i + 1) % _checkpointInterval))
+                    && ((i + 1) < lastSimIndex) )
+            {
+                writeCheckpoint( i + 1 );
+            }
         }
+    }
 
-        // Report the final results
-        _reporter.reportFinalResults();
+    /**
+     * Writes everything carried over between simulation runs to the
+     * checkpoint file.  The checkpoint is written to a temporary file that
+     * then replaces the previous checkpoint, so there is always a complete
+     * checkpoint even if the simulation is stopped while writing it.
+     *
+     * @param nextSimIndex The index of the next simulation run
+     */
+    private void writeCheckpoint( int nextSimIndex )
+    {
+        _LOG.trace( "Entering writeCheckpoint( nextSimIndex )" );
 
-        _LOG.trace( "Leaving run()" );
+        File checkpoint = new File( _checkpointFile );
+        File tmpCheckpoint = new File( _checkpointFile + ".tmp" );
+        try
+        {
+            FileOutputStream fileOut = new FileOutputStream( tmpCheckpoint );
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream( fileOut ) );
+            try
+            {
+                out.writeInt( _CHECKPOINT_MAGIC );
+                out.writeInt( _CHECKPOINT_VERSION );
+                out.writeInt( _simulationCount );
+                out.writeInt( nextSimIndex );
+
+                // Write the state of everything carried over between runs
+                _simState.writeCheckpoint( out );
+                Iterator<SimulationObserver> iter = _simObservers.iterator();
+                while( iter.hasNext() )
+                {
+                    SimulationObserver observer = iter.next();
+                    if( observer instanceof Checkpointable )
+                    {
+                        ((Checkpointable) observer).writeCheckpoint( out );
+                    }
+                }
+                if( _reporter instanceof Checkpointable )
+                {
+                    ((Checkpointable) _reporter).writeCheckpoint( out );
+                }
+
+                // Make sure it is on disk before it replaces the last one
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            finally
+            {
+                out.close();
+            }
+
+            Files.move( tmpCheckpoint.toPath(),
+                    checkpoint.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to write checkpoint file ["
+                    + _checkpointFile
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to write checkpoint file ["
+                    + _checkpointFile
+                    + "]", ioe );
+        }
+
+        _LOG.info( "Wrote checkpoint before simulation ["
+                + nextSimIndex
+                + "]" );
+
+        _LOG.trace( "Leaving writeCheckpoint( nextSimIndex )" );
+    }
+
+    /**
+     * Reads everything carried over between simulation runs from the
+     * checkpoint file
+     */
+    private void readCheckpoint()
+    {
+        _LOG.trace( "Entering readCheckpoint()" );
+
+        try
+        {
+            DataInputStream in = new DataInputStream( new BufferedInputStream(
+                    new FileInputStream( _checkpointFile ) ) );
+            try
+            {
+                if( (_CHECKPOINT_MAGIC != in.readInt())
+                        || (_CHECKPOINT_VERSION != in.readInt()) )
+                {
+                    throw new IOException( "Not a valid checkpoint" );
+                }
+                int simulationCount = in.readInt();
+                if( simulationCount != _simulationCount )
+                {
+                    throw new IOException( "Checkpoint is for ["
+                            + simulationCount
+                            + "] simulation runs, not ["
+                            + _simulationCount
+                            + "]" );
+                }
+                _firstSimIndex = in.readInt();
+
+                // Read the state of everything carried over between runs
+                _simState.readCheckpoint( in );
+                Iterator<SimulationObserver> iter = _simObservers.iterator();
+                while( iter.hasNext() )
+                {
+                    SimulationObserver observer = iter.next();
+                    if( observer instanceof Checkpointable )
+                    {
+                        ((Checkpointable) observer).readCheckpoint( in );
+                    }
+                }
+                if( _reporter instanceof Checkpointable )
+                {
+                    ((Checkpointable) _reporter).readCheckpoint( in );
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to read checkpoint file ["
+                    + _checkpointFile
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to read checkpoint file ["
+                    + _checkpointFile
+                    + "]", ioe );
+        }
+
+        _LOG.warn( "Resuming from checkpoint ["
+                + _checkpointFile
+                + "] at simulation ["
+                + _firstSimIndex
+                + "]" );
+
+        _LOG.trace( "Leaving readCheckpoint()" );
+    }
+
+    /**
+     * Builds the name of the checkpoint file using the results file
+     *
+     * @param resultsFile The name of the results file
+     * @return The name of the checkpoint file
+     */
+    private String buildCheckpointFilename( String resultsFile )
+    {
+        Validate.notEmpty( resultsFile, "Results file may not be empty" );
+        int lastDotIdx = resultsFile.lastIndexOf( '.' );
+        if( 0 > lastDotIdx )
+        {
+            lastDotIdx = resultsFile.length();
+        }
+
+        return resultsFile.substring( 0, lastDotIdx ) + ".checkpoint";
     }
 
     /**
@@ -238,29 +813,29 @@ public class SpatialHiddenVariablesSimulation
     {
         _LOG.trace( "Entering executeSimulation()" );
 
-//        if( simIndex >= 147 )
-//        {
-//            _LOG.getRootLogger().setLevel( Level.DEBUG );
-//        }
+        // Start with an empty schedule
+        _scheduler.clear();
+        _initiationEvents.clear();
+        _initiatorsByGroup.clear();
 
         // Maintain the departure history
         List<DepartureEvent> departureHistory = new LinkedList<DepartureEvent>();
 
-        // Determine the initiating individual
+        // Everyone is eligible to initiate at the start
         List<InitiatorData> initiators = new ArrayList<InitiatorData>();
-        IndividualEvent initiateEvent = determineNextInitiationEvent();
-        _simState.initiate( initiateEvent.individual );
-        initiators.add( new InitiatorData( initiateEvent.individual ) );
-        int maxInitiatorCount = 1;
-        departureHistory.add( new DepartureEvent( initiateEvent.individual,
-                null,
-                DepartureEvent.Type.INITIATE,
-                initiateEvent.time ) );
+        int maxInitiatorCount = 0;
+        Iterator<SpatialIndividual> eligibleIter =
+                _simState.getEligibleInitiatorsIterator();
+        while( eligibleIter.hasNext() )
+        {
+            scheduleInitiationEvent( eligibleIter.next() );
+        }
 
         /* Continue the simulation until no individual is remaining or
          * the initiator(s) have cancelled. */
         while( (_simState.getRemainingCount() > 0)
-                && (_simState.getDepartedCount() > 0) )
+                && ((_simState.getDepartedCount() > 0)
+                        || (0 == maxInitiatorCount)) )
         {
             if( _LOG.isDebugEnabled() )
             {
@@ -270,146 +845,130 @@ public class SpatialHiddenVariablesSimulation
                         + _simState.getDepartedCount()
                         + "] initiators=["
                         + initiators.size()
+                        + "] scheduled=["
+                        + _scheduler.size()
                         + "]" );
             }
 
-
-            // Process each initiator
-            InitiatorData earliestInitiatorData = null;
-            float earliestEventTime = Float.POSITIVE_INFINITY;
-            Iterator<InitiatorData> initiatorDataIter = initiators.iterator();
-            while( (_simState.getRemainingCount() > 0)
-                    && initiatorDataIter.hasNext() )
+            // Is anything going to happen?
+            long start = _eventSelectionTimer.start();
+            float eventTime = _scheduler.peekDelay();
+            if( Float.isInfinite( eventTime ) )
             {
-                InitiatorData current = initiatorDataIter.next();
-
-                _LOG.debug( "Processing initiator ["
-                        + current.initiator.getID()
-                        + "]" );
-
-                float currentEarliestEventTime = Float.POSITIVE_INFINITY;
-
-                /* Get the total number of individuals that are following
-                 * this initiator */
-//                current.followCount = current.initiator.getTotalFollowerCount();
-                current.followCount = current.initiator.getImmediateFollowerCount();
-
-                /* Get the individual with the earliest follow time from the
-                 * group of individuals that are neighbors with this initiator
-                 * or those following this initiator  */
-                current.followEvent = determineNextFollowEvent( current );
-                if( current.followEvent.time < currentEarliestEventTime )
-                {
-                    currentEarliestEventTime = current.followEvent.time;
-                }
-
-                if( null != current.followEvent.individual )
-                {
-                    _LOG.debug( "FollowEvent: time=["
-                            + current.followEvent.time
-                            + "] ind=["
-                            + current.followEvent.individual.getID()
-                            + "]" );
-                }
-
-                // Get this individual's cancellation time
-                current.cancelTime = calculateCancellationTime(
-                        current.initiator,
-                        (current.followCount + 1) );
-                if( current.cancelTime < currentEarliestEventTime )
-                {
-                    currentEarliestEventTime = current.cancelTime;
-                }
-
-                _LOG.debug( "Cancellation time ["
-                        + current.cancelTime
-                        + "]" );
-
-                // Does something for this initiator happen first?
-                if( currentEarliestEventTime < earliestEventTime )
-                {
-                    // Yup
-                    earliestEventTime = currentEarliestEventTime;
-                    earliestInitiatorData = current;
-                    _LOG.debug( "Earliest event ["
-                            + earliestEventTime
-                            + "]" );
-                }
+                // Nope
+                _LOG.debug( "No more events can occur" );
+                break;
             }
 
-            /* Get the individual with the earliest initiation time from
-             * those remaining in the group. */
-            initiateEvent = determineNextInitiationEvent();
-
-            _LOG.debug( "InitiationEvent: time=["
-                    + initiateEvent.time
-                    + "]" );
-
-
-            // Does a new initiation happen first?
-            if( initiateEvent.time < earliestEventTime )
+            // Get the earliest event
+            ScheduledEvent event = _scheduler.poll();
+            _eventSelectionTimer.stop( start );
+            if( DepartureEvent.Type.INITIATE.equals( event.type ) )
             {
-                // Yup
-                _simState.initiate( initiateEvent.individual );
-                initiators.add( new InitiatorData( initiateEvent.individual ) );
+                // A new individual initiates
+                start = _initiationTimer.start();
+                _initiationEvents.remove( event.individual );
+                _simState.initiate( event.individual );
+                InitiatorData initiatorData = new InitiatorData( event.individual );
+                initiators.add( initiatorData );
+                _initiatorsByGroup.put( event.individual.getGroupID(),
+                        initiatorData );
                 _LOG.debug( "New initiator ["
-                        + initiateEvent.individual.getID()
+                        + event.individual.getID()
                         + "]" );
 
                 // Log it
                 departureHistory.add( new DepartureEvent(
-                        initiateEvent.individual,
+                        event.individual,
                         null,
                         DepartureEvent.Type.INITIATE,
-                        initiateEvent.time ) );
-
+                        eventTime ) );
 
                 // Update the max number of initiators if necessary
                 if( maxInitiatorCount < initiators.size() )
                 {
                     maxInitiatorCount = initiators.size();
                 }
+
+                // Update the events that depend on it
+                updateEvents( Collections.singletonList( event.individual ),
+                        initiatorData );
+                _initiationTimer.stop( start );
+            }
+            else if( DepartureEvent.Type.FOLLOW.equals( event.type ) )
+            {
+                // A new individual follows this initiator
+                start = _followTimer.start();
+                event.initiatorData.followEvents.remove( event.individual );
+                SpatialIndividual follower = event.individual;
+                _simState.follow( follower.getFirstMover().getIndividual(),
+                        follower );
+                _LOG.debug( "New follower" );
+
+                // Log it
+                departureHistory.add( new DepartureEvent(
+                        follower,
+                        follower.getFirstMover().getIndividual(),
+                        DepartureEvent.Type.FOLLOW,
+                        eventTime ) );
+
+                /* Update the events that depend on it.  Note that it joins
+                 * the group of the first mover it observed, which isn't
+                 * necessarily the group whose follow event occurred. */
+                InitiatorData groupData =
+                        _initiatorsByGroup.get( follower.getGroupID() );
+                groupData.followCount++;
+                updateEvents( Collections.singletonList( follower ),
+                        groupData );
+                _followTimer.stop( start );
             }
             else
             {
-                // Nope, check the initiator
-                if( earliestInitiatorData.followEvent.time
-                        < earliestInitiatorData.cancelTime )
+                // The initiator cancels
+                start = _cancelCascadeTimer.start();
+                InitiatorData initiatorData = event.initiatorData;
+                initiatorData.cancelEvent = null;
+
+                // Get the entire group before it is canceled
+                List<SpatialIndividual> groupMembers =
+                        new ArrayList<SpatialIndividual>();
+                groupMembers.add( initiatorData.initiator );
+                Iterator<Neighbor> followerIter =
+                        initiatorData.initiator.getAllFollowers().iterator();
+                while( followerIter.hasNext() )
                 {
-                    // A new individual follows this initiator
-                    SpatialIndividual follower =
-                            earliestInitiatorData.followEvent.individual;
-                    _simState.follow( follower.getFirstMover().getIndividual(),
-                            earliestInitiatorData.followEvent.individual );
-                    _LOG.debug( "New follower" );
-
-                    // Log it
-                    departureHistory.add( new DepartureEvent(
-                            follower,
-                            follower.getFirstMover().getIndividual(),
-                            DepartureEvent.Type.FOLLOW,
-                            earliestInitiatorData.followEvent.time ) );
-
+                    groupMembers.add( followerIter.next().getIndividual() );
                 }
-                else if( earliestInitiatorData.cancelTime < Float.POSITIVE_INFINITY )
+                _initiatorsByGroup.remove( initiatorData.initiator.getGroupID() );
+
+                _simState.cancelInitiation( initiatorData.initiator );
+                initiators.remove( initiatorData );
+                _LOG.debug( "Cancelling" );
+
+                // None of the group's follow events can occur
+                Iterator<ScheduledEvent> followEventIter =
+                        initiatorData.followEvents.values().iterator();
+                while( followEventIter.hasNext() )
                 {
-                    // The initiator cancels
-                    _simState.cancelInitiation( earliestInitiatorData.initiator );
-                    initiators.remove( earliestInitiatorData );
-                    _LOG.debug( "Cancelling" );
-
-                    // Log it
-                    departureHistory.add( new DepartureEvent(
-                            earliestInitiatorData.initiator,
-                            null,
-                            DepartureEvent.Type.CANCEL,
-                            earliestInitiatorData.cancelTime ) );
+                    _scheduler.cancel( followEventIter.next() );
                 }
-            }
+                initiatorData.followEvents.clear();
+
+                // Log it
+                departureHistory.add( new DepartureEvent(
+                        initiatorData.initiator,
+                        null,
+                        DepartureEvent.Type.CANCEL,
+                        eventTime ) );
 
+                // Update the events that depend on the group
+                updateEvents( groupMembers, null );
+                _cancelCascadeTimer.stop( start );
+            }
         }
 
         // Was the simulation successful?
+        long start = _reportingTimer.start();
         boolean successful = false;
         if( 0 == _simState.getRemainingCount() )
         {
@@ -442,138 +1001,239 @@ public class SpatialHiddenVariablesSimulation
                 initiatorIDs,
                 maxInitiatorCount,
                 departureHistory );
+        _reportingTimer.stop( start );
 
         _LOG.trace( "Leaving executeSimulation()" );
     }
 
     /**
-     * Determine the next initiation event from the individuals remaining
+     * Updates the scheduled events that depend on the individuals that just
+     * changed state.  Since all the event times are exponentially
+     * distributed, an event whose rate is unchanged keeps its time and only
+     * those whose rates may have changed are drawn again.
      *
-     * @return The initiation event
+     * @param changed The individuals that departed or stopped departing
+     * @param eventData The initiator whose group just changed or
+     *                  <code>null</code> if the group was canceled
      */
-    private IndividualEvent determineNextInitiationEvent()
+    private void updateEvents( List<SpatialIndividual> changed,
+            InitiatorData eventData )
     {
-        SpatialIndividual initiator = null;
-        float initiationTime = Float.POSITIVE_INFINITY;
-        EventTimeCalculator eventTimeCalc = _simState.getEventTimeCalculator();
-
-        /* Iterate through all the eligible initiators.  These are individuals
-         * that are remaining and do NOT have a neighbor that is initiating
-         * or following. */
-        Iterator<SpatialIndividual> remainingIter =
-                _simState.getEligibleInitiatorsIterator();
-        while( remainingIter.hasNext() )
+        /* Only the individuals themselves and those mimicing them can change
+         * their eligibility, potential groups or departed neighbors */
+        Set<SpatialIndividual> affected =
+                new LinkedHashSet<SpatialIndividual>( changed );
+        Iterator<SpatialIndividual> changedIter = changed.iterator();
+        while( changedIter.hasNext() )
+        {
+            affected.addAll( _simState.getMimickingNeighbors(
+                    changedIter.next() ) );
+        }
+
+        // Keep track of the groups whose potential followers changed
+        Set<InitiatorData> affectedGroups = new LinkedHashSet<InitiatorData>();
+
+        // Keep track of the follow events redrawn for the event's group
+        Set<SpatialIndividual> redrawn = new HashSet<SpatialIndividual>();
+
+        Iterator<SpatialIndividual> affectedIter = affected.iterator();
+        while( affectedIter.hasNext() )
         {
-            SpatialIndividual current = remainingIter.next();
+            SpatialIndividual current = affectedIter.next();
+
+            // Update its initiation event
+            if( !_simState.isEligibleInitiator( current ) )
+            {
+                ScheduledEvent initiationEvent =
+                        _initiationEvents.remove( current );
+                if( null != initiationEvent )
+                {
+                    _scheduler.cancel( initiationEvent );
+                }
+            }
+            else if( changed.contains( current )
+                    || !_initiationEvents.containsKey( current ) )
+            {
+                scheduleInitiationEvent( current );
+            }
+
+            // Update its follow event for every group it neighbors
+            boolean remaining = !_simState.hasDeparted( current );
+            Set<InitiatorData> neighborGroups = new HashSet<InitiatorData>();
+            Iterator<Neighbor> neighborIter =
+                    current.getNearestNeighbors().iterator();
+            while( neighborIter.hasNext() )
+            {
+                InitiatorData groupData = _initiatorsByGroup.get(
+                        neighborIter.next().getIndividual().getGroupID() );
+                if( (null == groupData) || !neighborGroups.add( groupData ) )
+                {
+                    continue;
+                }
+                affectedGroups.add( groupData );
 
-            // Get the individual's initiation time
-            float currentInitiationTime =
-                    eventTimeCalc.calculateInitiationTime( current );
+                if( remaining )
+                {
+                    scheduleFollowEvent( current, groupData );
+                    if( groupData == eventData )
+                    {
+                        redrawn.add( current );
+                    }
+                }
+                else
+                {
+                    ScheduledEvent followEvent =
+                            groupData.followEvents.remove( current );
+                    if( null != followEvent )
+                    {
+                        _scheduler.cancel( followEvent );
+                    }
+                }
+            }
+        }
 
-            // Is it the earliest initiator?
-            if( currentInitiationTime < initiationTime )
+        if( null != eventData )
+        {
+            /* If all the departed individuals are used, the size of the group
+             * changes every potential follower's time */
+            if( _simState.useAllDepartedIndividuals() )
             {
-                // Yup
-                initiationTime = currentInitiationTime;
-                initiator = current;
+                Iterator<SpatialIndividual> potentialFollowersIter =
+                        _simState.getPotentialFollowersIterator(
+                                eventData.initiator );
+                while( potentialFollowersIter.hasNext() )
+                {
+                    SpatialIndividual current = potentialFollowersIter.next();
+                    if( !redrawn.contains( current ) )
+                    {
+                        scheduleFollowEvent( current, eventData );
+                    }
+                }
             }
+
+            // The group's size changed, so its cancellation time does as well
+            scheduleCancelEvent( eventData );
         }
 
-        return new IndividualEvent( initiationTime, initiator );
+        /* Any other group can only cancel if it has potential followers, so
+         * check to see if that has changed */
+        Iterator<InitiatorData> groupIter = affectedGroups.iterator();
+        while( groupIter.hasNext() )
+        {
+            InitiatorData current = groupIter.next();
+            if( (current != eventData)
+                    && (_simState.hasPotentialFollowers( current.initiator )
+                            != (null != current.cancelEvent)) )
+            {
+                scheduleCancelEvent( current );
+            }
+        }
     }
 
     /**
-     * Determine the next follow event for the specified initiator
+     * Schedules the initiation event for the specified individual
      *
-     * @param initiatorData The initiator
-     * @return The follow event
+     * @param ind The individual
      */
-    private IndividualEvent determineNextFollowEvent( InitiatorData initiatorData )
+    private void scheduleInitiationEvent( SpatialIndividual ind )
     {
-        // Get some handy values we will reuse
-        int followCount = initiatorData.initiator.getTotalFollowerCount();
-        int groupSize = _simState.getInitiatorsGroupSize( initiatorData.initiator );
-        EventTimeCalculator eventTimeCalc = _simState.getEventTimeCalculator();
-
-        if( _LOG.isDebugEnabled() )
+        ScheduledEvent event = _initiationEvents.get( ind );
+        if( null == event )
         {
-            _LOG.debug( "followCount=["
-                    + followCount
-                    + "]" );
-            _LOG.debug( "immediateFollowCount=["
-                    + initiatorData.initiator.getImmediateFollowerCount()
-                    + "]" );
-            _LOG.debug( "groupSize=["
-                    + groupSize
-                    + "]" );
+            event = new ScheduledEvent( DepartureEvent.Type.INITIATE,
+                    ind,
+                    null );
+            _initiationEvents.put( ind, event );
         }
 
-        // Create some handy variables
-        SpatialIndividual follower = null;
-        float followTime = Float.POSITIVE_INFINITY;
+        // Get the individual's initiation time
+        float initiationTime = _simState.getEventTimeCalculator()
+                .calculateInitiationTime( ind );
+        _scheduler.schedule( event, initiationTime );
+    }
 
-        // Iterate through all the potential followers
-        Iterator<SpatialIndividual> potentialFollowersIter =
-                _simState.getPotentialFollowersIterator( initiatorData.initiator );
-        while( potentialFollowersIter.hasNext() )
+    /**
+     * Schedules the follow event for the specified potential follower of the
+     * initiator
+     *
+     * @param ind The potential follower
+     * @param initiatorData The initiator
+     */
+    private void scheduleFollowEvent( SpatialIndividual ind,
+            InitiatorData initiatorData )
+    {
+        ScheduledEvent event = initiatorData.followEvents.get( ind );
+        if( null == event )
         {
-            SpatialIndividual current = potentialFollowersIter.next();
+            event = new ScheduledEvent( DepartureEvent.Type.FOLLOW,
+                    ind,
+                    initiatorData );
+            initiatorData.followEvents.put( ind, event );
+        }
 
-            /* Do we use all the individuals that have departed or just the
-             * nearest neighbors? */
-            int departedCount = followCount + 1;
-            if( !_simState.useAllDepartedIndividuals() )
-            {
-                departedCount = current.getNearestNeighborDepartedCount(
-                        _simState );
-            }
+        /* Do we use all the individuals that have departed or just the
+         * nearest neighbors? */
+        SpatialIndividual initiator = initiatorData.initiator;
+        int departedCount = initiatorData.followCount + 1;
+        if( !_simState.useAllDepartedIndividuals() )
+        {
+            departedCount = ind.getNearestNeighborDepartedCount( _simState );
+        }
 
-            // Don't forget the initiator!
-            float currentFollowTime = eventTimeCalc.calculateFollowTime( current,
-                    initiatorData.initiator,
-                    departedCount,
-                    _simState.getInitiatorsGroupSize( current ) );
-// IS THIS RIGHT?
+        // Don't forget the initiator!
+        float followTime = _simState.getEventTimeCalculator().calculateFollowTime(
+                ind,
+                initiator,
+                departedCount,
+                _simState.getInitiatorsGroupSize( ind ) );
 
+        if( _LOG.isDebugEnabled() )
+        {
             _LOG.debug( "ind=["
-                    + current.getID()
+                    + ind.getID()
                     + "]  followTime=["
-                    + currentFollowTime
+                    + followTime
                     + "]" );
-
-            // Is it the earliest?
-            if( currentFollowTime < followTime )
-            {
-                // Yup
-                followTime = currentFollowTime;
-                follower = current;
-
-                _LOG.debug( "New earliest time" );
-            }
         }
 
-        return new IndividualEvent( followTime, follower );
+        _scheduler.schedule( event, followTime );
     }
 
     /**
-     * Calculates the cancelation time for the given individual and number
-     * of individuals that have departed
+     * Schedules the cancellation event for the specified initiator.  An
+     * initiator without any potential followers does not cancel.
      *
-     * @param ind
-     * @param departedCount
-     * @return
+     * @param initiatorData The initiator
      */
-    private float calculateCancellationTime( SpatialIndividual ind,
-            int departedCount )
+    private void scheduleCancelEvent( InitiatorData initiatorData )
     {
-        float cancelTime = Float.POSITIVE_INFINITY;
-        if( _simState.hasPotentialFollowers( ind ) )
+        SpatialIndividual initiator = initiatorData.initiator;
+        if( _simState.hasPotentialFollowers( initiator ) )
         {
-            EventTimeCalculator eventTimeCalc = _simState.getEventTimeCalculator();
-            cancelTime = eventTimeCalc.calculateCancelTime( ind, departedCount );
-        }
+            if( null == initiatorData.cancelEvent )
+            {
+                initiatorData.cancelEvent = new ScheduledEvent(
+                        DepartureEvent.Type.CANCEL,
+                        initiator,
+                        initiatorData );
+            }
 
-        return cancelTime;
+            float cancelTime = _simState.getEventTimeCalculator()
+                    .calculateCancelTime( initiator,
+                            initiator.getImmediateFollowerCount() + 1 );
+            if( _LOG.isDebugEnabled() )
+            {
+                _LOG.debug( "Cancellation time ["
+                        + cancelTime
+                        + "]" );
+            }
+            _scheduler.schedule( initiatorData.cancelEvent, cancelTime );
+        }
+        else if( null != initiatorData.cancelEvent )
+        {
+            _scheduler.cancel( initiatorData.cancelEvent );
+            initiatorData.cancelEvent = null;
+        }
     }
 
 }
@@ -26,7 +26,11 @@ import org.apache.log4j.Logger;
 
 import edu.snu.leader.hidden.personality.PersonalityCalculator;
 import edu.snu.leader.hidden.personality.PersonalityUpdateType;
+import edu.snu.leader.util.Checkpointable;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -34,8 +38,6 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
 
 /**
@@ -46,7 +48,7 @@ import java.util.Queue;
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class SpatialIndividual
+public class SpatialIndividual implements Checkpointable
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
@@ -104,6 +106,9 @@ public class SpatialIndividual
     /** The individual's ID */
     protected Object _id = null;
 
+    /** The individual's index in the simulation */
+    protected int _index = -1;
+
     /** The individual's group ID */
     protected Object _groupID = null;
 
@@ -155,8 +160,8 @@ public class SpatialIndividual
     protected List<Neighbor> _nearestNeighbors = new LinkedList<Neighbor>();
 
     /** Individuals for whom this individual is a nearest neighbor */
-    protected Map<Object, SpatialIndividual> _mimicingNeighbors =
-            new HashMap<Object, SpatialIndividual>();
+    protected List<SpatialIndividual> _mimicingNeighbors =
+            new ArrayList<SpatialIndividual>();
 
     /** The neighbor this individual is following (if any) */
     protected Neighbor _leader = null;
@@ -204,6 +209,9 @@ public class SpatialIndividual
     /** The mean topological distance to the rest of the individuals */
     protected float _meanTopologicalDistance = 0.0f;
 
+    /** The eigenvector centrality in the mimicking network (if calculated) */
+    protected float _eigenvectorCentrality = Float.NaN;
+
     /** The mean position of all the nearest neighbors */
     protected Vector2D _meanPositionOfNearestNeighbors = null;
     
@@ -292,43 +300,15 @@ public class SpatialIndividual
         // Get the number of nearest neighbors
         _nearestNeighborCount = simState.getNearestNeighborCount();
 
-        // Build a priority queue to sort things for us
-        PriorityQueue<Neighbor> sortedNeighbors =
-                new PriorityQueue<Neighbor>();
-
-        // Iterate through all the individuals
-        Iterator<SpatialIndividual> indIter = simState.getAllIndividuals().iterator();
-        while( indIter.hasNext() )
-        {
-            // Get the individual
-            SpatialIndividual ind = indIter.next();
-
-            // If it is us, continue on
-            if( _id.equals( ind._id ) )
-            {
-                continue;
-            }
-
-            // Build a neighbor out of it and put it in the queue
-            Neighbor neighbor = new Neighbor(
-                    (float) _location.distance( ind._location ),
-                    ind );
-            sortedNeighbors.add( neighbor );
-        }
-
         // Get the "nearest" neighbors
-        int count = Math.min( sortedNeighbors.size(),
-                _nearestNeighborCount );
-        for( int i = 0; i < count; i++ )
+        List<Neighbor> nearestNeighbors = simState.getNeighborFinder()
+                .findNearestNeighbors( this, _nearestNeighborCount );
+        Iterator<Neighbor> neighborIter = nearestNeighbors.iterator();
+        while( neighborIter.hasNext() )
         {
-            Neighbor neighbor = sortedNeighbors.poll();
+            Neighbor neighbor = neighborIter.next();
             _nearestNeighbors.add( neighbor );
             neighbor.getIndividual().signalNearestNeighborStatus( this );
-//            _LOG.debug( "Nearest neighbor: id=["
-//                    + getID()
-//                    + "] neighbor=["
-//                    + neighbor.getIndividual().getID()
-//                    + "]" );
         }
         
         // Compute the mean position of the nearest neighbors
@@ -353,12 +333,15 @@ public class SpatialIndividual
      */
     public void signalNearestNeighborStatus( SpatialIndividual ind )
     {
-        _mimicingNeighbors.put( ind.getID(), ind );
-        _LOG.debug( "Mimic: watched=["
-                + getID()
-                + "] watcher=["
-                + ind.getID()
-                + "]" );
+        _mimicingNeighbors.add( ind );
+        if( _LOG.isDebugEnabled() )
+        {
+            _LOG.debug( "Mimic: watched=["
+                    + getID()
+                    + "] watcher=["
+                    + ind.getID()
+                    + "]" );
+        }
     }
 
     /**
@@ -370,7 +353,7 @@ public class SpatialIndividual
      */
     public boolean isMimicingNeighbor( SpatialIndividual ind )
     {
-        return _mimicingNeighbors.containsKey( ind.getID() );
+        return _mimicingNeighbors.contains( ind );
     }
 
     /**
@@ -641,6 +624,26 @@ public class SpatialIndividual
         return _id;
     }
 
+    /**
+     * Returns the index of this individual in the simulation
+     *
+     * @return The index
+     */
+    public int getIndex()
+    {
+        return _index;
+    }
+
+    /**
+     * Sets the index of this individual in the simulation
+     *
+     * @param index The index
+     */
+    public void setIndex( int index )
+    {
+        _index = index;
+    }
+
 
     /**
      * Returns the groupID for this object
@@ -670,7 +673,7 @@ public class SpatialIndividual
      */
     public List<SpatialIndividual> getMimickingNeighbors()
     {
-        return new LinkedList<SpatialIndividual>( _mimicingNeighbors.values() );
+        return new LinkedList<SpatialIndividual>( _mimicingNeighbors );
     }
 
     /**
@@ -687,7 +690,7 @@ public class SpatialIndividual
         Iterator<Neighbor> nearestIter = _nearestNeighbors.iterator();
         while( nearestIter.hasNext() )
         {
-            if( nearestIter.next().getIndividual().getID().equals( ind.getID() ) )
+            if( nearestIter.next().getIndividual() == ind )
             {
                 found = true;
                 break;
@@ -720,7 +723,7 @@ public class SpatialIndividual
         while( iter.hasNext() )
         {
             // Has this individual departed?
-            if( simState.hasDeparted( iter.next().getIndividual().getID() ) )
+            if( simState.hasDeparted( iter.next().getIndividual() ) )
             {
                 // Yup
                 ++count;
@@ -879,6 +882,100 @@ public class SpatialIndividual
         }
     }
 
+    /**
+     * Writes everything about this individual that changes from one
+     * simulation run to the next, i.e., its location, personality traits
+     * and initiation history.
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        out.writeUTF( String.valueOf( _id ) );
+        out.writeDouble( _location.getX() );
+        out.writeDouble( _location.getY() );
+        out.writeFloat( _assertiveness );
+        out.writeFloat( _preferredDirection );
+        out.writeFloat( _conflict );
+        writeTraits( out, _personalityTraits );
+        writeTraits( out, _personalityTraitsAfterLastInitiation );
+        out.writeLong( _lastInitiationAttempt );
+        out.writeInt( _initiationAttempts );
+        out.writeInt( _initiationSuccesses );
+        writeCounts( out, _successfulFollowers );
+        writeCounts( out, _failedFollowers );
+
+        out.writeInt( _initiationHistory.size() );
+        Iterator<InitiationEvent> historyIter = _initiationHistory.iterator();
+        while( historyIter.hasNext() )
+        {
+            InitiationEvent current = historyIter.next();
+            out.writeLong( current.simIndex );
+            out.writeBoolean( current.successful );
+            out.writeInt( current.followers );
+            writeTraits( out, current.oldPersonalityTraits );
+            writeTraits( out, current.newPersonalityTraits );
+        }
+    }
+
+    /**
+     * Reads everything about this individual that changes from one
+     * simulation run to the next.  If its location changed, the nearest
+     * neighbors of all the individuals need to be updated.
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        String id = in.readUTF();
+        if( !id.equals( String.valueOf( _id ) ) )
+        {
+            throw new IOException( "Checkpoint is for individual ["
+                    + id
+                    + "], not ["
+                    + _id
+                    + "]" );
+        }
+        // Only replace the location if the individual moved
+        Vector2D location = new Vector2D( in.readDouble(), in.readDouble() );
+        if( !location.equals( _location ) )
+        {
+            _location = location;
+        }
+        _assertiveness = in.readFloat();
+        _preferredDirection = in.readFloat();
+        _conflict = in.readFloat();
+        readTraits( in, _personalityTraits );
+        readTraits( in, _personalityTraitsAfterLastInitiation );
+        _lastInitiationAttempt = in.readLong();
+        _initiationAttempts = in.readInt();
+        _initiationSuccesses = in.readInt();
+        readCounts( in, _successfulFollowers, _successfulFollowersStats );
+        readCounts( in, _failedFollowers, _failedFollowersStats );
+
+        _initiationHistory.clear();
+        _currentInitiationEvent = null;
+        int historySize = in.readInt();
+        for( int i = 0; i < historySize; i++ )
+        {
+            InitiationEvent current = new InitiationEvent( in.readLong(),
+                    new EnumMap<PersonalityTrait, Float>(
+                            PersonalityTrait.class ) );
+            current.successful = in.readBoolean();
+            current.followers = in.readInt();
+            readTraits( in, current.oldPersonalityTraits );
+            readTraits( in, current.newPersonalityTraits );
+            _initiationHistory.add( current );
+            _currentInitiationEvent = current;
+        }
+    }
+
     /**
      * Describes this individual
      *
@@ -1008,9 +1105,17 @@ public class SpatialIndividual
         
         // Add placeholders for the social network analysis data
         builder.append( prefix );
-        builder.append( "eigenvector-centrality = %%%");
-        builder.append( getID() );
-        builder.append( "-EIGENVECTOR-CENTRALITY%%%" );
+        if( Float.isNaN( _eigenvectorCentrality ) )
+        {
+            builder.append( "eigenvector-centrality = %%%");
+            builder.append( getID() );
+            builder.append( "-EIGENVECTOR-CENTRALITY%%%" );
+        }
+        else
+        {
+            builder.append( "eigenvector-centrality = " );
+            builder.append( _eigenvectorCentrality );
+        }
         builder.append( _NEWLINE );
 
         builder.append( prefix );
@@ -1324,71 +1429,125 @@ public class SpatialIndividual
     }
 
 
+    public float getMeanTopologicalDistance()
+    {
+        return _meanTopologicalDistance;
+    }
+
+    /**
+     * Sets the mean topological distance to the rest of the individuals
+     *
+     * @param meanTopologicalDistance The mean topological distance
+     */
+    public void setMeanTopologicalDistance( float meanTopologicalDistance )
+    {
+        _meanTopologicalDistance = meanTopologicalDistance;
+    }
+
     /**
-     * TODO Method description
+     * Returns the eigenvector centrality for this object
      *
-     * @param simState
+     * @return The eigenvector centrality or NaN if it wasn't calculated
      */
-    public void calculateMeanTopoDistanceToAllIndividuals( SimulationState simState )
+    public float getEigenvectorCentrality()
     {
-        Map<Object, Integer> indDistanceMap = new HashMap<Object, Integer>();
-        Queue<SpatialIndividual> indsToProcess = new LinkedList<SpatialIndividual>();
-        
-        // Automatically add all the mimicing neighbors
-        for( SpatialIndividual neighbor : getMimickingNeighbors() )
+        return _eigenvectorCentrality;
+    }
+
+    /**
+     * Sets the eigenvector centrality in the mimicking network
+     *
+     * @param eigenvectorCentrality The eigenvector centrality
+     */
+    public void setEigenvectorCentrality( float eigenvectorCentrality )
+    {
+        _eigenvectorCentrality = eigenvectorCentrality;
+    }
+    
+    /**
+     * Writes the personality traits to the checkpoint
+     *
+     * @param out The checkpoint
+     * @param traits The personality traits
+     * @throws IOException If the traits can't be written
+     */
+    private static void writeTraits( DataOutputStream out,
+            Map<PersonalityTrait,Float> traits ) throws IOException
+    {
+        out.writeByte( traits.size() );
+        Iterator<Map.Entry<PersonalityTrait,Float>> traitIter =
+                traits.entrySet().iterator();
+        while( traitIter.hasNext() )
         {
-            indDistanceMap.put( neighbor.getID(), new Integer(1) );
-            indsToProcess.add( neighbor );
+            Map.Entry<PersonalityTrait,Float> current = traitIter.next();
+            out.writeByte( current.getKey().ordinal() );
+            out.writeFloat( current.getValue().floatValue() );
         }
-//        _LOG.warn( "Mimicking neighbor count ["
-//                + getMimickingNeighborCount()
-//                + "]" );
-        
-        // Process all the individuals
-        while( !indsToProcess.isEmpty() )
+    }
+
+    /**
+     * Reads personality traits from the checkpoint, replacing the current
+     * traits
+     *
+     * @param in The checkpoint
+     * @param traits The personality traits
+     * @throws IOException If the traits can't be read
+     */
+    private static void readTraits( DataInputStream in,
+            Map<PersonalityTrait,Float> traits ) throws IOException
+    {
+        traits.clear();
+        PersonalityTrait[] allTraits = PersonalityTrait.values();
+        int traitCount = in.readByte();
+        for( int i = 0; i < traitCount; i++ )
         {
-            // Get the individual and it's distance
-            SpatialIndividual current = indsToProcess.remove();
-            int currentDistance = indDistanceMap.get( current.getID() ).intValue();
-            
-            // Get all it's mimicking neighbors
-            for( SpatialIndividual currentsNeighbor : current.getMimickingNeighbors() )
-            {
-                // Have we processed it yet?
-                if( !indDistanceMap.containsKey( currentsNeighbor.getID() ) )
-                {
-                    // Nope
-                    indDistanceMap.put( currentsNeighbor.getID(),
-                            new Integer( currentDistance + 1 ) );
-                    indsToProcess.add( currentsNeighbor );
-                }
-            }
+            PersonalityTrait trait = allTraits[ in.readByte() ];
+            traits.put( trait, new Float( in.readFloat() ) );
         }
-        
-        // Compute the mean
-        int distanceTotals = 0;
-        StringBuilder builder = new StringBuilder();
-        for( Integer current : indDistanceMap.values() )
+    }
+
+    /**
+     * Writes the follower counts to the checkpoint
+     *
+     * @param out The checkpoint
+     * @param counts The follower counts
+     * @throws IOException If the counts can't be written
+     */
+    private static void writeCounts( DataOutputStream out,
+            List<Integer> counts ) throws IOException
+    {
+        out.writeInt( counts.size() );
+        Iterator<Integer> countIter = counts.iterator();
+        while( countIter.hasNext() )
         {
-            distanceTotals += current.intValue();
-            builder.append( current );
-            builder.append( " " );
+            out.writeInt( countIter.next().intValue() );
         }
-        _meanTopologicalDistance = distanceTotals / ((float) indDistanceMap.size() - 1.0f);
-//        _LOG.warn( "Mean topological distance for ind=["
-//                + getID()
-//                + "] => ["
-//                + _meanTopologicalDistance
-////                + "]  distances=[ "
-////                + builder.toString()
-//                + "] total=[" + distanceTotals + "]" );
     }
-    
-    public float getMeanTopologicalDistance()
+
+    /**
+     * Reads follower counts from the checkpoint, replacing the current
+     * counts and their statistics
+     *
+     * @param in The checkpoint
+     * @param counts The follower counts
+     * @param stats The statistics of the follower counts
+     * @throws IOException If the counts can't be read
+     */
+    private static void readCounts( DataInputStream in,
+            List<Integer> counts,
+            DescriptiveStatistics stats ) throws IOException
     {
-        return _meanTopologicalDistance;
+        counts.clear();
+        stats.clear();
+        int size = in.readInt();
+        for( int i = 0; i < size; i++ )
+        {
+            int count = in.readInt();
+            counts.add( count );
+            stats.addValue( count );
+        }
     }
-    
+
     protected void computeMeanPositionOfNearestNeighbors()
     {
         // Sum all the positions
@@ -25,7 +25,11 @@ import org.apache.log4j.Logger;
 
 import edu.snu.leader.hidden.SimulationState;
 import edu.snu.leader.hidden.SpatialIndividual;
+import edu.snu.leader.util.Checkpointable;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Properties;
 
 
@@ -39,6 +43,7 @@ import java.util.Properties;
  */
 public class ForcedPersonalityDistributionIndividualBuilder
         extends AbstractIndividualBuilder
+        implements Checkpointable
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
@@ -150,4 +155,30 @@ public class ForcedPersonalityDistributionIndividualBuilder
         return ind;
     }
 
+    /**
+     * Writes the number of individuals built with a max personality
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        out.writeInt( _currentMaxPersonalityIndsBuild );
+    }
+
+    /**
+     * Reads the number of individuals built with a max personality
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        _currentMaxPersonalityIndsBuild = in.readInt();
+    }
+
 }
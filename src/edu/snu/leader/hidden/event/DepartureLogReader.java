@@ -0,0 +1,574 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden.event;
+
+// Imports
+import edu.snu.leader.hidden.PersonalityTrait;
+import org.apache.commons.lang.Validate;
+import org.apache.log4j.Logger;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+
+/**
+ * DepartureLogReader
+ *
+ * Reads a binary departure log written by a {@link DepartureLogWriter}
+ * one simulation run at a time.  Compressed logs are detected
+ * automatically.  The current run can be formatted as a line of the text
+ * simulation log.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class DepartureLogReader
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            DepartureLogReader.class.getName() );
+
+    /** The first two bytes of a compressed file */
+    private static final int _GZIP_MAGIC = 0x1f8b;
+
+    /** The size of the read buffer in bytes */
+    private static final int _BUFFER_SIZE = 1 << 16;
+
+    /** The departure types by their ordinal */
+    private static final DepartureEvent.Type[] _TYPES =
+            DepartureEvent.Type.values();
+
+
+    /** The name of the log file */
+    private String _filename = null;
+
+    /** The channel from which the log is read */
+    private ReadableByteChannel _channel = null;
+
+    /** The buffer holding the bytes read but not yet processed */
+    private ByteBuffer _buffer = ByteBuffer.allocateDirect( _BUFFER_SIZE );
+
+    /** The IDs of the individuals in the log */
+    private List<String> _ids = new ArrayList<String>();
+
+    /** The names of the tasks in the log */
+    private List<String> _taskNames = new ArrayList<String>();
+
+    /** The name of the current run's task */
+    private String _taskName = null;
+
+    /** Flag indicating that the current run was successful */
+    private boolean _successful = false;
+
+    /** The current run's final number of initiators */
+    private int _finalInitiatorCount = 0;
+
+    /** The current run's maximum number of initiators */
+    private int _maxInitiatorCount = 0;
+
+    /** The number of departure events in the current run */
+    private int _eventCount = 0;
+
+    /** The index of each event's departed individual */
+    private int[] _departedIndices = new int[0];
+
+    /** The index of each event's leader */
+    private int[] _leaderIndices = new int[0];
+
+    /** The type of each event */
+    private DepartureEvent.Type[] _types = new DepartureEvent.Type[0];
+
+    /** The time of each event */
+    private float[] _times = new float[0];
+
+    /** The logged personality traits of each event's departed individual */
+    private float[] _traits = new float[0];
+
+    /** The number of followers of each event's leader */
+    private int[] _followerCounts = new int[0];
+
+    /** The number of potential followers of each event's leader */
+    private int[] _potentialFollowerCounts = new int[0];
+
+
+    /**
+     * Builds this DepartureLogReader object and reads the log's header
+     *
+     * @param filename The name of the log file
+     */
+    public DepartureLogReader( String filename )
+    {
+        Validate.notEmpty( filename, "Log filename may not be empty" );
+        _filename = filename;
+
+        try
+        {
+            // Is it compressed?
+            InputStream in = new BufferedInputStream(
+                    new FileInputStream( filename ),
+                    _BUFFER_SIZE );
+            in.mark( 2 );
+            int magic = (in.read() << 8) | in.read();
+            in.reset();
+            if( _GZIP_MAGIC == magic )
+            {
+                in = new GZIPInputStream( in, _BUFFER_SIZE );
+            }
+            _channel = Channels.newChannel( in );
+            _buffer.limit( 0 );
+
+            // Read the header
+            require( 12 );
+            Validate.isTrue( DepartureLogWriter.MAGIC == _buffer.getInt(),
+                    "File [" + filename + "] is not a departure log" );
+            int version = _buffer.getInt();
+            Validate.isTrue( DepartureLogWriter.VERSION == version,
+                    "Unsupported departure log version [" + version + "]" );
+            int idCount = _buffer.getInt();
+            for( int i = 0; i < idCount; i++ )
+            {
+                _ids.add( readString() );
+            }
+            require( 4 );
+            int taskCount = _buffer.getInt();
+            for( int i = 0; i < taskCount; i++ )
+            {
+                _taskNames.add( readString() );
+            }
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to read departure log file ["
+                    + filename
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to read departure log file ["
+                    + filename
+                    + "]", ioe );
+        }
+    }
+
+    /**
+     * Reads the next simulation run
+     *
+     * @return <code>true</code> if a run was read, <code>false</code> if
+     *         the end of the log was reached
+     */
+    public boolean nextRun()
+    {
+        try
+        {
+            if( !fill( DepartureLogWriter.RUN_RECORD_SIZE ) )
+            {
+                Validate.isTrue( !_buffer.hasRemaining(),
+                        "Departure log [" + _filename + "] is truncated" );
+                return false;
+            }
+
+            _taskName = _taskNames.get( _buffer.get() );
+            _successful = ( 0 != _buffer.get() );
+            _finalInitiatorCount = _buffer.getInt();
+            _maxInitiatorCount = _buffer.getInt();
+            _eventCount = _buffer.getInt();
+            ensureCapacity( _eventCount );
+
+            int traitCount = DepartureLogWriter.LOGGED_TRAITS.length;
+            for( int i = 0; i < _eventCount; i++ )
+            {
+                require( DepartureLogWriter.EVENT_RECORD_SIZE );
+                _departedIndices[i] = _buffer.getInt();
+                _leaderIndices[i] = _buffer.getInt();
+                _types[i] = _TYPES[ _buffer.get() ];
+                _times[i] = _buffer.getFloat();
+                for( int j = 0; j < traitCount; j++ )
+                {
+                    _traits[ i * traitCount + j ] = _buffer.getFloat();
+                }
+                _followerCounts[i] = _buffer.getInt();
+                _potentialFollowerCounts[i] = _buffer.getInt();
+            }
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to read departure log file ["
+                    + _filename
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to read departure log file ["
+                    + _filename
+                    + "]", ioe );
+        }
+
+        return true;
+    }
+
+    /**
+     * Formats the current run as a line of the text simulation log
+     *
+     * @return The line, without a line separator
+     */
+    public String formatRun()
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append( String.format( "%10S ", _taskName ) );
+        builder.append( (_successful ? "S  " : "F  " ) );
+        builder.append( String.format( "%03d  %03d ",
+                _finalInitiatorCount,
+                _maxInitiatorCount ) );
+
+        for( int i = 0; i < _eventCount; i++ )
+        {
+            builder.append( " [" );
+            builder.append( getDepartedID( i ) );
+            builder.append( "  " );
+            builder.append( getLeaderID( i ) );
+            builder.append( "  " );
+            builder.append( _types[i].getShortCode() );
+            builder.append( "  " );
+            builder.append( String.format( "%09.3f", _times[i] ) );
+            for( int j = 0; j < DepartureLogWriter.LOGGED_TRAITS.length; j++ )
+            {
+                builder.append( "  " );
+                builder.append( String.format( "%06.4f",
+                        getPersonalityTrait( i,
+                                DepartureLogWriter.LOGGED_TRAITS[j] ) ) );
+            }
+            builder.append( "  " );
+            builder.append( String.format( "%03d", _followerCounts[i] ) );
+            builder.append( "  " );
+            builder.append( String.format( "%03d",
+                    _potentialFollowerCounts[i] ) );
+            builder.append( "] " );
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Closes the log
+     */
+    public void close()
+    {
+        try
+        {
+            _channel.close();
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to close departure log file ["
+                    + _filename
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to close departure log file ["
+                    + _filename
+                    + "]", ioe );
+        }
+    }
+
+    /**
+     * Returns the IDs of the individuals in the log
+     *
+     * @return The IDs
+     */
+    public List<String> getIDs()
+    {
+        return Collections.unmodifiableList( _ids );
+    }
+
+    /**
+     * Returns the name of the current run's task
+     *
+     * @return The name of the task
+     */
+    public String getTaskName()
+    {
+        return _taskName;
+    }
+
+    /**
+     * Returns a flag indicating whether the current run was successful
+     *
+     * @return <code>true</code> if the run was successful, otherwise,
+     *         <code>false</code>
+     */
+    public boolean isSuccessful()
+    {
+        return _successful;
+    }
+
+    /**
+     * Returns the current run's final number of initiators
+     *
+     * @return The final number of initiators
+     */
+    public int getFinalInitiatorCount()
+    {
+        return _finalInitiatorCount;
+    }
+
+    /**
+     * Returns the current run's maximum number of initiators
+     *
+     * @return The maximum number of initiators
+     */
+    public int getMaxInitiatorCount()
+    {
+        return _maxInitiatorCount;
+    }
+
+    /**
+     * Returns the number of departure events in the current run
+     *
+     * @return The number of events
+     */
+    public int getEventCount()
+    {
+        return _eventCount;
+    }
+
+    /**
+     * Returns the index of the specified event's departed individual in
+     * the log's IDs
+     *
+     * @param eventIdx The index of the event
+     * @return The index of the departed individual
+     */
+    public int getDepartedIndex( int eventIdx )
+    {
+        return _departedIndices[ checkEvent( eventIdx ) ];
+    }
+
+    /**
+     * Returns the ID of the specified event's departed individual
+     *
+     * @param eventIdx The index of the event
+     * @return The ID of the departed individual
+     */
+    public String getDepartedID( int eventIdx )
+    {
+        return _ids.get( getDepartedIndex( eventIdx ) );
+    }
+
+    /**
+     * Returns the index of the specified event's leader in the log's IDs
+     *
+     * @param eventIdx The index of the event
+     * @return The index of the leader
+     */
+    public int getLeaderIndex( int eventIdx )
+    {
+        return _leaderIndices[ checkEvent( eventIdx ) ];
+    }
+
+    /**
+     * Returns the ID of the specified event's leader
+     *
+     * @param eventIdx The index of the event
+     * @return The ID of the leader
+     */
+    public String getLeaderID( int eventIdx )
+    {
+        return _ids.get( getLeaderIndex( eventIdx ) );
+    }
+
+    /**
+     * Returns the type of the specified event
+     *
+     * @param eventIdx The index of the event
+     * @return The type
+     */
+    public DepartureEvent.Type getType( int eventIdx )
+    {
+        return _types[ checkEvent( eventIdx ) ];
+    }
+
+    /**
+     * Returns the time of the specified event
+     *
+     * @param eventIdx The index of the event
+     * @return The time
+     */
+    public float getTime( int eventIdx )
+    {
+        return _times[ checkEvent( eventIdx ) ];
+    }
+
+    /**
+     * Returns the value of the specified personality trait of the event's
+     * departed individual
+     *
+     * @param eventIdx The index of the event
+     * @param trait The personality trait
+     * @return The value of the trait
+     */
+    public float getPersonalityTrait( int eventIdx, PersonalityTrait trait )
+    {
+        int traitCount = DepartureLogWriter.LOGGED_TRAITS.length;
+        for( int i = 0; i < traitCount; i++ )
+        {
+            if( trait.equals( DepartureLogWriter.LOGGED_TRAITS[i] ) )
+            {
+                return _traits[ checkEvent( eventIdx ) * traitCount + i ];
+            }
+        }
+
+        throw new IllegalArgumentException( "Personality trait ["
+                + trait
+                + "] is not logged" );
+    }
+
+    /**
+     * Returns the number of followers of the specified event's leader
+     *
+     * @param eventIdx The index of the event
+     * @return The number of followers
+     */
+    public int getFollowerCount( int eventIdx )
+    {
+        return _followerCounts[ checkEvent( eventIdx ) ];
+    }
+
+    /**
+     * Returns the number of potential followers of the specified event's
+     * leader
+     *
+     * @param eventIdx The index of the event
+     * @return The number of potential followers
+     */
+    public int getPotentialFollowerCount( int eventIdx )
+    {
+        return _potentialFollowerCounts[ checkEvent( eventIdx ) ];
+    }
+
+    /**
+     * Validates the index of an event in the current run
+     *
+     * @param eventIdx The index of the event
+     * @return The index of the event
+     */
+    private int checkEvent( int eventIdx )
+    {
+        if( (0 > eventIdx) || (eventIdx >= _eventCount) )
+        {
+            throw new IndexOutOfBoundsException( "Event index ["
+                    + eventIdx
+                    + "] is out of range" );
+        }
+        return eventIdx;
+    }
+
+    /**
+     * Grows the event arrays so they hold at least the specified number of
+     * events
+     *
+     * @param eventCount The number of events
+     */
+    private void ensureCapacity( int eventCount )
+    {
+        Validate.isTrue( 0 <= eventCount, "Event count may not be negative" );
+        if( eventCount <= _times.length )
+        {
+            return;
+        }
+
+        int capacity = Math.max( eventCount, 2 * _times.length );
+        _departedIndices = Arrays.copyOf( _departedIndices, capacity );
+        _leaderIndices = Arrays.copyOf( _leaderIndices, capacity );
+        _types = Arrays.copyOf( _types, capacity );
+        _times = Arrays.copyOf( _times, capacity );
+        _traits = Arrays.copyOf( _traits,
+                capacity * DepartureLogWriter.LOGGED_TRAITS.length );
+        _followerCounts = Arrays.copyOf( _followerCounts, capacity );
+        _potentialFollowerCounts = Arrays.copyOf( _potentialFollowerCounts,
+                capacity );
+    }
+
+    /**
+     * Reads a string written as its length followed by its UTF-8 bytes
+     *
+     * @return The string
+     * @throws IOException If the string can't be read
+     */
+    private String readString() throws IOException
+    {
+        require( 4 );
+        int length = _buffer.getInt();
+        Validate.isTrue( (0 <= length) && (length + 4 <= _BUFFER_SIZE),
+                "Invalid string length [" + length + "]" );
+        require( length );
+        byte[] bytes = new byte[length];
+        _buffer.get( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Ensures the buffer holds the specified number of bytes, failing if
+     * the end of the log is reached first
+     *
+     * @param size The number of bytes
+     * @throws IOException If the log can't be read
+     */
+    private void require( int size ) throws IOException
+    {
+        Validate.isTrue( fill( size ),
+                "Departure log [" + _filename + "] is truncated" );
+    }
+
+    /**
+     * Reads from the channel until the buffer holds the specified number of
+     * bytes or the end of the log is reached
+     *
+     * @param size The number of bytes
+     * @return <code>true</code> if the buffer holds the bytes, otherwise,
+     *         <code>false</code>
+     * @throws IOException If the log can't be read
+     */
+    private boolean fill( int size ) throws IOException
+    {
+        if( _buffer.remaining() >= size )
+        {
+            return true;
+        }
+
+        _buffer.compact();
+        try
+        {
+            while( _buffer.position() < size )
+            {
+                if( 0 > _channel.read( _buffer ) )
+                {
+                    return false;
+                }
+            }
+        }
+        finally
+        {
+            _buffer.flip();
+        }
+
+        return true;
+    }
+}
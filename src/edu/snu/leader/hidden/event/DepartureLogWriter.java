@@ -0,0 +1,376 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden.event;
+
+// Imports
+import edu.snu.leader.hidden.PersonalityTrait;
+import edu.snu.leader.hidden.SpatialIndividual;
+import edu.snu.leader.hidden.Task;
+import org.apache.commons.lang.Validate;
+import org.apache.log4j.Logger;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * DepartureLogWriter
+ *
+ * Writes the departure histories of simulation runs to a binary log.  The
+ * log starts with a header holding the IDs of all the individuals and the
+ * names of the tasks.  Each run is then a fixed-width run record followed
+ * by a fixed-width record for each of its departure events, in which
+ * individuals, tasks and departure types are stored as indices.  Records
+ * are gathered in a buffer and written through a channel, optionally
+ * compressed.  Use a {@link DepartureLogReader} to read the log.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class DepartureLogWriter
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            DepartureLogWriter.class.getName() );
+
+    /** The value identifying a departure log ("DLOG") */
+    public static final int MAGIC = 0x444C4F47;
+
+    /** The version of the log format */
+    public static final int VERSION = 1;
+
+    /** The size of a run record in bytes */
+    public static final int RUN_RECORD_SIZE = 14;
+
+    /** The size of a departure event record in bytes */
+    public static final int EVENT_RECORD_SIZE = 37;
+
+    /** The personality traits logged for each departed individual, in
+     *  order */
+    public static final PersonalityTrait[] LOGGED_TRAITS = {
+            PersonalityTrait.BOLD_SHY,
+            PersonalityTrait.ACTIVE_LAZY,
+            PersonalityTrait.SOCIAL_SOLITARY,
+            PersonalityTrait.FEARFUL_ASSERTIVE };
+
+    /** The size of the write buffer in bytes */
+    private static final int _BUFFER_SIZE = 1 << 16;
+
+
+    /** The name of the log file */
+    private String _filename = null;
+
+    /** The channel to which the log is written */
+    private WritableByteChannel _channel = null;
+
+    /** The buffer in which records are gathered */
+    private ByteBuffer _buffer = ByteBuffer.allocateDirect( _BUFFER_SIZE );
+
+    /** The index of each individual in the header by its ID */
+    private Map<String,Integer> _idIndices = new HashMap<String,Integer>();
+
+
+    /**
+     * Builds this DepartureLogWriter object and writes the log's header
+     *
+     * @param filename The name of the log file
+     * @param compress Flag indicating that the log should be compressed
+     * @param individuals All the individuals that may appear in the log
+     */
+    public DepartureLogWriter( String filename,
+            boolean compress,
+            List<SpatialIndividual> individuals )
+    {
+        this( filename, compress, individuals, false );
+    }
+
+    /**
+     * Builds this DepartureLogWriter object.  When appending to an existing
+     * log, its header isn't written again, so the individuals must be the
+     * same ones in the same order.  A compressed log continues in a new
+     * compressed member.
+     *
+     * @param filename The name of the log file
+     * @param compress Flag indicating that the log should be compressed
+     * @param individuals All the individuals that may appear in the log
+     * @param append Flag indicating that the runs should be appended to the
+     *               existing log
+     */
+    public DepartureLogWriter( String filename,
+            boolean compress,
+            List<SpatialIndividual> individuals,
+            boolean append )
+    {
+        Validate.notEmpty( filename, "Log filename may not be empty" );
+        _filename = filename;
+
+        // Open the channel
+        try
+        {
+            FileOutputStream fileOut = new FileOutputStream( filename, append );
+            if( compress )
+            {
+                _channel = Channels.newChannel(
+                        new GZIPOutputStream( fileOut, _BUFFER_SIZE ) );
+            }
+            else
+            {
+                _channel = fileOut.getChannel();
+            }
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to open departure log file ["
+                    + filename
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to open departure log file ["
+                    + filename
+                    + "]", ioe );
+        }
+
+        // Index the individuals
+        Iterator<SpatialIndividual> indIter = individuals.iterator();
+        while( indIter.hasNext() )
+        {
+            String id = String.valueOf( indIter.next().getID() );
+            Validate.isTrue( !_idIndices.containsKey( id ),
+                    "Duplicate individual ID [" + id + "]" );
+            _idIndices.put( id, Integer.valueOf( _idIndices.size() ) );
+        }
+
+        // Write the header
+        if( !append )
+        {
+            ensureRemaining( 12 );
+            _buffer.putInt( MAGIC );
+            _buffer.putInt( VERSION );
+            _buffer.putInt( individuals.size() );
+            indIter = individuals.iterator();
+            while( indIter.hasNext() )
+            {
+                writeString( String.valueOf( indIter.next().getID() ) );
+            }
+            Task[] tasks = Task.values();
+            ensureRemaining( 4 );
+            _buffer.putInt( tasks.length );
+            for( int i = 0; i < tasks.length; i++ )
+            {
+                writeString( tasks[i].name() );
+            }
+        }
+    }
+
+    /**
+     * Writes the results of a simulation run
+     *
+     * @param task The task of the run
+     * @param successful Flag indicating that the run was successful
+     * @param finalInitiatorCount The final number of initiators
+     * @param maxInitiatorCount The maximum number of initiators
+     * @param departureHistory The departure events of the run
+     */
+    public void writeRun( Task task,
+            boolean successful,
+            int finalInitiatorCount,
+            int maxInitiatorCount,
+            List<DepartureEvent> departureHistory )
+    {
+        ensureRemaining( RUN_RECORD_SIZE );
+        _buffer.put( (byte) task.ordinal() );
+        _buffer.put( (byte) (successful ? 1 : 0) );
+        _buffer.putInt( finalInitiatorCount );
+        _buffer.putInt( maxInitiatorCount );
+        _buffer.putInt( departureHistory.size() );
+
+        Iterator<DepartureEvent> historyIter = departureHistory.iterator();
+        while( historyIter.hasNext() )
+        {
+            DepartureEvent currentEvent = historyIter.next();
+            SpatialIndividual departed = currentEvent.getDeparted();
+            ensureRemaining( EVENT_RECORD_SIZE );
+            _buffer.putInt( getIDIndex( departed.getID() ) );
+            _buffer.putInt( getIDIndex( currentEvent.getLeaderID() ) );
+            _buffer.put( (byte) currentEvent.getType().ordinal() );
+            _buffer.putFloat( currentEvent.getTime() );
+            for( int i = 0; i < LOGGED_TRAITS.length; i++ )
+            {
+                _buffer.putFloat( departed.getPersonalityTrait(
+                        LOGGED_TRAITS[i] ) );
+            }
+            _buffer.putInt( currentEvent.getFollowerCount() );
+            _buffer.putInt( currentEvent.getPotentialFollowerCount() );
+        }
+    }
+
+    /**
+     * Appends all the remaining runs in the specified log to this log
+     *
+     * @param reader The reader of the log to append
+     */
+    public void appendLog( DepartureLogReader reader )
+    {
+        // The other log may list the individuals in a different order
+        List<String> otherIDs = reader.getIDs();
+        int[] idIndices = new int[ otherIDs.size() ];
+        for( int i = 0; i < idIndices.length; i++ )
+        {
+            idIndices[i] = getIDIndex( otherIDs.get( i ) );
+        }
+
+        while( reader.nextRun() )
+        {
+            ensureRemaining( RUN_RECORD_SIZE );
+            _buffer.put( (byte) Task.valueOf( reader.getTaskName() ).ordinal() );
+            _buffer.put( (byte) (reader.isSuccessful() ? 1 : 0) );
+            _buffer.putInt( reader.getFinalInitiatorCount() );
+            _buffer.putInt( reader.getMaxInitiatorCount() );
+            int eventCount = reader.getEventCount();
+            _buffer.putInt( eventCount );
+            for( int i = 0; i < eventCount; i++ )
+            {
+                ensureRemaining( EVENT_RECORD_SIZE );
+                _buffer.putInt( idIndices[ reader.getDepartedIndex( i ) ] );
+                _buffer.putInt( idIndices[ reader.getLeaderIndex( i ) ] );
+                _buffer.put( (byte) reader.getType( i ).ordinal() );
+                _buffer.putFloat( reader.getTime( i ) );
+                for( int j = 0; j < LOGGED_TRAITS.length; j++ )
+                {
+                    _buffer.putFloat( reader.getPersonalityTrait( i,
+                            LOGGED_TRAITS[j] ) );
+                }
+                _buffer.putInt( reader.getFollowerCount( i ) );
+                _buffer.putInt( reader.getPotentialFollowerCount( i ) );
+            }
+        }
+    }
+
+    /**
+     * Writes any buffered records and closes the log
+     */
+    public void close()
+    {
+        try
+        {
+            flush();
+            _channel.close();
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to close departure log file ["
+                    + _filename
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to close departure log file ["
+                    + _filename
+                    + "]", ioe );
+        }
+    }
+
+    /**
+     * Returns the name of the log file
+     *
+     * @return The name of the log file
+     */
+    public String getFilename()
+    {
+        return _filename;
+    }
+
+    /**
+     * Returns the index of the individual with the specified ID in the
+     * header
+     *
+     * @param id The ID
+     * @return The index
+     */
+    private int getIDIndex( Object id )
+    {
+        Integer index = _idIndices.get( String.valueOf( id ) );
+        if( null == index )
+        {
+            throw new IllegalArgumentException( "Unknown individual ID ["
+                    + id
+                    + "]" );
+        }
+        return index.intValue();
+    }
+
+    /**
+     * Writes the specified string as its length followed by its UTF-8 bytes
+     *
+     * @param value The string
+     */
+    private void writeString( String value )
+    {
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        Validate.isTrue( bytes.length + 4 <= _BUFFER_SIZE,
+                "String is too long [" + value + "]" );
+        ensureRemaining( bytes.length + 4 );
+        _buffer.putInt( bytes.length );
+        _buffer.put( bytes );
+    }
+
+    /**
+     * Ensures the buffer has room for the specified number of bytes,
+     * writing its contents to the channel if it doesn't
+     *
+     * @param size The number of bytes
+     */
+    private void ensureRemaining( int size )
+    {
+        if( _buffer.remaining() < size )
+        {
+            try
+            {
+                flush();
+            }
+            catch( IOException ioe )
+            {
+                _LOG.error( "Unable to write departure log file ["
+                        + _filename
+                        + "]", ioe );
+                throw new RuntimeException( "Unable to write departure log file ["
+                        + _filename
+                        + "]", ioe );
+            }
+        }
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel
+     *
+     * @throws IOException If the buffer can't be written
+     */
+    private void flush() throws IOException
+    {
+        _buffer.flip();
+        while( _buffer.hasRemaining() )
+        {
+            _channel.write( _buffer );
+        }
+        _buffer.clear();
+    }
+}
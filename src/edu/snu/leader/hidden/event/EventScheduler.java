@@ -0,0 +1,330 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden.event;
+
+// Imports
+import org.apache.commons.lang.Validate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * EventScheduler
+ *
+ * Discrete-event scheduler backed by an indexed binary heap.  Events are
+ * keyed by an arbitrary object and ordered by their absolute simulation
+ * time.  Scheduling an event that is already pending reschedules it, so
+ * an event can be invalidated and redrawn whenever its rate changes in
+ * O(log n) time.  Events with the same time are ordered by when they were
+ * scheduled.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class EventScheduler<E>
+{
+    /**
+     * A pending event in the heap
+     */
+    private static class Entry<E>
+    {
+        /** The event */
+        public final E event;
+
+        /** The absolute time of the event */
+        public double time = 0.0;
+
+        /** The order in which the event was scheduled (used to break ties) */
+        public long sequence = 0;
+
+        /** The event's position in the heap */
+        public int position = 0;
+
+        public Entry( E event )
+        {
+            this.event = event;
+        }
+    }
+
+    /** The heap of pending events */
+    private List<Entry<E>> _heap = new ArrayList<Entry<E>>();
+
+    /** The pending events */
+    private Map<E, Entry<E>> _entries = new HashMap<E, Entry<E>>();
+
+    /** The current simulation time */
+    private double _currentTime = 0.0;
+
+    /** The number of events scheduled so far */
+    private long _sequenceCounter = 0;
+
+
+    /**
+     * Schedules the event to occur after the specified delay.  If the event
+     * is already pending, it is rescheduled.
+     *
+     * @param event The event
+     * @param delay The time from now until the event occurs
+     */
+    public void schedule( E event, float delay )
+    {
+        Validate.notNull( event, "Unable to schedule a NULL event" );
+        Validate.isTrue( !(delay < 0.0f), "Event delay may not be negative" );
+
+        // An undefined delay means the event never occurs
+        if( Float.isNaN( delay ) )
+        {
+            delay = Float.POSITIVE_INFINITY;
+        }
+
+        Entry<E> entry = _entries.get( event );
+        if( null == entry )
+        {
+            // Add it to the end of the heap
+            entry = new Entry<E>( event );
+            entry.position = _heap.size();
+            _heap.add( entry );
+            _entries.put( event, entry );
+        }
+
+        // Set the time and restore the heap
+        entry.time = _currentTime + delay;
+        entry.sequence = _sequenceCounter++;
+        siftUp( entry.position );
+        siftDown( entry.position );
+    }
+
+    /**
+     * Cancels the event if it is pending
+     *
+     * @param event The event
+     * @return <code>true</code> if the event was pending, otherwise,
+     * <code>false</code>
+     */
+    public boolean cancel( E event )
+    {
+        Entry<E> entry = _entries.remove( event );
+        if( null == entry )
+        {
+            return false;
+        }
+
+        // Replace it with the last event in the heap
+        Entry<E> last = _heap.remove( _heap.size() - 1 );
+        if( last != entry )
+        {
+            last.position = entry.position;
+            _heap.set( last.position, last );
+            siftUp( last.position );
+            siftDown( last.position );
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a flag denoting whether or not the event is pending
+     *
+     * @param event The event
+     * @return <code>true</code> if the event is pending, otherwise,
+     * <code>false</code>
+     */
+    public boolean isScheduled( E event )
+    {
+        return _entries.containsKey( event );
+    }
+
+    /**
+     * Returns the next event without removing it
+     *
+     * @return The next event or <code>null</code> if none are pending
+     */
+    public E peek()
+    {
+        E event = null;
+        if( !_heap.isEmpty() )
+        {
+            event = _heap.get( 0 ).event;
+        }
+
+        return event;
+    }
+
+    /**
+     * Returns the time from now until the next event occurs
+     *
+     * @return The delay until the next event or positive infinity if none
+     * are pending
+     */
+    public float peekDelay()
+    {
+        float delay = Float.POSITIVE_INFINITY;
+        if( !_heap.isEmpty() )
+        {
+            delay = (float) (_heap.get( 0 ).time - _currentTime);
+        }
+
+        return delay;
+    }
+
+    /**
+     * Removes the next event and advances the current time to it
+     *
+     * @return The next event
+     */
+    public E poll()
+    {
+        Validate.isTrue( !_heap.isEmpty(), "No events are scheduled" );
+
+        Entry<E> next = _heap.get( 0 );
+        cancel( next.event );
+        _currentTime = next.time;
+
+        return next.event;
+    }
+
+    /**
+     * Returns the number of pending events
+     *
+     * @return The number of pending events
+     */
+    public int size()
+    {
+        return _heap.size();
+    }
+
+    /**
+     * Returns a flag denoting whether or not any events are pending
+     *
+     * @return <code>true</code> if no events are pending, otherwise,
+     * <code>false</code>
+     */
+    public boolean isEmpty()
+    {
+        return _heap.isEmpty();
+    }
+
+    /**
+     * Returns the current simulation time
+     *
+     * @return The current time
+     */
+    public double getCurrentTime()
+    {
+        return _currentTime;
+    }
+
+    /**
+     * Removes all the pending events and resets the current time
+     */
+    public void clear()
+    {
+        _heap.clear();
+        _entries.clear();
+        _currentTime = 0.0;
+        _sequenceCounter = 0;
+    }
+
+    /**
+     * Moves the entry at the specified position up the heap until the heap
+     * is restored
+     *
+     * @param position The entry's position
+     */
+    private void siftUp( int position )
+    {
+        Entry<E> entry = _heap.get( position );
+        while( position > 0 )
+        {
+            int parentPosition = (position - 1) / 2;
+            Entry<E> parent = _heap.get( parentPosition );
+            if( !isEarlier( entry, parent ) )
+            {
+                break;
+            }
+
+            // Swap it with its parent
+            parent.position = position;
+            _heap.set( position, parent );
+            position = parentPosition;
+        }
+
+        entry.position = position;
+        _heap.set( position, entry );
+    }
+
+    /**
+     * Moves the entry at the specified position down the heap until the
+     * heap is restored
+     *
+     * @param position The entry's position
+     */
+    private void siftDown( int position )
+    {
+        Entry<E> entry = _heap.get( position );
+        int size = _heap.size();
+        while( true )
+        {
+            // Find the earliest child
+            int childPosition = (2 * position) + 1;
+            if( childPosition >= size )
+            {
+                break;
+            }
+            Entry<E> child = _heap.get( childPosition );
+            if( (childPosition + 1 < size)
+                    && isEarlier( _heap.get( childPosition + 1 ), child ) )
+            {
+                ++childPosition;
+                child = _heap.get( childPosition );
+            }
+
+            if( !isEarlier( child, entry ) )
+            {
+                break;
+            }
+
+            // Swap it with the child
+            child.position = position;
+            _heap.set( position, child );
+            position = childPosition;
+        }
+
+        entry.position = position;
+        _heap.set( position, entry );
+    }
+
+    /**
+     * Returns a flag denoting whether or not the first entry occurs before
+     * the second
+     *
+     * @param first The first entry
+     * @param second The second entry
+     * @return <code>true</code> if the first entry occurs first, otherwise,
+     * <code>false</code>
+     */
+    private boolean isEarlier( Entry<E> first, Entry<E> second )
+    {
+        return (first.time < second.time)
+                || ((first.time == second.time)
+                        && (first.sequence < second.sequence));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden.neighbor;
+
+// Imports
+import edu.snu.leader.hidden.Neighbor;
+import edu.snu.leader.hidden.SimulationState;
+import edu.snu.leader.hidden.SpatialIndividual;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * BruteForceNeighborFinder
+ *
+ * Finds neighbors by computing the distance to every other individual and
+ * sorting them.  Each query takes O(n log n) time, so it is only suitable
+ * for small populations or for checking other finders.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class BruteForceNeighborFinder implements NeighborFinder
+{
+    /** All the individuals */
+    private List<SpatialIndividual> _individuals =
+            new ArrayList<SpatialIndividual>();
+
+
+    /**
+     * Initializes the finder
+     *
+     * @param simState The simulation's state
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#initialize(edu.snu.leader.hidden.SimulationState)
+     */
+    @Override
+    public void initialize( SimulationState simState )
+    {
+        // Do nothing
+    }
+
+    /**
+     * Rebuilds the finder using the individuals' current locations
+     *
+     * @param individuals All the individuals in the simulation
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#rebuild(java.util.List)
+     */
+    @Override
+    public void rebuild( List<SpatialIndividual> individuals )
+    {
+        _individuals = new ArrayList<SpatialIndividual>( individuals );
+    }
+
+    /**
+     * Finds the specified number of individuals nearest to the individual
+     *
+     * @param ind The individual
+     * @param count The number of neighbors to find
+     * @return The nearest neighbors
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#findNearestNeighbors(edu.snu.leader.hidden.SpatialIndividual, int)
+     */
+    @Override
+    public List<Neighbor> findNearestNeighbors( SpatialIndividual ind,
+            int count )
+    {
+        return findNearestNeighborsWithinDistance( ind,
+                count,
+                Float.POSITIVE_INFINITY );
+    }
+
+    /**
+     * Finds all the individuals within the specified distance of the
+     * individual
+     *
+     * @param ind The individual
+     * @param distance The distance within which are neighbors
+     * @return The neighbors
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#findNeighborsWithinDistance(edu.snu.leader.hidden.SpatialIndividual, float)
+     */
+    @Override
+    public List<Neighbor> findNeighborsWithinDistance( SpatialIndividual ind,
+            float distance )
+    {
+        return findNearestNeighborsWithinDistance( ind,
+                Integer.MAX_VALUE,
+                distance );
+    }
+
+    /**
+     * Finds up to the specified number of individuals nearest to the
+     * individual that are also within the specified distance
+     *
+     * @param ind The individual
+     * @param count The maximum number of neighbors to find
+     * @param distance The distance within which are neighbors
+     * @return The nearest neighbors
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#findNearestNeighborsWithinDistance(edu.snu.leader.hidden.SpatialIndividual, int, float)
+     */
+    @Override
+    public List<Neighbor> findNearestNeighborsWithinDistance(
+            SpatialIndividual ind,
+            int count,
+            float distance )
+    {
+        // Build a neighbor out of every other individual within the distance
+        List<Neighbor> neighbors = new ArrayList<Neighbor>();
+        for( SpatialIndividual current : _individuals )
+        {
+            // If it is us, continue on
+            if( ind.getID().equals( current.getID() ) )
+            {
+                continue;
+            }
+
+            float currentDistance = (float) ind.getLocation().distance(
+                    current.getLocation() );
+            if( currentDistance <= distance )
+            {
+                neighbors.add( new Neighbor( currentDistance, current ) );
+            }
+        }
+
+        // Sort them (the sort is stable, so ties keep their order)
+        Collections.sort( neighbors );
+
+        // Keep only the nearest
+        if( neighbors.size() > count )
+        {
+            neighbors = new ArrayList<Neighbor>( neighbors.subList( 0,
+                    Math.max( 0, count ) ) );
+        }
+
+        return neighbors;
+    }
+}
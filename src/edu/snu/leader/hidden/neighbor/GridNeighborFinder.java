@@ -0,0 +1,201 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden.neighbor;
+
+// Imports
+import edu.snu.leader.hidden.Neighbor;
+import edu.snu.leader.hidden.SimulationState;
+import edu.snu.leader.hidden.SpatialIndividual;
+import edu.snu.leader.util.UniformGrid;
+import org.apache.commons.lang.Validate;
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * GridNeighborFinder
+ *
+ * Finds neighbors using a uniform grid over the individuals' locations.
+ * The cells are sized so that each holds about one individual, so a query
+ * only examines the cells around the individual instead of the entire
+ * population.  Topological queries search outward ring by ring, keeping
+ * the nearest individuals found so far in a bounded heap, and stop once no
+ * unsearched cell can hold anything closer.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class GridNeighborFinder implements NeighborFinder
+{
+    /** The individuals in the grid */
+    private SpatialIndividual[] _individuals = new SpatialIndividual[0];
+
+    /** The index of each individual, keyed by ID */
+    private Map<Object, Integer> _indices = new HashMap<Object, Integer>();
+
+    /** The x coordinate of each individual */
+    private double[] _x = new double[0];
+
+    /** The y coordinate of each individual */
+    private double[] _y = new double[0];
+
+    /** The grid over the individuals' locations */
+    private UniformGrid _grid = new UniformGrid();
+
+
+    /**
+     * Initializes the finder
+     *
+     * @param simState The simulation's state
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#initialize(edu.snu.leader.hidden.SimulationState)
+     */
+    @Override
+    public void initialize( SimulationState simState )
+    {
+        // Do nothing
+    }
+
+    /**
+     * Rebuilds the finder using the individuals' current locations
+     *
+     * @param individuals All the individuals in the simulation
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#rebuild(java.util.List)
+     */
+    @Override
+    public void rebuild( List<SpatialIndividual> individuals )
+    {
+        int indCount = individuals.size();
+        _individuals = individuals.toArray( new SpatialIndividual[indCount] );
+        _indices.clear();
+        _x = new double[indCount];
+        _y = new double[indCount];
+        for( int i = 0; i < indCount; i++ )
+        {
+            _indices.put( _individuals[i].getID(), i );
+            Vector2D location = _individuals[i].getLocation();
+            _x[i] = location.getX();
+            _y[i] = location.getY();
+        }
+
+        // Size the cells so that there is about one individual per cell
+        _grid.rebuild( _x, _y, indCount, 1.0 );
+    }
+
+    /**
+     * Finds the specified number of individuals nearest to the individual
+     *
+     * @param ind The individual
+     * @param count The number of neighbors to find
+     * @return The nearest neighbors
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#findNearestNeighbors(edu.snu.leader.hidden.SpatialIndividual, int)
+     */
+    @Override
+    public List<Neighbor> findNearestNeighbors( SpatialIndividual ind,
+            int count )
+    {
+        return findNearestNeighborsWithinDistance( ind,
+                count,
+                Float.POSITIVE_INFINITY );
+    }
+
+    /**
+     * Finds all the individuals within the specified distance of the
+     * individual
+     *
+     * @param ind The individual
+     * @param distance The distance within which are neighbors
+     * @return The neighbors
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#findNeighborsWithinDistance(edu.snu.leader.hidden.SpatialIndividual, float)
+     */
+    @Override
+    public List<Neighbor> findNeighborsWithinDistance( SpatialIndividual ind,
+            float distance )
+    {
+        UniformGrid.Neighbors neighbors = new UniformGrid.Neighbors();
+        _grid.findWithinDistance( getIndex( ind ),
+                distance,
+                distance,
+                UniformGrid.Measure.FLOAT_DISTANCE,
+                true,
+                neighbors );
+        return buildNeighbors( neighbors );
+    }
+
+    /**
+     * Finds up to the specified number of individuals nearest to the
+     * individual that are also within the specified distance
+     *
+     * @param ind The individual
+     * @param count The maximum number of neighbors to find
+     * @param distance The distance within which are neighbors
+     * @return The nearest neighbors
+     * @see edu.snu.leader.hidden.neighbor.NeighborFinder#findNearestNeighborsWithinDistance(edu.snu.leader.hidden.SpatialIndividual, int, float)
+     */
+    @Override
+    public List<Neighbor> findNearestNeighborsWithinDistance(
+            SpatialIndividual ind,
+            int count,
+            float distance )
+    {
+        UniformGrid.Neighbors nearest = new UniformGrid.Neighbors();
+        _grid.findNearest( getIndex( ind ),
+                count,
+                distance,
+                UniformGrid.Measure.FLOAT_DISTANCE,
+                nearest );
+        return buildNeighbors( nearest );
+    }
+
+    /**
+     * Returns the index of the specified individual
+     *
+     * @param ind The individual
+     * @return The individual's index
+     */
+    private int getIndex( SpatialIndividual ind )
+    {
+        Integer index = _indices.get( ind.getID() );
+        Validate.notNull( index, "Individual ["
+                + ind.getID()
+                + "] is not in the neighbor finder" );
+        return index.intValue();
+    }
+
+    /**
+     * Builds the neighbors found by a query of the grid.  Their distances
+     * are calculated the same way as the individuals' locations do.
+     *
+     * @param found The neighbors found
+     * @return The neighbors in the same order
+     */
+    private List<Neighbor> buildNeighbors( UniformGrid.Neighbors found )
+    {
+        List<Neighbor> neighbors = new ArrayList<Neighbor>( found.size() );
+        for( int i = 0; i < found.size(); i++ )
+        {
+            neighbors.add( new Neighbor( (float) found.getKey( i ),
+                    _individuals[ found.getIndex( i ) ] ) );
+        }
+
+        return neighbors;
+    }
+}
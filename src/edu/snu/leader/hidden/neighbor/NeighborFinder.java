@@ -0,0 +1,92 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden.neighbor;
+
+// Imports
+import edu.snu.leader.hidden.Neighbor;
+import edu.snu.leader.hidden.SimulationState;
+import edu.snu.leader.hidden.SpatialIndividual;
+import java.util.List;
+
+
+/**
+ * NeighborFinder
+ *
+ * Finds the neighbors of individuals using their locations.  The finder is
+ * rebuilt whenever the individuals are created or moved and then queried
+ * by each individual.  All queries return the neighbors sorted from
+ * closest to farthest, with ties broken by the order of the individuals
+ * passed to {@link #rebuild(List)}.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public interface NeighborFinder
+{
+    /**
+     * Initializes the finder
+     *
+     * @param simState The simulation's state
+     */
+    public void initialize( SimulationState simState );
+
+    /**
+     * Rebuilds the finder using the individuals' current locations
+     *
+     * @param individuals All the individuals in the simulation
+     */
+    public void rebuild( List<SpatialIndividual> individuals );
+
+    /**
+     * Finds the specified number of individuals nearest to the individual
+     * (i.e., topological neighbors)
+     *
+     * @param ind The individual
+     * @param count The number of neighbors to find
+     * @return The nearest neighbors
+     */
+    public List<Neighbor> findNearestNeighbors( SpatialIndividual ind,
+            int count );
+
+    /**
+     * Finds all the individuals within the specified distance of the
+     * individual (i.e., metric neighbors)
+     *
+     * @param ind The individual
+     * @param distance The distance within which are neighbors
+     * @return The neighbors
+     */
+    public List<Neighbor> findNeighborsWithinDistance( SpatialIndividual ind,
+            float distance );
+
+    /**
+     * Finds up to the specified number of individuals nearest to the
+     * individual that are also within the specified distance (i.e., hybrid
+     * metric and topological neighbors)
+     *
+     * @param ind The individual
+     * @param count The maximum number of neighbors to find
+     * @param distance The distance within which are neighbors
+     * @return The nearest neighbors
+     */
+    public List<Neighbor> findNearestNeighborsWithinDistance(
+            SpatialIndividual ind,
+            int count,
+            float distance );
+}
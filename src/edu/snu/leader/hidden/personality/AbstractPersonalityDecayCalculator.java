@@ -44,13 +44,13 @@ public abstract class AbstractPersonalityDecayCalculator implements
     private static final String _DIFFERENCE_THRESHOLD_KEY = "difference-threshold";
 
     /** The update rule's decay time */
-    protected static float _decayTime = 0.0f;
+    protected float _decayTime = 0.0f;
 
     /** The update rule's difference threshold */
-    protected static float _differenceThreshold = 0.0f;
+    protected float _differenceThreshold = 0.0f;
 
     /** The update rule's sim state */
-    protected static SimulationState _simState = null;
+    protected SimulationState _simState = null;
 
     /**
      * Initialize the decay calculator
@@ -21,13 +21,17 @@ package edu.snu.leader.hidden.personality;
 // Imports
 import edu.snu.leader.hidden.SimulationState;
 import edu.snu.leader.hidden.SpatialIndividual;
+import edu.snu.leader.util.Checkpointable;
 
 import org.apache.commons.lang.Validate;
 import org.apache.commons.math3.analysis.function.Gaussian;
 import org.apache.log4j.Logger;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.Properties;
 import java.util.Queue;
@@ -43,7 +47,7 @@ import java.util.Queue;
  */
 public class DirectionUpdateRulePersonalityCalculator
         extends StandardUpdateRulePersonalityCalculator
-        implements PersonalityCalculator
+        implements PersonalityCalculator, Checkpointable
 {
 
     /** Our logger */
@@ -303,6 +307,47 @@ public class DirectionUpdateRulePersonalityCalculator
     }
 
 
+    /**
+     * Writes the current direction and the number of direction changes that
+     * remain
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        out.writeInt( _directionChanges.size() );
+        out.writeBoolean( null != _gaussian );
+        out.writeFloat( _direction );
+        out.writeFloat( _sigma );
+        out.writeFloat( _maxGaussianValue );
+    }
+
+    /**
+     * Reads the current direction and drops the direction changes that
+     * were already made
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        int remaining = in.readInt();
+        while( _directionChanges.size() > remaining )
+        {
+            _directionChanges.poll();
+        }
+        boolean hasGaussian = in.readBoolean();
+        _direction = in.readFloat();
+        _sigma = in.readFloat();
+        _maxGaussianValue = in.readFloat();
+        _gaussian = ( hasGaussian ? new Gaussian( 0.0f, _sigma ) : null );
+    }
+
     /**
      * Load the direction changes from the specified file
      *
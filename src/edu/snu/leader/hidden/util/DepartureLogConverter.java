@@ -0,0 +1,146 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.hidden.util;
+
+// Imports
+import edu.snu.leader.hidden.event.DepartureLogReader;
+import org.apache.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * DepartureLogConverter
+ *
+ * Converts a binary departure log into the text simulation log, so the
+ * existing analysis scripts can process it.  The text log is compressed if
+ * its name ends in ".gz".  If no name is given, the text log gets the
+ * compressed name the simulation would have used (".log.gz").
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class DepartureLogConverter
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            DepartureLogConverter.class.getName() );
+
+
+    /**
+     * Main entry into the converter
+     *
+     * @param args The binary log file and, optionally, the text log file
+     */
+    public static void main( String[] args )
+    {
+        if( (1 > args.length) || (2 < args.length) )
+        {
+            System.err.println( "Usage: DepartureLogConverter binary-log [text-log]" );
+            System.exit( 1 );
+        }
+
+        // Get the input and output files
+        String binaryLogFile = args[0];
+        String textLogFile = null;
+        if( 2 == args.length )
+        {
+            textLogFile = args[1];
+        }
+        else
+        {
+            textLogFile = buildTextLogFilename( binaryLogFile );
+        }
+
+        convert( binaryLogFile, textLogFile );
+    }
+
+    /**
+     * Converts the binary log into the text log
+     *
+     * @param binaryLogFile The name of the binary log file
+     * @param textLogFile The name of the text log file
+     */
+    public static void convert( String binaryLogFile, String textLogFile )
+    {
+        _LOG.info( "Converting departure log ["
+                + binaryLogFile
+                + "] to ["
+                + textLogFile
+                + "]" );
+
+        // Open the text log
+        PrintWriter writer = null;
+        try
+        {
+            OutputStream out = new FileOutputStream( textLogFile );
+            if( textLogFile.endsWith( ".gz" ) )
+            {
+                out = new GZIPOutputStream( out );
+            }
+            writer = new PrintWriter( new BufferedWriter(
+                    new OutputStreamWriter( out ) ) );
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to open text log file ["
+                    + textLogFile
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to open text log file ["
+                    + textLogFile
+                    + "]", ioe );
+        }
+
+        // Convert every run
+        DepartureLogReader reader = new DepartureLogReader( binaryLogFile );
+        while( reader.nextRun() )
+        {
+            writer.println( reader.formatRun() );
+        }
+        reader.close();
+        writer.close();
+    }
+
+    /**
+     * Builds the name of the text log file from the binary log file's name
+     *
+     * @param binaryLogFile The name of the binary log file
+     * @return The name of the text log file
+     */
+    private static String buildTextLogFilename( String binaryLogFile )
+    {
+        if( binaryLogFile.endsWith( ".log.bin.gz" ) )
+        {
+            return binaryLogFile.substring( 0,
+                    binaryLogFile.length() - ".bin.gz".length() ) + ".gz";
+        }
+        else if( binaryLogFile.endsWith( ".log.bin" ) )
+        {
+            return binaryLogFile.substring( 0,
+                    binaryLogFile.length() - ".bin".length() ) + ".gz";
+        }
+
+        return binaryLogFile + ".log.gz";
+    }
+}
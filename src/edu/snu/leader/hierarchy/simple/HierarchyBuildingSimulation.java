@@ -46,6 +46,9 @@ public class HierarchyBuildingSimulation
     /** Key for the reporter class */
     private static final String _REPORTER_CLASS_KEY = "reporter-class";
 
+    /** Key for the statistics file */
+    private static final String _STATS_FILE_KEY = "stats-file";
+
 
 
     /** The properties used to initialize the system */
@@ -100,6 +103,13 @@ public class HierarchyBuildingSimulation
 
         // Report the final results
         _reporter.reportFinalResults();
+
+        // Dump the metrics alongside the results
+        String statsFile = _props.getProperty( _STATS_FILE_KEY );
+        if( null != statsFile )
+        {
+            _simState.getMetrics().writeSummary( statsFile );
+        }
     }
 
 
@@ -19,6 +19,7 @@
 package edu.snu.leader.hierarchy.simple;
 
 // Imports
+import edu.snu.leader.util.MetricsRegistry;
 import edu.snu.leader.util.MiscUtils;
 import ec.util.MersenneTwisterFast;
 import org.apache.commons.lang.Validate;
@@ -90,6 +91,18 @@ public class SimulationState
     /** Flag indicating that the simulation is finished */
     private boolean _finished = false;
 
+    /** The metrics registry */
+    private MetricsRegistry _metrics = null;
+
+    /** Times the updates of the inactive individuals */
+    private MetricsRegistry.Timer _updateStrategyTimer = null;
+
+    /** Times the individuals choosing who to follow */
+    private MetricsRegistry.Timer _followStrategyTimer = null;
+
+    /** Times the updates of all the individuals */
+    private MetricsRegistry.Timer _individualUpdateTimer = null;
+
 
     /**
      * Initialize the simulation state
@@ -109,6 +122,12 @@ public class SimulationState
         long seed = Long.parseLong( randomSeedStr );
         _random = new MersenneTwisterFast( seed );
 
+        // Build the metrics registry
+        _metrics = MetricsRegistry.build( _props );
+        _updateStrategyTimer = _metrics.getTimer( "update-strategy" );
+        _followStrategyTimer = _metrics.getTimer( "follow-strategy" );
+        _individualUpdateTimer = _metrics.getTimer( "individual-update" );
+
         // Load the update strategy
         String updateStrategyStr = _props.getProperty(
                 _UPDATE_STRATEGY_CLASS_KEY );
@@ -193,14 +212,18 @@ public class SimulationState
             {
                 // Nope
                 // Update the individual
+                long start = _updateStrategyTimer.start();
                 _updateStrategy.update( ind, this );
+                _updateStrategyTimer.stop( start );
 
                 // Is the individual going to act?
                 if( ind.isMotivationOverThreshold() )
                 {
                     // Yup
                     // Find out who the leader should be
+                    start = _followStrategyTimer.start();
                     _followStrategy.initiateFollowing( ind, this );
+                    _followStrategyTimer.stop( start );
                 }
                 else
                 {
@@ -211,12 +234,14 @@ public class SimulationState
         }
 
         // Update all the individuals
+        long start = _individualUpdateTimer.start();
         indIter = _allIndividuals.iterator();
         while( indIter.hasNext() )
         {
             ind = indIter.next();
             ind.update();
         }
+        _individualUpdateTimer.stop( start );
 
         // Are we done?
         if( !inactivesExist )
@@ -237,6 +262,16 @@ public class SimulationState
         return _props;
     }
 
+    /**
+     * Returns the metrics registry of the simulation
+     *
+     * @return The metrics registry
+     */
+    public MetricsRegistry getMetrics()
+    {
+        return _metrics;
+    }
+
     /**
      * Returns the currentTime for this object
      *
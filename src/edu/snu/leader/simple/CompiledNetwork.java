@@ -0,0 +1,437 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.simple;
+
+// Imports
+import ec.util.MersenneTwisterFast;
+import edu.snu.jyperneat.core.ActivationFunction;
+import edu.snu.jyperneat.core.Network;
+import edu.snu.jyperneat.network.AbstractNetwork;
+import edu.snu.jyperneat.network.FastNetwork;
+import org.apache.commons.lang.Validate;
+import org.apache.log4j.Logger;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * CompiledNetwork
+ *
+ * A jyperneat network flattened into index-based arrays.  Nodes are
+ * addressed through a table of slots whose names are resolved once, when the
+ * network is compiled, and updating the network is a pass over the link
+ * arrays followed by a pass over the node arrays.  The network performs the
+ * same floating point operations in the same order as the original, and
+ * consumes random numbers in the same order when reinitialized, so it
+ * produces identical outputs.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class CompiledNetwork implements Serializable
+{
+    /** Default serial version UID */
+    private static final long serialVersionUID = 1L;
+
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            CompiledNetwork.class.getName() );
+
+    /** The maximum number of extra iterations on a network's first update
+     *  when the number of layers is unknown (matches FastNetwork) */
+    private static final int _MAX_EXTRA_ITERATIONS = 15;
+
+    /** The fast network's nodes indexed by ID */
+    private static final Field _NODES_BY_ID_FIELD =
+            getField( FastNetwork.class, "_nodesByID" );
+
+    /** The fast network's nodes indexed by name */
+    private static final Field _NODES_BY_NAME_FIELD =
+            getField( FastNetwork.class, "_nodesByName" );
+
+    /** The fast network's links */
+    private static final Field _LINKS_FIELD =
+            getField( FastNetwork.class, "_links" );
+
+    /** The network's layer count */
+    private static final Field _LAYER_COUNT_FIELD =
+            getField( AbstractNetwork.class, "_layerCount" );
+
+    /** The fast network's node class */
+    private static final Class<?> _NODE_CLASS =
+            getNestedClass( FastNetwork.class, "Node" );
+
+    /** The fast network's link class */
+    private static final Class<?> _LINK_CLASS =
+            getNestedClass( FastNetwork.class, "Link" );
+
+    /** A node's input */
+    private static final Field _NODE_INPUT_FIELD =
+            getField( _NODE_CLASS, "input" );
+
+    /** A node's output */
+    private static final Field _NODE_OUTPUT_FIELD =
+            getField( _NODE_CLASS, "output" );
+
+    /** A node's activation function */
+    private static final Field _NODE_ACT_FUNCTION_FIELD =
+            getField( _NODE_CLASS, "actFunction" );
+
+    /** The ID of the node at the start of a link */
+    private static final Field _LINK_FROM_NODE_ID_FIELD =
+            getField( _LINK_CLASS, "fromNodeID" );
+
+    /** The ID of the node at the end of a link */
+    private static final Field _LINK_TO_NODE_ID_FIELD =
+            getField( _LINK_CLASS, "toNodeID" );
+
+    /** A link's weight */
+    private static final Field _LINK_WEIGHT_FIELD =
+            getField( _LINK_CLASS, "weight" );
+
+
+    /** The name of the node in each slot */
+    private Object[] _slotNames = null;
+
+    /** The index of the node in each slot (negative if it doesn't exist) */
+    private int[] _slotNodeIndices = null;
+
+    /** The activation function of each node (null for none) */
+    private ActivationFunction[] _activationFunctions = null;
+
+    /** The input of each node */
+    private double[] _inputs = null;
+
+    /** The output of each node */
+    private double[] _outputs = null;
+
+    /** The index of the node at the start of each link */
+    private int[] _linkFromIndices = null;
+
+    /** The index of the node at the end of each link */
+    private int[] _linkToIndices = null;
+
+    /** The weight of each link */
+    private double[] _linkWeights = null;
+
+    /** The number of layers in the network (not positive if unknown) */
+    private int _layerCount = -1;
+
+    /** Flag indicating whether the network has been activated since it was
+     *  last reinitialized */
+    private boolean _activated = false;
+
+
+    /**
+     * Builds this CompiledNetwork object
+     *
+     * @param network The network to compile
+     * @param slotNames The names of the nodes addressed by each slot
+     */
+    public CompiledNetwork( Network network, Object[] slotNames )
+    {
+        Validate.isTrue( network instanceof FastNetwork,
+                "Only fast networks may be compiled" );
+
+        try
+        {
+            compile( network, slotNames );
+        }
+        catch( IllegalAccessException iae )
+        {
+            _LOG.error( "Unable to compile network", iae );
+            throw new RuntimeException( "Unable to compile network", iae );
+        }
+    }
+
+    /**
+     * Sets the value of the node in the specified slot
+     *
+     * @param slot The slot
+     * @param value The value
+     */
+    public void setValue( int slot, double value )
+    {
+        int nodeIdx = getNodeIndex( slot );
+        _outputs[nodeIdx] = value;
+        _inputs[nodeIdx] = value;
+    }
+
+    /**
+     * Returns the value of the node in the specified slot
+     *
+     * @param slot The slot
+     * @return The value
+     */
+    public double getValue( int slot )
+    {
+        return _outputs[ getNodeIndex( slot ) ];
+    }
+
+    /**
+     * Updates the network once
+     */
+    public void update()
+    {
+        update( 1 );
+    }
+
+    /**
+     * Updates the network the specified number of times.  The first update
+     * after the network is reinitialized uses enough iterations for the
+     * inputs to reach the outputs.
+     *
+     * @param iterations The number of iterations
+     */
+    public void update( int iterations )
+    {
+        if( !_activated )
+        {
+            if( 0 < _layerCount )
+            {
+                iterations = Math.max( _layerCount, iterations );
+            }
+            else
+            {
+                iterations += Math.min( _inputs.length,
+                        _MAX_EXTRA_ITERATIONS );
+            }
+            _activated = true;
+        }
+
+        int linkCount = _linkWeights.length;
+        int nodeCount = _inputs.length;
+        for( int i = 0; i < iterations; i++ )
+        {
+            // Propagate the outputs along the links
+            for( int j = 0; j < linkCount; j++ )
+            {
+                _inputs[ _linkToIndices[j] ] +=
+                        _outputs[ _linkFromIndices[j] ] * _linkWeights[j];
+            }
+
+            // Activate the nodes
+            for( int j = 0; j < nodeCount; j++ )
+            {
+                evaluateNode( j );
+            }
+        }
+    }
+
+    /**
+     * Reinitializes the network with random node outputs
+     *
+     * @param random The random number generator
+     */
+    public void reinitialize( MersenneTwisterFast random )
+    {
+        int nodeCount = _inputs.length;
+        for( int i = 0; i < nodeCount; i++ )
+        {
+            _inputs[i] = random.nextFloat() * 2.0f - 1.0f;
+            evaluateNode( i );
+            _inputs[i] = 0.0;
+        }
+        _activated = false;
+    }
+
+    /**
+     * Flattens the specified network into this network's arrays
+     *
+     * @param network The network to compile
+     * @param slotNames The names of the nodes addressed by each slot
+     * @throws IllegalAccessException If the network's structure can't be read
+     */
+    @SuppressWarnings( "unchecked" )
+    private void compile( Network network, Object[] slotNames )
+        throws IllegalAccessException
+    {
+        Map<Object,Object> nodesByID = (Map<Object,Object>)
+                _NODES_BY_ID_FIELD.get( network );
+        Map<Object,Object> nodesByName = (Map<Object,Object>)
+                _NODES_BY_NAME_FIELD.get( network );
+        List<Object> links = (List<Object>) _LINKS_FIELD.get( network );
+        _layerCount = _LAYER_COUNT_FIELD.getInt( network );
+        _activated = network.isActivated();
+
+        /* Index the nodes in the order the network iterates over them, since
+         * that is the order in which they consume random numbers */
+        int nodeCount = nodesByID.size();
+        _activationFunctions = new ActivationFunction[nodeCount];
+        _inputs = new double[nodeCount];
+        _outputs = new double[nodeCount];
+        Map<Object,Integer> nodeIndices = new IdentityHashMap<Object,Integer>();
+        Map<Object,Integer> nodeIndicesByID = new HashMap<Object,Integer>();
+        int nodeIdx = 0;
+        Iterator<Map.Entry<Object,Object>> nodeIter =
+                nodesByID.entrySet().iterator();
+        while( nodeIter.hasNext() )
+        {
+            Map.Entry<Object,Object> entry = nodeIter.next();
+            Object node = entry.getValue();
+            _activationFunctions[nodeIdx] = (ActivationFunction)
+                    _NODE_ACT_FUNCTION_FIELD.get( node );
+            _inputs[nodeIdx] = _NODE_INPUT_FIELD.getDouble( node );
+            _outputs[nodeIdx] = _NODE_OUTPUT_FIELD.getDouble( node );
+            nodeIndices.put( node, Integer.valueOf( nodeIdx ) );
+            nodeIndicesByID.put( entry.getKey(), Integer.valueOf( nodeIdx ) );
+            nodeIdx++;
+        }
+
+        // Resolve the slots
+        _slotNames = slotNames.clone();
+        _slotNodeIndices = new int[slotNames.length];
+        for( int i = 0; i < slotNames.length; i++ )
+        {
+            _slotNodeIndices[i] = -1;
+            Object node = nodesByName.get( slotNames[i] );
+            if( null != node )
+            {
+                _slotNodeIndices[i] = nodeIndices.get( node ).intValue();
+            }
+        }
+
+        // Flatten the links, keeping their order
+        int linkCount = links.size();
+        _linkFromIndices = new int[linkCount];
+        _linkToIndices = new int[linkCount];
+        _linkWeights = new double[linkCount];
+        for( int i = 0; i < linkCount; i++ )
+        {
+            Object link = links.get( i );
+            Object fromNodeID = _LINK_FROM_NODE_ID_FIELD.get( link );
+            Integer fromIndex = nodeIndicesByID.get( fromNodeID );
+            if( null == fromIndex )
+            {
+                _LOG.error( "From node with id ["
+                        + fromNodeID
+                        + "] does not exist!" );
+                throw new RuntimeException( "From node with id ["
+                        + fromNodeID
+                        + "] does not exist!" );
+            }
+            Object toNodeID = _LINK_TO_NODE_ID_FIELD.get( link );
+            Integer toIndex = nodeIndicesByID.get( toNodeID );
+            if( null == toIndex )
+            {
+                _LOG.error( "To node with id ["
+                        + toNodeID
+                        + "] does not exist!" );
+                throw new RuntimeException( "To node with id ["
+                        + toNodeID
+                        + "] does not exist!" );
+            }
+            _linkFromIndices[i] = fromIndex.intValue();
+            _linkToIndices[i] = toIndex.intValue();
+            _linkWeights[i] = _LINK_WEIGHT_FIELD.getDouble( link );
+        }
+    }
+
+    /**
+     * Returns the index of the node in the specified slot
+     *
+     * @param slot The slot
+     * @return The index of the node
+     */
+    private int getNodeIndex( int slot )
+    {
+        int nodeIdx = _slotNodeIndices[slot];
+        if( 0 > nodeIdx )
+        {
+            throw new IllegalArgumentException( "Unknown node with name ["
+                    + _slotNames[slot]
+                    + "]" );
+        }
+        return nodeIdx;
+    }
+
+    /**
+     * Sets the output of the specified node from its input
+     *
+     * @param nodeIdx The index of the node
+     */
+    private void evaluateNode( int nodeIdx )
+    {
+        ActivationFunction actFunction = _activationFunctions[nodeIdx];
+        if( null != actFunction )
+        {
+            _outputs[nodeIdx] = actFunction.evaluate( _inputs[nodeIdx] );
+        }
+        else
+        {
+            _outputs[nodeIdx] = _inputs[nodeIdx];
+        }
+    }
+
+    /**
+     * Returns the specified nested class
+     *
+     * @param type The enclosing type
+     * @param name The simple name of the nested class
+     * @return The nested class
+     */
+    private static Class<?> getNestedClass( Class<?> type, String name )
+    {
+        Class<?>[] nestedClasses = type.getDeclaredClasses();
+        for( int i = 0; i < nestedClasses.length; i++ )
+        {
+            if( name.equals( nestedClasses[i].getSimpleName() ) )
+            {
+                return nestedClasses[i];
+            }
+        }
+
+        throw new RuntimeException( "Unable to find class ["
+                + name
+                + "] in ["
+                + type.getName()
+                + "]" );
+    }
+
+    /**
+     * Returns the specified declared field, made accessible
+     *
+     * @param type The type declaring the field
+     * @param name The name of the field
+     * @return The field
+     */
+    private static Field getField( Class<?> type, String name )
+    {
+        try
+        {
+            Field field = type.getDeclaredField( name );
+            field.setAccessible( true );
+            return field;
+        }
+        catch( NoSuchFieldException nsfe )
+        {
+            throw new RuntimeException( "Unable to find field ["
+                    + name
+                    + "] in ["
+                    + type.getName()
+                    + "]",
+                    nsfe );
+        }
+    }
+}
@@ -38,6 +38,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 /**
@@ -141,6 +147,46 @@ public class DecisionDevelopmentProblem extends Problem
     /** The no-follow output node name */
     private static final String _NO_FOLLOW_OUTPUT_NODE_NAME = "No-Follow-Output";
 
+    /** The names of the nodes addressed through the compiled networks'
+     *  slots, in slot order */
+    private static final String[] _SLOT_NAMES = {
+            _BIAS_NODE_NAME,
+            _PREDATION_NODE_NAME,
+            _ENERGY_NODE_NAME,
+            _MATURATION_NODE_NAME,
+            _OTHER_ACTIVITY_NODE_NAME,
+            _SENSOR_FAILURE_NODE_NAME,
+            _OUTPUT_NODE_NAME,
+            _FOLLOW_OUTPUT_NODE_NAME,
+            _NO_FOLLOW_OUTPUT_NODE_NAME };
+
+    /** The bias node's slot */
+    private static final int _BIAS_SLOT = 0;
+
+    /** The predation level node's slot */
+    private static final int _PREDATION_SLOT = 1;
+
+    /** The energy node slot */
+    private static final int _ENERGY_SLOT = 2;
+
+    /** The maturation node slot */
+    private static final int _MATURATION_SLOT = 3;
+
+    /** The other individual's activity node slot */
+    private static final int _OTHER_ACTIVITY_SLOT = 4;
+
+    /** The sensor failure node slot */
+    private static final int _SENSOR_FAILURE_SLOT = 5;
+
+    /** The output node's slot */
+    private static final int _OUTPUT_SLOT = 6;
+
+    /** The follow output node slot */
+    private static final int _FOLLOW_OUTPUT_SLOT = 7;
+
+    /** The no-follow output node slot */
+    private static final int _NO_FOLLOW_OUTPUT_SLOT = 8;
+
     /** The bias input value */
     private static final double _BIAS_INPUT_VALUE = 0.03;
 
@@ -225,6 +271,30 @@ public class DecisionDevelopmentProblem extends Problem
     /** Parameter key for the no-follow network file */
     private static final String _NO_FOLLOW_NETWORK_FILE = "no-follow-network-file";
 
+    /** Parameter key for the number of threads running an individual's
+     *  evaluations in parallel */
+    private static final String _TRIAL_THREAD_COUNT_KEY = "trial-thread-count";
+
+
+    /**
+     * The networks, other than the individual's own, used in an evaluation.
+     * They are modified during an evaluation, so each thread needs its own.
+     */
+    private static class AuxiliaryNetworks implements Serializable
+    {
+        /** Default serial version UID */
+        private static final long serialVersionUID = 1L;
+
+        /** The other individual's network */
+        public CompiledNetwork otherNetwork = null;
+
+        /** The follow network */
+        public CompiledNetwork followNetwork = null;
+
+        /** The no-follow network */
+        public CompiledNetwork noFollowNetwork = null;
+    }
+
 
 
 
@@ -283,6 +353,18 @@ public class DecisionDevelopmentProblem extends Problem
     private Network _followNetwork = null;
     private Network _noFollowNetwork = null;
 
+    /** The number of threads running an individual's evaluations in
+     *  parallel (zero evaluates them sequentially using the evaluation
+     *  thread's random number generator) */
+    private int _trialThreadCount = 0;
+
+    /** Copies of the auxiliary networks for each evaluation thread (first
+     *  index) and each worker running its evaluations (second index) */
+    private AuxiliaryNetworks[][] _auxiliaryNetworks = new AuxiliaryNetworks[0][0];
+
+    /** The pool running the evaluations in parallel */
+    private transient ForkJoinPool _trialPool = null;
+
 
     /**
      * Sets up the object by reading it from the parameters stored in
@@ -580,6 +662,39 @@ public class DecisionDevelopmentProblem extends Problem
                     + "]" );
         }
 
+        // Get the number of threads running evaluations in parallel
+        if( state.parameters.exists( base.push( _TRIAL_THREAD_COUNT_KEY ),
+                null ) )
+        {
+            _trialThreadCount = state.parameters.getInt(
+                    base.push( _TRIAL_THREAD_COUNT_KEY ),
+                    null );
+            Validate.isTrue( 0 <= _trialThreadCount,
+                    "Trial thread count may not be negative" );
+        }
+        _LOG.info( "Using trialThreadCount=["
+                + _trialThreadCount
+                + "]" );
+        if( 1 < _trialThreadCount )
+        {
+            _trialPool = new ForkJoinPool( _trialThreadCount );
+        }
+
+        // Give each evaluation thread and trial worker its own networks
+        int workerCount = Math.max( 1, _trialThreadCount );
+        _auxiliaryNetworks = new AuxiliaryNetworks[ Math.max( 1, state.evalthreads ) ][ workerCount ];
+        for( int i = 0; i < _auxiliaryNetworks.length; i++ )
+        {
+            for( int j = 0; j < workerCount; j++ )
+            {
+                AuxiliaryNetworks networks = new AuxiliaryNetworks();
+                networks.otherNetwork = compileNetwork( _otherNetwork );
+                networks.followNetwork = compileNetwork( _followNetwork );
+                networks.noFollowNetwork = compileNetwork( _noFollowNetwork );
+                _auxiliaryNetworks[i][j] = networks;
+            }
+        }
+
         _LOG.trace( "Leaving setup( state, base )" );
     }
 
@@ -621,18 +736,30 @@ public class DecisionDevelopmentProblem extends Problem
         // Cast it to the correct type
         NeatIndividual neatInd = (NeatIndividual) ind;
 
-        // Build the network
-        Network network = neatInd.createPhenotype();
-
         // Evaluate the network
         MersenneTwisterFast random = state.random[threadnum];
-        float[] trainFitness = new float[ _evaluationCount ];
-        for( int i = 0; i < _evaluationCount; i++ )
+        float[] trainFitness = null;
+        if( 0 < _trialThreadCount )
         {
-            trainFitness[i] = evaluateNetwork( network,
-                    random,
-                    (i < _altEvaluationCount) );
-            network.reinitialize( random );
+            trainFitness = evaluateTrials( neatInd, random, threadnum );
+        }
+        else
+        {
+            // Build the network
+            CompiledNetwork network = new CompiledNetwork(
+                    neatInd.createPhenotype(),
+                    _SLOT_NAMES );
+
+            AuxiliaryNetworks auxNetworks = _auxiliaryNetworks[threadnum][0];
+            trainFitness = new float[ _evaluationCount ];
+            for( int i = 0; i < _evaluationCount; i++ )
+            {
+                trainFitness[i] = evaluateNetwork( network,
+                        auxNetworks,
+                        random,
+                        (i < _altEvaluationCount) );
+                network.reinitialize( random );
+            }
         }
         ((CrossValidationFitness) ind.fitness).setTrainingResults(
                 trainFitness );
@@ -751,18 +878,122 @@ public class DecisionDevelopmentProblem extends Problem
         throw new RuntimeException( "NOT YET IMPLEMENTED" );
     }
     */
+    /**
+     * Performs all the evaluations of an individual, split among the trial
+     * workers.  Every evaluation uses its own random number generator seeded
+     * from the evaluation thread's, so the results do not depend on the
+     * number of workers.
+     *
+     * @param neatInd The individual
+     * @param random The evaluation thread's random number generator
+     * @param threadnum The evaluation thread
+     * @return The fitness of each evaluation
+     */
+    private float[] evaluateTrials( final NeatIndividual neatInd,
+            MersenneTwisterFast random,
+            int threadnum )
+    {
+        // Seed each evaluation's random number generator
+        final long[] trialSeeds = new long[ _evaluationCount ];
+        for( int i = 0; i < _evaluationCount; i++ )
+        {
+            trialSeeds[i] = random.nextLong();
+        }
+
+        // Give each worker a contiguous shard of the evaluations
+        final float[] trainFitness = new float[ _evaluationCount ];
+        int workerCount = _auxiliaryNetworks[threadnum].length;
+        List<Runnable> shards = new ArrayList<Runnable>();
+        for( int i = 0; i < workerCount; i++ )
+        {
+            final AuxiliaryNetworks auxNetworks = _auxiliaryNetworks[threadnum][i];
+            final int firstTrial = (int) ( ((long) _evaluationCount) * i
+                    / workerCount );
+            final int lastTrial = (int) ( ((long) _evaluationCount) * (i + 1)
+                    / workerCount );
+            shards.add( new Runnable() {
+                @Override
+                public void run()
+                {
+                    // Each shard needs its own network
+                    CompiledNetwork network = new CompiledNetwork(
+                            neatInd.createPhenotype(),
+                            _SLOT_NAMES );
+                    for( int j = firstTrial; j < lastTrial; j++ )
+                    {
+                        MersenneTwisterFast trialRandom =
+                                new MersenneTwisterFast( trialSeeds[j] );
+                        trainFitness[j] = evaluateNetwork( network,
+                                auxNetworks,
+                                trialRandom,
+                                (j < _altEvaluationCount) );
+                        network.reinitialize( trialRandom );
+                    }
+                }
+            } );
+        }
+
+        // Run them
+        if( null == _trialPool )
+        {
+            Iterator<Runnable> shardIter = shards.iterator();
+            while( shardIter.hasNext() )
+            {
+                shardIter.next().run();
+            }
+        }
+        else
+        {
+            List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+            Iterator<Runnable> shardIter = shards.iterator();
+            while( shardIter.hasNext() )
+            {
+                tasks.add( _trialPool.submit( shardIter.next() ) );
+            }
+            Iterator<ForkJoinTask<?>> taskIter = tasks.iterator();
+            while( taskIter.hasNext() )
+            {
+                taskIter.next().join();
+            }
+        }
+
+        return trainFitness;
+    }
+
+    /**
+     * Compiles the specified network
+     *
+     * @param network The network
+     * @return The compiled network, or null if the network is null
+     */
+    private CompiledNetwork compileNetwork( Network network )
+    {
+        if( null == network )
+        {
+            return null;
+        }
+
+        return new CompiledNetwork( network, _SLOT_NAMES );
+    }
+
     /**
      * Evaluates the network in the maturation simulation
      *
      * @param network
+     * @param auxNetworks
      * @param random
      * @param useAlt
      * @return
      */
-    private float evaluateNetwork( Network network,
+    private float evaluateNetwork( CompiledNetwork network,
+            AuxiliaryNetworks auxNetworks,
             MersenneTwisterFast random,
             boolean useAlt )
     {
+        CompiledNetwork otherNetwork = auxNetworks.otherNetwork;
+        CompiledNetwork followNetwork = auxNetworks.followNetwork;
+        CompiledNetwork noFollowNetwork = auxNetworks.noFollowNetwork;
+
         // Which predation types do we use?
         PredationInputType thisPredationType = _predationInputType;
         PredationInputType otherPredationType = _otherPredationInputType;
@@ -795,12 +1026,12 @@ public class DecisionDevelopmentProblem extends Problem
 
             // Send the inputs to the network
             network.reinitialize( random );
-            network.setValue( _BIAS_NODE_NAME, _BIAS_INPUT_VALUE );
-            network.setValue( _ENERGY_NODE_NAME, energyLevel );
-            network.setValue( _MATURATION_NODE_NAME, maturationLevel );
+            network.setValue( _BIAS_SLOT, _BIAS_INPUT_VALUE );
+            network.setValue( _ENERGY_SLOT, energyLevel );
+            network.setValue( _MATURATION_SLOT, maturationLevel );
 
             // Send the appropriate predation input
-            network.setValue( _PREDATION_NODE_NAME,
+            network.setValue( _PREDATION_SLOT,
                     thisPredationType.calculateInput( predationLevel,
                             _predationNoiseMultiplier,
                             random ) );
@@ -811,12 +1042,12 @@ public class DecisionDevelopmentProblem extends Problem
             {
                 sensorFailure = 1.0f;
             }
-            network.setValue( _SENSOR_FAILURE_NODE_NAME,
+            network.setValue( _SENSOR_FAILURE_SLOT,
                     sensorFailure );
 
             // Send the appropriate input from the other's actions
             double otherActivity = 0.0;
-            if( null == _otherNetwork )
+            if( null == otherNetwork )
             {
                 otherActivity = 0.0f;
             }
@@ -827,28 +1058,28 @@ public class DecisionDevelopmentProblem extends Problem
             else
             {
                 // Find out what the other individual will do
-                _otherNetwork.reinitialize( random );
-                _otherNetwork.setValue( _BIAS_NODE_NAME, _BIAS_INPUT_VALUE );
-                _otherNetwork.setValue( _ENERGY_NODE_NAME, energyLevel );
-                _otherNetwork.setValue( _MATURATION_NODE_NAME, maturationLevel );
-                _otherNetwork.setValue( _PREDATION_NODE_NAME,
+                otherNetwork.reinitialize( random );
+                otherNetwork.setValue( _BIAS_SLOT, _BIAS_INPUT_VALUE );
+                otherNetwork.setValue( _ENERGY_SLOT, energyLevel );
+                otherNetwork.setValue( _MATURATION_SLOT, maturationLevel );
+                otherNetwork.setValue( _PREDATION_SLOT,
                         otherPredationType.calculateInput(
                                 predationLevel,
                                 _otherPredationNoiseMultiplier,
                                 random ) );
-                _otherNetwork.update();
-                otherActivity = _otherNetwork.getValue( _OUTPUT_NODE_NAME );
+                otherNetwork.update();
+                otherActivity = otherNetwork.getValue( _OUTPUT_SLOT );
             }
 
             // Send it to the current individual's network
-            network.setValue( _OTHER_ACTIVITY_NODE_NAME, otherActivity );
+            network.setValue( _OTHER_ACTIVITY_SLOT, otherActivity );
 
             // Update the network
             network.update();
 
             // Get the values for the follow/no-follow outputs
-            float followStrength = (float) network.getValue( _FOLLOW_OUTPUT_NODE_NAME );
-            float noFollowStrength = (float) network.getValue( _NO_FOLLOW_OUTPUT_NODE_NAME );
+            float followStrength = (float) network.getValue( _FOLLOW_OUTPUT_SLOT );
+            float noFollowStrength = (float) network.getValue( _NO_FOLLOW_OUTPUT_SLOT );
 
 //            _LOG.info( "FollowStrength=[" + followStrength + "]" );
 //            _LOG.info( "NoFollowStrength=[" + noFollowStrength + "]" );
@@ -859,37 +1090,37 @@ public class DecisionDevelopmentProblem extends Problem
             {
                 // Yup
 //                _LOG.info( "Following" );
-                _followNetwork.reinitialize( random );
-                _followNetwork.setValue( _BIAS_NODE_NAME, _BIAS_INPUT_VALUE );
-                _followNetwork.setValue( _ENERGY_NODE_NAME, energyLevel );
-                _followNetwork.setValue( _MATURATION_NODE_NAME, maturationLevel );
-                _followNetwork.setValue( _PREDATION_NODE_NAME,
+                followNetwork.reinitialize( random );
+                followNetwork.setValue( _BIAS_SLOT, _BIAS_INPUT_VALUE );
+                followNetwork.setValue( _ENERGY_SLOT, energyLevel );
+                followNetwork.setValue( _MATURATION_SLOT, maturationLevel );
+                followNetwork.setValue( _PREDATION_SLOT,
                         thisPredationType.calculateInput(
                                 predationLevel,
                                 _otherPredationNoiseMultiplier,
                                 random ) );
-                _followNetwork.setValue( _OTHER_ACTIVITY_NODE_NAME, otherActivity );
-                _followNetwork.update();
+                followNetwork.setValue( _OTHER_ACTIVITY_SLOT, otherActivity );
+                followNetwork.update();
 
-                activity = (float) _followNetwork.getValue( _OUTPUT_NODE_NAME );
+                activity = (float) followNetwork.getValue( _OUTPUT_SLOT );
             }
             else
             {
                 // Nope
 //                _LOG.info( "NOT Following" );
-                _noFollowNetwork.reinitialize( random );
-                _noFollowNetwork.setValue( _BIAS_NODE_NAME, _BIAS_INPUT_VALUE );
-                _noFollowNetwork.setValue( _ENERGY_NODE_NAME, energyLevel );
-                _noFollowNetwork.setValue( _MATURATION_NODE_NAME, maturationLevel );
-                _noFollowNetwork.setValue( _PREDATION_NODE_NAME,
+                noFollowNetwork.reinitialize( random );
+                noFollowNetwork.setValue( _BIAS_SLOT, _BIAS_INPUT_VALUE );
+                noFollowNetwork.setValue( _ENERGY_SLOT, energyLevel );
+                noFollowNetwork.setValue( _MATURATION_SLOT, maturationLevel );
+                noFollowNetwork.setValue( _PREDATION_SLOT,
                         thisPredationType.calculateInput(
                                 predationLevel,
                                 _otherPredationNoiseMultiplier,
                                 random ) );
-                _noFollowNetwork.setValue( _OTHER_ACTIVITY_NODE_NAME, otherActivity );
-                _noFollowNetwork.update();
+                noFollowNetwork.setValue( _OTHER_ACTIVITY_SLOT, otherActivity );
+                noFollowNetwork.update();
 
-                activity = (float) _noFollowNetwork.getValue( _OUTPUT_NODE_NAME );
+                activity = (float) noFollowNetwork.getValue( _OUTPUT_SLOT );
             }
 
             // Did the activity result in capture?
@@ -134,6 +134,38 @@ public class SimpleDevelopmentProblem extends Problem
     /** The output node's name */
     private static final String _OUTPUT_NODE_NAME = "Output";
 
+    /** The names of the nodes addressed through the compiled networks'
+     *  slots, in slot order */
+    private static final String[] _SLOT_NAMES = {
+            _BIAS_NODE_NAME,
+            _PREDATION_NODE_NAME,
+            _ENERGY_NODE_NAME,
+            _MATURATION_NODE_NAME,
+            _OTHER_ACTIVITY_NODE_NAME,
+            _SENSOR_FAILURE_NODE_NAME,
+            _OUTPUT_NODE_NAME };
+
+    /** The bias node's slot */
+    private static final int _BIAS_SLOT = 0;
+
+    /** The predation level node's slot */
+    private static final int _PREDATION_SLOT = 1;
+
+    /** The energy node slot */
+    private static final int _ENERGY_SLOT = 2;
+
+    /** The maturation node slot */
+    private static final int _MATURATION_SLOT = 3;
+
+    /** The other individual's activity node slot */
+    private static final int _OTHER_ACTIVITY_SLOT = 4;
+
+    /** The sensor failure node slot */
+    private static final int _SENSOR_FAILURE_SLOT = 5;
+
+    /** The output node's slot */
+    private static final int _OUTPUT_SLOT = 6;
+
     /** The bias input value */
     private static final double _BIAS_INPUT_VALUE = 0.03;
 
@@ -257,6 +289,10 @@ public class SimpleDevelopmentProblem extends Problem
     /** The other individual's network */
     private Network _otherNetwork = null;
 
+    /** The compiled copy of the other individual's network used by each
+     *  evaluation thread */
+    private CompiledNetwork[] _compiledOtherNetworks = new CompiledNetwork[0];
+
     /** The type of predation input for the other individual */
     private PredationInputType _otherPredationInputType = PredationInputType.ACCURATE;
 
@@ -507,6 +543,18 @@ public class SimpleDevelopmentProblem extends Problem
                     + "]" );
         }
 
+        // Compile the other's network for each evaluation thread
+        _compiledOtherNetworks = new CompiledNetwork[
+                Math.max( 1, state.evalthreads ) ];
+        if( null != _otherNetwork )
+        {
+            for( int i = 0; i < _compiledOtherNetworks.length; i++ )
+            {
+                _compiledOtherNetworks[i] = new CompiledNetwork( _otherNetwork,
+                        _SLOT_NAMES );
+            }
+        }
+
         _LOG.trace( "Leaving setup( state, base )" );
     }
 
@@ -549,7 +597,10 @@ public class SimpleDevelopmentProblem extends Problem
         NeatIndividual neatInd = (NeatIndividual) ind;
 
         // Build the network
-        Network network = neatInd.createPhenotype();
+        CompiledNetwork network = new CompiledNetwork(
+                neatInd.createPhenotype(),
+                _SLOT_NAMES );
+        CompiledNetwork otherNetwork = _compiledOtherNetworks[threadnum];
 
         // Evaluate the network
         MersenneTwisterFast random = state.random[threadnum];
@@ -557,6 +608,7 @@ public class SimpleDevelopmentProblem extends Problem
         for( int i = 0; i < _evaluationCount; i++ )
         {
             trainFitness[i] = evaluateNetwork( network,
+                    otherNetwork,
                     random,
                     (i < _altEvaluationCount) );
             network.reinitialize( random );
@@ -793,11 +845,13 @@ public class SimpleDevelopmentProblem extends Problem
      * Evaluates the network in the maturation simulation
      *
      * @param network
+     * @param otherNetwork
      * @param random
      * @param useAlt
      * @return
      */
-    private float evaluateNetwork( Network network,
+    private float evaluateNetwork( CompiledNetwork network,
+            CompiledNetwork otherNetwork,
             MersenneTwisterFast random,
             boolean useAlt )
     {
@@ -833,12 +887,12 @@ public class SimpleDevelopmentProblem extends Problem
 
             // Send the inputs to the network
             network.reinitialize( random );
-            network.setValue( _BIAS_NODE_NAME, _BIAS_INPUT_VALUE );
-            network.setValue( _ENERGY_NODE_NAME, energyLevel );
-            network.setValue( _MATURATION_NODE_NAME, maturationLevel );
+            network.setValue( _BIAS_SLOT, _BIAS_INPUT_VALUE );
+            network.setValue( _ENERGY_SLOT, energyLevel );
+            network.setValue( _MATURATION_SLOT, maturationLevel );
 
             // Send the appropriate predation input
-            network.setValue( _PREDATION_NODE_NAME,
+            network.setValue( _PREDATION_SLOT,
                     thisPredationType.calculateInput( predationLevel,
                             _predationNoiseMultiplier,
                             random ) );
@@ -849,42 +903,42 @@ public class SimpleDevelopmentProblem extends Problem
             {
                 sensorFailure = 1.0f;
             }
-            network.setValue( _SENSOR_FAILURE_NODE_NAME,
+            network.setValue( _SENSOR_FAILURE_SLOT,
                     sensorFailure );
 
             // Send the appropriate input from the other's actions
-            if( null == _otherNetwork )
+            if( null == otherNetwork )
             {
-                network.setValue( _OTHER_ACTIVITY_NODE_NAME, 0.0 );
+                network.setValue( _OTHER_ACTIVITY_SLOT, 0.0 );
             }
             else if( PredationInputType.OFF.equals( otherPredationType ) )
             {
-                network.setValue( _OTHER_ACTIVITY_NODE_NAME, -1.0f );
+                network.setValue( _OTHER_ACTIVITY_SLOT, -1.0f );
             }
             else
             {
                 // Find out what the other individual will do
-                _otherNetwork.reinitialize( random );
-                _otherNetwork.setValue( _BIAS_NODE_NAME, _BIAS_INPUT_VALUE );
-                _otherNetwork.setValue( _ENERGY_NODE_NAME, energyLevel );
-                _otherNetwork.setValue( _MATURATION_NODE_NAME, maturationLevel );
-                _otherNetwork.setValue( _PREDATION_NODE_NAME,
+                otherNetwork.reinitialize( random );
+                otherNetwork.setValue( _BIAS_SLOT, _BIAS_INPUT_VALUE );
+                otherNetwork.setValue( _ENERGY_SLOT, energyLevel );
+                otherNetwork.setValue( _MATURATION_SLOT, maturationLevel );
+                otherNetwork.setValue( _PREDATION_SLOT,
                         otherPredationType.calculateInput(
                                 predationLevel,
                                 _otherPredationNoiseMultiplier,
                                 random ) );
-                _otherNetwork.update();
-                double otherActivity = _otherNetwork.getValue( _OUTPUT_NODE_NAME );
+                otherNetwork.update();
+                double otherActivity = otherNetwork.getValue( _OUTPUT_SLOT );
 
                 // Send it to the current individual's network
-                network.setValue( _OTHER_ACTIVITY_NODE_NAME, otherActivity );
+                network.setValue( _OTHER_ACTIVITY_SLOT, otherActivity );
             }
 
             // Update the network
             network.update();
 
             // Get the output (i.e., activity of the individual)
-            float activity = (float) network.getValue( _OUTPUT_NODE_NAME );
+            float activity = (float) network.getValue( _OUTPUT_SLOT );
 
             // Did the activity result in capture?
             if( isCaptured( activity, predationLevel, random ) )
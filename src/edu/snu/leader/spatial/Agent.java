@@ -24,14 +24,17 @@ import edu.snu.leader.spatial.decision.NoChangeDecision;
 import edu.snu.leader.spatial.decision.FollowDecision;
 import edu.snu.leader.spatial.decision.InitiateDecision;
 import edu.snu.leader.spatial.movement.VoidMovementBehavior;
+import edu.snu.leader.util.Checkpointable;
+import edu.snu.leader.util.MetricsRegistry;
 
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -46,59 +49,12 @@ import java.util.Set;
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class Agent
+public class Agent implements Checkpointable
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
             Agent.class.getName() );
 
-    private class NeighborDistance
-    {
-        private Agent _neighbor = null;
-        private float _distanceSqrd = 0.0f;
-        public NeighborDistance( Agent neighbor, float distanceSqrd )
-        {
-            _neighbor = neighbor;
-            _distanceSqrd = distanceSqrd;
-        }
-        public Agent getNeighbor()
-        {
-            return _neighbor;
-        }
-        public float getDistanceSquared()
-        {
-            return _distanceSqrd;
-        }
-        public float getDistance()
-        {
-            return (float) Math.sqrt( _distanceSqrd );
-        }
-    }
-
-    private class NeighborDistanceComparator implements Comparator<NeighborDistance>
-    {
-        public NeighborDistanceComparator()
-        {
-            // Do nothing
-        }
-
-        @Override
-        public int compare( NeighborDistance dist1, NeighborDistance dist2 )
-        {
-            int result = 0;
-            if( dist1.getDistanceSquared() < dist2.getDistanceSquared() )
-            {
-                result = -1;
-            }
-            else if( dist1.getDistanceSquared() > dist2.getDistanceSquared() )
-            {
-                result = 1;
-            }
-            return result;
-        }
-    }
-
-
     /** Unique ID of this agent */
     private Object _id = null;
 
@@ -148,11 +104,13 @@ public class Agent
 
     /** Map of observed agents to their observed group membership */
     private Map<Agent, Group> _observedAgentMemberships =
-            new HashMap<Agent, Group>();
+            new LinkedHashMap<Agent, Group>();
 
-    /** Map of observed groups to their observed membership histories */
+    /** Map of observed groups to their observed membership histories.  The
+     *  follow decisions are built in the order the groups were first
+     *  observed, so the decisions don't depend on identity hash codes. */
     private Map<Group, List<Agent>> _observedGroupHistories =
-            new HashMap<Group, List<Agent>>();
+            new LinkedHashMap<Group, List<Agent>>();
 
     /** Decision probability calculator for all decisions */
     private DecisionProbabilityCalculator _calculator = null;
@@ -170,6 +128,12 @@ public class Agent
      *  canceling to not be possible */
     private float _cancelThreshold = 0;
 
+    /** Times the searches for nearest neighbors */
+    private MetricsRegistry.Timer _neighborSearchTimer = null;
+
+    /** Times the calculation of the decision probabilities */
+    private MetricsRegistry.Timer _decisionProbabilityTimer = null;
+
 
     /**
      * Builds this Agent object
@@ -180,6 +144,8 @@ public class Agent
      * @param conflictTrait
      * @param spatialState
      * @param communicationType
+     * @param topoNearestNeighborCount
+     * @param metricNearestNeighborDistance
      * @param initiationMovementBehavior
      * @param followMovementBehavior
      * @param cancelMovementBehavior
@@ -192,6 +158,8 @@ public class Agent
             ConflictTrait conflictTrait,
             AgentSpatialState spatialState,
             AgentCommunicationType communicationType,
+            int topoNearestNeighborCount,
+            float metricNearestNeighborDistance,
             MovementBehavior initiationMovementBehavior,
             MovementBehavior followMovementBehavior,
             MovementBehavior cancelMovementBehavior,
@@ -222,6 +190,14 @@ public class Agent
         Validate.notNull( communicationType, "Communication type may not be null" );
         _communicationType = communicationType;
 
+        // Validate and store the nearest neighbor parameters
+        Validate.isTrue( 0 <= topoNearestNeighborCount,
+                "Nearest neighbor count may not be negative" );
+        _topoNearestNeighborCount = topoNearestNeighborCount;
+        Validate.isTrue( 0.0f <= metricNearestNeighborDistance,
+                "Nearest neighbor distance may not be negative" );
+        _metricNearestNeighborDistance = metricNearestNeighborDistance;
+
         // Validate and store the initiate movement behavior
         Validate.notNull( initiationMovementBehavior,
                 "Initiation movement behavior may not be null" );
@@ -263,6 +239,12 @@ public class Agent
         // Initialize the traits
         _personalityTrait.initialize( simState, this );
         _conflictTrait.initialize( simState, this );
+
+        // Get the timers
+        _neighborSearchTimer = simState.getMetrics().getTimer(
+                "neighbor-search" );
+        _decisionProbabilityTimer = simState.getMetrics().getTimer(
+                "decision-probability" );
     }
 
 
@@ -280,8 +262,11 @@ public class Agent
         long currentSimRunStep = _simState.getCurrentSimulationStep();
 
         // Get all our nearest neighbors and their groups
+        long start = _neighborSearchTimer.start();
         _currentNearestNeighbors = buildNearestNeighbors();
         Set<Group> neighborGroups = findNeighborGroups( _currentNearestNeighbors );
+        _neighborSearchTimer.stop( start );
+        start = _decisionProbabilityTimer.start();
 
         // Log all the group membership events
         logObservedGroupMembershipEvents();
@@ -458,6 +443,7 @@ public class Agent
                         + "]" );
             }
         }
+        _decisionProbabilityTimer.stop( start );
     }
 
     /**
@@ -519,6 +505,59 @@ public class Agent
         _observedGroupHistories.clear();
     }
 
+    /**
+     * Writes everything about this agent that carries over from one
+     * simulation run to the next, i.e., its traits.  Everything else is
+     * reset before each run.
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        out.writeUTF( String.valueOf( _id ) );
+        if( _personalityTrait instanceof Checkpointable )
+        {
+            ((Checkpointable) _personalityTrait).writeCheckpoint( out );
+        }
+        if( _conflictTrait instanceof Checkpointable )
+        {
+            ((Checkpointable) _conflictTrait).writeCheckpoint( out );
+        }
+    }
+
+    /**
+     * Reads everything about this agent that carries over from one
+     * simulation run to the next
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        String id = in.readUTF();
+        if( !id.equals( String.valueOf( _id ) ) )
+        {
+            throw new IOException( "Checkpoint is for agent ["
+                    + id
+                    + "], not ["
+                    + _id
+                    + "]" );
+        }
+        if( _personalityTrait instanceof Checkpointable )
+        {
+            ((Checkpointable) _personalityTrait).readCheckpoint( in );
+        }
+        if( _conflictTrait instanceof Checkpointable )
+        {
+            ((Checkpointable) _conflictTrait).readCheckpoint( in );
+        }
+    }
+
     /**
      * Returns the unique ID of this agent
      *
@@ -786,23 +825,9 @@ public class Agent
      */
     private List<Agent> findNearestNeighborsUsingTopologicalDistance()
     {
-        NeighborDistance[] nearestNeighbors = buildSortedNearestNeighbors();
-
-        // Calculate the number of neighbors to find
-        int neighborCount = _topoNearestNeighborCount;
-        if( neighborCount > nearestNeighbors.length )
-        {
-            neighborCount = nearestNeighbors.length;
-        }
-
-        // Find the N nearest neighbors
-        List<Agent> topoNeighbors = new LinkedList<Agent>();
-        for( int i = 0; i < neighborCount; i++ )
-        {
-            topoNeighbors.add( nearestNeighbors[i].getNeighbor() );
-        }
-
-        return topoNeighbors;
+        // Find the N nearest neighbors using the shared spatial index
+        return _simState.getSpatialIndex().findNearestNeighbors( this,
+                _topoNearestNeighborCount );
     }
 
     /**
@@ -812,70 +837,10 @@ public class Agent
      */
     private List<Agent> findNearestNeighborsUsingMetricDistance()
     {
-        NeighborDistance[] nearestNeighbors = buildSortedNearestNeighbors();
-
-        // Calculate the metric distance squared to save time
-        float metricDistanceSqrd = _metricNearestNeighborDistance
-                * _metricNearestNeighborDistance;
-
-        // Find all the neighbors within the distance
-        List<Agent> metricNeighbors = new LinkedList<Agent>();
-        for( int i = 0; i < nearestNeighbors.length; i++ )
-        {
-            // Is the agent beyond the distance?
-            if( nearestNeighbors[i].getDistanceSquared() > metricDistanceSqrd )
-            {
-                // Yup, bail since they are sorted
-                break;
-            }
-
-            // Add it to the list
-            metricNeighbors.add( nearestNeighbors[i].getNeighbor() );
-        }
-
-        return metricNeighbors;
-    }
-
-    /**
-     * Builds an array of the agent's nearest neighbors and sorts them from
-     * closest to farthest
-     *
-     * @return THe agent's nearest neighbors sorted by distance
-     */
-    private NeighborDistance[] buildSortedNearestNeighbors()
-    {
-        // Build a list of all the agents and their distances
-        List<NeighborDistance> neighborList = new LinkedList<Agent.NeighborDistance>();
-        Iterator<Agent> agentIter = _simState.getAgentIterator();
-        while( agentIter.hasNext() )
-        {
-            // Get the agent
-            Agent agent = agentIter.next();
-
-            // Ensure that it isn't this agent
-            if( this.equals( agent ) )
-            {
-                continue;
-            }
-
-            // Calculate the distance squared
-            float distanceSqrd = (float) _spatialState.getPosition().distanceSq(
-                    agent._spatialState.getPosition() );
-
-            // Add it to the list
-            neighborList.add( new NeighborDistance( agent, distanceSqrd ) );
-        }
-
-        // Get the list as an array so we can sort it
-        NeighborDistance[] neighbors = neighborList.toArray(
-                new NeighborDistance[ neighborList.size() ] );
-
-        // Sort it
-        Arrays.sort( neighbors,
-                new NeighborDistanceComparator() );
-
-        // Return it
-        return neighbors;
+        // Find all the neighbors within the distance using the shared
+        // spatial index
+        return _simState.getSpatialIndex().findNeighborsWithinDistance( this,
+                _metricNearestNeighborDistance );
     }
 
 
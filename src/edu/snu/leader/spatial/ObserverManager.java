@@ -19,26 +19,34 @@
 package edu.snu.leader.spatial;
 
 // Imports
+import edu.snu.leader.util.Checkpointable;
 import edu.snu.leader.util.MiscUtils;
 
 // Imports
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 
 /**
  * ObserverManager
  *
- * TODO Class description
+ * Loads the simulation observers and signals them of simulation events.
+ * Each observer is only signaled for the events it observes, so events
+ * that no observer is interested in cost next to nothing.
  *
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class ObserverManager
+public class ObserverManager implements Checkpointable
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
@@ -61,6 +69,10 @@ public class ObserverManager
     private List<SimObserver> _observers =
             new LinkedList<SimObserver>();
 
+    /** The observers of each event, indexed by the event's ordinal */
+    private SimObserver[][] _observersByEvent =
+            new SimObserver[ SimEventType.values().length ][ 0 ];
+
 
     /**
      * Initializes this Observer manager
@@ -106,18 +118,56 @@ public class ObserverManager
             }
         }
 
+        // Find the observers of each event
+        SimEventType[] eventTypes = SimEventType.values();
+        for( int i = 0; i < eventTypes.length; i++ )
+        {
+            List<SimObserver> eventObservers = new ArrayList<SimObserver>();
+            Iterator<SimObserver> iter = _observers.iterator();
+            while( iter.hasNext() )
+            {
+                SimObserver observer = iter.next();
+                Set<SimEventType> observedEvents = observer.getObservedEvents();
+                if( (null != observedEvents)
+                        && observedEvents.contains( eventTypes[i] ) )
+                {
+                    eventObservers.add( observer );
+                }
+            }
+            _observersByEvent[i] = eventObservers.toArray(
+                    new SimObserver[ eventObservers.size() ] );
+            _LOG.debug( "Event ["
+                    + eventTypes[i]
+                    + "] has ["
+                    + _observersByEvent[i].length
+                    + "] observers" );
+        }
+
         _LOG.trace( "Leaving initialize( simState )" );
     }
 
+    /**
+     * Returns a flag denoting whether or not any observer observes the
+     * specified event.  Events that aren't observed don't need to be built.
+     *
+     * @param eventType The event
+     * @return <code>true</code> if the event is observed
+     */
+    public boolean isObserved( SimEventType eventType )
+    {
+        return 0 < _observersByEvent[ eventType.ordinal() ].length;
+    }
+
     /**
      * Signals all the observers that the simulation is setup to be executed
      */
     public void signalSimSetup()
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.SIM_SETUP.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().simSetup();
+            observers[i].simSetup();
         }
     }
 
@@ -126,10 +176,11 @@ public class ObserverManager
      */
     public void signalSimRunSetup()
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.SIM_RUN_SETUP.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().simRunSetup();
+            observers[i].simRunSetup();
         }
     }
 
@@ -139,10 +190,11 @@ public class ObserverManager
      */
     public void signalSimRunStepSetup()
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.SIM_RUN_STEP_SETUP.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().simRunStepSetup();
+            observers[i].simRunStepSetup();
         }
     }
 
@@ -151,10 +203,11 @@ public class ObserverManager
      */
     public void signalSimRunStepTearDown()
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.SIM_RUN_STEP_TEAR_DOWN.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().simRunStepTearDown();
+            observers[i].simRunStepTearDown();
         }
     }
 
@@ -163,10 +216,11 @@ public class ObserverManager
      */
     public void signalSimRunTearDown()
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.SIM_RUN_TEAR_DOWN.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().simRunTearDown();
+            observers[i].simRunTearDown();
         }
     }
 
@@ -175,10 +229,11 @@ public class ObserverManager
      */
     public void signalSimTearDown()
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.SIM_TEAR_DOWN.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().simTearDown();
+            observers[i].simTearDown();
         }
     }
 
@@ -190,10 +245,11 @@ public class ObserverManager
      */
     public void signalAgentDecisionEvent( Agent agent, DecisionEvent event )
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.AGENT_DECIDED.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().agentDecided( agent, event );
+            observers[i].agentDecided( agent, event );
         }
     }
 
@@ -204,10 +260,11 @@ public class ObserverManager
      */
     public void signalPersonalityUpdateEvent( PersonalityUpdateEvent event )
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.PERSONALITY_UPDATED.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().personalityUpdated( event );
+            observers[i].personalityUpdated( event );
         }
     }
 
@@ -218,16 +275,62 @@ public class ObserverManager
      */
     public void signalHaltSimulationRun( SimulationRunHaltReason reason )
     {
-        Iterator<SimObserver> iter = _observers.iterator();
-        while( iter.hasNext() )
+        SimObserver[] observers = _observersByEvent[
+                SimEventType.SIM_RUN_HALTED.ordinal() ];
+        for( int i = 0; i < observers.length; i++ )
         {
-            iter.next().simulationRunHalted( reason );
+            observers[i].simulationRunHalted( reason );
         }
 
         // Signal the simulation state
         _simState.haltSimulationRun();
     }
 
+    /**
+     * Writes the state of the observers that carry results over between
+     * simulation runs
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        Iterator<SimObserver> iter = _observers.iterator();
+        while( iter.hasNext() )
+        {
+            SimObserver observer = iter.next();
+            if( observer instanceof Checkpointable )
+            {
+                ((Checkpointable) observer).writeCheckpoint( out );
+            }
+        }
+    }
+
+    /**
+     * Reads the state of the observers that carry results over between
+     * simulation runs.  The observers must be loaded using the same
+     * properties.
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        Iterator<SimObserver> iter = _observers.iterator();
+        while( iter.hasNext() )
+        {
+            SimObserver observer = iter.next();
+            if( observer instanceof Checkpointable )
+            {
+                ((Checkpointable) observer).readCheckpoint( in );
+            }
+        }
+    }
+
     /**
      * Loads a single simulation observer with the given key prefix
      *
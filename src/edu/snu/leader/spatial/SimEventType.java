@@ -0,0 +1,41 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.spatial;
+
+/**
+ * SimEventType
+ *
+ * The events signaled to simulation observers.  Each observer declares the
+ * events it observes and is only signaled for those.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public enum SimEventType
+{
+    SIM_SETUP,
+    SIM_RUN_SETUP,
+    SIM_RUN_STEP_SETUP,
+    SIM_RUN_STEP_TEAR_DOWN,
+    SIM_RUN_TEAR_DOWN,
+    SIM_TEAR_DOWN,
+    AGENT_DECIDED,
+    PERSONALITY_UPDATED,
+    SIM_RUN_HALTED;
+}
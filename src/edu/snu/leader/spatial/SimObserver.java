@@ -20,6 +20,7 @@ package edu.snu.leader.spatial;
 
 // Imports
 import edu.snu.leader.spatial.SimulationState;
+import java.util.Set;
 
 
 /**
@@ -40,6 +41,15 @@ public interface SimObserver
      */
     public void initialize( SimulationState simState, String keyPrefix );
 
+    /**
+     * Returns the events observed by this observer.  It is only signaled
+     * for these events.  This is called once after the observer is
+     * initialized.
+     *
+     * @return The observed events
+     */
+    public Set<SimEventType> getObservedEvents();
+
     /**
      * Prepares the simulation for execution
      */
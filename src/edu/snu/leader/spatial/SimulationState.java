@@ -19,9 +19,15 @@
 package edu.snu.leader.spatial;
 
 // Imports
+import edu.snu.leader.util.Checkpointable;
+import edu.snu.leader.util.MetricsRegistry;
+import edu.snu.leader.util.SequentialStoppingRule;
 import ec.util.MersenneTwisterFast;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -36,7 +42,7 @@ import java.util.Properties;
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class SimulationState
+public class SimulationState implements Checkpointable
 {
 
     /** Our logger */
@@ -62,12 +68,21 @@ public class SimulationState
     /** The simulation properties */
     private Properties _props = null;
 
+    /** The random number generator seed */
+    private long _randomSeed = 0l;
+
     /** Random number generator */
     private MersenneTwisterFast _random = null;
 
     /** The observer manager */
     private ObserverManager _obsManager = null;
 
+    /** The metrics registry */
+    private MetricsRegistry _metrics = null;
+
+    /** The rule deciding when enough simulation runs have been gathered */
+    private SequentialStoppingRule _stoppingRule = null;
+
     /** The number of agents in the simulation */
     private int _agentCount = 0;
 
@@ -86,6 +101,9 @@ public class SimulationState
     /** All the agents in the simulation */
     private List<Agent> _agents = new LinkedList<Agent>();
 
+    /** Spatial index of the agents used for nearest neighbor queries */
+    private SpatialIndex _spatialIndex = new SpatialIndex();
+
     /** Number of new groups created */
     private int _newGroupCount = 0;
 
@@ -95,6 +113,10 @@ public class SimulationState
     /** Flag denoting that something has requested the simulation to halt */
     private boolean _haltSimulation = false;
 
+    /** Flag denoting that something has requested that no more simulation
+     *  runs be performed */
+    private boolean _stopSimulationRuns = false;
+
 
     /**
      * Initialize the simulation state
@@ -111,10 +133,10 @@ public class SimulationState
         // Get the random number generator seed
         String randomSeedStr = props.getProperty( _RANDOM_SEED_KEY );
         Validate.notEmpty( randomSeedStr, "Random seed is required" );
-        long seed = Long.parseLong( randomSeedStr );
-        _random = new MersenneTwisterFast( seed );
+        _randomSeed = Long.parseLong( randomSeedStr );
+        _random = new MersenneTwisterFast( _randomSeed );
         _LOG.debug( "Using random seed ["
-                + seed
+                + _randomSeed
                 + "]" );
 
         // Get the agent count
@@ -161,6 +183,12 @@ public class SimulationState
                 + _singleInitiatorOnly
                 + "]" );
 
+        // Build the metrics registry
+        _metrics = MetricsRegistry.build( props );
+
+        // Build the stopping rule
+        _stoppingRule = SequentialStoppingRule.build( props );
+
         // Build and initialize the observer manager
         _obsManager = new ObserverManager();
         _obsManager.initialize( this );
@@ -179,6 +207,27 @@ public class SimulationState
     }
 
 
+    /**
+     * Returns the metrics registry of the simulation
+     *
+     * @return The metrics registry
+     */
+    public MetricsRegistry getMetrics()
+    {
+        return _metrics;
+    }
+
+    /**
+     * Returns the rule deciding when enough simulation runs have been
+     * gathered
+     *
+     * @return The stopping rule
+     */
+    public SequentialStoppingRule getStoppingRule()
+    {
+        return _stoppingRule;
+    }
+
     /**
      * Returns the observer manager for the simulation
      *
@@ -214,6 +263,71 @@ public class SimulationState
         }
     }
 
+    /**
+     * Writes the state carried over between simulation runs, i.e., the
+     * current simulation run, the agents and the random number generator
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        out.writeLong( _randomSeed );
+        out.writeInt( _currentSimulationRun );
+
+        out.writeInt( _agents.size() );
+        for( Agent agent : _agents )
+        {
+            agent.writeCheckpoint( out );
+        }
+
+        // The random number generator goes last
+        _random.writeState( out );
+    }
+
+    /**
+     * Reads the state carried over between simulation runs.  The simulation
+     * state must already be initialized using the same properties and hold
+     * the same agents.
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        long randomSeed = in.readLong();
+        if( randomSeed != _randomSeed )
+        {
+            throw new IOException( "Checkpoint was written using random seed ["
+                    + randomSeed
+                    + "], not ["
+                    + _randomSeed
+                    + "]" );
+        }
+        _currentSimulationRun = in.readInt();
+
+        int agentCount = in.readInt();
+        if( agentCount != _agents.size() )
+        {
+            throw new IOException( "Checkpoint has ["
+                    + agentCount
+                    + "] agents, not ["
+                    + _agents.size()
+                    + "]" );
+        }
+        for( Agent agent : _agents )
+        {
+            agent.readCheckpoint( in );
+        }
+
+        // Restore the random numbers only after everything is rebuilt
+        _random.readState( in );
+    }
+
     /**
      * Sets up the simulation for the next run step
      */
@@ -221,6 +335,9 @@ public class SimulationState
     {
         // Increment the simulation run step count
         _currentSimulationStep++;
+
+        // Rebuild the spatial index using the agents' current positions
+        _spatialIndex.rebuild( _agents );
     }
 
     /**
@@ -283,6 +400,16 @@ public class SimulationState
         _agents.add( agent );
     }
 
+    /**
+     * Returns the spatial index of the agents for the current step
+     *
+     * @return The spatial index
+     */
+    public SpatialIndex getSpatialIndex()
+    {
+        return _spatialIndex;
+    }
+
     /**
      * Returns an iterator over all the simulated agents
      *
@@ -352,4 +479,23 @@ public class SimulationState
     {
         _haltSimulation = true;
     }
+
+    /**
+     * Determines if no more simulation runs should be performed
+     *
+     * @return <code>true</code> if the simulation runs have been stopped,
+     * otherwise, <code>false</code>
+     */
+    public boolean haveSimulationRunsBeenStopped()
+    {
+        return _stopSimulationRuns;
+    }
+
+    /**
+     * Signals the simulator that no more simulation runs should be performed
+     */
+    public void stopSimulationRuns()
+    {
+        _stopSimulationRuns = true;
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.spatial;
+
+// Imports
+import edu.snu.leader.util.UniformGrid;
+import org.apache.commons.lang.Validate;
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * SpatialIndex
+ *
+ * Uniform grid over the agents' positions used to answer nearest neighbor
+ * queries.  The grid is rebuilt once per simulation step, after which
+ * topological (k nearest) and metric (within a distance) queries only
+ * examine the cells around the querying agent.  Neighbors are returned
+ * sorted from closest to farthest, with ties broken by the order in which
+ * the agents were added to the simulation.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class SpatialIndex
+{
+    /** The agents in the index */
+    private Agent[] _agents = new Agent[0];
+
+    /** The index of each agent */
+    private Map<Agent, Integer> _agentIndices = new HashMap<Agent, Integer>();
+
+    /** The x coordinate of each agent */
+    private double[] _x = new double[0];
+
+    /** The y coordinate of each agent */
+    private double[] _y = new double[0];
+
+    /** The grid over the agents' positions */
+    private UniformGrid _grid = new UniformGrid();
+
+
+    /**
+     * Rebuilds the index using the agents' current positions
+     *
+     * @param agents All the agents in the simulation
+     */
+    public void rebuild( List<Agent> agents )
+    {
+        int agentCount = agents.size();
+
+        // Did the agents change?
+        if( (_agents.length != agentCount)
+                || !Arrays.asList( _agents ).equals( agents ) )
+        {
+            // Yup
+            _agents = agents.toArray( new Agent[agentCount] );
+            _agentIndices.clear();
+            for( int i = 0; i < agentCount; i++ )
+            {
+                _agentIndices.put( _agents[i], i );
+            }
+            _x = new double[agentCount];
+            _y = new double[agentCount];
+        }
+
+        // Get the positions
+        for( int i = 0; i < agentCount; i++ )
+        {
+            Vector2D position = _agents[i].getSpatialState().getPosition();
+            _x[i] = position.getX();
+            _y[i] = position.getY();
+        }
+
+        // Size the cells so that there is about one agent per cell
+        _grid.rebuild( _x, _y, agentCount, 1.0 );
+    }
+
+    /**
+     * Finds the specified number of agents nearest to the agent
+     *
+     * @param agent The agent
+     * @param count The number of neighbors to find
+     * @return The nearest neighbors sorted from closest to farthest
+     */
+    public List<Agent> findNearestNeighbors( Agent agent, int count )
+    {
+        UniformGrid.Neighbors nearest = new UniformGrid.Neighbors();
+        _grid.findNearest( getAgentIndex( agent ),
+                count,
+                Double.POSITIVE_INFINITY,
+                UniformGrid.Measure.FLOAT_DISTANCE_SQUARED,
+                nearest );
+        return buildNeighbors( nearest );
+    }
+
+    /**
+     * Finds all the agents within the specified distance of the agent
+     *
+     * @param agent The agent
+     * @param distance The distance
+     * @return The neighbors sorted from closest to farthest
+     */
+    public List<Agent> findNeighborsWithinDistance( Agent agent, float distance )
+    {
+        // Distances are compared the same way as the agents' positions do
+        float distanceSqrd = distance * distance;
+
+        UniformGrid.Neighbors neighbors = new UniformGrid.Neighbors();
+        _grid.findWithinDistance( getAgentIndex( agent ),
+                distance,
+                distanceSqrd,
+                UniformGrid.Measure.FLOAT_DISTANCE_SQUARED,
+                true,
+                neighbors );
+        return buildNeighbors( neighbors );
+    }
+
+    /**
+     * Returns the index of the specified agent
+     *
+     * @param agent The agent
+     * @return The agent's index
+     */
+    private int getAgentIndex( Agent agent )
+    {
+        Integer index = _agentIndices.get( agent );
+        Validate.notNull( index, "Agent ["
+                + agent.getID()
+                + "] is not in the spatial index" );
+        return index.intValue();
+    }
+
+    /**
+     * Builds the list of agents found by a query of the grid
+     *
+     * @param neighbors The neighbors found
+     * @return The agents in the same order
+     */
+    private List<Agent> buildNeighbors( UniformGrid.Neighbors neighbors )
+    {
+        List<Agent> agents = new ArrayList<Agent>( neighbors.size() );
+        for( int i = 0; i < neighbors.size(); i++ )
+        {
+            agents.add( _agents[ neighbors.getIndex( i ) ] );
+        }
+
+        return agents;
+    }
+}
@@ -19,9 +19,21 @@
 package edu.snu.leader.spatial;
 
 // Imports
+import edu.snu.leader.util.MetricsRegistry;
 import edu.snu.leader.util.MiscUtils;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Properties;
 
@@ -47,6 +59,23 @@ public class SpatialSimulator
     /** Key for the agent builder class name */
     private static final String _AGENT_BUILDER_CLASS = "agent-builder";
 
+    /** Key for the results file */
+    private static final String _RESULTS_FILE_KEY = "results-file";
+
+    /** Key for the number of simulation runs between checkpoints */
+    private static final String _CHECKPOINT_INTERVAL_KEY = "checkpoint-interval";
+
+    /** Key for the checkpoint file */
+    private static final String _CHECKPOINT_FILE_KEY = "checkpoint-file";
+
+    /** Command-line argument to resume from the last checkpoint */
+    private static final String _RESUME_ARG = "--resume";
+
+    /** The value identifying a checkpoint ("SPSC") */
+    private static final int _CHECKPOINT_MAGIC = 0x53505343;
+
+    /** The version of the checkpoint format */
+    private static final int _CHECKPOINT_VERSION = 1;
 
 
     /** The simulation state */
@@ -58,6 +87,30 @@ public class SpatialSimulator
     /** The agent builder */
     private AgentBuilder _agentBuilder = null;
 
+    /** Times the set up of each simulation step */
+    private MetricsRegistry.Timer _stepSetupTimer = null;
+
+    /** Times the dispatch of the step signals to the observers */
+    private MetricsRegistry.Timer _observerDispatchTimer = null;
+
+    /** Times the agents' decisions */
+    private MetricsRegistry.Timer _decisionTimer = null;
+
+    /** Times the agents' execution of their decisions */
+    private MetricsRegistry.Timer _executionTimer = null;
+
+    /** Counts the simulation steps */
+    private MetricsRegistry.Counter _stepCounter = null;
+
+    /** The number of simulation runs between checkpoints (zero for none) */
+    private int _checkpointInterval = 0;
+
+    /** The checkpoint file */
+    private String _checkpointFile = null;
+
+    /** Flag denoting whether to resume from the last checkpoint */
+    private boolean _resume = false;
+
 //    /** The observer manager */
 //    private ObserverManager _obsManager = null;
 
@@ -87,6 +140,14 @@ public class SpatialSimulator
                 "Agent builder class name" );
         _agentBuilder.initialize( _simState );
 
+        // Get the metrics
+        MetricsRegistry metrics = _simState.getMetrics();
+        _stepSetupTimer = metrics.getTimer( "step-setup" );
+        _observerDispatchTimer = metrics.getTimer( "observer-dispatch" );
+        _decisionTimer = metrics.getTimer( "decision" );
+        _executionTimer = metrics.getTimer( "execution" );
+        _stepCounter = metrics.getCounter( "simulation-steps" );
+
         // Build the agents
         buildAgents();
 
@@ -94,9 +155,60 @@ public class SpatialSimulator
 //        _obsManager = new ObserverManager();
 //        _obsManager.initialize( _simState );
 
+        // Get the number of simulation runs between checkpoints
+        String checkpointIntervalStr = _props.getProperty(
+                _CHECKPOINT_INTERVAL_KEY );
+        if( null != checkpointIntervalStr )
+        {
+            _checkpointInterval = Integer.parseInt( checkpointIntervalStr );
+            Validate.isTrue( 0 <= _checkpointInterval,
+                    "Checkpoint interval (key="
+                    + _CHECKPOINT_INTERVAL_KEY
+                    + ") may not be negative" );
+            _LOG.info( "Using _checkpointInterval=["
+                    + _checkpointInterval
+                    + "]" );
+        }
+
+        // Get the checkpoint file
+        _checkpointFile = _props.getProperty( _CHECKPOINT_FILE_KEY );
+        if( (null == _checkpointFile)
+                && ((0 < _checkpointInterval) || _resume) )
+        {
+            _checkpointFile = buildCheckpointFilename(
+                    _props.getProperty( _RESULTS_FILE_KEY ) );
+        }
+
+        // Pick up where the checkpoint left off
+        if( _resume )
+        {
+            if( (new File( _checkpointFile )).exists() )
+            {
+                readCheckpoint();
+            }
+            else
+            {
+                _LOG.warn( "No checkpoint ["
+                        + _checkpointFile
+                        + "] was found, so all the simulation runs are executed" );
+            }
+        }
+
         _LOG.trace( "Leaving initialize()" );
     }
 
+    /**
+     * Sets the flag denoting whether or not the simulation resumes from its
+     * last checkpoint.  If there is no checkpoint, it starts from the
+     * beginning.  It must be set before the simulation is initialized.
+     *
+     * @param resume The flag
+     */
+    public void setResume( boolean resume )
+    {
+        _resume = resume;
+    }
+
     /**
      * Executes a series of simulation runs
      */
@@ -108,8 +220,9 @@ public class SpatialSimulator
         _simState.getObserverManager().signalSimSetup();
 
         // Perform a series of simulation runs
-        while( _simState.getCurrentSimulationRun()
-                < _simState.getSimulationRunCount() )
+        while( (_simState.getCurrentSimulationRun()
+                < _simState.getSimulationRunCount())
+                && !_simState.haveSimulationRunsBeenStopped() )
         {
             if( 0 == (_simState.getCurrentSimulationRun() % 250) )
             {
@@ -120,11 +233,38 @@ public class SpatialSimulator
 
             // Execute a single run
             executeRun();
+
+            // Periodically save our progress
+            int completedRuns = _simState.getCurrentSimulationRun();
+            if( (0 < _checkpointInterval)
+                    && (0 == (completedRuns % _checkpointInterval))
+                    && (completedRuns < _simState.getSimulationRunCount())
+                    && !_simState.haveSimulationRunsBeenStopped() )
+            {
+                writeCheckpoint();
+            }
         }
 
         // Signal the listeners that we are finished
         _simState.getObserverManager().signalSimTearDown();
 
+        // The checkpoint is no longer needed
+        if( (null != _checkpointFile)
+                && (new File( _checkpointFile )).exists()
+                && !(new File( _checkpointFile )).delete() )
+        {
+            _LOG.warn( "Unable to delete checkpoint file ["
+                    + _checkpointFile
+                    + "]" );
+        }
+
+        // Dump the metrics alongside the results
+        String resultsFile = _props.getProperty( _RESULTS_FILE_KEY );
+        if( null != resultsFile )
+        {
+            _simState.getMetrics().writeSummary( resultsFile.trim() );
+        }
+
         _LOG.trace( "Leaving execute()" );
     }
 
@@ -145,27 +285,38 @@ public class SpatialSimulator
         while( isSimActive() )
         {
             // Tell the simulator state that the next simulation step is ready
+            long start = _stepSetupTimer.start();
             _simState.setupNextSimulationRunStep();
+            _stepSetupTimer.stop( start );
+            _stepCounter.increment();
 
             // Signal the listeners
+            start = _observerDispatchTimer.start();
             _simState.getObserverManager().signalSimRunStepSetup();
+            _observerDispatchTimer.stop( start );
 
             // Have all the agents make their decisions
+            start = _decisionTimer.start();
             Iterator<Agent> iter = _simState.getAgentIterator();
             while( iter.hasNext() )
             {
                 iter.next().makeDecision();
             }
+            _decisionTimer.stop( start );
 
             // Have all the agents execute their decisions
+            start = _executionTimer.start();
             iter = _simState.getAgentIterator();
             while( iter.hasNext() )
             {
                 iter.next().execute();
             }
+            _executionTimer.stop( start );
 
             // Signal the listeners that the step is done
+            start = _observerDispatchTimer.start();
             _simState.getObserverManager().signalSimRunStepTearDown();
+            _observerDispatchTimer.stop( start );
         }
 
         // Signal the listeners that we are done with a run
@@ -198,6 +349,139 @@ public class SpatialSimulator
         _LOG.trace( "Leaving buildAgents()" );
     }
 
+    /**
+     * Writes everything carried over between simulation runs to the
+     * checkpoint file.  The checkpoint is written to a temporary file that
+     * then replaces the previous checkpoint, so there is always a complete
+     * checkpoint even if the simulation is stopped while writing it.
+     */
+    private void writeCheckpoint()
+    {
+        _LOG.trace( "Entering writeCheckpoint()" );
+
+        File checkpoint = new File( _checkpointFile );
+        File tmpCheckpoint = new File( _checkpointFile + ".tmp" );
+        try
+        {
+            FileOutputStream fileOut = new FileOutputStream( tmpCheckpoint );
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream( fileOut ) );
+            try
+            {
+                out.writeInt( _CHECKPOINT_MAGIC );
+                out.writeInt( _CHECKPOINT_VERSION );
+                out.writeInt( _simState.getSimulationRunCount() );
+
+                // Write the state of everything carried over between runs
+                _simState.writeCheckpoint( out );
+                _simState.getObserverManager().writeCheckpoint( out );
+
+                // Make sure it is on disk before it replaces the last one
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            finally
+            {
+                out.close();
+            }
+
+            Files.move( tmpCheckpoint.toPath(),
+                    checkpoint.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to write checkpoint file ["
+                    + _checkpointFile
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to write checkpoint file ["
+                    + _checkpointFile
+                    + "]", ioe );
+        }
+
+        _LOG.info( "Wrote checkpoint after simulation run ["
+                + _simState.getCurrentSimulationRun()
+                + "]" );
+
+        _LOG.trace( "Leaving writeCheckpoint()" );
+    }
+
+    /**
+     * Reads everything carried over between simulation runs from the
+     * checkpoint file
+     */
+    private void readCheckpoint()
+    {
+        _LOG.trace( "Entering readCheckpoint()" );
+
+        try
+        {
+            DataInputStream in = new DataInputStream( new BufferedInputStream(
+                    new FileInputStream( _checkpointFile ) ) );
+            try
+            {
+                if( (_CHECKPOINT_MAGIC != in.readInt())
+                        || (_CHECKPOINT_VERSION != in.readInt()) )
+                {
+                    throw new IOException( "Not a valid checkpoint" );
+                }
+                int simulationRunCount = in.readInt();
+                if( simulationRunCount != _simState.getSimulationRunCount() )
+                {
+                    throw new IOException( "Checkpoint is for ["
+                            + simulationRunCount
+                            + "] simulation runs, not ["
+                            + _simState.getSimulationRunCount()
+                            + "]" );
+                }
+
+                // Read the state of everything carried over between runs
+                _simState.readCheckpoint( in );
+                _simState.getObserverManager().readCheckpoint( in );
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to read checkpoint file ["
+                    + _checkpointFile
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to read checkpoint file ["
+                    + _checkpointFile
+                    + "]", ioe );
+        }
+
+        _LOG.warn( "Resuming from checkpoint ["
+                + _checkpointFile
+                + "] after simulation run ["
+                + _simState.getCurrentSimulationRun()
+                + "]" );
+
+        _LOG.trace( "Leaving readCheckpoint()" );
+    }
+
+    /**
+     * Builds the name of the checkpoint file using the results file
+     *
+     * @param resultsFile The name of the results file
+     * @return The name of the checkpoint file
+     */
+    private String buildCheckpointFilename( String resultsFile )
+    {
+        Validate.notEmpty( resultsFile, "Results file may not be empty" );
+        resultsFile = resultsFile.trim();
+        int lastDotIdx = resultsFile.lastIndexOf( '.' );
+        if( 0 > lastDotIdx )
+        {
+            lastDotIdx = resultsFile.length();
+        }
+
+        return resultsFile.substring( 0, lastDotIdx ) + ".checkpoint";
+    }
+
     /**
      * Returns a flag denoting whether or not the simulation run is still active
      *
@@ -244,6 +528,7 @@ public class SpatialSimulator
         {
             // Build, initialize, run
             SpatialSimulator sim = new SpatialSimulator();
+            sim.setResume( Arrays.asList( args ).contains( _RESUME_ARG ) );
             sim.initialize();
             sim.execute();
         }
@@ -58,6 +58,14 @@ public class PersonalityAgentBuilder extends AbstractAgentBuilder
     /** Key for the communication type */
     private static final String _COMMUNICATION_TYPE_KEY = "communication-type";
 
+    /** Key for the number of neighbors used in topological communication */
+    private static final String _NEAREST_NEIGHBOR_COUNT_KEY =
+            "nearest-neighbor-count";
+
+    /** Key for the neighbor distance used in metric communication */
+    private static final String _NEAREST_NEIGHBOR_DISTANCE_KEY =
+            "nearest-neighbor-distance";
+
     /** Key for the cancel threshold */
     private static final String _CANCEL_THRESHOLD_KEY = "cancel-threshold";
 
@@ -87,6 +95,12 @@ public class PersonalityAgentBuilder extends AbstractAgentBuilder
     /** The type of communication between agents */
     private AgentCommunicationType _communicationType = null;
 
+    /** The number of neighbors used in topological communication */
+    private int _nearestNeighborCount = 0;
+
+    /** The neighbor distance used in metric communication */
+    private float _nearestNeighborDistance = 0.0f;
+
     /** Movement behavior for initiation decisions */
     private MovementBehavior _initiateMovementBehavior = null;
 
@@ -143,6 +157,29 @@ public class PersonalityAgentBuilder extends AbstractAgentBuilder
                 + _communicationType
                 + "]" );
 
+        // Get the nearest neighbor count for topological communication
+        String nearestNeighborCountStr = props.getProperty(
+                _NEAREST_NEIGHBOR_COUNT_KEY );
+        if( null != nearestNeighborCountStr )
+        {
+            _nearestNeighborCount = Integer.parseInt( nearestNeighborCountStr );
+        }
+        _LOG.info( "Using _nearestNeighborCount=["
+                + _nearestNeighborCount
+                + "]" );
+
+        // Get the nearest neighbor distance for metric communication
+        String nearestNeighborDistanceStr = props.getProperty(
+                _NEAREST_NEIGHBOR_DISTANCE_KEY );
+        if( null != nearestNeighborDistanceStr )
+        {
+            _nearestNeighborDistance = Float.parseFloat(
+                    nearestNeighborDistanceStr );
+        }
+        _LOG.info( "Using _nearestNeighborDistance=["
+                + _nearestNeighborDistance
+                + "]" );
+
         // Load and instantiate the initiation movement behavior
         String inititateMovementBehaviorClassName = props.getProperty(
                 _INITIATE_MOVEMENT_BEHAVIOR_CLASS );
@@ -245,6 +282,8 @@ public class PersonalityAgentBuilder extends AbstractAgentBuilder
                 conflictTrait,
                 spatialState,
                 _communicationType,
+                _nearestNeighborCount,
+                _nearestNeighborDistance,
                 _initiateMovementBehavior.copy(),
                 _followMovementBehavior.copy(),
                 _cancelMovementBehavior.copy(),
@@ -21,10 +21,13 @@ package edu.snu.leader.spatial.observer;
 import edu.snu.leader.spatial.Agent;
 import edu.snu.leader.spatial.DecisionEvent;
 import edu.snu.leader.spatial.PersonalityUpdateEvent;
+import edu.snu.leader.spatial.SimEventType;
 import edu.snu.leader.spatial.SimObserver;
 import edu.snu.leader.spatial.SimulationRunHaltReason;
 // Imports
 import edu.snu.leader.spatial.SimulationState;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * AbstractSimObserver
@@ -53,6 +56,20 @@ public class AbstractSimObserver implements SimObserver
         _simState = simState;
     }
 
+    /**
+     * Returns the events observed by this observer.  By default, all the
+     * events are observed, so subclasses should only return those whose
+     * callbacks they override.
+     *
+     * @return The observed events
+     * @see edu.snu.leader.spatial.SimObserver#getObservedEvents()
+     */
+    @Override
+    public Set<SimEventType> getObservedEvents()
+    {
+        return EnumSet.allOf( SimEventType.class );
+    }
+
     /**
      * Prepares the simulation for execution
      *
@@ -23,8 +23,11 @@ import edu.snu.leader.spatial.Agent;
 import edu.snu.leader.spatial.DecisionEvent;
 import edu.snu.leader.spatial.DecisionType;
 import edu.snu.leader.spatial.Group;
+import edu.snu.leader.spatial.SimEventType;
 import edu.snu.leader.spatial.SimulationRunHaltReason;
 import org.apache.log4j.Logger;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * AllAgentsDepartedSimObserver
@@ -40,6 +43,18 @@ public class AllAgentsDepartedSimObserver extends AbstractSimObserver
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger( AllAgentsDepartedSimObserver.class.getName() );
 
+    /**
+     * Returns the events observed by this observer
+     *
+     * @return The observed events
+     * @see edu.snu.leader.spatial.observer.AbstractSimObserver#getObservedEvents()
+     */
+    @Override
+    public Set<SimEventType> getObservedEvents()
+    {
+        return EnumSet.of( SimEventType.AGENT_DECIDED );
+    }
+
     /**
      * Performs any processing necessary to handle an agent making a decision
      *
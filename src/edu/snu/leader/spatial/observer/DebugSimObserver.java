@@ -22,9 +22,12 @@ package edu.snu.leader.spatial.observer;
 import edu.snu.leader.spatial.Agent;
 import edu.snu.leader.spatial.DecisionEvent;
 import edu.snu.leader.spatial.PersonalityUpdateEvent;
+import edu.snu.leader.spatial.SimEventType;
 import edu.snu.leader.spatial.SimulationRunHaltReason;
 import edu.snu.leader.spatial.SimulationState;
 import org.apache.log4j.Logger;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * DebugSimObserver
@@ -63,6 +66,24 @@ public class DebugSimObserver extends AbstractSimObserver
         _LOG.trace( "Leaving simSetup()" );
     }
 
+    /**
+     * Returns the events observed by this observer.  Since it only logs
+     * debug statements, it doesn't observe anything unless debugging is
+     * enabled.
+     *
+     * @return The observed events
+     * @see edu.snu.leader.spatial.observer.AbstractSimObserver#getObservedEvents()
+     */
+    @Override
+    public Set<SimEventType> getObservedEvents()
+    {
+        if( _LOG.isDebugEnabled() )
+        {
+            return EnumSet.allOf( SimEventType.class );
+        }
+        return EnumSet.noneOf( SimEventType.class );
+    }
+
     /**
      * Prepares the simulation for execution
      *
@@ -19,10 +19,13 @@
 package edu.snu.leader.spatial.observer;
 
 // Imports
+import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.Set;
 import edu.snu.leader.spatial.Agent;
 import edu.snu.leader.spatial.DecisionEvent;
 import edu.snu.leader.spatial.PersonalityTrait;
+import edu.snu.leader.spatial.SimEventType;
 import org.apache.log4j.Logger;
 
 /**
@@ -47,6 +50,20 @@ public class PersonalityUpdateSimObserver extends AbstractSimObserver
     /** The last simulation step in which the personality was updated */
     private long _lastSimStepUpdate = -1l;
 
+    /**
+     * Returns the events observed by this observer
+     *
+     * @return The observed events
+     * @see edu.snu.leader.spatial.observer.AbstractSimObserver#getObservedEvents()
+     */
+    @Override
+    public Set<SimEventType> getObservedEvents()
+    {
+        return EnumSet.of( SimEventType.SIM_RUN_STEP_TEAR_DOWN,
+                SimEventType.SIM_RUN_TEAR_DOWN,
+                SimEventType.AGENT_DECIDED );
+    }
+
     /**
      * Performs any processing necessary to handle an agent making a decision
      *
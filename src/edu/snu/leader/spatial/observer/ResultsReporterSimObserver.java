@@ -23,25 +23,35 @@ import edu.snu.leader.spatial.Agent;
 import edu.snu.leader.spatial.AgentSpatialState;
 import edu.snu.leader.spatial.DecisionEvent;
 import edu.snu.leader.spatial.DecisionType;
+import edu.snu.leader.spatial.Group;
 import edu.snu.leader.spatial.PersonalityTrait;
 import edu.snu.leader.spatial.PersonalityUpdateEvent;
+import edu.snu.leader.spatial.PersonalityUpdateType;
+import edu.snu.leader.spatial.SimEventType;
 import edu.snu.leader.spatial.SimulationRunHaltReason;
 import edu.snu.leader.spatial.SimulationState;
+import edu.snu.leader.util.AsyncResultsWriter;
+import edu.snu.leader.util.Checkpointable;
+import edu.snu.leader.util.SequentialStoppingRule;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * ResultsReporterSimObserver
@@ -52,6 +62,7 @@ import java.util.Properties;
  * @version $Revision$ ($Author$)
  */
 public class ResultsReporterSimObserver extends AbstractSimObserver
+        implements Checkpointable
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
@@ -118,11 +129,18 @@ public class ResultsReporterSimObserver extends AbstractSimObserver
     /** The writer to which the results are reported */
     private PrintWriter _writer = null;
 
+    /** The writer thread to which the results are handed off */
+    private AsyncResultsWriter _asyncWriter = null;
+
     /** The reason the last simulation ended */
     private SimulationRunHaltReason _lastSimHaltReason = null;
 
     private long _initiationCount = 0;
     private long _successCount = 0;
+
+    /** The number of simulation runs in which each number of agents departed */
+    private int[] _movementCounts = new int[0];
+
     private Map<Agent, List<PersonalityUpdateEvent>> _agentPersonalityUpdates =
             new HashMap<Agent, List<PersonalityUpdateEvent>>();
     private Map<Agent, AgentInitiationHistory> _agentInitiationHistories =
@@ -159,8 +177,9 @@ public class ResultsReporterSimObserver extends AbstractSimObserver
         // Create the statistics writer
         try
         {
-            _writer = new PrintWriter( new BufferedWriter(
-                    new FileWriter( resultsFile ) ) );
+            _asyncWriter = new AsyncResultsWriter( "results-writer" );
+            _writer = new PrintWriter( _asyncWriter.wrap( new BufferedWriter(
+                    new FileWriter( resultsFile ) ) ) );
         }
         catch( IOException ioe )
         {
@@ -192,10 +211,29 @@ public class ResultsReporterSimObserver extends AbstractSimObserver
         _writer.println();
         _writer.flush();
 
+        // Count the runs in which each number of agents departed
+        _movementCounts = new int[ simState.getAgentCount() + 1 ];
+
 
         _LOG.trace( "Leaving initialize( simState, keyPrefix )" );
     }
 
+    /**
+     * Returns the events observed by this observer
+     *
+     * @return The observed events
+     * @see edu.snu.leader.spatial.observer.AbstractSimObserver#getObservedEvents()
+     */
+    @Override
+    public Set<SimEventType> getObservedEvents()
+    {
+        return EnumSet.of( SimEventType.SIM_RUN_TEAR_DOWN,
+                SimEventType.SIM_TEAR_DOWN,
+                SimEventType.AGENT_DECIDED,
+                SimEventType.PERSONALITY_UPDATED,
+                SimEventType.SIM_RUN_HALTED );
+    }
+
     /**
      * Performs any cleanup after a simulation run has finished execution
      *
@@ -217,6 +255,18 @@ public class ResultsReporterSimObserver extends AbstractSimObserver
         }
         _currentInitiators.clear();
 
+        // Count the agents that departed
+        _movementCounts[ _simState.getAgentCount() - Group.NONE.getSize() ]++;
+
+        // Stop once the results are precise enough
+        if( _simState.getStoppingRule().hasConverged(
+                _simState.getCurrentSimulationRun(),
+                (int) _successCount,
+                Collections.singletonList( _movementCounts ) ) )
+        {
+            _simState.stopSimulationRuns();
+        }
+
         // Reset the last sim halt reason
         _lastSimHaltReason = null;
     }
@@ -234,13 +284,27 @@ public class ResultsReporterSimObserver extends AbstractSimObserver
         _writer.println( "# Initiation stats" );
         _writer.println( "initiations = " + _initiationCount );
         _writer.println( "successes = " + _successCount );
-        _writer.println( "total-simulations = " + _simState.getSimulationRunCount() );
+        _writer.println( "total-simulations = " + _simState.getCurrentSimulationRun() );
         _writer.println( "total-successful-simulations = " + _successCount );
         _writer.println( "total-leadership-success = "
-                    + (((float) _successCount) / ((float) _simState.getSimulationRunCount())) );
+                    + (((float) _successCount) / ((float) _simState.getCurrentSimulationRun())) );
         _writer.println();
         _writer.println();
 
+        // Print out the precision of the results if they could stop early
+        SequentialStoppingRule stoppingRule = _simState.getStoppingRule();
+        if( stoppingRule.isEnabled() )
+        {
+            _writer.println( _SPACER );
+            _writer.println( "# Stopping rule precision" );
+            stoppingRule.reportPrecision( _writer,
+                    _simState.getCurrentSimulationRun(),
+                    (int) _successCount,
+                    Collections.singletonList( _movementCounts ) );
+            _writer.println();
+            _writer.println();
+        }
+
         // Print out the agent initiation stats
         _writer.println( _SPACER );
         _writer.println( "# Agent initiation stats" );
@@ -305,8 +369,9 @@ public class ResultsReporterSimObserver extends AbstractSimObserver
         // Log the stop time
         _writer.println( "# Stopped: " + (new Date()) );
 
-        // Close the results writer
+        // Close the results writer and wait for the results to be written
         _writer.close();
+        _asyncWriter.close();
     }
 
     /**
@@ -388,6 +453,128 @@ public class ResultsReporterSimObserver extends AbstractSimObserver
         }
     }
 
+    /**
+     * Writes the results gathered so far.  They are only written to the
+     * results file once the simulation is finished, so nothing needs to be
+     * done to the results file itself.
+     *
+     * @param out The checkpoint
+     * @throws IOException If the results can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        out.writeLong( _initiationCount );
+        out.writeLong( _successCount );
+        out.writeInt( _movementCounts.length );
+        for( int i = 0; i < _movementCounts.length; i++ )
+        {
+            out.writeInt( _movementCounts[i] );
+        }
+
+        // Write the history of each agent in order
+        Iterator<Agent> agentIter = _simState.getAgentIterator();
+        while( agentIter.hasNext() )
+        {
+            Agent agent = agentIter.next();
+
+            AgentInitiationHistory history = _agentInitiationHistories.get( agent );
+            out.writeBoolean( null != history );
+            if( null != history )
+            {
+                out.writeInt( history._initiations );
+                out.writeInt( history._successes );
+                out.writeInt( history._failures );
+            }
+
+            List<PersonalityUpdateEvent> updates =
+                    _agentPersonalityUpdates.get( agent );
+            out.writeInt( (null == updates) ? -1 : updates.size() );
+            if( null != updates )
+            {
+                Iterator<PersonalityUpdateEvent> updateIter = updates.iterator();
+                while( updateIter.hasNext() )
+                {
+                    PersonalityUpdateEvent event = updateIter.next();
+                    out.writeByte( event.getType().ordinal() );
+                    out.writeFloat( event.getPreviousPersonality() );
+                    out.writeFloat( event.getUpdatedPersonality() );
+                    out.writeLong( event.getSimRunStep() );
+                    out.writeLong( event.getSimRun() );
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the results gathered before the checkpoint
+     *
+     * @param in The checkpoint
+     * @throws IOException If the results can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        _initiationCount = in.readLong();
+        _successCount = in.readLong();
+        int movementCountsLength = in.readInt();
+        if( movementCountsLength != _movementCounts.length )
+        {
+            throw new IOException( "Checkpoint has movement counts for ["
+                    + (movementCountsLength - 1)
+                    + "] agents, not ["
+                    + (_movementCounts.length - 1)
+                    + "]" );
+        }
+        for( int i = 0; i < _movementCounts.length; i++ )
+        {
+            _movementCounts[i] = in.readInt();
+        }
+
+        // Read the history of each agent in order
+        _agentInitiationHistories.clear();
+        _agentPersonalityUpdates.clear();
+        PersonalityUpdateType[] updateTypes = PersonalityUpdateType.values();
+        Iterator<Agent> agentIter = _simState.getAgentIterator();
+        while( agentIter.hasNext() )
+        {
+            Agent agent = agentIter.next();
+
+            if( in.readBoolean() )
+            {
+                AgentInitiationHistory history = new AgentInitiationHistory();
+                history._initiations = in.readInt();
+                history._successes = in.readInt();
+                history._failures = in.readInt();
+                _agentInitiationHistories.put( agent, history );
+            }
+
+            int updateCount = in.readInt();
+            if( 0 <= updateCount )
+            {
+                List<PersonalityUpdateEvent> updates =
+                        new LinkedList<PersonalityUpdateEvent>();
+                for( int i = 0; i < updateCount; i++ )
+                {
+                    PersonalityUpdateType type = updateTypes[ in.readByte() ];
+                    float previousPersonality = in.readFloat();
+                    float updatedPersonality = in.readFloat();
+                    long simRunStep = in.readLong();
+                    long simRun = in.readLong();
+                    updates.add( new PersonalityUpdateEvent( type,
+                            previousPersonality,
+                            updatedPersonality,
+                            agent,
+                            simRunStep,
+                            simRun ) );
+                }
+                _agentPersonalityUpdates.put( agent, updates );
+            }
+        }
+    }
+
     private void describeAgent( Agent agent )
     {
         // Build the prefix
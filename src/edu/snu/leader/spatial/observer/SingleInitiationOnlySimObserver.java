@@ -22,7 +22,10 @@ package edu.snu.leader.spatial.observer;
 import edu.snu.leader.spatial.Agent;
 import edu.snu.leader.spatial.DecisionEvent;
 import edu.snu.leader.spatial.DecisionType;
+import edu.snu.leader.spatial.SimEventType;
 import edu.snu.leader.spatial.SimulationRunHaltReason;
+import java.util.EnumSet;
+import java.util.Set;
 
 
 /**
@@ -36,6 +39,18 @@ import edu.snu.leader.spatial.SimulationRunHaltReason;
 public class SingleInitiationOnlySimObserver extends AbstractSimObserver
 {
 
+    /**
+     * Returns the events observed by this observer
+     *
+     * @return The observed events
+     * @see edu.snu.leader.spatial.observer.AbstractSimObserver#getObservedEvents()
+     */
+    @Override
+    public Set<SimEventType> getObservedEvents()
+    {
+        return EnumSet.of( SimEventType.AGENT_DECIDED );
+    }
+
     /**
      * Performs any processing necessary to handle an agent making a decision
      *
@@ -25,9 +25,14 @@ import edu.snu.leader.spatial.DecisionType;
 import edu.snu.leader.spatial.PersonalityTrait;
 import edu.snu.leader.spatial.PersonalityUpdateEvent;
 import edu.snu.leader.spatial.PersonalityUpdateType;
+import edu.snu.leader.spatial.SimEventType;
 import edu.snu.leader.spatial.SimulationState;
+import edu.snu.leader.util.Checkpointable;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
 
@@ -40,7 +45,8 @@ import java.util.Properties;
  * @author Brent Eskridge
  * @version $Revision$ ($Author$)
  */
-public class StandardUpdatePersonalityTrait implements PersonalityTrait
+public class StandardUpdatePersonalityTrait
+        implements PersonalityTrait, Checkpointable
 {
     /** Our logger */
     private static final Logger _LOG = Logger.getLogger(
@@ -463,8 +469,10 @@ public class StandardUpdatePersonalityTrait implements PersonalityTrait
             updateType = PersonalityUpdateType.BYSTANDER_LOSER;
         }
 
-        // Was there an update?
-        if( null != updateType )
+        // Was there an update that someone is observing?
+        if( (null != updateType)
+                && _simState.getObserverManager().isObserved(
+                        SimEventType.PERSONALITY_UPDATED ) )
         {
             // Yup
             _simState.getObserverManager().signalPersonalityUpdateEvent(
@@ -491,6 +499,33 @@ public class StandardUpdatePersonalityTrait implements PersonalityTrait
         _lastCancelThresholdReachedGroupID = null;
     }
 
+    /**
+     * Writes the personality, the only value carried over between
+     * simulation runs
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     * @see edu.snu.leader.util.Checkpointable#writeCheckpoint(java.io.DataOutputStream)
+     */
+    @Override
+    public void writeCheckpoint( DataOutputStream out ) throws IOException
+    {
+        out.writeFloat( _personality );
+    }
+
+    /**
+     * Reads the personality
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     * @see edu.snu.leader.util.Checkpointable#readCheckpoint(java.io.DataInputStream)
+     */
+    @Override
+    public void readCheckpoint( DataInputStream in ) throws IOException
+    {
+        _personality = in.readFloat();
+    }
+
     /**
      * Updates the personality using the specified reward and discount values
      *
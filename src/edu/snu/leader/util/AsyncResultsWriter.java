@@ -0,0 +1,540 @@
+/*
+ * COPYRIGHT
+ */
+package edu.snu.leader.util;
+
+// Imports
+import org.apache.commons.lang.Validate;
+import org.apache.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AsyncResultsWriter
+ *
+ * Moves the writing of results off of the simulation threads.  Writes are
+ * queued as jobs in a bounded queue and executed, in order, by a dedicated
+ * writer thread.  Writers are only flushed once the writer thread has
+ * emptied the queue, so bursts of writes are flushed as a single batch.
+ * A full queue blocks the submitting thread until the writer thread
+ * catches up.
+ * <p>
+ * Writes are submitted either through a {@link Writer} built by
+ * {@link #wrap(Writer)}, usually wrapped in a <code>PrintWriter</code>, or
+ * by appending text to a file with {@link #append(String, String)}.  Any
+ * write failure is reported by {@link #drain()} and {@link #close()}.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class AsyncResultsWriter
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            AsyncResultsWriter.class.getName() );
+
+    /** The default number of jobs that may be queued */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** The number of characters a wrapped writer gathers before it queues
+     *  them without waiting for a flush */
+    private static final int _CHUNK_SIZE = 1 << 13;
+
+
+    /**
+     * A write to be executed by the writer thread
+     */
+    private abstract static class WriteJob
+    {
+        /**
+         * Executes the write
+         *
+         * @throws IOException If the write fails
+         */
+        abstract void execute() throws IOException;
+    }
+
+    /**
+     * A writer that queues the text written to it as jobs that write it to
+     * the underlying writer
+     */
+    private class QueuedWriter extends Writer
+    {
+        /** The underlying writer */
+        private final Writer _out;
+
+        /** The text written since the last job was queued */
+        private StringBuilder _pending = new StringBuilder();
+
+        /** Flag denoting whether or not this writer has been closed */
+        private boolean _closed = false;
+
+        /**
+         * Builds this QueuedWriter object
+         *
+         * @param out The underlying writer
+         */
+        QueuedWriter( Writer out )
+        {
+            _out = out;
+        }
+
+        /**
+         * Gathers the specified characters
+         *
+         * @see java.io.Writer#write(char[], int, int)
+         */
+        @Override
+        public void write( char[] cbuf, int off, int len ) throws IOException
+        {
+            checkOpen();
+            _pending.append( cbuf, off, len );
+            if( _CHUNK_SIZE <= _pending.length() )
+            {
+                queuePending();
+            }
+        }
+
+        /**
+         * Queues the gathered text.  The underlying writer is flushed once
+         * the writer thread is idle.
+         *
+         * @see java.io.Writer#flush()
+         */
+        @Override
+        public void flush() throws IOException
+        {
+            checkOpen();
+            queuePending();
+        }
+
+        /**
+         * Queues the gathered text and the closing of the underlying writer
+         *
+         * @see java.io.Writer#close()
+         */
+        @Override
+        public void close() throws IOException
+        {
+            if( _closed )
+            {
+                return;
+            }
+            queuePending();
+            _closed = true;
+            submit( new WriteJob() {
+                @Override
+                void execute() throws IOException
+                {
+                    _dirtyWriters.remove( _out );
+                    _out.close();
+                }
+            } );
+        }
+
+        /**
+         * Queues a job writing the gathered text
+         *
+         * @throws IOException If an earlier write failed
+         */
+        private void queuePending() throws IOException
+        {
+            if( null != _failure )
+            {
+                throw new IOException( "Unable to write results", _failure );
+            }
+            if( 0 == _pending.length() )
+            {
+                return;
+            }
+            final String text = _pending.toString();
+            _pending.setLength( 0 );
+            submit( new WriteJob() {
+                @Override
+                void execute() throws IOException
+                {
+                    _out.write( text );
+                    _dirtyWriters.put( _out, _out );
+                }
+            } );
+        }
+
+        /**
+         * Ensures this writer hasn't been closed
+         *
+         * @throws IOException If it has been closed
+         */
+        private void checkOpen() throws IOException
+        {
+            if( _closed )
+            {
+                throw new IOException( "Writer has been closed" );
+            }
+        }
+    }
+
+
+    /** The queued jobs */
+    private final BlockingQueue<WriteJob> _queue;
+
+    /** The job that stops the writer thread */
+    private final WriteJob _stopJob = new WriteJob() {
+        @Override
+        void execute()
+        {
+            // Handled by the writer thread
+        }
+    };
+
+    /** The writer thread */
+    private final Thread _writerThread;
+
+    /** The writers written to since they were last flushed, only used by
+     *  the writer thread */
+    private final Map<Writer,Writer> _dirtyWriters =
+            new IdentityHashMap<Writer,Writer>();
+
+    /** The number of jobs submitted */
+    private final AtomicLong _submittedCount = new AtomicLong();
+
+    /** The number of jobs completed, guarded by this object's lock */
+    private long _completedCount = 0;
+
+    /** The first write failure */
+    private volatile IOException _failure = null;
+
+    /** Flag denoting whether or not this writer has been closed */
+    private boolean _closed = false;
+
+
+    /**
+     * Builds this AsyncResultsWriter object with the default capacity
+     *
+     * @param name The name of the writer thread
+     */
+    public AsyncResultsWriter( String name )
+    {
+        this( name, DEFAULT_CAPACITY );
+    }
+
+    /**
+     * Builds this AsyncResultsWriter object and starts its writer thread
+     *
+     * @param name The name of the writer thread
+     * @param capacity The number of jobs that may be queued
+     */
+    public AsyncResultsWriter( String name, int capacity )
+    {
+        Validate.notEmpty( name, "Writer thread name may not be empty" );
+        Validate.isTrue( 0 < capacity, "Capacity must be positive" );
+        _queue = new ArrayBlockingQueue<WriteJob>( capacity );
+
+        _writerThread = new Thread( new Runnable() {
+            @Override
+            public void run()
+            {
+                processJobs();
+            }
+        }, name );
+        _writerThread.setDaemon( true );
+        _writerThread.start();
+    }
+
+    /**
+     * Builds a writer whose writes are executed by the writer thread.
+     * Closing the returned writer closes the specified writer once all the
+     * text written before it has been written.
+     *
+     * @param out The writer to which the text is eventually written
+     * @return The writer
+     */
+    public Writer wrap( Writer out )
+    {
+        Validate.notNull( out, "Writer may not be null" );
+        return new QueuedWriter( out );
+    }
+
+    /**
+     * Appends the specified text to the specified file
+     *
+     * @param filename The name of the file
+     * @param text The text
+     */
+    public void append( final String filename, final String text )
+    {
+        Validate.notEmpty( filename, "Filename may not be empty" );
+        submit( new WriteJob() {
+            @Override
+            void execute() throws IOException
+            {
+                Writer out = new BufferedWriter( new FileWriter( filename, true ) );
+                try
+                {
+                    out.write( text );
+                }
+                finally
+                {
+                    out.close();
+                }
+            }
+        } );
+    }
+
+    /**
+     * Appends the contents of the specified source file to the specified
+     * file and deletes the source file
+     *
+     * @param filename The name of the file
+     * @param source The source file
+     */
+    public void appendAndDelete( final String filename, final File source )
+    {
+        Validate.notEmpty( filename, "Filename may not be empty" );
+        Validate.notNull( source, "Source file may not be null" );
+        submit( new WriteJob() {
+            @Override
+            void execute() throws IOException
+            {
+                FileChannel in = new FileInputStream( source ).getChannel();
+                FileChannel out = new FileOutputStream( filename, true ).getChannel();
+                try
+                {
+                    long position = 0;
+                    long size = in.size();
+                    while( position < size )
+                    {
+                        position += in.transferTo( position,
+                                size - position,
+                                out );
+                    }
+                }
+                finally
+                {
+                    in.close();
+                    out.close();
+                }
+
+                if( !source.delete() )
+                {
+                    _LOG.warn( "Unable to delete file [" + source + "]" );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Waits until all the jobs submitted so far have been executed and
+     * their writers flushed
+     */
+    public void drain()
+    {
+        long target = _submittedCount.get();
+        synchronized( this )
+        {
+            while( (_completedCount < target) && _writerThread.isAlive() )
+            {
+                try
+                {
+                    wait();
+                }
+                catch( InterruptedException ie )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(
+                            "Interrupted while draining results writer ["
+                            + _writerThread.getName()
+                            + "]", ie );
+                }
+            }
+        }
+
+        checkCompleted( target );
+    }
+
+    /**
+     * Waits until all the submitted jobs have been executed and stops the
+     * writer thread
+     */
+    public void close()
+    {
+        if( _closed )
+        {
+            return;
+        }
+        _closed = true;
+        submit( _stopJob );
+        try
+        {
+            _writerThread.join();
+        }
+        catch( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Interrupted while closing results writer ["
+                    + _writerThread.getName()
+                    + "]", ie );
+        }
+
+        checkCompleted( _submittedCount.get() );
+    }
+
+    /**
+     * Ensures that none of the writes failed and that the writer thread
+     * completed the specified number of jobs before it stopped
+     *
+     * @param target The number of jobs that should be completed
+     */
+    private void checkCompleted( long target )
+    {
+        if( null != _failure )
+        {
+            throw new RuntimeException( "Unable to write results in ["
+                    + _writerThread.getName()
+                    + "]", _failure );
+        }
+
+        long completedCount = 0;
+        synchronized( this )
+        {
+            completedCount = _completedCount;
+        }
+        if( completedCount < target )
+        {
+            throw new RuntimeException( "Results writer ["
+                    + _writerThread.getName()
+                    + "] stopped with ["
+                    + (target - completedCount)
+                    + "] jobs unwritten" );
+        }
+    }
+
+    /**
+     * Queues the specified job, waiting for room in the queue if necessary
+     *
+     * @param job The job
+     */
+    private void submit( WriteJob job )
+    {
+        _submittedCount.incrementAndGet();
+        try
+        {
+            _queue.put( job );
+        }
+        catch( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Interrupted while queueing results in ["
+                    + _writerThread.getName()
+                    + "]", ie );
+        }
+    }
+
+    /**
+     * Executes queued jobs until the stop job is found
+     */
+    private void processJobs()
+    {
+        List<WriteJob> batch = new ArrayList<WriteJob>();
+        long unflushedCount = 0;
+        boolean stopped = false;
+        while( !stopped )
+        {
+            // Wait for a job and grab any others already queued
+            try
+            {
+                batch.add( _queue.take() );
+            }
+            catch( InterruptedException ie )
+            {
+                _LOG.error( "Results writer ["
+                        + _writerThread.getName()
+                        + "] was interrupted", ie );
+                break;
+            }
+            _queue.drainTo( batch );
+
+            // Execute them
+            Iterator<WriteJob> jobIter = batch.iterator();
+            while( jobIter.hasNext() )
+            {
+                WriteJob job = jobIter.next();
+                if( _stopJob == job )
+                {
+                    stopped = true;
+                }
+                else if( null == _failure )
+                {
+                    try
+                    {
+                        job.execute();
+                    }
+                    catch( IOException ioe )
+                    {
+                        _LOG.error( "Unable to write results", ioe );
+                        _failure = ioe;
+                    }
+                }
+            }
+
+            // Jobs only count as completed once their writes are flushed,
+            // which happens when we are idle
+            unflushedCount += batch.size();
+            batch.clear();
+            if( _queue.isEmpty() || stopped )
+            {
+                flushDirtyWriters();
+                synchronized( this )
+                {
+                    _completedCount += unflushedCount;
+                    notifyAll();
+                }
+                unflushedCount = 0;
+            }
+        }
+
+        // Wake anyone still waiting on an interrupted writer thread
+        synchronized( this )
+        {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Flushes all the writers written to since they were last flushed
+     */
+    private void flushDirtyWriters()
+    {
+        Iterator<Writer> writerIter = _dirtyWriters.keySet().iterator();
+        while( writerIter.hasNext() )
+        {
+            Writer writer = writerIter.next();
+            if( null == _failure )
+            {
+                try
+                {
+                    writer.flush();
+                }
+                catch( IOException ioe )
+                {
+                    _LOG.error( "Unable to flush results", ioe );
+                    _failure = ioe;
+                }
+            }
+        }
+        _dirtyWriters.clear();
+    }
+}
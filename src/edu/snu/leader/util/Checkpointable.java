@@ -0,0 +1,56 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.util;
+
+// Imports
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Checkpointable
+ *
+ * A component whose state carries over from one simulation run to the
+ * next.  Its state is written to a checkpoint between runs and read back
+ * when a simulation resumes from that checkpoint.  A component reads its
+ * state after it has been initialized with the same properties, so only
+ * the values that change while the simulation runs need to be written.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public interface Checkpointable
+{
+    /**
+     * Writes the state of this component to the checkpoint
+     *
+     * @param out The checkpoint
+     * @throws IOException If the state can't be written
+     */
+    public void writeCheckpoint( DataOutputStream out ) throws IOException;
+
+    /**
+     * Reads the state of this component from the checkpoint
+     *
+     * @param in The checkpoint
+     * @throws IOException If the state can't be read
+     */
+    public void readCheckpoint( DataInputStream in ) throws IOException;
+
+}
@@ -0,0 +1,626 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.util;
+
+// Imports
+import org.apache.commons.lang.Validate;
+import org.apache.log4j.Logger;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+
+/**
+ * MetricsRegistry
+ *
+ * A lightweight registry of named counters, nanosecond timers and
+ * histograms used to find where the time goes inside a simulation.  The
+ * simulators fetch their metrics once and keep them, so recording a value
+ * is only a few arithmetic operations.
+ * <p>
+ * Metrics are disabled by default.  A disabled registry hands out shared
+ * metrics that record nothing and whose timers never read the clock, so
+ * the instrumentation costs nothing when it is switched off.
+ * <p>
+ * A registry isn't thread-safe.  Simulations running in parallel each keep
+ * their own registry and merge them once they are finished.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class MetricsRegistry
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            MetricsRegistry.class.getName() );
+
+    /** Key for the flag denoting whether or not metrics are gathered */
+    private static final String _METRICS_ENABLED_KEY = "metrics-enabled";
+
+    /** The suffix added to a results file to build its metrics summary file */
+    private static final String _SUMMARY_SUFFIX = "-metrics";
+
+    /** The number of histogram buckets, one for each power of two */
+    private static final int _BUCKET_COUNT = 64;
+
+    /** The percentiles reported in the summary */
+    private static final int[] _PERCENTILES = { 50, 90, 99 };
+
+
+    /**
+     * A count of occurrences
+     */
+    public static class Counter
+    {
+        /** Flag denoting whether or not this counter records anything */
+        private final boolean _enabled;
+
+        /** The count */
+        private long _count = 0;
+
+        /**
+         * Builds this Counter object
+         *
+         * @param enabled Flag denoting whether or not it records anything
+         */
+        Counter( boolean enabled )
+        {
+            _enabled = enabled;
+        }
+
+        /**
+         * Increments the count by one
+         */
+        public void increment()
+        {
+            if( _enabled )
+            {
+                _count++;
+            }
+        }
+
+        /**
+         * Adds the specified amount to the count
+         *
+         * @param amount The amount
+         */
+        public void add( long amount )
+        {
+            if( _enabled )
+            {
+                _count += amount;
+            }
+        }
+
+        /**
+         * Returns the count
+         *
+         * @return The count
+         */
+        public long getCount()
+        {
+            return _count;
+        }
+    }
+
+    /**
+     * The distribution of recorded values.  Values are gathered into
+     * buckets by their highest bit, so percentiles are only approximate.
+     */
+    public static class Histogram
+    {
+        /** Flag denoting whether or not this histogram records anything */
+        private final boolean _enabled;
+
+        /** The number of values in each bucket */
+        private final long[] _buckets = new long[ _BUCKET_COUNT ];
+
+        /** The number of values recorded */
+        private long _count = 0;
+
+        /** The sum of the values recorded */
+        private long _sum = 0;
+
+        /** The smallest value recorded */
+        private long _min = Long.MAX_VALUE;
+
+        /** The largest value recorded */
+        private long _max = Long.MIN_VALUE;
+
+        /**
+         * Builds this Histogram object
+         *
+         * @param enabled Flag denoting whether or not it records anything
+         */
+        Histogram( boolean enabled )
+        {
+            _enabled = enabled;
+        }
+
+        /**
+         * Records the specified value.  Negative values are recorded as zero.
+         *
+         * @param value The value
+         */
+        public void record( long value )
+        {
+            if( !_enabled )
+            {
+                return;
+            }
+            if( 0 > value )
+            {
+                value = 0;
+            }
+            _buckets[ Math.max( 0,
+                    _BUCKET_COUNT - 1 - Long.numberOfLeadingZeros( value ) ) ]++;
+            _count++;
+            _sum += value;
+            if( value < _min )
+            {
+                _min = value;
+            }
+            if( value > _max )
+            {
+                _max = value;
+            }
+        }
+
+        /**
+         * Returns the number of values recorded
+         *
+         * @return The number of values recorded
+         */
+        public long getCount()
+        {
+            return _count;
+        }
+
+        /**
+         * Returns the sum of the values recorded
+         *
+         * @return The sum
+         */
+        public long getSum()
+        {
+            return _sum;
+        }
+
+        /**
+         * Returns the approximate value below which the specified percentage
+         * of the recorded values fall.  This is the upper bound of the
+         * bucket holding the percentile, limited by the largest value.
+         *
+         * @param percentile The percentile
+         * @return The approximate value
+         */
+        public long getPercentile( int percentile )
+        {
+            if( 0 == _count )
+            {
+                return 0;
+            }
+            long threshold = (long) Math.ceil( _count * (percentile / 100.0) );
+            long seen = 0;
+            for( int i = 0; i < _BUCKET_COUNT; i++ )
+            {
+                seen += _buckets[i];
+                if( (0 < seen) && (seen >= threshold) )
+                {
+                    long upper = (i < (_BUCKET_COUNT - 2))
+                            ? (1L << (i + 1)) - 1
+                            : Long.MAX_VALUE;
+                    return Math.max( _min, Math.min( upper, _max ) );
+                }
+            }
+            return _max;
+        }
+
+        /**
+         * Adds the values recorded by the specified histogram to this one
+         *
+         * @param other The other histogram
+         */
+        void merge( Histogram other )
+        {
+            for( int i = 0; i < _BUCKET_COUNT; i++ )
+            {
+                _buckets[i] += other._buckets[i];
+            }
+            _count += other._count;
+            _sum += other._sum;
+            _min = Math.min( _min, other._min );
+            _max = Math.max( _max, other._max );
+        }
+
+        /**
+         * Writes this histogram to the summary
+         *
+         * @param writer The summary writer
+         * @param prefix The prefix of the keys
+         */
+        void write( PrintWriter writer, String prefix )
+        {
+            writer.println( prefix + ".count = " + _count );
+            writer.println( prefix + ".total = " + _sum );
+            if( 0 < _count )
+            {
+                writer.println( prefix + ".mean = " + ((double) _sum / _count) );
+                writer.println( prefix + ".min = " + _min );
+                writer.println( prefix + ".max = " + _max );
+                for( int i = 0; i < _PERCENTILES.length; i++ )
+                {
+                    writer.println( prefix
+                            + ".p"
+                            + _PERCENTILES[i]
+                            + " = "
+                            + getPercentile( _PERCENTILES[i] ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * The distribution of the elapsed times of an operation, in nanoseconds.
+     * An operation is timed as follows:
+     * <pre>
+     *     long start = timer.start();
+     *     ...
+     *     timer.stop( start );
+     * </pre>
+     */
+    public static class Timer
+    {
+        /** Flag denoting whether or not this timer records anything */
+        private final boolean _enabled;
+
+        /** The elapsed times */
+        private final Histogram _times;
+
+        /**
+         * Builds this Timer object
+         *
+         * @param enabled Flag denoting whether or not it records anything
+         */
+        Timer( boolean enabled )
+        {
+            _enabled = enabled;
+            _times = new Histogram( enabled );
+        }
+
+        /**
+         * Starts timing an operation
+         *
+         * @return The start time, or zero if the timer is disabled
+         */
+        public long start()
+        {
+            if( _enabled )
+            {
+                return System.nanoTime();
+            }
+            return 0;
+        }
+
+        /**
+         * Stops timing an operation and records its elapsed time
+         *
+         * @param start The start time returned by {@link #start()}
+         */
+        public void stop( long start )
+        {
+            if( _enabled )
+            {
+                _times.record( System.nanoTime() - start );
+            }
+        }
+
+        /**
+         * Returns the distribution of the elapsed times
+         *
+         * @return The elapsed times
+         */
+        public Histogram getTimes()
+        {
+            return _times;
+        }
+    }
+
+
+    /** Flag denoting whether or not metrics are gathered */
+    private final boolean _enabled;
+
+    /** The counters */
+    private final Map<String, Counter> _counters =
+            new TreeMap<String, Counter>();
+
+    /** The timers */
+    private final Map<String, Timer> _timers = new TreeMap<String, Timer>();
+
+    /** The histograms */
+    private final Map<String, Histogram> _histograms =
+            new TreeMap<String, Histogram>();
+
+    /** The counter handed out when metrics are disabled */
+    private final Counter _disabledCounter = new Counter( false );
+
+    /** The timer handed out when metrics are disabled */
+    private final Timer _disabledTimer = new Timer( false );
+
+    /** The histogram handed out when metrics are disabled */
+    private final Histogram _disabledHistogram = new Histogram( false );
+
+
+    /**
+     * Builds this MetricsRegistry object
+     *
+     * @param enabled Flag denoting whether or not metrics are gathered
+     */
+    public MetricsRegistry( boolean enabled )
+    {
+        _enabled = enabled;
+    }
+
+    /**
+     * Builds a registry using the metrics flag in the specified properties
+     *
+     * @param props The simulation properties
+     * @return The registry
+     */
+    public static MetricsRegistry build( Properties props )
+    {
+        boolean enabled = false;
+        String enabledStr = props.getProperty( _METRICS_ENABLED_KEY );
+        if( null != enabledStr )
+        {
+            enabled = Boolean.parseBoolean( enabledStr.trim() );
+        }
+        _LOG.info( "Using metricsEnabled=[" + enabled + "]" );
+
+        return new MetricsRegistry( enabled );
+    }
+
+    /**
+     * Returns the name of the metrics summary file written alongside the
+     * specified results file
+     *
+     * @param resultsFile The name of the results file
+     * @return The name of the summary file
+     */
+    public static String buildSummaryFilename( String resultsFile )
+    {
+        int extensionIdx = resultsFile.lastIndexOf( '.' );
+        int separatorIdx = Math.max( resultsFile.lastIndexOf( '/' ),
+                resultsFile.lastIndexOf( '\\' ) );
+        if( extensionIdx <= separatorIdx + 1 )
+        {
+            return resultsFile + _SUMMARY_SUFFIX;
+        }
+        return resultsFile.substring( 0, extensionIdx )
+                + _SUMMARY_SUFFIX
+                + resultsFile.substring( extensionIdx );
+    }
+
+    /**
+     * Returns a flag denoting whether or not metrics are gathered
+     *
+     * @return <code>true</code> if metrics are gathered
+     */
+    public boolean isEnabled()
+    {
+        return _enabled;
+    }
+
+    /**
+     * Returns the counter with the specified name, building it if necessary
+     *
+     * @param name The name of the counter
+     * @return The counter
+     */
+    public Counter getCounter( String name )
+    {
+        if( !_enabled )
+        {
+            return _disabledCounter;
+        }
+        Counter counter = _counters.get( name );
+        if( null == counter )
+        {
+            counter = new Counter( true );
+            _counters.put( name, counter );
+        }
+        return counter;
+    }
+
+    /**
+     * Returns the timer with the specified name, building it if necessary
+     *
+     * @param name The name of the timer
+     * @return The timer
+     */
+    public Timer getTimer( String name )
+    {
+        if( !_enabled )
+        {
+            return _disabledTimer;
+        }
+        Timer timer = _timers.get( name );
+        if( null == timer )
+        {
+            timer = new Timer( true );
+            _timers.put( name, timer );
+        }
+        return timer;
+    }
+
+    /**
+     * Returns the histogram with the specified name, building it if
+     * necessary
+     *
+     * @param name The name of the histogram
+     * @return The histogram
+     */
+    public Histogram getHistogram( String name )
+    {
+        if( !_enabled )
+        {
+            return _disabledHistogram;
+        }
+        Histogram histogram = _histograms.get( name );
+        if( null == histogram )
+        {
+            histogram = new Histogram( true );
+            _histograms.put( name, histogram );
+        }
+        return histogram;
+    }
+
+    /**
+     * Adds the metrics gathered by the specified registry to this one
+     *
+     * @param other The other registry
+     */
+    public void merge( MetricsRegistry other )
+    {
+        if( !_enabled )
+        {
+            return;
+        }
+
+        Iterator<Map.Entry<String, Counter>> counterIter =
+                other._counters.entrySet().iterator();
+        while( counterIter.hasNext() )
+        {
+            Map.Entry<String, Counter> entry = counterIter.next();
+            getCounter( entry.getKey() ).add( entry.getValue().getCount() );
+        }
+
+        Iterator<Map.Entry<String, Timer>> timerIter =
+                other._timers.entrySet().iterator();
+        while( timerIter.hasNext() )
+        {
+            Map.Entry<String, Timer> entry = timerIter.next();
+            getTimer( entry.getKey() ).getTimes().merge(
+                    entry.getValue().getTimes() );
+        }
+
+        Iterator<Map.Entry<String, Histogram>> histogramIter =
+                other._histograms.entrySet().iterator();
+        while( histogramIter.hasNext() )
+        {
+            Map.Entry<String, Histogram> entry = histogramIter.next();
+            getHistogram( entry.getKey() ).merge( entry.getValue() );
+        }
+    }
+
+    /**
+     * Writes a summary of the metrics alongside the specified results file.
+     * Nothing is written if metrics are disabled.
+     *
+     * @param resultsFile The name of the results file
+     */
+    public void writeSummary( String resultsFile )
+    {
+        if( !_enabled )
+        {
+            return;
+        }
+        Validate.notEmpty( resultsFile, "Results file may not be empty" );
+
+        String summaryFile = buildSummaryFilename( resultsFile );
+        _LOG.info( "Writing metrics summary to [" + summaryFile + "]" );
+
+        // The results may not have been written, so make sure the directory exists
+        File parentDir = new File( summaryFile ).getParentFile();
+        if( null != parentDir )
+        {
+            parentDir.mkdirs();
+        }
+
+        PrintWriter writer = null;
+        try
+        {
+            writer = new PrintWriter( new BufferedWriter(
+                    new FileWriter( summaryFile ) ) );
+
+            Iterator<Map.Entry<String, Timer>> timerIter =
+                    _timers.entrySet().iterator();
+            while( timerIter.hasNext() )
+            {
+                Map.Entry<String, Timer> entry = timerIter.next();
+                entry.getValue().getTimes().write( writer,
+                        "timer." + entry.getKey() + "-ns" );
+                writer.println();
+            }
+
+            Iterator<Map.Entry<String, Counter>> counterIter =
+                    _counters.entrySet().iterator();
+            while( counterIter.hasNext() )
+            {
+                Map.Entry<String, Counter> entry = counterIter.next();
+                writer.println( "counter."
+                        + entry.getKey()
+                        + " = "
+                        + entry.getValue().getCount() );
+            }
+            if( !_counters.isEmpty() )
+            {
+                writer.println();
+            }
+
+            Iterator<Map.Entry<String, Histogram>> histogramIter =
+                    _histograms.entrySet().iterator();
+            while( histogramIter.hasNext() )
+            {
+                Map.Entry<String, Histogram> entry = histogramIter.next();
+                entry.getValue().write( writer,
+                        "histogram." + entry.getKey() );
+                writer.println();
+            }
+
+            writer.flush();
+            if( writer.checkError() )
+            {
+                throw new IOException( "Unable to write metrics summary" );
+            }
+        }
+        catch( IOException ioe )
+        {
+            _LOG.error( "Unable to write metrics summary file ["
+                    + summaryFile
+                    + "]", ioe );
+            throw new RuntimeException( "Unable to write metrics summary file ["
+                    + summaryFile
+                    + "]" );
+        }
+        finally
+        {
+            if( null != writer )
+            {
+                writer.close();
+            }
+        }
+    }
+}
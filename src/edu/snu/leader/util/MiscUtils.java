@@ -111,8 +111,7 @@ public class MiscUtils
     {
         _LOG.trace( "Entering loadProperties( propsFileKey )" );
 
-        // Load the specified properties file
-        Properties props = new Properties();
+        // Get the name of the specified properties file
         String propsFilename = System.getProperty( propsFileKey );
         Validate.notEmpty( propsFilename, "Property filename (key=["
                 + propsFileKey
@@ -128,6 +127,42 @@ public class MiscUtils
                     + propsFileKey
                     + "]" );
         }
+        // Load it
+        Properties props = loadPropertiesFile( propsFilename );
+
+        _LOG.trace( "Leaving loadProperties( propsFileKey )" );
+
+        return props;
+    }
+
+
+    /**
+     * Loads the specified properties file.  Any of its properties that are
+     * also specified in the system properties (e.g., on the command line)
+     * use the system property's value.  The system properties are only
+     * read, so this can be called from multiple threads.
+     *
+     * @param propsFilename The name of the properties file
+     * @return The properties
+     */
+    public static Properties loadPropertiesFile( String propsFilename )
+    {
+        _LOG.trace( "Entering loadPropertiesFile( propsFilename )" );
+
+        // Load the specified properties file
+        Properties props = new Properties();
+        Validate.notEmpty( propsFilename, "Property filename may not be empty" );
+        File propsFile = new File( propsFilename );
+        if( !propsFile.exists() )
+        {
+            _LOG.error( "Unable to find properties file ["
+                    + propsFile.getAbsolutePath()
+                    + "]" );
+            throw new RuntimeException(
+                    "Unable to find properties file ["
+                    + propsFile.getAbsolutePath()
+                    + "]" );
+        }
         try
         {
             props.load( new FileInputStream( propsFile ) );
@@ -158,12 +193,11 @@ public class MiscUtils
             }
         }
 
-        _LOG.trace( "Leaving loadProperties( propsFileKey )" );
+        _LOG.trace( "Leaving loadPropertiesFile( propsFilename )" );
 
         return props;
     }
 
-
     /**
      * Loads and instantiates the class with the specified filename
      *
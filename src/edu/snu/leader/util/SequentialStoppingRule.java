@@ -0,0 +1,337 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.util;
+
+// Imports
+import org.apache.commons.lang.Validate;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.log4j.Logger;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * SequentialStoppingRule
+ *
+ * Decides when a series of simulation runs has gathered enough runs that
+ * its results are known to a requested precision.  The precision of a
+ * proportion is the half-width of its Wilson score confidence interval.
+ * The rule monitors the proportion of successful runs and the proportion
+ * of runs in each bin of the movement counts, and is checked once every
+ * batch of runs.  The runs stop once every monitored proportion is at least
+ * as precise as its target.
+ * <p>
+ * The rule is disabled unless a batch size is given.  It keeps no state of
+ * its own, so it is checked using the counts already gathered by the
+ * results reporters.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class SequentialStoppingRule
+{
+    /** Our logger */
+    private static final Logger _LOG = Logger.getLogger(
+            SequentialStoppingRule.class.getName() );
+
+    /** Key for the number of simulation runs between checks */
+    private static final String _BATCH_SIZE_KEY = "stopping-batch-size";
+
+    /** Key for the minimum number of simulation runs */
+    private static final String _MIN_SIMULATIONS_KEY = "stopping-min-simulations";
+
+    /** Key for the target precision of the success proportion */
+    private static final String _SUCCESS_PRECISION_KEY = "stopping-success-precision";
+
+    /** Key for the target precision of the movement proportions */
+    private static final String _MOVEMENT_PRECISION_KEY = "stopping-movement-precision";
+
+    /** Key for the confidence level of the intervals */
+    private static final String _CONFIDENCE_KEY = "stopping-confidence";
+
+    /** The default confidence level */
+    private static final double _DEFAULT_CONFIDENCE = 0.95;
+
+
+    /** The number of simulation runs between checks */
+    private int _batchSize = 0;
+
+    /** The minimum number of simulation runs */
+    private int _minSimulations = 0;
+
+    /** The target precision of the success proportion */
+    private double _successPrecision = 0.0;
+
+    /** The target precision of the movement proportions */
+    private double _movementPrecision = 0.0;
+
+    /** The confidence level of the intervals */
+    private double _confidence = _DEFAULT_CONFIDENCE;
+
+    /** The critical value of the standard normal distribution */
+    private double _z = 0.0;
+
+
+    /**
+     * Builds a stopping rule using the specified properties
+     *
+     * @param props The simulation properties
+     * @return The stopping rule
+     */
+    public static SequentialStoppingRule build( Properties props )
+    {
+        SequentialStoppingRule rule = new SequentialStoppingRule();
+
+        // Get the batch size
+        String batchSizeStr = props.getProperty( _BATCH_SIZE_KEY );
+        if( null != batchSizeStr )
+        {
+            rule._batchSize = Integer.parseInt( batchSizeStr.trim() );
+            Validate.isTrue( 0 <= rule._batchSize,
+                    "Stopping batch size (key="
+                    + _BATCH_SIZE_KEY
+                    + ") may not be negative" );
+        }
+        _LOG.info( "Using _batchSize=[" + rule._batchSize + "]" );
+
+        // The rest only matters if it is enabled
+        if( !rule.isEnabled() )
+        {
+            return rule;
+        }
+
+        // Get the minimum number of simulation runs
+        String minSimulationsStr = props.getProperty( _MIN_SIMULATIONS_KEY );
+        if( null != minSimulationsStr )
+        {
+            rule._minSimulations = Integer.parseInt( minSimulationsStr.trim() );
+            _LOG.info( "Using _minSimulations=["
+                    + rule._minSimulations
+                    + "]" );
+        }
+
+        // Get the target precisions
+        String successPrecisionStr = props.getProperty( _SUCCESS_PRECISION_KEY );
+        if( null != successPrecisionStr )
+        {
+            rule._successPrecision = Double.parseDouble(
+                    successPrecisionStr.trim() );
+            _LOG.info( "Using _successPrecision=["
+                    + rule._successPrecision
+                    + "]" );
+        }
+        String movementPrecisionStr = props.getProperty( _MOVEMENT_PRECISION_KEY );
+        if( null != movementPrecisionStr )
+        {
+            rule._movementPrecision = Double.parseDouble(
+                    movementPrecisionStr.trim() );
+            _LOG.info( "Using _movementPrecision=["
+                    + rule._movementPrecision
+                    + "]" );
+        }
+        Validate.isTrue( (0.0 < rule._successPrecision)
+                || (0.0 < rule._movementPrecision),
+                "A stopping rule requires a success precision (key="
+                + _SUCCESS_PRECISION_KEY
+                + ") or a movement precision (key="
+                + _MOVEMENT_PRECISION_KEY
+                + ")" );
+
+        // Get the confidence level
+        String confidenceStr = props.getProperty( _CONFIDENCE_KEY );
+        if( null != confidenceStr )
+        {
+            rule._confidence = Double.parseDouble( confidenceStr.trim() );
+            Validate.isTrue( (0.0 < rule._confidence)
+                    && (1.0 > rule._confidence),
+                    "Stopping confidence (key="
+                    + _CONFIDENCE_KEY
+                    + ") must be between 0 and 1" );
+        }
+        _LOG.info( "Using _confidence=[" + rule._confidence + "]" );
+        rule._z = new NormalDistribution().inverseCumulativeProbability(
+                1.0 - ((1.0 - rule._confidence) / 2.0) );
+
+        return rule;
+    }
+
+    /**
+     * Returns a flag denoting whether or not the rule can stop the
+     * simulation runs
+     *
+     * @return <code>true</code> if the rule is enabled
+     */
+    public boolean isEnabled()
+    {
+        return (0 < _batchSize);
+    }
+
+    /**
+     * Determines whether or not the results of the simulation runs have
+     * reached the target precisions.  They are only checked at the end of a
+     * batch of runs once the minimum number of runs has been gathered.
+     *
+     * @param simulationCount The number of simulation runs gathered
+     * @param successCount The number of successful simulation runs
+     * @param movementCounts The number of runs in each bin of the movement
+     *                       counts, with one array for each set of bins
+     * @return <code>true</code> if the simulation runs can stop
+     */
+    public boolean hasConverged( int simulationCount,
+            int successCount,
+            List<int[]> movementCounts )
+    {
+        if( !isEnabled()
+                || (simulationCount < _minSimulations)
+                || (0 != (simulationCount % _batchSize)) )
+        {
+            return false;
+        }
+
+        boolean converged = isPrecise( simulationCount,
+                successCount,
+                movementCounts );
+        if( converged )
+        {
+            _LOG.info( "Results converged after ["
+                    + simulationCount
+                    + "] simulation runs" );
+        }
+
+        return converged;
+    }
+
+    /**
+     * Writes the precision achieved by the results of the simulation runs
+     *
+     * @param writer The writer to which the precision is written
+     * @param simulationCount The number of simulation runs gathered
+     * @param successCount The number of successful simulation runs
+     * @param movementCounts The number of runs in each bin of the movement
+     *                       counts, with one array for each set of bins
+     */
+    public void reportPrecision( PrintWriter writer,
+            int simulationCount,
+            int successCount,
+            List<int[]> movementCounts )
+    {
+        writer.println( "stopping-confidence = " + _confidence );
+        writer.println( "stopping-success-precision = " + _successPrecision );
+        writer.println( "stopping-movement-precision = " + _movementPrecision );
+        writer.println( "stopping-simulations = " + simulationCount );
+        writer.println( "stopping-converged = "
+                + isPrecise( simulationCount, successCount, movementCounts ) );
+        writer.println( "achieved-success-precision = "
+                + getHalfWidth( successCount, simulationCount ) );
+        writer.println( "achieved-movement-precision = "
+                + getMaxHalfWidth( movementCounts ) );
+    }
+
+    /**
+     * Determines whether or not every monitored proportion is at least as
+     * precise as its target
+     *
+     * @param simulationCount The number of simulation runs gathered
+     * @param successCount The number of successful simulation runs
+     * @param movementCounts The number of runs in each bin of the movement
+     *                       counts
+     * @return <code>true</code> if the targets are met
+     */
+    private boolean isPrecise( int simulationCount,
+            int successCount,
+            List<int[]> movementCounts )
+    {
+        boolean precise = (0 < simulationCount);
+        if( 0.0 < _successPrecision )
+        {
+            precise &= (getHalfWidth( successCount, simulationCount )
+                    <= _successPrecision);
+        }
+        if( 0.0 < _movementPrecision )
+        {
+            precise &= (getMaxHalfWidth( movementCounts )
+                    <= _movementPrecision);
+        }
+
+        return precise;
+    }
+
+    /**
+     * Returns the largest half-width of the proportions of runs in each bin
+     * of the movement counts.  Each set of bins is its own distribution.
+     *
+     * @param movementCounts The number of runs in each bin
+     * @return The largest half-width
+     */
+    private double getMaxHalfWidth( List<int[]> movementCounts )
+    {
+        double maxHalfWidth = 0.0;
+        Iterator<int[]> iter = movementCounts.iterator();
+        while( iter.hasNext() )
+        {
+            int[] counts = iter.next();
+            int total = 0;
+            for( int i = 0; i < counts.length; i++ )
+            {
+                total += counts[i];
+            }
+
+            // Sets of bins without any runs don't say anything
+            if( 0 == total )
+            {
+                continue;
+            }
+
+            for( int i = 0; i < counts.length; i++ )
+            {
+                maxHalfWidth = Math.max( maxHalfWidth,
+                        getHalfWidth( counts[i], total ) );
+            }
+        }
+
+        return maxHalfWidth;
+    }
+
+    /**
+     * Returns the half-width of the Wilson score interval of a proportion.
+     * Unlike the normal approximation, it doesn't collapse to zero for
+     * proportions that are near zero or one.
+     *
+     * @param count The number of runs counted
+     * @param total The total number of runs
+     * @return The half-width
+     */
+    private double getHalfWidth( int count, int total )
+    {
+        // Nothing is known without any runs
+        if( (0 == total) || (0.0 == _z) )
+        {
+            return 1.0;
+        }
+
+        double n = total;
+        double p = count / n;
+        double zSquared = _z * _z;
+        return (_z / (1.0 + (zSquared / n)))
+                * Math.sqrt( (p * (1.0 - p) / n) + (zSquared / (4.0 * n * n)) );
+    }
+
+}
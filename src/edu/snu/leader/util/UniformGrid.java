@@ -0,0 +1,672 @@
+/*
+ *  The Bio-inspired Leadership Toolkit is a set of tools used to
+ *  simulate the emergence of leaders in multi-agent systems.
+ *  Copyright (C) 2014 Southern Nazarene University
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.snu.leader.util;
+
+// Imports
+import org.apache.commons.lang.Validate;
+import java.util.Arrays;
+
+
+/**
+ * UniformGrid
+ *
+ * Uniform grid over a set of points used to answer nearest neighbor
+ * queries without comparing a point against every other point.  Points are
+ * identified by their index in the coordinate arrays, so each simulator
+ * keeps its own agents and maps the indices found back to them.
+ * <p>
+ * Neighbors are ordered by a key calculated from their distance using a
+ * {@link Measure}, with ties broken by index.  Since each simulator rounds
+ * its distances differently, the measure lets it keep its own ordering.
+ * Topological (k nearest) queries search outward ring by ring, keeping the
+ * nearest points found so far in a bounded max heap, and stop once no
+ * unsearched cell can hold anything as close.  Metric (within a distance)
+ * queries only examine the cells that overlap the distance.
+ * <p>
+ * The grid is a snapshot of the coordinates when it was rebuilt and isn't
+ * thread-safe.
+ *
+ * @author Brent Eskridge
+ * @version $Revision$ ($Author$)
+ */
+public class UniformGrid
+{
+    /** Relative margin keeping a topological search going when an unsearched
+     *  point could be as close as the farthest neighbor found, so rounding
+     *  can't change which of two equally distant points is found */
+    private static final double _SEARCH_MARGIN = 1.0e-6;
+
+
+    /**
+     * The measures of distance used to order neighbors.  Each is a
+     * non-decreasing function of the squared distance.
+     */
+    public enum Measure
+    {
+        /** The squared distance */
+        DISTANCE_SQUARED,
+
+        /** The squared distance rounded to a float */
+        FLOAT_DISTANCE_SQUARED,
+
+        /** The distance */
+        DISTANCE,
+
+        /** The distance rounded to a float */
+        FLOAT_DISTANCE;
+
+        /**
+         * Calculates the key of the specified squared distance
+         *
+         * @param distanceSquared The squared distance
+         * @return The key
+         */
+        public double calculateKey( double distanceSquared )
+        {
+            switch( this )
+            {
+                case FLOAT_DISTANCE_SQUARED:
+                    return (float) distanceSquared;
+                case DISTANCE:
+                    return Math.sqrt( distanceSquared );
+                case FLOAT_DISTANCE:
+                    return (float) Math.sqrt( distanceSquared );
+                default:
+                    return distanceSquared;
+            }
+        }
+    }
+
+
+    /**
+     * The neighbors found by a query.  They can be reused by queries to
+     * avoid building new arrays.
+     */
+    public static class Neighbors
+    {
+        /** The index of each neighbor */
+        private int[] _indices = new int[8];
+
+        /** The key of each neighbor */
+        private double[] _keys = new double[8];
+
+        /** The number of neighbors */
+        private int _size = 0;
+
+        /**
+         * Returns the number of neighbors
+         *
+         * @return The number of neighbors
+         */
+        public int size()
+        {
+            return _size;
+        }
+
+        /**
+         * Returns the index of the specified neighbor
+         *
+         * @param i The neighbor's position
+         * @return The neighbor's index
+         */
+        public int getIndex( int i )
+        {
+            return _indices[i];
+        }
+
+        /**
+         * Returns the key of the specified neighbor
+         *
+         * @param i The neighbor's position
+         * @return The neighbor's key
+         */
+        public double getKey( int i )
+        {
+            return _keys[i];
+        }
+
+        /**
+         * Removes all the neighbors and ensures there is room for the
+         * specified number of them
+         *
+         * @param capacity The number of neighbors
+         */
+        private void reset( int capacity )
+        {
+            _size = 0;
+            ensureCapacity( capacity );
+        }
+
+        /**
+         * Adds the specified neighbor, making room for it if necessary
+         *
+         * @param index The neighbor's index
+         * @param key The neighbor's key
+         */
+        private void add( int index, double key )
+        {
+            ensureCapacity( _size + 1 );
+            _indices[_size] = index;
+            _keys[_size] = key;
+            _size++;
+        }
+
+        /**
+         * Ensures there is room for the specified number of neighbors
+         *
+         * @param capacity The number of neighbors
+         */
+        private void ensureCapacity( int capacity )
+        {
+            if( _indices.length < capacity )
+            {
+                int length = Math.max( capacity, 2 * _indices.length );
+                _indices = Arrays.copyOf( _indices, length );
+                _keys = Arrays.copyOf( _keys, length );
+            }
+        }
+    }
+
+
+    /** The x coordinate of each point */
+    private double[] _x = new double[0];
+
+    /** The y coordinate of each point */
+    private double[] _y = new double[0];
+
+    /** The number of points */
+    private int _pointCount = 0;
+
+    /** The minimum x coordinate of the grid */
+    private double _minX = 0.0;
+
+    /** The minimum y coordinate of the grid */
+    private double _minY = 0.0;
+
+    /** The width and height of a cell */
+    private double _cellSize = 1.0;
+
+    /** The number of columns in the grid */
+    private int _columnCount = 0;
+
+    /** The number of rows in the grid */
+    private int _rowCount = 0;
+
+    /** The start of each cell's points in the cell contents (the entry
+     *  after the last cell is the total number of points) */
+    private int[] _cellStarts = new int[1];
+
+    /** The indices of the points sorted by cell */
+    private int[] _cellContents = new int[0];
+
+    /** The cell of each point */
+    private int[] _pointCells = new int[0];
+
+
+    /**
+     * Rebuilds the grid over the specified points.  The grid keeps the
+     * coordinate arrays, so they may not be changed until the next rebuild.
+     *
+     * @param x The x coordinate of each point
+     * @param y The y coordinate of each point
+     * @param pointCount The number of points
+     * @param pointsPerCell The average number of points in a cell
+     */
+    public void rebuild( double[] x,
+            double[] y,
+            int pointCount,
+            double pointsPerCell )
+    {
+        Validate.isTrue( (pointCount <= x.length) && (pointCount <= y.length),
+                "There must be coordinates for every point" );
+        Validate.isTrue( 0.0 < pointsPerCell,
+                "Points per cell must be positive" );
+        _x = x;
+        _y = y;
+        _pointCount = pointCount;
+        if( _cellContents.length < pointCount )
+        {
+            _cellContents = new int[pointCount];
+            _pointCells = new int[pointCount];
+        }
+
+        if( 0 == pointCount )
+        {
+            _columnCount = 0;
+            _rowCount = 0;
+            Arrays.fill( _cellStarts, 0 );
+            return;
+        }
+
+        // Get the bounds of the points
+        _minX = Double.POSITIVE_INFINITY;
+        _minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < pointCount; i++ )
+        {
+            _minX = Math.min( _minX, x[i] );
+            _minY = Math.min( _minY, y[i] );
+            maxX = Math.max( maxX, x[i] );
+            maxY = Math.max( maxY, y[i] );
+        }
+
+        // Size the cells so that each holds about the requested points
+        double width = maxX - _minX;
+        double height = maxY - _minY;
+        double cellCount = Math.max( 1.0, pointCount / pointsPerCell );
+        _cellSize = Math.sqrt( (width * height) / cellCount );
+        if( !(_cellSize > 0.0) )
+        {
+            // The points are on a line (or a point)
+            _cellSize = Math.max( width, height ) / cellCount;
+        }
+        if( !(_cellSize > 0.0) || Double.isInfinite( _cellSize ) )
+        {
+            _cellSize = 1.0;
+        }
+        _columnCount = (int) Math.min( (width / _cellSize) + 1, pointCount );
+        _rowCount = (int) Math.min( (height / _cellSize) + 1, pointCount );
+
+        // Count the points in each cell
+        int totalCellCount = _columnCount * _rowCount;
+        if( _cellStarts.length < totalCellCount + 1 )
+        {
+            _cellStarts = new int[totalCellCount + 1];
+        }
+        Arrays.fill( _cellStarts, 0 );
+        for( int i = 0; i < pointCount; i++ )
+        {
+            _pointCells[i] = findCell( findColumn( x[i] ), findRow( y[i] ) );
+            _cellStarts[ _pointCells[i] + 1 ]++;
+        }
+        for( int i = 0; i < totalCellCount; i++ )
+        {
+            _cellStarts[i + 1] += _cellStarts[i];
+        }
+
+        // Place the points in their cells (in index order)
+        int[] cellPositions = Arrays.copyOf( _cellStarts, totalCellCount );
+        for( int i = 0; i < pointCount; i++ )
+        {
+            _cellContents[ cellPositions[ _pointCells[i] ]++ ] = i;
+        }
+    }
+
+    /**
+     * Returns the number of points in the grid
+     *
+     * @return The number of points
+     */
+    public int getPointCount()
+    {
+        return _pointCount;
+    }
+
+    /**
+     * Finds up to the specified number of points nearest to a point whose
+     * keys are no greater than the specified key
+     *
+     * @param index The index of the point
+     * @param count The maximum number of neighbors to find
+     * @param maxKey The largest key of a neighbor
+     * @param measure The measure used to calculate the keys
+     * @param nearest The neighbors found, sorted from closest to farthest
+     */
+    public void findNearest( int index,
+            int count,
+            double maxKey,
+            Measure measure,
+            Neighbors nearest )
+    {
+        count = Math.min( count, _pointCount - 1 );
+        nearest.reset( Math.max( count, 0 ) );
+        if( count <= 0 )
+        {
+            return;
+        }
+
+        // Keep the nearest points found so far in a max heap
+        double[] heapKeys = nearest._keys;
+        int[] heapIndices = nearest._indices;
+        int heapSize = 0;
+
+        // Search the rings of cells around the point's cell
+        int column = findColumn( _x[index] );
+        int row = findRow( _y[index] );
+        int maxRing = Math.max( Math.max( column, _columnCount - 1 - column ),
+                Math.max( row, _rowCount - 1 - row ) );
+        for( int ring = 0; ring <= maxRing; ring++ )
+        {
+            /* A point in this ring may be as close as one cell less than the
+             * ring.  Stop once that is beyond the largest key or, if we have
+             * enough neighbors, beyond all of them. */
+            if( ring > 1 )
+            {
+                double searchedDistance = (ring - 1) * _cellSize;
+                double searchedKey = measure.calculateKey( searchedDistance
+                        * searchedDistance * (1.0 - _SEARCH_MARGIN) );
+                if( (searchedKey > maxKey)
+                        || ((heapSize == count)
+                                && (heapKeys[0] < searchedKey)) )
+                {
+                    break;
+                }
+            }
+
+            for( int r = row - ring; r <= row + ring; r++ )
+            {
+                if( (r < 0) || (r >= _rowCount) )
+                {
+                    continue;
+                }
+
+                // Only the edges of the ring are new
+                boolean edgeRow = (Math.abs( r - row ) == ring);
+                int step = (edgeRow ? 1 : Math.max( 1, 2 * ring ));
+                for( int c = column - ring; c <= column + ring; c += step )
+                {
+                    if( (c < 0) || (c >= _columnCount) )
+                    {
+                        continue;
+                    }
+
+                    int cell = findCell( c, r );
+                    for( int i = _cellStarts[cell]; i < _cellStarts[cell + 1]; i++ )
+                    {
+                        int neighborIndex = _cellContents[i];
+                        if( neighborIndex == index )
+                        {
+                            continue;
+                        }
+
+                        double key = calculateKey( index,
+                                neighborIndex,
+                                measure );
+                        if( !(key <= maxKey) )
+                        {
+                            continue;
+                        }
+
+                        if( heapSize < count )
+                        {
+                            // Add it to the heap
+                            heapKeys[heapSize] = key;
+                            heapIndices[heapSize] = neighborIndex;
+                            siftUp( heapKeys, heapIndices, heapSize );
+                            heapSize++;
+                        }
+                        else if( isCloser( key,
+                                neighborIndex,
+                                heapKeys[0],
+                                heapIndices[0] ) )
+                        {
+                            // Replace the farthest point in the heap
+                            heapKeys[0] = key;
+                            heapIndices[0] = neighborIndex;
+                            siftDown( heapKeys, heapIndices, heapSize );
+                        }
+                    }
+                }
+            }
+        }
+
+        sortHeap( heapKeys, heapIndices, heapSize );
+        nearest._size = heapSize;
+    }
+
+    /**
+     * Finds all the points within the specified distance of a point whose
+     * keys are no greater than the specified key
+     *
+     * @param index The index of the point
+     * @param distance The distance within which are neighbors
+     * @param maxKey The largest key of a neighbor
+     * @param measure The measure used to calculate the keys
+     * @param sortByDistance Flag denoting whether the neighbors are sorted
+     *                       from closest to farthest or by index
+     * @param neighbors The neighbors found
+     */
+    public void findWithinDistance( int index,
+            double distance,
+            double maxKey,
+            Measure measure,
+            boolean sortByDistance,
+            Neighbors neighbors )
+    {
+        neighbors.reset( 0 );
+        if( 0 == _pointCount )
+        {
+            return;
+        }
+
+        // Get the cells that overlap the distance
+        int minColumn = findColumn( _x[index] - distance );
+        int maxColumn = findColumn( _x[index] + distance );
+        int minRow = findRow( _y[index] - distance );
+        int maxRow = findRow( _y[index] + distance );
+
+        // Find all the points in those cells with a small enough key
+        for( int r = minRow; r <= maxRow; r++ )
+        {
+            for( int c = minColumn; c <= maxColumn; c++ )
+            {
+                int cell = findCell( c, r );
+                for( int i = _cellStarts[cell]; i < _cellStarts[cell + 1]; i++ )
+                {
+                    int neighborIndex = _cellContents[i];
+                    if( neighborIndex == index )
+                    {
+                        continue;
+                    }
+
+                    double key = calculateKey( index, neighborIndex, measure );
+                    if( key <= maxKey )
+                    {
+                        neighbors.add( neighborIndex, key );
+                    }
+                }
+            }
+        }
+
+        if( sortByDistance )
+        {
+            // Sort them using a heap
+            for( int i = 1; i < neighbors._size; i++ )
+            {
+                siftUp( neighbors._keys, neighbors._indices, i );
+            }
+            sortHeap( neighbors._keys, neighbors._indices, neighbors._size );
+        }
+        else
+        {
+            // Sort them by index and recalculate their keys
+            Arrays.sort( neighbors._indices, 0, neighbors._size );
+            for( int i = 0; i < neighbors._size; i++ )
+            {
+                neighbors._keys[i] = calculateKey( index,
+                        neighbors._indices[i],
+                        measure );
+            }
+        }
+    }
+
+    /**
+     * Calculates the key of the distance between two points
+     *
+     * @param first The index of the first point
+     * @param second The index of the second point
+     * @param measure The measure used to calculate the key
+     * @return The key
+     */
+    private double calculateKey( int first, int second, Measure measure )
+    {
+        double dx = _x[second] - _x[first];
+        double dy = _y[second] - _y[first];
+        return measure.calculateKey( (dx * dx) + (dy * dy) );
+    }
+
+    /**
+     * Returns the column containing the x coordinate
+     *
+     * @param x The x coordinate
+     * @return The column
+     */
+    private int findColumn( double x )
+    {
+        int column = (int) Math.floor( (x - _minX) / _cellSize );
+        return Math.max( 0, Math.min( _columnCount - 1, column ) );
+    }
+
+    /**
+     * Returns the row containing the y coordinate
+     *
+     * @param y The y coordinate
+     * @return The row
+     */
+    private int findRow( double y )
+    {
+        int row = (int) Math.floor( (y - _minY) / _cellSize );
+        return Math.max( 0, Math.min( _rowCount - 1, row ) );
+    }
+
+    /**
+     * Returns the cell at the specified column and row
+     *
+     * @param column The column
+     * @param row The row
+     * @return The cell
+     */
+    private int findCell( int column, int row )
+    {
+        return (row * _columnCount) + column;
+    }
+
+    /**
+     * Sorts the points in a max heap in place from closest to farthest
+     *
+     * @param keys The keys in the heap
+     * @param indices The point indices in the heap
+     * @param size The size of the heap
+     */
+    private static void sortHeap( double[] keys, int[] indices, int size )
+    {
+        for( int i = size - 1; i > 0; i-- )
+        {
+            // The root is the farthest remaining point
+            double key = keys[0];
+            int index = indices[0];
+            keys[0] = keys[i];
+            indices[0] = indices[i];
+            siftDown( keys, indices, i );
+            keys[i] = key;
+            indices[i] = index;
+        }
+    }
+
+    /**
+     * Returns a flag denoting whether or not the first point is closer than
+     * the second
+     *
+     * @param firstKey The key of the first point
+     * @param firstIndex The index of the first point
+     * @param secondKey The key of the second point
+     * @param secondIndex The index of the second point
+     * @return <code>true</code> if the first point is closer, otherwise,
+     * <code>false</code>
+     */
+    private static boolean isCloser( double firstKey,
+            int firstIndex,
+            double secondKey,
+            int secondIndex )
+    {
+        return (firstKey < secondKey)
+                || ((firstKey == secondKey) && (firstIndex < secondIndex));
+    }
+
+    /**
+     * Moves the entry at the specified position up the max heap
+     *
+     * @param keys The keys in the heap
+     * @param indices The point indices in the heap
+     * @param position The entry's position
+     */
+    private static void siftUp( double[] keys, int[] indices, int position )
+    {
+        double key = keys[position];
+        int index = indices[position];
+        while( position > 0 )
+        {
+            int parent = (position - 1) / 2;
+            if( !isCloser( keys[parent], indices[parent], key, index ) )
+            {
+                break;
+            }
+            keys[position] = keys[parent];
+            indices[position] = indices[parent];
+            position = parent;
+        }
+        keys[position] = key;
+        indices[position] = index;
+    }
+
+    /**
+     * Moves the root of the max heap down until the heap is restored
+     *
+     * @param keys The keys in the heap
+     * @param indices The point indices in the heap
+     * @param size The size of the heap
+     */
+    private static void siftDown( double[] keys, int[] indices, int size )
+    {
+        if( 0 == size )
+        {
+            return;
+        }
+
+        double key = keys[0];
+        int index = indices[0];
+        int position = 0;
+        while( true )
+        {
+            // Find the farthest child
+            int child = (2 * position) + 1;
+            if( child >= size )
+            {
+                break;
+            }
+            if( (child + 1 < size)
+                    && isCloser( keys[child], indices[child],
+                            keys[child + 1], indices[child + 1] ) )
+            {
+                child++;
+            }
+
+            if( !isCloser( key, index, keys[child], indices[child] ) )
+            {
+                break;
+            }
+            keys[position] = keys[child];
+            indices[position] = indices[child];
+            position = child;
+        }
+        keys[position] = key;
+        indices[position] = index;
+    }
+}
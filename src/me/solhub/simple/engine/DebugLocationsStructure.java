@@ -138,6 +138,9 @@ public class DebugLocationsStructure extends AbstractGameStructure
             executeRun();
         }
 
+        // wait for the reports to be written
+        _simState.waitForReports();
+
         _LOG.trace( "Leaving execute()" );
     }
 
@@ -263,7 +266,7 @@ public class DebugLocationsStructure extends AbstractGameStructure
 
         // if global and only one can initiate then use adhesion time limit
         if( _simState.getCommunicationType().equals( "global" )
-                && !Agent.canMultipleInitiate() )
+                && !_simState.canMultipleInitiate )
         {
             isActive = true;
             int groupCount = 0;
@@ -384,7 +387,7 @@ public class DebugLocationsStructure extends AbstractGameStructure
         _adhesionTimeLimit = Integer.parseInt( adhesionTimeLimit );
 
         // add the adhesion time limit info to root directory
-        _simState.setRootDirectory( Reporter.ROOT_DIRECTORY
+        _simState.setRootDirectory( _simState.getRootDirectory()
                 + "adhesion-time-limit=" + _adhesionTimeLimit + "_" );
 
         // Load and instantiate the agent builder
@@ -420,6 +423,9 @@ public class DebugLocationsStructure extends AbstractGameStructure
             _initiatingAgent = null;
             _numberFollowing = 0;
         }
+
+        // wait for the reports to be written before the window can close
+        _simState.waitForReports();
     }
 
     boolean isDestinationColors = false;
@@ -503,7 +509,7 @@ public class DebugLocationsStructure extends AbstractGameStructure
 //                    else if(temp.getCurrentDecision().getDecision().getDecisionType().equals(
 //                            DecisionType.CANCELLATION ) 
 //                            && _simState.getCommunicationType().equals( "global" )
-//                            && !Agent.canMultipleInitiate()
+//                            && !_simState.canMultipleInitiate
 //                            )
 //                    {
 //                        bbg.setColor( Color.RED );
@@ -533,7 +539,7 @@ public class DebugLocationsStructure extends AbstractGameStructure
         bbg.drawString( "Delay: " + LIVE_DELAY, _fontXOffset, _fontYOffset + _fontSize * 2 );
         
         if( _simState.getCommunicationType().equals( "global" )
-                && !Agent.canMultipleInitiate() )
+                && !_simState.canMultipleInitiate )
         {
             String initiatorName = "None";
             if(_initiatingAgent != null){